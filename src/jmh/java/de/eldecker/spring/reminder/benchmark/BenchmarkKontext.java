@@ -0,0 +1,69 @@
+package de.eldecker.spring.reminder.benchmark;
+
+import java.util.Arrays;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import de.eldecker.spring.reminder.EmailReminderApplication;
+
+import jakarta.mail.internet.MimeMessage;
+
+
+/**
+ * Startet den Spring-Kontext der Anwendung für Benchmarks: ohne Web-Server, mit einer
+ * In-Memory-Datenbank und mit einem Mail-Sender, der die Nachrichten zwar wie
+ * {@link JavaMailSenderImpl} aufbaut, aber nicht per SMTP versendet.
+ */
+final class BenchmarkKontext {
+    
+    /** Statische Hilfsklasse, keine Instanzen. */
+    private BenchmarkKontext() {}
+    
+    
+    /**
+     * Startet neuen Anwendungskontext; dieser muss vom Aufrufer wieder geschlossen werden.
+     * 
+     * @param datenbankName Name der In-Memory-Datenbank, damit sich Benchmarks nicht 
+     *                      gegenseitig beeinflussen
+     * 
+     * @param zusatzArgumente Weitere Kommandozeilen-Argumente, z.B. für einen anderen
+     *                        Speicher für die Reminder
+     * 
+     * @return Gestarteter Anwendungskontext
+     */
+    static ConfigurableApplicationContext starte( String datenbankName, String... zusatzArgumente ) {
+        
+        final String[] argumente = { "--spring.datasource.url=jdbc:h2:mem:" + datenbankName + ";DB_CLOSE_DELAY=-1",
+                                     "--logging.level.root=WARN",
+                                     "--logging.level.de.eldecker.spring.reminder.db_influx=OFF",
+                                     "--management.influx.metrics.export.enabled=false",
+                                     "--de.eldecker.reminder.drossel_pro_minute=0",
+                                     "--de.eldecker.reminder.drossel_pro_tag=0" };
+        
+        final String[] alleArgumente = Arrays.copyOf( argumente, argumente.length + zusatzArgumente.length );
+        System.arraycopy( zusatzArgumente, 0, alleArgumente, argumente.length, zusatzArgumente.length );
+        
+        return new SpringApplicationBuilder( EmailReminderApplication.class )
+                    .web( WebApplicationType.NONE )
+                    .initializers( kontext -> kontext.getBeanFactory()
+                                                     .registerSingleton( "mailSender", new KeinVersandMailSender() ) )
+                    .run( alleArgumente );
+    }
+    
+    
+    /**
+     * Mail-Sender, der die MIME-Nachrichten erzeugt, aber keine SMTP-Verbindung aufbaut.
+     */
+    private static final class KeinVersandMailSender extends JavaMailSenderImpl {
+        
+        @Override
+        protected void doSend( MimeMessage[] mimeMessages, Object[] originalMessages ) {
+            
+            // nichts zu tun
+        }
+    }
+
+}
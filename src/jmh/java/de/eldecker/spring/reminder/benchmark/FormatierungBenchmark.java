@@ -0,0 +1,60 @@
+package de.eldecker.spring.reminder.benchmark;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.time.LocalDateTime;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.eldecker.spring.reminder.db_jpa.ReminderEntity;
+import de.eldecker.spring.reminder.helferlein.ZeitpunktFormatierer;
+
+
+/**
+ * Benchmarks für die Formatierung, die für jede Zeile der Reminder-Liste 
+ * (Template {@code liste.html}) ausgeführt wird.
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( NANOSECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+@State( Scope.Benchmark )
+public class FormatierungBenchmark {
+    
+    private LocalDateTime _zeitpunkt;
+    
+    private ReminderEntity _reminder;
+    
+    
+    @Setup
+    public void vorbereiten() {
+        
+        _zeitpunkt = LocalDateTime.of( 2026, 12, 23, 7, 10 );
+        _reminder  = new ReminderEntity( "Schon alle Weihnachtsgeschenke besorgt?", _zeitpunkt );
+    }
+    
+    
+    @Benchmark
+    public String formatiere() {
+        
+        return ZeitpunktFormatierer.formatiere( _zeitpunkt );
+    }
+    
+    
+    @Benchmark
+    public String reminderToString() {
+        
+        return _reminder.toString();
+    }
+
+}
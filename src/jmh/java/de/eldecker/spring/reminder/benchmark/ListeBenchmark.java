@@ -0,0 +1,167 @@
+package de.eldecker.spring.reminder.benchmark;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.springframework.data.domain.Sort.Direction.ASC;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import de.eldecker.spring.reminder.db_jpa.ReminderAnzeige;
+import de.eldecker.spring.reminder.db_jpa.ReminderEntity;
+import de.eldecker.spring.reminder.db_jpa.ReminderRepo;
+import de.eldecker.spring.reminder.logik.ReminderService;
+import de.eldecker.spring.reminder.model.ReminderSeite;
+
+
+/**
+ * Benchmark für das Laden der Reminder-Liste zur Anzeige: verglichen werden verwaltete
+ * Entities (mit {@code String.format()} in {@link ReminderEntity#toString()}) mit den 
+ * read-only Projektionen, die die Seite "liste.html" über 
+ * {@link ReminderService#getReminderSeite(boolean, LocalDateTime, Long, int)} lädt, einmal 
+ * nur für die erste Seite und einmal für alle Seiten nacheinander (Keyset-Pagination).
+ * Für jede Zeile wird wie im Template der Anzeige-Text abgerufen.
+ * <br><br>
+ * 
+ * Heap-Verbrauch und GC-Zeit pro Aufruf zeigt der GC-Profiler von JMH:
+ * <pre>
+ * ./mvnw -P jmh verify -Djmh.filter=ListeBenchmark -Djmh.optionen="-prof gc"
+ * </pre>
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( MILLISECONDS )
+@Warmup( iterations = 5 )
+@Measurement( iterations = 10 )
+@Fork( 1 )
+@State( Scope.Benchmark )
+public class ListeBenchmark {
+    
+    private static final String SQL_INSERT =
+            """
+            INSERT INTO REMINDER ( ID, REMINDER_TEXT, ZEITPUNKT_ANGELEGT, ZEITPUNKT_FAELLIG, SCHON_VERSENDET )
+                 VALUES ( ?, ?, ?, ?, FALSE )
+            """;
+    
+    private static final int BATCH_GROESSE = 10_000;
+    
+    /** Default für Property {@code de.eldecker.reminder.liste_seitengroesse}. */
+    private static final int SEITEN_GROESSE = 50;
+    
+    /** Anzahl der Reminder in der Datenbank. */
+    @Param( { "1000", "100000" } )
+    private int _anzahlReminder;
+    
+    private ConfigurableApplicationContext _kontext;
+    
+    private ReminderService _reminderService;
+    
+    private ReminderRepo _reminderRepo;
+    
+    private final Sort _sortByZeitpunktFaelligAsc = Sort.by( ASC, "_zeitpunktFaellig" );
+    
+    
+    @Setup( Level.Trial )
+    public void starten() {
+        
+        _kontext         = BenchmarkKontext.starte( "liste" );
+        _reminderService = _kontext.getBean( ReminderService.class );
+        _reminderRepo    = _kontext.getBean( ReminderRepo.class    );
+        
+        final JdbcTemplate jdbcTemplate = _kontext.getBean( JdbcTemplate.class );
+        jdbcTemplate.update( "DELETE FROM REMINDER" );
+        
+        final LocalDateTime angelegt = LocalDateTime.now();
+        
+        final List<Object[]> batch = new ArrayList<>( BATCH_GROESSE );
+        for ( int i = 0; i < _anzahlReminder; i++ ) {
+            
+            final long id = 1_000_000_000L + i;
+            batch.add( new Object[] { id, 
+                                      "Benchmark-Reminder " + id, 
+                                      Timestamp.valueOf( angelegt ), 
+                                      Timestamp.valueOf( angelegt.plusMinutes( i ) ) } );
+            
+            if ( batch.size() == BATCH_GROESSE ) {
+                
+                jdbcTemplate.batchUpdate( SQL_INSERT, batch );
+                batch.clear();
+            }
+        }
+        if ( !batch.isEmpty() ) {
+            
+            jdbcTemplate.batchUpdate( SQL_INSERT, batch );
+        }
+    }
+    
+    
+    @TearDown( Level.Trial )
+    public void beenden() {
+        
+        _kontext.close();
+    }
+    
+    
+    @Benchmark
+    public void entities( Blackhole blackhole ) {
+        
+        for ( ReminderEntity reminder : _reminderRepo.findAll( _sortByZeitpunktFaelligAsc ) ) {
+            
+            blackhole.consume( reminder.toString() );
+        }
+    }
+    
+    
+    @Benchmark
+    public void ersteSeite( Blackhole blackhole ) {
+        
+        final ReminderSeite seite = _reminderService.getReminderSeite( false, null, null, SEITEN_GROESSE );
+        for ( ReminderAnzeige reminder : seite.reminder() ) {
+            
+            blackhole.consume( reminder.toString() );
+        }
+    }
+    
+    
+    @Benchmark
+    public void alleSeiten( Blackhole blackhole ) {
+        
+        LocalDateTime nachZeitpunkt = null;
+        Long          nachId        = null;
+        while ( true ) {
+            
+            final ReminderSeite seite = _reminderService.getReminderSeite( false, nachZeitpunkt, nachId, SEITEN_GROESSE );
+            for ( ReminderAnzeige reminder : seite.reminder() ) {
+                
+                blackhole.consume( reminder.toString() );
+            }
+            if ( !seite.hatWeitere() ) {
+                
+                break;
+            }
+            
+            final ReminderAnzeige letzter = seite.reminder().getLast();
+            nachZeitpunkt = letzter.zeitpunktFaellig();
+            nachId        = letzter.id();
+        }
+    }
+
+}
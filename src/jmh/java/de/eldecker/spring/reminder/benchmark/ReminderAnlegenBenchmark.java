@@ -0,0 +1,94 @@
+package de.eldecker.spring.reminder.benchmark;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import de.eldecker.spring.reminder.logik.ReminderService;
+import de.eldecker.spring.reminder.model.ReminderException;
+
+
+/**
+ * Benchmarks für {@link ReminderService#reminderAnlegen(int, int, int, int, int, String)}
+ * gegen eine In-Memory-H2-Datenbank: einmal mit gültigen Eingaben (Validierung und 
+ * Persistierung) und einmal mit ungültigem Datum (nur Validierung).
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( MICROSECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+@State( Scope.Benchmark )
+public class ReminderAnlegenBenchmark {
+    
+    private ConfigurableApplicationContext _kontext;
+    
+    private ReminderService _reminderService;
+    
+    private JdbcTemplate _jdbcTemplate;
+    
+    private int _zaehler = 0;
+    
+    
+    @Setup( Level.Trial )
+    public void starten() {
+        
+        _kontext         = BenchmarkKontext.starte( "anlegen" );
+        _reminderService = _kontext.getBean( ReminderService.class );
+        _jdbcTemplate    = _kontext.getBean( JdbcTemplate.class );
+    }
+    
+    
+    @TearDown( Level.Iteration )
+    public void aufraeumen() {
+        
+        _jdbcTemplate.update( "DELETE FROM REMINDER" );
+    }
+    
+    
+    @TearDown( Level.Trial )
+    public void beenden() {
+        
+        _kontext.close();
+    }
+    
+    
+    @Benchmark
+    public long reminderAnlegen() throws ReminderException {
+        
+        _zaehler++;
+        
+        return _reminderService.reminderAnlegen( 1 + _zaehler % 28, 1 + _zaehler % 12, 2099, 
+                                                 _zaehler % 24, _zaehler % 60, 
+                                                 "Benchmark-Reminder " + _zaehler );
+    }
+    
+    
+    @Benchmark
+    public String reminderAnlegenUngueltig() {
+        
+        try {
+            
+            _reminderService.reminderAnlegen( 31, 2, 2099, 12, 0, "Ungültiges Datum" );
+            return null;
+        }
+        catch ( ReminderException ex ) {
+            
+            return ex.getMessage();
+        }
+    }
+
+}
@@ -0,0 +1,147 @@
+package de.eldecker.spring.reminder.benchmark;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import de.eldecker.spring.reminder.db_jpa.ReminderEntity;
+import de.eldecker.spring.reminder.db_jpa.ReminderSpeicher;
+import de.eldecker.spring.reminder.logik.ReminderService;
+import de.eldecker.spring.reminder.model.ReminderException;
+
+
+/**
+ * Vergleicht die beiden Speicher für Reminder (Property {@code de.eldecker.reminder.speicher}):
+ * H2 über JPA und das Append-only-Journal. Gemessen wird der Durchsatz beim Anlegen von
+ * Remindern über {@link ReminderService#reminderAnlegen(int, int, int, int, int, String)}
+ * und die Dauer von {@link ReminderService#versendeEmails()} für eine feste Anzahl fälliger
+ * Reminder (ohne SMTP).
+ */
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+@State( Scope.Benchmark )
+public class SpeicherBenchmark {
+    
+    /** Wert für Property {@code de.eldecker.reminder.speicher}. */
+    @Param( { "jpa", "journal" } )
+    private String _speicher;
+    
+    private ConfigurableApplicationContext _kontext;
+    
+    private ReminderService _reminderService;
+    
+    private ReminderSpeicher _reminderSpeicher;
+    
+    private JdbcTemplate _jdbcTemplate;
+    
+    /** Journal-Datei in temporärem Verzeichnis, wird nach dem Benchmark gelöscht. */
+    private Path _journalDatei;
+    
+    private int _zaehler = 0;
+    
+    
+    /**
+     * Fällige Reminder für {@link SpeicherBenchmark#versendeEmails(FaelligeReminder)}, werden
+     * vor jeder Iteration über das Repo eingefügt.
+     */
+    @State( Scope.Benchmark )
+    public static class FaelligeReminder {
+        
+        /** Anzahl der fälligen Reminder beim Aufruf von {@code versendeEmails()}. */
+        @Param( { "1000" } )
+        private int _anzahlFaellig;
+        
+        @Setup( Level.Iteration )
+        public void einfuegen( SpeicherBenchmark benchmark ) {
+            
+            final LocalDateTime faellig = LocalDateTime.now().minusMinutes( 1 );
+            
+            final List<ReminderEntity> reminderListe = new ArrayList<>( _anzahlFaellig );
+            for ( int i = 0; i < _anzahlFaellig; i++ ) {
+                
+                reminderListe.add( new ReminderEntity( "Benchmark-Reminder " + i, faellig ) );
+            }
+            benchmark._reminderSpeicher.saveAll( reminderListe );
+        }
+    }
+    
+    
+    @Setup( Level.Trial )
+    public void starten() throws IOException {
+        
+        _journalDatei = Files.createTempDirectory( "reminder-journal" ).resolve( "reminder.journal" );
+        
+        _kontext          = BenchmarkKontext.starte( "speicher-" + _speicher,
+                                                     "--de.eldecker.reminder.speicher="      + _speicher,
+                                                     "--de.eldecker.reminder.journal_datei=" + _journalDatei );
+        _reminderService  = _kontext.getBean( ReminderService.class  );
+        _reminderSpeicher = _kontext.getBean( ReminderSpeicher.class );
+        _jdbcTemplate     = _kontext.getBean( JdbcTemplate.class     );
+    }
+    
+    
+    @TearDown( Level.Iteration )
+    public void aufraeumen() {
+        
+        _reminderSpeicher.deleteAllInBatch();
+        _jdbcTemplate.update( "DELETE FROM POSTAUSGANG" );
+    }
+    
+    
+    @TearDown( Level.Trial )
+    public void beenden() throws IOException {
+        
+        _kontext.close();
+        
+        Files.deleteIfExists( _journalDatei );
+        Files.deleteIfExists( _journalDatei.getParent() );
+    }
+    
+    
+    @Benchmark
+    @BenchmarkMode( Mode.Throughput )
+    @OutputTimeUnit( SECONDS )
+    public long reminderAnlegen() throws ReminderException {
+        
+        _zaehler++;
+        
+        return _reminderService.reminderAnlegen( 1 + _zaehler % 28, 1 + _zaehler % 12, 2099,
+                                                 _zaehler % 24, _zaehler % 60,
+                                                 "Benchmark-Reminder " + _zaehler );
+    }
+    
+    
+    @Benchmark
+    @BenchmarkMode( Mode.SingleShotTime )
+    @OutputTimeUnit( MILLISECONDS )
+    @Warmup( iterations = 5 )
+    @Measurement( iterations = 20 )
+    public void versendeEmails( FaelligeReminder faelligeReminder ) {
+        
+        _reminderService.versendeEmails();
+    }
+
+}
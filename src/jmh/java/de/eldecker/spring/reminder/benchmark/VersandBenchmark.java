@@ -0,0 +1,103 @@
+package de.eldecker.spring.reminder.benchmark;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import de.eldecker.spring.reminder.logik.ReminderService;
+
+
+/**
+ * Benchmark für {@link ReminderService#versendeEmails()} mit unterschiedlich vielen
+ * fälligen Remindern (z.B. nach einer Downtime). Vor jeder Iteration werden die fälligen
+ * Reminder per JDBC eingefügt; gemessen wird genau ein Aufruf von {@code versendeEmails()}
+ * inkl. Aufbau der MIME-Nachrichten, aber ohne SMTP.
+ */
+@BenchmarkMode( Mode.SingleShotTime )
+@OutputTimeUnit( MILLISECONDS )
+@Warmup( iterations = 5 )
+@Measurement( iterations = 20 )
+@Fork( 1 )
+@State( Scope.Benchmark )
+public class VersandBenchmark {
+    
+    private static final String SQL_INSERT =
+            """
+            INSERT INTO REMINDER ( ID, REMINDER_TEXT, ZEITPUNKT_ANGELEGT, ZEITPUNKT_FAELLIG, SCHON_VERSENDET )
+                 VALUES ( ?, ?, ?, ?, FALSE )
+            """;
+    
+    /** Anzahl der fälligen Reminder beim Aufruf von {@code versendeEmails()}. */
+    @Param( { "10", "100", "1000", "10000" } )
+    private int _anzahlFaellig;
+    
+    private ConfigurableApplicationContext _kontext;
+    
+    private ReminderService _reminderService;
+    
+    private JdbcTemplate _jdbcTemplate;
+    
+    /** Nächste ID für eingefügte Reminder, weit hinter den IDs aus der Sequenz. */
+    private long _naechsteId = 1_000_000_000L;
+    
+    
+    @Setup( Level.Trial )
+    public void starten() {
+        
+        _kontext         = BenchmarkKontext.starte( "versand" );
+        _reminderService = _kontext.getBean( ReminderService.class );
+        _jdbcTemplate    = _kontext.getBean( JdbcTemplate.class );
+    }
+    
+    
+    @Setup( Level.Iteration )
+    public void faelligeReminderEinfuegen() {
+        
+        _jdbcTemplate.update( "DELETE FROM REMINDER"    );
+        _jdbcTemplate.update( "DELETE FROM POSTAUSGANG" );
+        
+        final Timestamp faellig = Timestamp.valueOf( LocalDateTime.now().minusMinutes( 1 ) );
+        
+        final List<Object[]> batch = new ArrayList<>( _anzahlFaellig );
+        for ( int i = 0; i < _anzahlFaellig; i++ ) {
+            
+            final long id = _naechsteId++;
+            batch.add( new Object[] { id, "Benchmark-Reminder " + id, faellig, faellig } );
+        }
+        _jdbcTemplate.batchUpdate( SQL_INSERT, batch );
+    }
+    
+    
+    @TearDown( Level.Trial )
+    public void beenden() {
+        
+        _kontext.close();
+    }
+    
+    
+    @Benchmark
+    public void versendeEmails() {
+        
+        _reminderService.versendeEmails();
+    }
+
+}
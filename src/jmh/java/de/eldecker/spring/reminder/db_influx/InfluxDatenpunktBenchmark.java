@@ -0,0 +1,49 @@
+package de.eldecker.spring.reminder.db_influx;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.influxdb.client.write.Point;
+
+
+/**
+ * Benchmarks für das Erzeugen der Datenpunkte für die InfluxDB, jeweils mit und ohne
+ * Umwandlung in das Line Protocol (das macht der Client beim Schreiben eines Batches).
+ * Die Klasse liegt im selben Package wie {@link InfluxDB}, weil die Methoden zum 
+ * Erzeugen der Datenpunkte nicht öffentlich sind.
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( NANOSECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+public class InfluxDatenpunktBenchmark {
+    
+    @Benchmark
+    public Point datenpunktAnzahlReminder() {
+        
+        return InfluxDB.erzeugeDatenpunktAnzahlReminder( 1234, 56 );
+    }
+    
+    
+    @Benchmark
+    public String datenpunktAnzahlReminderLineProtocol() {
+        
+        return InfluxDB.erzeugeDatenpunktAnzahlReminder( 1234, 56 ).toLineProtocol();
+    }
+    
+    
+    @Benchmark
+    public String datenpunktAnzahlEmailsLineProtocol() {
+        
+        return InfluxDB.erzeugeDatenpunktAnzahlEmails( 7 ).toLineProtocol();
+    }
+
+}
@@ -1,21 +1,27 @@
 package de.eldecker.spring.reminder.db_influx;
 
 import static java.time.Instant.now;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 import com.influxdb.client.InfluxDBClient;
 import com.influxdb.client.QueryApi;
-import com.influxdb.client.WriteApiBlocking;
 import com.influxdb.client.domain.WritePrecision;
 import com.influxdb.client.write.Point;
-import com.influxdb.exceptions.InfluxException;
 import com.influxdb.query.FluxRecord;
 import com.influxdb.query.FluxTable;
 
@@ -27,6 +33,15 @@ import com.influxdb.query.FluxTable;
  * Zum Begriff "Measurement":
  * Eine Measurement kann mehrere Zeitreihen enthalten, wobei die einzelnen
  * Zeitreihen dann durch Tags unterschieden werden.
+ * <br><br>
+ * 
+ * Die Datenpunkte werden nicht direkt geschrieben, sondern an den {@link InfluxSchreibPuffer}
+ * übergeben, damit die Aufrufer nicht auf die InfluxDB warten müssen.
+ * <br><br>
+ * 
+ * Die Gesamtzahl der versendeten Emails wird nicht bei jedem Aufruf von
+ * {@link #getGesamtzahlEmails()} mit einer Flux-Abfrage über die gesamte Historie
+ * ermittelt, sondern lokal fortgeschrieben und nur periodisch mit der InfluxDB abgeglichen.
  */
 @Component
 public class InfluxDB {
@@ -37,6 +52,9 @@ public class InfluxDB {
     /** Bean für Zugriff auf InfluxDB-Instanz. */
     private final InfluxDBClient _influxDBClient;
 
+    /** Bean für asynchrones Schreiben von Datenpunkten in Batches. */
+    private final InfluxSchreibPuffer _schreibPuffer;
+
     /** Measurement für Anzahl versendeter und ausstehender Reminder. */
     private static final String MEASUREMENT_REMINDER_ANZAHL = "reminder_anzahl";
 
@@ -54,15 +72,33 @@ public class InfluxDB {
     
     @Value( "${influxdb.bucket}" )
     private String _bucket;
+    
+    /**
+     * Maximale Wartezeit in Millisekunden für {@link #getGesamtzahlEmails()}, wenn noch
+     * kein Wert aus der InfluxDB gelesen werden konnte.
+     */
+    @Value( "${influxdb.gesamtzahl_wartezeit_ms:2000}" )
+    private long _wartezeitMs;
+    
+    /** Zuletzt aus der InfluxDB gelesene Gesamtzahl der Emails, {@code -1} wenn noch unbekannt. */
+    private volatile long _gesamtzahlEmailsInfluxDB = -1;
+    
+    /** Anzahl der seit Beginn der letzten erfolgreichen Abfrage versendeten Emails. */
+    private final AtomicLong _anzahlEmailsSeitAbfrage = new AtomicLong( 0 );
+    
+    /** Gerade laufende Abfrage der Gesamtzahl, damit parallele Aktualisierungen zusammengefasst werden. */
+    private final AtomicReference<CompletableFuture<Boolean>> _laufendeAbfrage = new AtomicReference<>();
 
 
     /**
      * Konstruktor für Dependency Injection.
      */
     @Autowired
-    public InfluxDB( InfluxDBClient influxDbClient ) {
+    public InfluxDB( @Lazy InfluxDBClient influxDbClient,
+                     InfluxSchreibPuffer  schreibPuffer ) {
 
         _influxDBClient = influxDbClient;
+        _schreibPuffer  = schreibPuffer;
     }
 
 
@@ -76,26 +112,12 @@ public class InfluxDB {
      */
     public void schreibeAnzahlReminder( int anzahlSchonVersendet, int anzahlNochNichtVersendet ) {
 
-        try {
-
-            final WriteApiBlocking influxSchreiber = _influxDBClient.getWriteApiBlocking();
-
-            final Point datenpunkt = Point.measurement( MEASUREMENT_REMINDER_ANZAHL )
-                                          .addField( FELD_SCHON_VERSENDET , anzahlSchonVersendet     )
-                                          .addField( FELD_NICHT_VERSENDET , anzahlNochNichtVersendet )
-                                          .time( now(), WritePrecision.S );
+        final Point datenpunkt = erzeugeDatenpunktAnzahlReminder( anzahlSchonVersendet, anzahlNochNichtVersendet );
 
-            influxSchreiber.writePoint( datenpunkt );
-
-            LOG.info( "Metrikwerte in InfluxDB geschrieben: schon versendet={}, nicht versendet={}",
-                      anzahlSchonVersendet, anzahlNochNichtVersendet );
-        }
-        catch ( InfluxException ex ) {
+        _schreibPuffer.hinzufuegen( datenpunkt );
 
-            LOG.error(
-                    "Fehler beim Versuch Zeitreihenwerte fuer (nicht)versendete Reminder zu schreiben.",
-                    ex );
-        }
+        LOG.info( "Metrikwerte fuer InfluxDB gepuffert: schon versendet={}, nicht versendet={}",
+                  anzahlSchonVersendet, anzahlNochNichtVersendet );
     }
 
 
@@ -108,31 +130,160 @@ public class InfluxDB {
      */        
     public void schreibeAnzahlEmails( int anzahlReminderVersendet ) {
 
-        try {
-
-            final WriteApiBlocking influxSchreiber = _influxDBClient.getWriteApiBlocking();
-
-            final Point datenpunkt = Point.measurement( MEASUREMENT_REMINDER_EMAILS )
-                                          .addField( FELD_ANZAHL, anzahlReminderVersendet )
-                                          .time( now(), WritePrecision.S );
+        final Point datenpunkt = erzeugeDatenpunktAnzahlEmails( anzahlReminderVersendet );
 
-            influxSchreiber.writePoint( datenpunkt );
+        _schreibPuffer.hinzufuegen( datenpunkt );
+        
+        _anzahlEmailsSeitAbfrage.addAndGet( anzahlReminderVersendet );
+    }
+    
+    
+    /**
+     * Erzeugt Datenpunkt für Measurement {@link #MEASUREMENT_REMINDER_ANZAHL} mit aktuellem 
+     * Zeitstempel.
+     * 
+     * @param anzahlSchonVersendet Anzahl der bereits versendeten Reminder
+     * 
+     * @param anzahlNochNichtVersendet Anzahl der Reminder, die noch nicht versendet wurden
+     * 
+     * @return Datenpunkt für InfluxDB
+     */
+    static Point erzeugeDatenpunktAnzahlReminder( int anzahlSchonVersendet, int anzahlNochNichtVersendet ) {
+        
+        return Point.measurement( MEASUREMENT_REMINDER_ANZAHL )
+                    .addField( FELD_SCHON_VERSENDET , anzahlSchonVersendet     )
+                    .addField( FELD_NICHT_VERSENDET , anzahlNochNichtVersendet )
+                    .time( now(), WritePrecision.S );
+    }
+    
+    
+    /**
+     * Erzeugt Datenpunkt für Measurement {@link #MEASUREMENT_REMINDER_EMAILS} mit aktuellem 
+     * Zeitstempel.
+     * 
+     * @param anzahlReminderVersendet Anzahl Emails, die versendet wurden
+     * 
+     * @return Datenpunkt für InfluxDB
+     */
+    static Point erzeugeDatenpunktAnzahlEmails( int anzahlReminderVersendet ) {
+        
+        return Point.measurement( MEASUREMENT_REMINDER_EMAILS )
+                    .addField( FELD_ANZAHL, anzahlReminderVersendet )
+                    .time( now(), WritePrecision.S );
+    }
+    
+    
+    /**
+     * Methode liefert Anzahl der insgesamt versendeten Emails zurück: Das ist der zuletzt
+     * aus der InfluxDB gelesene Wert plus die seitdem lokal gezählten Emails. Wenn die
+     * InfluxDB nicht erreichbar ist, dann wird also der letzte bekannte Wert fortgeschrieben.
+     * <br><br>
+     * 
+     * Nur wenn noch nie ein Wert gelesen werden konnte, dann wird eine Abfrage angestoßen
+     * und höchstens {@link #_wartezeitMs} Millisekunden auf diese gewartet.
+     *  
+     * @return Anzahl insgesamt versendeter Emails, {@code -1} wenn noch kein Wert aus der
+     *         InfluxDB gelesen werden konnte.
+     */
+    public long getGesamtzahlEmails() {
+        
+        if ( _gesamtzahlEmailsInfluxDB < 0 ) {
+            
+            try {
+                
+                aktualisiereGesamtzahlEmails().get( _wartezeitMs, MILLISECONDS );
+            }
+            catch ( TimeoutException ex ) {
+                
+                LOG.warn( "Keine Antwort von InfluxDB innerhalb von {}ms fuer Gesamtanzahl Emails.", _wartezeitMs );
+            }
+            catch ( InterruptedException ex ) {
+                
+                Thread.currentThread().interrupt();
+            }
+            catch ( ExecutionException ex ) {
+                
+                LOG.error( "Fehler beim Aktualisieren der Gesamtanzahl Emails.", ex.getCause() );
+            }
         }
-        catch ( InfluxException ex ) {
-
-            LOG.error(
-                    "Fehler beim Versuch Anzahl versendeter Emails zu schreiben.", ex );                    
+        
+        final long gesamtzahlInfluxDB = _gesamtzahlEmailsInfluxDB;
+        if ( gesamtzahlInfluxDB < 0 ) {
+            
+            return -1;
+        }
+        
+        return gesamtzahlInfluxDB + _anzahlEmailsSeitAbfrage.get();
+    }
+    
+    
+    /**
+     * Periodischer Abgleich der lokal fortgeschriebenen Gesamtzahl der Emails mit der InfluxDB;
+     * der erste Abgleich erfolgt direkt nach dem Start.
+     */
+    @Scheduled( fixedDelayString = "${influxdb.gesamtzahl_aktualisierung_ms:900000}" )
+    public void abgleichGesamtzahlEmails() {
+        
+        aktualisiereGesamtzahlEmails();
+    }
+    
+    
+    /**
+     * Stößt eine Abfrage der Gesamtzahl der Emails auf einem eigenen virtuellen Thread an,
+     * damit der aufrufende Thread (z.B. der Scheduler) nicht auf die InfluxDB wartet. Läuft
+     * bereits eine Abfrage, dann wird keine weitere gestartet, sondern die laufende zurückgegeben.
+     * <br><br>
+     * 
+     * Emails, die nach Beginn der Abfrage versendet wurden, bleiben im lokalen Zähler.
+     * Datenpunkte, die zu diesem Zeitpunkt noch im {@link InfluxSchreibPuffer} waren, fehlen
+     * allerdings bis zum nächsten Abgleich in der Gesamtzahl.
+     * 
+     * @return Future, das mit {@code true} abgeschlossen wird, wenn ein neuer Wert gelesen wurde
+     */
+    public CompletableFuture<Boolean> aktualisiereGesamtzahlEmails() {
+        
+        final CompletableFuture<Boolean> neueAbfrage    = new CompletableFuture<>();
+        final CompletableFuture<Boolean> laufendeAbfrage = _laufendeAbfrage.compareAndExchange( null, neueAbfrage );
+        if ( laufendeAbfrage != null ) {
+            
+            return laufendeAbfrage;
         }
+        
+        Thread.ofVirtual().name( "influx-gesamtzahl" ).start( () -> {
+            
+            boolean erfolg = false;
+            try {
+                
+                final long anzahlVorAbfrage = _anzahlEmailsSeitAbfrage.get();
+                final long gesamtzahl       = frageGesamtzahlEmailsAb();
+                if ( gesamtzahl >= 0 ) {
+                    
+                    _gesamtzahlEmailsInfluxDB = gesamtzahl;
+                    _anzahlEmailsSeitAbfrage.addAndGet( -anzahlVorAbfrage );
+                    erfolg = true;
+                    
+                    LOG.info( "Gesamtanzahl Emails aus InfluxDB gelesen: {}", gesamtzahl );
+                }
+            }
+            finally {
+                
+                _laufendeAbfrage.set( null );
+                neueAbfrage.complete( erfolg );
+            }
+        });
+        
+        return neueAbfrage;
     }
     
     
     /**
-     * Methode liefert Anzahl der insgesamt versendeten Emails zurück.
+     * Liest die Anzahl der insgesamt versendeten Emails mit einer Flux-Abfrage über die
+     * gesamte Historie aus der InfluxDB.
      *  
      * @return Anzahl insgesamt versendeter Emails, {@code -1} wenn hierbei ein
      *         Fehler aufgetreten ist.
      */    
-    public int getGesamtzahlEmails() {
+    private long frageGesamtzahlEmailsAb() {
 
     	final String fluxQuery = 
 	    	"""
@@ -156,7 +307,7 @@ public class InfluxDB {
                     final Object value = record.getValue();
                     if ( value instanceof Number ) {
                     	
-                        return ((Number) value).intValue();
+                        return ((Number) value).longValue();
                     }
                 }
             }
@@ -3,6 +3,7 @@ package de.eldecker.spring.reminder.db_influx;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
 
 import com.influxdb.client.InfluxDBClient;
 import com.influxdb.client.InfluxDBClientFactory;
@@ -30,10 +31,16 @@ public class InfluxDBConfig {
     
     /**
      * Methode erzeugt Bean mit Client für Zugriff auf InfluxDB.
+     * <br><br>
+     * 
+     * Die Bean wird erst beim ersten Zugriff erzeugt (die Injection-Punkte sind ebenfalls
+     * mit {@code @Lazy} annotiert und erhalten einen Proxy), damit das Laden der Klassen 
+     * des Clients (OkHttp, Retrofit, ...) nicht auf dem kritischen Pfad des Starts liegt.
      *  
      * @return Konfigurierter InfluxDB-Client als Bean.
      */
     @Bean
+    @Lazy
     public InfluxDBClient influxDBClient() {
         
         return InfluxDBClientFactory.create( _influxDBUrl, 
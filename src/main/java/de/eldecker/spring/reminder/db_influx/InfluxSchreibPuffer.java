@@ -0,0 +1,318 @@
+package de.eldecker.spring.reminder.db_influx;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import com.influxdb.client.InfluxDBClient;
+import com.influxdb.client.write.Point;
+import com.influxdb.exceptions.InfluxException;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+
+/**
+ * Bean-Klasse für das nicht-blockierende Schreiben von Datenpunkten in die InfluxDB.
+ * <br><br>
+ * 
+ * Die Datenpunkte werden zunächst nur in einen Puffer mit fester Kapazität geschrieben;
+ * ein eigener Thread schreibt sie dann in Batches in die InfluxDB, und zwar sobald
+ * {@link #_batchGroesse} Datenpunkte vorliegen oder spätestens nach {@link #_flushIntervallMs}
+ * Millisekunden. Eine langsame oder nicht erreichbare InfluxDB verzögert also nicht mehr
+ * die Aufrufer (z.B. das Anlegen eines Reminders).
+ * <br><br>
+ * 
+ * Ein Batch, dessen Schreiben fehlschlägt, wird nicht wiederholt, sondern nur gezählt.
+ * Beim Herunterfahren der Anwendung wird der Puffer noch geleert.
+ */
+@Component
+public class InfluxSchreibPuffer {
+    
+    private static Logger LOG = LoggerFactory.getLogger( InfluxSchreibPuffer.class );
+    
+    
+    /** Maximale Anzahl Datenpunkte im Puffer. */
+    @Value( "${influxdb.puffer.kapazitaet:10000}" )
+    private int _kapazitaet;
+    
+    /** Maximale Anzahl Datenpunkte, die mit einem Request geschrieben werden. */
+    @Value( "${influxdb.puffer.batch_groesse:500}" )
+    private int _batchGroesse;
+    
+    /** Maximale Zeit in Millisekunden, die ein Datenpunkt im Puffer auf das Schreiben wartet. */
+    @Value( "${influxdb.puffer.flush_intervall_ms:5000}" )
+    private long _flushIntervallMs;
+    
+    /** Verhalten bei vollem Puffer. */
+    @Value( "${influxdb.puffer.ueberlauf:AELTESTE_VERWERFEN}" )
+    private UeberlaufStrategie _ueberlaufStrategie;
+    
+    /** Bean für Zugriff auf InfluxDB-Instanz. */
+    private final InfluxDBClient _influxDBClient;
+    
+    /** Puffer mit den noch nicht geschriebenen Datenpunkten. */
+    private BlockingQueue<Point> _puffer;
+    
+    /** Thread, der die Datenpunkte aus dem Puffer in die InfluxDB schreibt. */
+    private Thread _schreibThread;
+    
+    /** Wird beim Herunterfahren auf {@code false} gesetzt. */
+    private volatile boolean _aktiv = false;
+    
+    /** Anzahl der erfolgreich in die InfluxDB geschriebenen Datenpunkte. */
+    private final AtomicLong _anzahlGeschrieben = new AtomicLong( 0 );
+    
+    /** Anzahl der wegen vollem Puffer oder unerwartetem Fehler verworfenen Datenpunkte. */
+    private final AtomicLong _anzahlVerworfen = new AtomicLong( 0 );
+    
+    /** Anzahl der Datenpunkte, deren Schreiben in die InfluxDB fehlgeschlagen ist. */
+    private final AtomicLong _anzahlFehlgeschlagen = new AtomicLong( 0 );
+    
+    
+    /**
+     * Konstruktor für Dependency Injection.
+     */
+    @Autowired
+    public InfluxSchreibPuffer( @Lazy InfluxDBClient influxDBClient ) {
+        
+        _influxDBClient = influxDBClient;
+    }
+    
+    
+    /**
+     * Erzeugt den Puffer und startet den Thread, der die Datenpunkte schreibt.
+     */
+    @PostConstruct
+    public void starten() {
+        
+        _puffer = new ArrayBlockingQueue<>( _kapazitaet );
+        _aktiv  = true;
+        
+        _schreibThread = Thread.ofPlatform()
+                               .name( "influx-schreiber" )
+                               .daemon()
+                               .start( this::schreibSchleife );
+        
+        LOG.info( "Schreibpuffer fuer InfluxDB gestartet: Kapazitaet={}, Batch-Groesse={}, Flush-Intervall={}ms, Ueberlauf={}",
+                  _kapazitaet, _batchGroesse, _flushIntervallMs, _ueberlaufStrategie );
+    }
+    
+    
+    /**
+     * Schreibt die noch im Puffer befindlichen Datenpunkte und beendet dann den Thread;
+     * es wird höchstens zwei Flush-Intervalle gewartet.
+     */
+    @PreDestroy
+    public void beenden() throws InterruptedException {
+        
+        _aktiv = false;
+        _schreibThread.join( 2 * _flushIntervallMs );
+        
+        LOG.info( "Schreibpuffer fuer InfluxDB beendet: geschrieben={}, verworfen={}, fehlgeschlagen={}",
+                  getAnzahlGeschrieben(), getAnzahlVerworfen(), getAnzahlFehlgeschlagen() );
+    }
+    
+    
+    /**
+     * Datenpunkt zum Schreiben in die InfluxDB vormerken; die Methode kehrt sofort zurück,
+     * außer der Puffer ist voll und die Überlauf-Strategie ist {@link UeberlaufStrategie#BLOCKIEREN}.
+     * 
+     * @param datenpunkt Zu schreibender Datenpunkt
+     */
+    public void hinzufuegen( Point datenpunkt ) {
+        
+        if ( !_aktiv ) {
+            
+            _anzahlVerworfen.incrementAndGet();
+            return;
+        }
+        
+        switch ( _ueberlaufStrategie ) {
+            
+            case BLOCKIEREN -> {
+                
+                try {
+                    
+                    _puffer.put( datenpunkt );
+                }
+                catch ( InterruptedException ex ) {
+                    
+                    Thread.currentThread().interrupt();
+                    _anzahlVerworfen.incrementAndGet();
+                }
+            }
+            
+            case AELTESTE_VERWERFEN -> {
+                
+                while ( !_puffer.offer( datenpunkt ) ) {
+                    
+                    if ( _puffer.poll() != null ) {
+                        
+                        _anzahlVerworfen.incrementAndGet();
+                    }
+                }
+            }
+        }
+    }
+    
+    
+    /**
+     * Schleife des Schreib-Threads: Sammelt jeweils einen Batch und schreibt ihn; nach
+     * dem Aufruf von {@link #beenden()} wird der Puffer noch vollständig geleert.
+     * <br><br>
+     * 
+     * Bei einem unerwarteten Fehler (nicht {@link InfluxException}, z.B. wenn der Client
+     * nicht erzeugt werden kann) wird der Batch verworfen und der Thread läuft weiter,
+     * sonst würde der Puffer nicht mehr geleert.
+     */
+    private void schreibSchleife() {
+        
+        final List<Point> batch = new ArrayList<>( _batchGroesse );
+        
+        while ( _aktiv || !_puffer.isEmpty() ) {
+            
+            try {
+                
+                sammleBatch( batch );
+            }
+            catch ( InterruptedException ex ) {
+                
+                LOG.warn( "Schreib-Thread fuer InfluxDB wurde unterbrochen." );
+            }
+            
+            if ( !batch.isEmpty() ) {
+                
+                try {
+                    
+                    schreibeBatch( batch );
+                }
+                catch ( RuntimeException ex ) {
+                    
+                    _anzahlVerworfen.addAndGet( batch.size() );
+                    LOG.error( "Unerwarteter Fehler beim Schreiben von {} Datenpunkt(en) in InfluxDB, Batch wird verworfen.",
+                               batch.size(), ex );
+                }
+                finally {
+                    
+                    batch.clear();
+                }
+            }
+        }
+    }
+    
+    
+    /**
+     * Füllt den übergebenen Batch, bis er voll ist oder das Flush-Intervall abgelaufen ist.
+     * 
+     * @param batch Leere Liste, die gefüllt wird
+     * 
+     * @throws InterruptedException Thread wurde beim Warten unterbrochen
+     */
+    private void sammleBatch( List<Point> batch ) throws InterruptedException {
+        
+        final long deadline = System.nanoTime() + MILLISECONDS.toNanos( _flushIntervallMs );
+        
+        while ( batch.size() < _batchGroesse ) {
+            
+            _puffer.drainTo( batch, _batchGroesse - batch.size() );
+            if ( batch.size() >= _batchGroesse || !_aktiv ) {
+                
+                return;
+            }
+            
+            final long restNanos = deadline - System.nanoTime();
+            if ( restNanos <= 0 ) {
+                
+                return;
+            }
+            
+            final Point datenpunkt = _puffer.poll( restNanos, NANOSECONDS );
+            if ( datenpunkt == null ) {
+                
+                return;
+            }
+            batch.add( datenpunkt );
+        }
+    }
+    
+    
+    /**
+     * Schreibt einen Batch mit einem einzigen Request in die InfluxDB.
+     * 
+     * @param batch Zu schreibende Datenpunkte
+     */
+    private void schreibeBatch( List<Point> batch ) {
+        
+        try {
+            
+            _influxDBClient.getWriteApiBlocking().writePoints( batch );
+            _anzahlGeschrieben.addAndGet( batch.size() );
+            
+            LOG.debug( "{} Datenpunkt(e) in InfluxDB geschrieben.", batch.size() );
+        }
+        catch ( InfluxException ex ) {
+            
+            _anzahlFehlgeschlagen.addAndGet( batch.size() );
+            LOG.error( "Fehler beim Schreiben von {} Datenpunkt(en) in InfluxDB.", batch.size(), ex );
+        }
+    }
+    
+    
+    /**
+     * Anzahl der erfolgreich geschriebenen Datenpunkte seit Start der Anwendung.
+     * 
+     * @return Anzahl Datenpunkte
+     */
+    public long getAnzahlGeschrieben() {
+        
+        return _anzahlGeschrieben.get();
+    }
+    
+    
+    /**
+     * Anzahl der wegen vollem Puffer (oder nach dem Herunterfahren oder wegen eines
+     * unerwarteten Fehlers im Schreib-Thread) verworfenen Datenpunkte.
+     * 
+     * @return Anzahl Datenpunkte
+     */
+    public long getAnzahlVerworfen() {
+        
+        return _anzahlVerworfen.get();
+    }
+    
+    
+    /**
+     * Anzahl der Datenpunkte, deren Schreiben in die InfluxDB fehlgeschlagen ist.
+     * 
+     * @return Anzahl Datenpunkte
+     */
+    public long getAnzahlFehlgeschlagen() {
+        
+        return _anzahlFehlgeschlagen.get();
+    }
+    
+    
+    /**
+     * Anzahl der Datenpunkte, die aktuell im Puffer auf das Schreiben warten.
+     * 
+     * @return Anzahl Datenpunkte
+     */
+    public int getAnzahlImPuffer() {
+        
+        return _puffer.size();
+    }
+
+}
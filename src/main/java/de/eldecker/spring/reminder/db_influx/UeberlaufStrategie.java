@@ -0,0 +1,16 @@
+package de.eldecker.spring.reminder.db_influx;
+
+
+/**
+ * Verhalten von {@link InfluxSchreibPuffer}, wenn ein neuer Datenpunkt in den
+ * schon vollen Puffer geschrieben werden soll.
+ */
+public enum UeberlaufStrategie {
+    
+    /** Ältesten Datenpunkt im Puffer verwerfen, damit der neue Platz findet. */
+    AELTESTE_VERWERFEN,
+    
+    /** Aufrufer blockieren, bis wieder Platz im Puffer ist. */
+    BLOCKIEREN
+
+}
@@ -0,0 +1,328 @@
+package de.eldecker.spring.reminder.db_journal;
+
+import static java.nio.channels.FileChannel.MapMode.READ_WRITE;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+
+/**
+ * Append-only Journal-Datei, die per {@link MappedByteBuffer} in den Speicher eingeblendet
+ * ist; das Anhängen eines Datensatzes ist damit nur ein Kopieren in den Speicher, das
+ * Betriebssystem schreibt die Seiten asynchron in die Datei (oder beim nächsten Aufruf
+ * von {@link #synchronisieren()}).
+ * <br><br>
+ * 
+ * Aufbau eines Datensatzes:
+ * <pre>
+ * int  Länge (Typ + Inhalt)
+ * int  CRC32C über Typ + Inhalt
+ * byte Typ
+ * ...  Inhalt
+ * </pre>
+ * Die Datei wird in Schritten vergrößert, der nicht benutzte Rest ist mit Nullen gefüllt;
+ * beim Lesen endet das Journal beim ersten Datensatz mit Länge 0. Ein unvollständig
+ * geschriebener letzter Datensatz (Absturz des Betriebssystems) wird an der Prüfsumme
+ * erkannt und verworfen.
+ * <br><br>
+ * 
+ * Die Klasse ist nicht thread-safe, der Aufrufer muss die Zugriffe synchronisieren.
+ */
+final class JournalDatei implements AutoCloseable {
+    
+    private static Logger LOG = LoggerFactory.getLogger( JournalDatei.class );
+    
+    /** Länge des Kopfs eines Datensatzes (Länge und Prüfsumme). */
+    private static final int KOPF_LAENGE = 8;
+    
+    /** Größe, mit der eine neue Datei eingeblendet wird; danach wird die Größe jeweils verdoppelt. */
+    private static final int ANFANGS_GROESSE = 16 * 1024 * 1024;
+    
+    
+    /** Callback für {@link JournalDatei#lesen(Leser)}. */
+    @FunctionalInterface
+    interface Leser {
+        
+        /**
+         * Wird für jeden gültigen Datensatz in der Reihenfolge des Journals aufgerufen.
+         * 
+         * @param typ Typ des Datensatzes
+         * 
+         * @param inhalt Inhalt des Datensatzes, nur während des Aufrufs gültig
+         */
+        void datensatz( byte typ, ByteBuffer inhalt );
+    }
+    
+    
+    /** Pfad der Journal-Datei. */
+    private final Path _pfad;
+    
+    /** Kanal der geöffneten Datei. */
+    private FileChannel _kanal;
+    
+    /** In den Speicher eingeblendete Datei. */
+    private MappedByteBuffer _speicher;
+    
+    /** Position, an der der nächste Datensatz angehängt wird. */
+    private int _position = 0;
+    
+    /** Anzahl der Datensätze im Journal. */
+    private long _anzahlDatensaetze = 0;
+    
+    /** Für Prüfsummen, wird wiederverwendet. */
+    private final CRC32C _crc = new CRC32C();
+    
+    
+    /**
+     * Öffnet bzw. erzeugt die Journal-Datei und blendet sie in den Speicher ein;
+     * anschließend muss das Journal mit {@link #lesen(Leser)} gelesen werden.
+     * 
+     * @param pfad Pfad der Journal-Datei
+     * 
+     * @throws IOException Datei kann nicht geöffnet oder eingeblendet werden
+     */
+    JournalDatei( Path pfad ) throws IOException {
+        
+        _pfad = pfad;
+        oeffnen();
+    }
+    
+    
+    private void oeffnen() throws IOException {
+        
+        final Path verzeichnis = _pfad.toAbsolutePath().getParent();
+        if ( verzeichnis != null ) {
+            
+            Files.createDirectories( verzeichnis );
+        }
+        
+        _kanal    = FileChannel.open( _pfad, CREATE, READ, WRITE );
+        _speicher = _kanal.map( READ_WRITE, 0, Math.max( _kanal.size(), ANFANGS_GROESSE ) );
+    }
+    
+    
+    /**
+     * Liest alle Datensätze vom Anfang des Journals; danach werden neue Datensätze hinter
+     * dem letzten gültigen Datensatz angehängt.
+     * 
+     * @param leser Callback für jeden Datensatz
+     */
+    void lesen( Leser leser ) {
+        
+        _position          = 0;
+        _anzahlDatensaetze = 0;
+        
+        while ( _position + KOPF_LAENGE <= _speicher.capacity() ) {
+            
+            final int laenge = _speicher.getInt( _position );
+            if ( laenge == 0 ) {
+                
+                return;
+            }
+            if ( laenge < 0 || _position + KOPF_LAENGE + laenge > _speicher.capacity() ) {
+                
+                verwerfeRest( "ungueltige Laenge " + laenge );
+                return;
+            }
+            
+            final ByteBuffer datensatz = _speicher.slice( _position + KOPF_LAENGE, laenge );
+            _crc.reset();
+            _crc.update( datensatz.duplicate() );
+            if ( (int) _crc.getValue() != _speicher.getInt( _position + 4 ) ) {
+                
+                verwerfeRest( "falsche Pruefsumme" );
+                return;
+            }
+            
+            final byte typ = datensatz.get();
+            leser.datensatz( typ, datensatz.slice() );
+            
+            _position += KOPF_LAENGE + laenge;
+            _anzahlDatensaetze++;
+        }
+    }
+    
+    
+    /**
+     * Überschreibt den Rest der Datei ab dem ersten ungültigen Datensatz mit Nullen, damit
+     * alte Bytes hinter später angehängten Datensätzen nicht als Datensatz gelesen werden.
+     */
+    private void verwerfeRest( String grund ) {
+        
+        LOG.warn( "Journal {} endet nach {} Datensatz/Datensaetzen mit unvollstaendigem Datensatz ({}), Rest wird verworfen.",
+                  _pfad, _anzahlDatensaetze, grund );
+        
+        for ( int i = _position; i < _speicher.capacity(); i++ ) {
+            
+            _speicher.put( i, (byte) 0 );
+        }
+    }
+    
+    
+    /**
+     * Hängt einen Datensatz an das Journal an; die Datei wird bei Bedarf vergrößert.
+     * 
+     * @param typ Typ des Datensatzes
+     * 
+     * @param inhalt Inhalt des Datensatzes (von Position bis Limit)
+     * 
+     * @throws DataAccessResourceFailureException Datei konnte nicht vergrößert werden
+     */
+    void anhaengen( byte typ, ByteBuffer inhalt ) {
+        
+        final int laenge = 1 + inhalt.remaining();
+        while ( _position + KOPF_LAENGE + laenge + KOPF_LAENGE > _speicher.capacity() ) {
+            
+            vergroessern();
+        }
+        
+        _crc.reset();
+        _crc.update( typ );
+        _crc.update( inhalt.duplicate() );
+        
+        // Länge zuletzt schreiben, damit ein halb geschriebener Datensatz nie gültig aussieht
+        _speicher.putInt( _position + 4, (int) _crc.getValue() );
+        _speicher.put(    _position + KOPF_LAENGE, typ );
+        _speicher.put(    _position + KOPF_LAENGE + 1, inhalt, inhalt.position(), inhalt.remaining() );
+        _speicher.putInt( _position, laenge );
+        
+        _position += KOPF_LAENGE + laenge;
+        _anzahlDatensaetze++;
+    }
+    
+    
+    /**
+     * Blendet die Datei mit doppelter Größe neu ein.
+     */
+    private void vergroessern() {
+        
+        final long neueGroesse = 2L * _speicher.capacity();
+        if ( neueGroesse > Integer.MAX_VALUE ) {
+            
+            throw new DataAccessResourceFailureException( "Journal " + _pfad + " ist voll, Komprimieren nötig." );
+        }
+        
+        try {
+            
+            _speicher.force();
+            _speicher = _kanal.map( READ_WRITE, 0, neueGroesse );
+            LOG.debug( "Journal {} auf {} MB vergroessert.", _pfad, neueGroesse / 1024 / 1024 );
+        }
+        catch ( IOException ex ) {
+            
+            throw new DataAccessResourceFailureException( "Journal " + _pfad + " konnte nicht vergrößert werden.", ex );
+        }
+    }
+    
+    
+    /**
+     * Schreibt die eingeblendeten Seiten in die Datei.
+     */
+    void synchronisieren() {
+        
+        _speicher.force();
+    }
+    
+    
+    /**
+     * Ersetzt das Journal durch ein neues Journal (Komprimieren): Das neue Journal wird
+     * unter einem temporären Namen geschrieben und danach atomar umbenannt, so dass bei
+     * einem Absturz entweder das alte oder das neue Journal vollständig vorhanden ist.
+     * 
+     * @param befuellen Schreibt die Datensätze in das neue Journal
+     * 
+     * @throws IOException Fehler beim Schreiben oder Umbenennen
+     */
+    void ersetzen( Consumer<JournalDatei> befuellen ) throws IOException {
+        
+        final Path pfadNeu = _pfad.resolveSibling( _pfad.getFileName() + ".neu" );
+        Files.deleteIfExists( pfadNeu );
+        
+        final int  positionNeu;
+        final long anzahlNeu;
+        try ( JournalDatei neu = new JournalDatei( pfadNeu ) ) {
+            
+            befuellen.accept( neu );
+            neu.synchronisieren();
+            
+            positionNeu = neu._position;
+            anzahlNeu   = neu._anzahlDatensaetze;
+        }
+        
+        close();
+        Files.move( pfadNeu, _pfad, ATOMIC_MOVE, REPLACE_EXISTING );
+        oeffnen();
+        
+        _position          = positionNeu;
+        _anzahlDatensaetze = anzahlNeu;
+    }
+    
+    
+    /**
+     * Löscht den Inhalt des Journals.
+     * 
+     * @throws IOException Fehler beim Neuanlegen der Datei
+     */
+    void leeren() throws IOException {
+        
+        close();
+        try ( FileChannel kanal = FileChannel.open( _pfad, WRITE, TRUNCATE_EXISTING ) ) {
+            
+            // Datei wird nur geleert
+        }
+        oeffnen();
+        
+        _position          = 0;
+        _anzahlDatensaetze = 0;
+    }
+    
+    
+    /**
+     * Belegter Teil der Datei.
+     * 
+     * @return Anzahl Bytes
+     */
+    long getGroesse() {
+        
+        return _position;
+    }
+    
+    
+    /**
+     * Anzahl Datensätze im Journal, einschließlich der durch spätere Datensätze überholten.
+     * 
+     * @return Anzahl Datensätze
+     */
+    long getAnzahlDatensaetze() {
+        
+        return _anzahlDatensaetze;
+    }
+    
+    
+    /**
+     * Schreibt die eingeblendeten Seiten in die Datei und schließt sie.
+     */
+    @Override
+    public void close() throws IOException {
+        
+        _speicher.force();
+        _kanal.close();
+    }
+
+}
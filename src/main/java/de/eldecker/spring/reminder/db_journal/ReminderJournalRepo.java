@@ -0,0 +1,1417 @@
+package de.eldecker.spring.reminder.db_journal;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.time.ZoneOffset.UTC;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import de.eldecker.spring.reminder.db_jpa.FaelligerReminder;
+import de.eldecker.spring.reminder.db_jpa.ReminderAnzeige;
+import de.eldecker.spring.reminder.db_jpa.ReminderArchivEntity;
+import de.eldecker.spring.reminder.db_jpa.ReminderArchivRepo;
+import de.eldecker.spring.reminder.db_jpa.ReminderEntity;
+import de.eldecker.spring.reminder.db_jpa.ReminderFaelligkeit;
+import de.eldecker.spring.reminder.db_jpa.ReminderSpeicher;
+import de.eldecker.spring.reminder.db_jpa.ReminderVorschau;
+import de.eldecker.spring.reminder.model.Wiederholung;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.annotation.PreDestroy;
+
+
+/**
+ * Alternative Implementierung von {@link ReminderSpeicher} für hohe Schreibraten: Die Reminder
+ * werden nicht in Tabelle {@code REMINDER} gespeichert, sondern in einem append-only
+ * Journal (siehe {@link JournalDatei}), und alle Abfragen werden aus einem Index im Speicher
+ * beantwortet (offene und versendete Reminder jeweils nach Fälligkeit und ID sortiert, dazu
+ * Zuordnung von Email im Postausgang zu Remindern).
+ * <br><br>
+ * 
+ * Das Repository wird nur erzeugt, wenn Property {@code de.eldecker.reminder.speicher} den
+ * Wert {@code journal} hat; es ist dann {@link Primary} und wird überall statt des
+ * JPA-Repositories injiziert, ohne dass die Geschäftslogik geändert werden muss. Der
+ * Postausgang und das Archiv bleiben in der Datenbank.
+ * <br><br>
+ * 
+ * Datensätze im Journal:
+ * <ul>
+ * <li>{@link #TYP_ANGELEGT}: Vollständiger Reminder, beim Anlegen und beim Komprimieren</li>
+ * <li>{@link #TYP_VERSENDET}: Einmaliger Reminder wurde versendet</li>
+ * <li>{@link #TYP_ZUSTAND}: Sonstige Änderung (Übernahme in Postausgang, nächste Fälligkeit,
+ *     endgültig fehlgeschlagener Versand)</li>
+ * <li>{@link #TYP_GELOESCHT}: Reminder wurde gelöscht (Aufbewahrung)</li>
+ * <li>{@link #TYP_NAECHSTE_ID}: Nächste freie ID, damit nach dem Komprimieren keine
+ *     ID von einem archivierten Reminder erneut vergeben wird</li>
+ * </ul>
+ * Die Beanspruchung fälliger Reminder wird nur im Speicher gehalten, weil eine Journal-Datei
+ * ohnehin nur von einer Instanz verwendet werden kann. Der Zeitpunkt eines endgültig
+ * fehlgeschlagenen Versands steht am Ende von {@link #TYP_ANGELEGT} und {@link #TYP_ZUSTAND},
+ * so dass Journale ohne dieses Feld weiterhin gelesen werden können. Wenn die Zahl der Datensätze mehr
+ * als doppelt so groß ist wie die Zahl der Reminder, dann wird das Journal regelmäßig
+ * komprimiert.
+ * <br><br>
+ * 
+ * Wie bei JPA werden Änderungen an Entities, die innerhalb einer Transaktion geliefert
+ * wurden, vor dem Commit (und vor jeder weiteren Abfrage in derselben Transaktion)
+ * übernommen; innerhalb einer Transaktion wird für eine ID immer dieselbe Entity geliefert.
+ * Wird die Transaktion zurückgerollt, dann werden die in ihr geänderten Reminder mit
+ * weiteren Datensätzen auf den vorherigen Zustand zurückgesetzt. Außerhalb einer Transaktion
+ * gelieferte Entities sind dagegen "detached".
+ */
+@Repository
+@Primary
+@ConditionalOnProperty( name = "de.eldecker.reminder.speicher", havingValue = "journal" )
+public class ReminderJournalRepo implements ReminderSpeicher {
+    
+    private static Logger LOG = LoggerFactory.getLogger( ReminderJournalRepo.class );
+    
+    /** Datensatz mit vollständigem Reminder. */
+    private static final byte TYP_ANGELEGT = 1;
+    
+    /** Datensatz für Versand eines einmaligen Reminders. */
+    private static final byte TYP_VERSENDET = 2;
+    
+    /** Datensatz mit Fälligkeit, Versand-Status und Postausgang. */
+    private static final byte TYP_ZUSTAND = 3;
+    
+    /** Datensatz für gelöschten Reminder. */
+    private static final byte TYP_GELOESCHT = 4;
+    
+    /** Datensatz mit nächster freier ID. */
+    private static final byte TYP_NAECHSTE_ID = 5;
+    
+    /** Wird für fehlende Zeitpunkte und IDs in das Journal geschrieben. */
+    private static final long NULL_WERT = Long.MIN_VALUE;
+    
+    /** Unter dieser Zahl von Datensätzen wird das Journal nie komprimiert. */
+    private static final long MIN_DATENSAETZE_KOMPRIMIEREN = 10_000;
+    
+    /** Reihenfolge der Reminder-Liste und der Suche nach fälligen Remindern. */
+    private static final Comparator<Eintrag> NACH_FAELLIGKEIT =
+            Comparator.comparing( ( Eintrag eintrag ) -> eintrag.faellig )
+                      .thenComparingLong( eintrag -> eintrag.id );
+    
+    /** Journal-Datei. */
+    private final JournalDatei _datei;
+    
+    /** Repo-Bean für Zugriff auf Tabelle mit archivierten Remindern, das Archiv bleibt in der Datenbank. */
+    private final ReminderArchivRepo _archivRepo;
+    
+    /** Alle Reminder nach ID. */
+    private final TreeMap<Long, Eintrag> _eintraege = new TreeMap<>();
+    
+    /** Noch nicht versendete Reminder, sortiert nach Fälligkeit und ID. */
+    private final TreeSet<Eintrag> _offen = new TreeSet<>( NACH_FAELLIGKEIT );
+    
+    /** Versendete Reminder, sortiert nach Fälligkeit und ID. */
+    private final TreeSet<Eintrag> _versendet = new TreeSet<>( NACH_FAELLIGKEIT );
+    
+    /** Reminder nach ID der Email im Postausgang (bei Sammel-Emails mehrere Reminder pro Email). */
+    private final Map<Long, List<Eintrag>> _nachPostausgang = new HashMap<>();
+    
+    /** Beanspruchte Reminder nach Token. */
+    private final Map<String, List<Eintrag>> _nachToken = new HashMap<>();
+    
+    /** Schützt Journal und Index; Abfragen mit Lese-Sperre, Änderungen mit Schreib-Sperre. */
+    private final ReentrantReadWriteLock _sperre = new ReentrantReadWriteLock();
+    
+    /** Puffer für Kodierung eines Datensatzes, wird wiederverwendet (nur mit Schreib-Sperre). */
+    private ByteBuffer _puffer = ByteBuffer.allocate( 4096 );
+    
+    /** Nächste freie ID für neue Reminder. */
+    private long _naechsteId = 1;
+    
+    
+    /**
+     * Konstruktor für Dependency Injection, liest das Journal in den Speicher.
+     * 
+     * @throws IOException Journal-Datei kann nicht geöffnet werden
+     */
+    @Autowired
+    public ReminderJournalRepo( @Value( "${de.eldecker.reminder.journal_datei:./db/reminder.journal}" ) String pfad,
+                                ReminderArchivRepo archivRepo,
+                                MeterRegistry      meterRegistry ) throws IOException {
+        
+        final long startMillis = System.currentTimeMillis();
+        
+        _archivRepo = archivRepo;
+        _datei      = new JournalDatei( Path.of( pfad ) );
+        _datei.lesen( this::anwenden );
+        
+        LOG.info( "Journal {} gelesen: {} Reminder aus {} Datensatz/Datensaetzen ({} KB) in {} ms.",
+                  pfad, _eintraege.size(), _datei.getAnzahlDatensaetze(), _datei.getGroesse() / 1024,
+                  System.currentTimeMillis() - startMillis );
+        
+        Gauge.builder( "reminder.journal.groesse", _datei, JournalDatei::getGroesse )
+             .description( "Belegte Größe der Journal-Datei mit den Remindern" )
+             .baseUnit( "bytes" )
+             .register( meterRegistry );
+    }
+    
+    
+    /**
+     * Reminder im Speicher, wird nur mit Sperre gelesen oder geändert; die Felder für die
+     * Beanspruchung werden nicht ins Journal geschrieben.
+     */
+    private static final class Eintrag {
+        
+        long          id;
+        String        reminderText;
+        LocalDateTime angelegt;
+        LocalDateTime faellig;
+        LocalDateTime ersteFaelligkeit;
+        LocalDateTime versendet;
+        boolean       schonVersendet;
+        LocalDateTime fehlgeschlagen;
+        Wiederholung  wiederholung;
+        String        cron;
+        Long          postausgangId;
+        String        beanspruchtVon;
+        LocalDateTime beanspruchtBis;
+        
+        
+        Eintrag kopie() {
+            
+            final Eintrag kopie = new Eintrag();
+            kopie.id = id;
+            kopie.uebernehmen( this );
+            return kopie;
+        }
+        
+        
+        void uebernehmen( Eintrag quelle ) {
+            
+            reminderText     = quelle.reminderText;
+            angelegt         = quelle.angelegt;
+            faellig          = quelle.faellig;
+            ersteFaelligkeit = quelle.ersteFaelligkeit;
+            versendet        = quelle.versendet;
+            schonVersendet   = quelle.schonVersendet;
+            fehlgeschlagen   = quelle.fehlgeschlagen;
+            wiederholung     = quelle.wiederholung;
+            cron             = quelle.cron;
+            postausgangId    = quelle.postausgangId;
+            beanspruchtVon   = quelle.beanspruchtVon;
+            beanspruchtBis   = quelle.beanspruchtBis;
+        }
+        
+        
+        void uebernehmen( ReminderEntity entity ) {
+            
+            reminderText     = entity.getReminderText();
+            angelegt         = entity.getZeitpunktAngelegt();
+            faellig          = entity.getZeitpunktFaelligkeit();
+            ersteFaelligkeit = entity.getZeitpunktErsteFaelligkeit();
+            versendet        = entity.getZeitpunktVersendet();
+            schonVersendet   = entity.isSchonVersendet();
+            fehlgeschlagen   = entity.getZeitpunktFehlgeschlagen();
+            wiederholung     = entity.getWiederholung();
+            cron             = entity.getWiederholungCron();
+            postausgangId    = entity.getPostausgangId();
+            beanspruchtVon   = entity.getBeanspruchtVon();
+            beanspruchtBis   = entity.getBeanspruchtBis();
+        }
+        
+        
+        ReminderEntity alsEntity() {
+            
+            final ReminderEntity entity = new ReminderEntity( reminderText, ersteFaelligkeit, wiederholung, cron );
+            entity.setId( id );
+            entity.setZeitpunktAngelegt( angelegt );
+            entity.setZeitpunktFaelligkeit( faellig );
+            entity.setZeitpunktVersendet( versendet );
+            entity.setSchonVersendet( schonVersendet );
+            entity.setZeitpunktFehlgeschlagen( fehlgeschlagen );
+            if ( postausgangId != null ) {
+                
+                entity.inPostausgangUebernommen( postausgangId );
+            }
+            entity.beanspruchen( beanspruchtVon, beanspruchtBis );
+            
+            return entity;
+        }
+        
+        
+        ReminderAnzeige alsAnzeige() {
+            
+            return new ReminderAnzeige( id, reminderText, angelegt, faellig, versendet,
+                                        schonVersendet, fehlgeschlagen, wiederholung, cron );
+        }
+        
+        
+        /** Nur für Suche in {@link ReminderJournalRepo#_offen} und {@link ReminderJournalRepo#_versendet}. */
+        static Eintrag schluessel( LocalDateTime faellig, long id ) {
+            
+            final Eintrag schluessel = new Eintrag();
+            schluessel.faellig = faellig;
+            schluessel.id      = id;
+            return schluessel;
+        }
+    }
+    
+    
+    /**
+     * Zustand einer Transaktion, in der das Repository verwendet wird: die gelieferten
+     * Entities (für das Übernehmen von Änderungen) und der Zustand der geänderten Reminder
+     * vor der ersten Änderung (für das Zurücksetzen).
+     */
+    private final class Transaktion implements TransactionSynchronization {
+        
+        /** In dieser Transaktion gelieferte Entities nach ID. */
+        final Map<Long, ReminderEntity> entities = new LinkedHashMap<>();
+        
+        /** Zustand vor der ersten Änderung, {@code null} für in dieser Transaktion angelegte Reminder. */
+        final Map<Long, Eintrag> vorher = new HashMap<>();
+        
+        
+        @Override
+        public void beforeCommit( boolean readOnly ) {
+            
+            aenderungenUebernehmen( this );
+        }
+        
+        
+        @Override
+        public void afterCompletion( int status ) {
+            
+            TransactionSynchronizationManager.unbindResourceIfPossible( ReminderJournalRepo.this );
+            if ( status != STATUS_COMMITTED ) {
+                
+                zuruecksetzen( this );
+            }
+        }
+    }
+    
+    
+    /**
+     * Liefert den Zustand der aktuellen Transaktion und registriert ihn beim ersten Aufruf.
+     * 
+     * @return Zustand, {@code null} wenn es keine aktive Transaktion gibt oder wenn diese
+     *         read-only ist
+     */
+    private Transaktion getTransaktion() {
+        
+        if ( !TransactionSynchronizationManager.isActualTransactionActive() ||
+             !TransactionSynchronizationManager.isSynchronizationActive()  ||
+             TransactionSynchronizationManager.isCurrentTransactionReadOnly() ) {
+            
+            return null;
+        }
+        
+        Transaktion transaktion = (Transaktion) TransactionSynchronizationManager.getResource( this );
+        if ( transaktion == null ) {
+            
+            transaktion = new Transaktion();
+            TransactionSynchronizationManager.bindResource( this, transaktion );
+            TransactionSynchronizationManager.registerSynchronization( transaktion );
+        }
+        
+        return transaktion;
+    }
+    
+    
+    /**
+     * Übernimmt vor einer Abfrage die Änderungen an den in der aktuellen Transaktion
+     * gelieferten Entities (wie "auto flush" bei JPA).
+     * 
+     * @return Zustand der aktuellen Transaktion, {@code null} wenn es keine gibt
+     */
+    private Transaktion vorAbfrage() {
+        
+        final Transaktion transaktion = getTransaktion();
+        if ( transaktion != null && !transaktion.entities.isEmpty() ) {
+            
+            aenderungenUebernehmen( transaktion );
+        }
+        
+        return transaktion;
+    }
+    
+    
+    /**
+     * Übernimmt die Änderungen an den in einer Transaktion gelieferten Entities in Index
+     * und Journal.
+     */
+    private void aenderungenUebernehmen( Transaktion transaktion ) {
+        
+        _sperre.writeLock().lock();
+        try {
+            
+            for ( ReminderEntity entity : transaktion.entities.values() ) {
+                
+                final Eintrag eintrag = _eintraege.get( entity.getId() );
+                if ( eintrag == null ) {
+                    
+                    continue;
+                }
+                
+                final boolean stammdatenGeaendert =
+                        !Objects.equals( eintrag.reminderText    , entity.getReminderText()              ) ||
+                        !Objects.equals( eintrag.angelegt        , entity.getZeitpunktAngelegt()         ) ||
+                        !Objects.equals( eintrag.ersteFaelligkeit, entity.getZeitpunktErsteFaelligkeit() ) ||
+                        eintrag.wiederholung != entity.getWiederholung()                                    ||
+                        !Objects.equals( eintrag.cron            , entity.getWiederholungCron()          );
+                
+                final boolean zustandGeaendert =
+                        !Objects.equals( eintrag.faellig       , entity.getZeitpunktFaelligkeit()     ) ||
+                        !Objects.equals( eintrag.versendet     , entity.getZeitpunktVersendet()       ) ||
+                        eintrag.schonVersendet != entity.isSchonVersendet()                               ||
+                        !Objects.equals( eintrag.fehlgeschlagen, entity.getZeitpunktFehlgeschlagen() ) ||
+                        !Objects.equals( eintrag.postausgangId , entity.getPostausgangId()            );
+                
+                final boolean beanspruchungGeaendert =
+                        !Objects.equals( eintrag.beanspruchtVon, entity.getBeanspruchtVon() ) ||
+                        !Objects.equals( eintrag.beanspruchtBis, entity.getBeanspruchtBis() );
+                
+                if ( stammdatenGeaendert || zustandGeaendert || beanspruchungGeaendert ) {
+                    
+                    aendern( eintrag, transaktion, e -> e.uebernehmen( entity ) );
+                    
+                    if ( stammdatenGeaendert ) {
+                        
+                        schreibeAngelegt( eintrag );
+                    
+                    } else if ( zustandGeaendert ) {
+                        
+                        schreibeZustand( eintrag );
+                    }
+                }
+            }
+        }
+        finally {
+            
+            _sperre.writeLock().unlock();
+        }
+    }
+    
+    
+    /**
+     * Setzt die in einer zurückgerollten Transaktion geänderten Reminder auf den Zustand
+     * vor der Transaktion zurück.
+     */
+    private void zuruecksetzen( Transaktion transaktion ) {
+        
+        if ( transaktion.vorher.isEmpty() ) {
+            
+            return;
+        }
+        
+        _sperre.writeLock().lock();
+        try {
+            
+            transaktion.vorher.forEach( ( id, vorher ) -> {
+                
+                final Eintrag aktuell = _eintraege.remove( id );
+                if ( aktuell != null ) {
+                    
+                    indexEntfernen( aktuell );
+                }
+                
+                if ( vorher == null ) {
+                    
+                    schreibeGeloescht( id );
+                
+                } else {
+                    
+                    _eintraege.put( id, vorher );
+                    indexEinfuegen( vorher );
+                    schreibeAngelegt( vorher );
+                }
+            });
+            
+            LOG.info( "Transaktion zurueckgerollt, {} Reminder im Journal zurueckgesetzt.", transaktion.vorher.size() );
+        }
+        finally {
+            
+            _sperre.writeLock().unlock();
+        }
+    }
+    
+    
+    /**
+     * Merkt sich den Zustand eines Reminders vor der ersten Änderung in der Transaktion.
+     */
+    private static void merkeVorher( Transaktion transaktion, long id, Eintrag eintrag ) {
+        
+        if ( transaktion != null && !transaktion.vorher.containsKey( id ) ) {
+            
+            transaktion.vorher.put( id, eintrag == null ? null : eintrag.kopie() );
+        }
+    }
+    
+    
+    /**
+     * Ändert einen Reminder und aktualisiert den Index (nur mit Schreib-Sperre); das
+     * Schreiben ins Journal ist Aufgabe des Aufrufers.
+     */
+    private void aendern( Eintrag eintrag, Transaktion transaktion, Consumer<Eintrag> aenderung ) {
+        
+        merkeVorher( transaktion, eintrag.id, eintrag );
+        indexEntfernen( eintrag );
+        aenderung.accept( eintrag );
+        indexEinfuegen( eintrag );
+    }
+    
+    
+    private void indexEinfuegen( Eintrag eintrag ) {
+        
+        ( eintrag.schonVersendet ? _versendet : _offen ).add( eintrag );
+        
+        if ( eintrag.postausgangId != null ) {
+            
+            _nachPostausgang.computeIfAbsent( eintrag.postausgangId, k -> new ArrayList<>( 1 ) ).add( eintrag );
+        }
+        if ( eintrag.beanspruchtVon != null ) {
+            
+            _nachToken.computeIfAbsent( eintrag.beanspruchtVon, k -> new ArrayList<>() ).add( eintrag );
+        }
+    }
+    
+    
+    private void indexEntfernen( Eintrag eintrag ) {
+        
+        ( eintrag.schonVersendet ? _versendet : _offen ).remove( eintrag );
+        
+        entferneAusListe( _nachPostausgang, eintrag.postausgangId , eintrag );
+        entferneAusListe( _nachToken      , eintrag.beanspruchtVon, eintrag );
+    }
+    
+    
+    private static <K> void entferneAusListe( Map<K, List<Eintrag>> map, K schluessel, Eintrag eintrag ) {
+        
+        if ( schluessel == null ) {
+            
+            return;
+        }
+        
+        final List<Eintrag> liste = map.get( schluessel );
+        if ( liste != null && liste.remove( eintrag ) && liste.isEmpty() ) {
+            
+            map.remove( schluessel );
+        }
+    }
+    
+    
+    /**
+     * Liefert Entity für einen Reminder; innerhalb einer Transaktion wird für eine ID
+     * immer dieselbe Entity geliefert, Änderungen daran werden vor dem Commit übernommen.
+     */
+    private ReminderEntity alsEntity( Eintrag eintrag, Transaktion transaktion ) {
+        
+        if ( transaktion == null ) {
+            
+            return eintrag.alsEntity();
+        }
+        
+        return transaktion.entities.computeIfAbsent( eintrag.id, id -> eintrag.alsEntity() );
+    }
+    
+    
+    /**
+     * Liefert Entities für die Reminder, die ein Prädikat erfüllen (mit Lese-Sperre).
+     */
+    private List<ReminderEntity> findeEntities( Supplier<Iterable<Eintrag>> quelle,
+                                                Predicate<Eintrag>          filter ) {
+        
+        final Transaktion transaktion = vorAbfrage();
+        
+        _sperre.readLock().lock();
+        try {
+            
+            final List<ReminderEntity> ergebnis = new ArrayList<>();
+            for ( Eintrag eintrag : quelle.get() ) {
+                
+                if ( filter.test( eintrag ) ) {
+                    
+                    ergebnis.add( alsEntity( eintrag, transaktion ) );
+                }
+            }
+            return ergebnis;
+        }
+        finally {
+            
+            _sperre.readLock().unlock();
+        }
+    }
+    
+    
+    /**
+     * Führt eine Abfrage mit Lese-Sperre aus.
+     */
+    private <T> T lesen( Supplier<T> abfrage ) {
+        
+        vorAbfrage();
+        
+        _sperre.readLock().lock();
+        try {
+            
+            return abfrage.get();
+        }
+        finally {
+            
+            _sperre.readLock().unlock();
+        }
+    }
+    
+    
+    /**
+     * Führt eine Änderung mit Schreib-Sperre aus.
+     */
+    private <T> T schreiben( Function<Transaktion, T> aenderung ) {
+        
+        final Transaktion transaktion = vorAbfrage();
+        
+        _sperre.writeLock().lock();
+        try {
+            
+            return aenderung.apply( transaktion );
+        }
+        finally {
+            
+            _sperre.writeLock().unlock();
+        }
+    }
+    
+    
+    /**
+     * Liefert höchstens {@code limit} Elemente einer Menge in ihrer Reihenfolge.
+     */
+    private static <T> List<T> erste( Iterable<Eintrag>  eintraege,
+                                      Predicate<Eintrag> filter,
+                                      Function<Eintrag, T> abbildung,
+                                      Limit              limit ) {
+        
+        final int max = limit.isLimited() ? limit.max() : Integer.MAX_VALUE;
+        
+        final List<T> ergebnis = new ArrayList<>( Math.min( max, 1024 ) );
+        for ( Eintrag eintrag : eintraege ) {
+            
+            if ( ergebnis.size() >= max ) {
+                
+                break;
+            }
+            if ( filter.test( eintrag ) ) {
+                
+                ergebnis.add( abbildung.apply( eintrag ) );
+            }
+        }
+        return ergebnis;
+    }
+    
+    
+    /**
+     * Offene Reminder, die vor einem Zeitpunkt fällig sind, in der Reihenfolge der Fälligkeit.
+     */
+    private NavigableSet<Eintrag> offenBis( LocalDateTime bis ) {
+        
+        return _offen.headSet( Eintrag.schluessel( bis, Long.MIN_VALUE ), false );
+    }
+    
+    
+    // ------------------------------------------------------------------------------------
+    // Journal schreiben und lesen
+    // ------------------------------------------------------------------------------------
+    
+    
+    /**
+     * Liefert den geleerten Puffer mit mindestens der angegebenen Größe.
+     */
+    private ByteBuffer puffer( int groesse ) {
+        
+        if ( _puffer.capacity() < groesse ) {
+            
+            _puffer = ByteBuffer.allocate( Math.max( groesse, 2 * _puffer.capacity() ) );
+        }
+        return _puffer.clear();
+    }
+    
+    
+    private static int laenge( String text ) {
+        
+        return text == null ? 4 : 4 + 3 * text.length();
+    }
+    
+    
+    private static void schreibeText( ByteBuffer puffer, String text ) {
+        
+        if ( text == null ) {
+            
+            puffer.putInt( -1 );
+            return;
+        }
+        
+        final byte[] bytes = text.getBytes( UTF_8 );
+        puffer.putInt( bytes.length );
+        puffer.put( bytes );
+    }
+    
+    
+    private static String leseText( ByteBuffer puffer ) {
+        
+        final int laenge = puffer.getInt();
+        if ( laenge < 0 ) {
+            
+            return null;
+        }
+        
+        final byte[] bytes = new byte[ laenge ];
+        puffer.get( bytes );
+        return new String( bytes, UTF_8 );
+    }
+    
+    
+    private static void schreibeZeitpunkt( ByteBuffer puffer, LocalDateTime zeitpunkt ) {
+        
+        if ( zeitpunkt == null ) {
+            
+            puffer.putLong( NULL_WERT );
+            puffer.putInt( 0 );
+        
+        } else {
+            
+            puffer.putLong( zeitpunkt.toEpochSecond( UTC ) );
+            puffer.putInt( zeitpunkt.getNano() );
+        }
+    }
+    
+    
+    private static LocalDateTime leseZeitpunkt( ByteBuffer puffer ) {
+        
+        final long sekunden = puffer.getLong();
+        final int  nanos    = puffer.getInt();
+        
+        return sekunden == NULL_WERT ? null : LocalDateTime.ofEpochSecond( sekunden, nanos, UTC );
+    }
+    
+    
+    /**
+     * Liest einen Zeitpunkt am Ende eines Datensatzes, der in älteren Journalen fehlt.
+     */
+    private static LocalDateTime leseOptionalenZeitpunkt( ByteBuffer puffer ) {
+        
+        return puffer.hasRemaining() ? leseZeitpunkt( puffer ) : null;
+    }
+    
+    
+    private static void schreibeId( ByteBuffer puffer, Long id ) {
+        
+        puffer.putLong( id == null ? NULL_WERT : id );
+    }
+    
+    
+    private static Long leseId( ByteBuffer puffer ) {
+        
+        final long id = puffer.getLong();
+        return id == NULL_WERT ? null : id;
+    }
+    
+    
+    /**
+     * Kodiert einen vollständigen Reminder (ohne Beanspruchung).
+     */
+    private ByteBuffer kodiereAngelegt( Eintrag eintrag ) {
+        
+        final ByteBuffer puffer = puffer( 132 + laenge( eintrag.reminderText ) + laenge( eintrag.cron ) );
+        
+        puffer.putLong( eintrag.id );
+        schreibeText(      puffer, eintrag.reminderText     );
+        schreibeZeitpunkt( puffer, eintrag.angelegt         );
+        schreibeZeitpunkt( puffer, eintrag.faellig          );
+        schreibeZeitpunkt( puffer, eintrag.ersteFaelligkeit );
+        schreibeZeitpunkt( puffer, eintrag.versendet        );
+        puffer.put( eintrag.schonVersendet ? (byte) 1 : (byte) 0 );
+        schreibeText(      puffer, eintrag.wiederholung == null ? null : eintrag.wiederholung.name() );
+        schreibeText(      puffer, eintrag.cron             );
+        schreibeId(        puffer, eintrag.postausgangId    );
+        schreibeZeitpunkt( puffer, eintrag.fehlgeschlagen   );
+        
+        return puffer.flip();
+    }
+    
+    
+    private void schreibeAngelegt( Eintrag eintrag ) {
+        
+        _datei.anhaengen( TYP_ANGELEGT, kodiereAngelegt( eintrag ) );
+    }
+    
+    
+    private void schreibeVersendet( Eintrag eintrag ) {
+        
+        final ByteBuffer puffer = puffer( 20 );
+        puffer.putLong( eintrag.id );
+        schreibeZeitpunkt( puffer, eintrag.versendet );
+        
+        _datei.anhaengen( TYP_VERSENDET, puffer.flip() );
+    }
+    
+    
+    private void schreibeZustand( Eintrag eintrag ) {
+        
+        final ByteBuffer puffer = puffer( 60 );
+        puffer.putLong( eintrag.id );
+        schreibeZeitpunkt( puffer, eintrag.faellig   );
+        schreibeZeitpunkt( puffer, eintrag.versendet );
+        puffer.put( eintrag.schonVersendet ? (byte) 1 : (byte) 0 );
+        schreibeId( puffer, eintrag.postausgangId );
+        schreibeZeitpunkt( puffer, eintrag.fehlgeschlagen );
+        
+        _datei.anhaengen( TYP_ZUSTAND, puffer.flip() );
+    }
+    
+    
+    private void schreibeGeloescht( long id ) {
+        
+        _datei.anhaengen( TYP_GELOESCHT, puffer( 8 ).putLong( id ).flip() );
+    }
+    
+    
+    private void schreibeNaechsteId( JournalDatei datei ) {
+        
+        datei.anhaengen( TYP_NAECHSTE_ID, puffer( 8 ).putLong( _naechsteId ).flip() );
+    }
+    
+    
+    /**
+     * Wendet einen Datensatz beim Lesen des Journals auf den Index an.
+     */
+    private void anwenden( byte typ, ByteBuffer inhalt ) {
+        
+        switch ( typ ) {
+            
+            case TYP_ANGELEGT -> {
+                
+                final Eintrag eintrag = new Eintrag();
+                eintrag.id               = inhalt.getLong();
+                eintrag.reminderText     = leseText( inhalt );
+                eintrag.angelegt         = leseZeitpunkt( inhalt );
+                eintrag.faellig          = leseZeitpunkt( inhalt );
+                eintrag.ersteFaelligkeit = leseZeitpunkt( inhalt );
+                eintrag.versendet        = leseZeitpunkt( inhalt );
+                eintrag.schonVersendet   = inhalt.get() == 1;
+                final String wiederholung = leseText( inhalt );
+                eintrag.wiederholung     = wiederholung == null ? null : Wiederholung.valueOf( wiederholung );
+                eintrag.cron             = leseText( inhalt );
+                eintrag.postausgangId    = leseId( inhalt );
+                eintrag.fehlgeschlagen   = leseOptionalenZeitpunkt( inhalt );
+                
+                final Eintrag alt = _eintraege.put( eintrag.id, eintrag );
+                if ( alt != null ) {
+                    
+                    indexEntfernen( alt );
+                }
+                indexEinfuegen( eintrag );
+                _naechsteId = Math.max( _naechsteId, eintrag.id + 1 );
+            }
+            case TYP_VERSENDET -> {
+                
+                final Eintrag eintrag = _eintraege.get( inhalt.getLong() );
+                if ( eintrag != null ) {
+                    
+                    final LocalDateTime versendet = leseZeitpunkt( inhalt );
+                    aendern( eintrag, null, e -> {
+                        
+                        e.schonVersendet = true;
+                        e.versendet      = versendet;
+                    });
+                }
+            }
+            case TYP_ZUSTAND -> {
+                
+                final Eintrag eintrag = _eintraege.get( inhalt.getLong() );
+                if ( eintrag != null ) {
+                    
+                    final LocalDateTime faellig        = leseZeitpunkt( inhalt );
+                    final LocalDateTime versendet      = leseZeitpunkt( inhalt );
+                    final boolean       schonVersendet = inhalt.get() == 1;
+                    final Long          postausgangId  = leseId( inhalt );
+                    final LocalDateTime fehlgeschlagen = leseOptionalenZeitpunkt( inhalt );
+                    aendern( eintrag, null, e -> {
+                        
+                        e.faellig        = faellig;
+                        e.versendet      = versendet;
+                        e.schonVersendet = schonVersendet;
+                        e.postausgangId  = postausgangId;
+                        e.fehlgeschlagen = fehlgeschlagen;
+                    });
+                }
+            }
+            case TYP_GELOESCHT -> {
+                
+                final Eintrag eintrag = _eintraege.remove( inhalt.getLong() );
+                if ( eintrag != null ) {
+                    
+                    indexEntfernen( eintrag );
+                }
+            }
+            case TYP_NAECHSTE_ID -> _naechsteId = Math.max( _naechsteId, inhalt.getLong() );
+            
+            default -> LOG.warn( "Unbekannter Datensatz-Typ {} im Journal wird ignoriert.", typ );
+        }
+    }
+    
+    
+    /**
+     * Schreibt die eingeblendeten Seiten des Journals regelmäßig in die Datei; nach einem
+     * Absturz der JVM ist das Journal auch ohne diesen Aufruf vollständig, nach einem Absturz
+     * des Betriebssystems können die Änderungen seit dem letzten Aufruf fehlen.
+     */
+    @Scheduled( initialDelayString = "${de.eldecker.reminder.journal_sync_ms:1000}",
+                fixedDelayString   = "${de.eldecker.reminder.journal_sync_ms:1000}" )
+    public void synchronisieren() {
+        
+        _sperre.writeLock().lock();
+        try {
+            
+            _datei.synchronisieren();
+        }
+        finally {
+            
+            _sperre.writeLock().unlock();
+        }
+    }
+    
+    
+    /**
+     * Komprimiert das Journal, wenn es mehr als doppelt so viele Datensätze wie Reminder
+     * enthält: Für jeden Reminder wird nur noch ein Datensatz mit dem aktuellen Zustand
+     * geschrieben. Änderungen sind währenddessen gesperrt.
+     * 
+     * @return {@code true} gdw. das Journal komprimiert wurde
+     */
+    @Scheduled( initialDelayString = "${de.eldecker.reminder.journal_komprimieren_ms:3600000}",
+                fixedDelayString   = "${de.eldecker.reminder.journal_komprimieren_ms:3600000}" )
+    public boolean komprimieren() {
+        
+        _sperre.writeLock().lock();
+        try {
+            
+            final long anzahlVorher = _datei.getAnzahlDatensaetze();
+            if ( anzahlVorher < MIN_DATENSAETZE_KOMPRIMIEREN || anzahlVorher <= 2L * _eintraege.size() ) {
+                
+                return false;
+            }
+            
+            final long startMillis  = System.currentTimeMillis();
+            final long groesseVorher = _datei.getGroesse();
+            
+            _datei.ersetzen( neu -> {
+                
+                schreibeNaechsteId( neu );
+                for ( Eintrag eintrag : _eintraege.values() ) {
+                    
+                    neu.anhaengen( TYP_ANGELEGT, kodiereAngelegt( eintrag ) );
+                }
+            });
+            
+            LOG.info( "Journal komprimiert: {} -> {} Datensaetze, {} KB -> {} KB, {} ms.",
+                      anzahlVorher, _datei.getAnzahlDatensaetze(), groesseVorher / 1024,
+                      _datei.getGroesse() / 1024, System.currentTimeMillis() - startMillis );
+            return true;
+        }
+        catch ( IOException ex ) {
+            
+            throw new DataAccessResourceFailureException( "Journal konnte nicht komprimiert werden.", ex );
+        }
+        finally {
+            
+            _sperre.writeLock().unlock();
+        }
+    }
+    
+    
+    /**
+     * Schreibt das Journal beim Herunterfahren in die Datei und schließt sie.
+     */
+    @PreDestroy
+    public void schliessen() {
+        
+        _sperre.writeLock().lock();
+        try {
+            
+            _datei.close();
+        }
+        catch ( IOException ex ) {
+            
+            throw new UncheckedIOException( ex );
+        }
+        finally {
+            
+            _sperre.writeLock().unlock();
+        }
+    }
+    
+    
+    // ------------------------------------------------------------------------------------
+    // Methoden von ReminderSpeicher
+    // ------------------------------------------------------------------------------------
+    
+    
+    @Override
+    public List<ReminderEntity> findNochNichtVersendet() {
+        
+        return findeEntities( () -> _offen, eintrag -> true );
+    }
+    
+    
+    @Override
+    public List<ReminderAnzeige> findSeite( boolean schonVersendet, Limit limit ) {
+        
+        return lesen( () -> erste( schonVersendet ? _versendet : _offen, eintrag -> true,
+                                     Eintrag::alsAnzeige, limit ) );
+    }
+    
+    
+    @Override
+    public List<ReminderAnzeige> findSeiteNach( boolean       schonVersendet,
+                                                LocalDateTime nachZeitpunkt,
+                                                long          nachId,
+                                                Limit         limit ) {
+        
+        return lesen( () -> erste( ( schonVersendet ? _versendet : _offen ).tailSet( Eintrag.schluessel( nachZeitpunkt, nachId ), false ),
+                                     eintrag -> true, Eintrag::alsAnzeige, limit ) );
+    }
+    
+    
+    @Override
+    public List<Long> findFreieFaelligeReminderIds( LocalDateTime jetzt, Limit limit ) {
+        
+        return lesen( () -> erste( offenBis( jetzt ), eintrag -> istFrei( eintrag, jetzt ),
+                                     eintrag -> eintrag.id, limit ) );
+    }
+    
+    
+    /**
+     * Reminder kann beansprucht werden: weder beansprucht noch im Postausgang.
+     */
+    private static boolean istFrei( Eintrag eintrag, LocalDateTime jetzt ) {
+        
+        return eintrag.postausgangId == null &&
+               ( eintrag.beanspruchtBis == null || eintrag.beanspruchtBis.isBefore( jetzt ) );
+    }
+    
+    
+    @Override
+    public int beanspruche( Collection<Long> ids, String token, LocalDateTime jetzt, LocalDateTime bis ) {
+        
+        return schreiben( transaktion -> {
+            
+            int anzahl = 0;
+            for ( Long id : ids ) {
+                
+                final Eintrag eintrag = _eintraege.get( id );
+                if ( eintrag != null && !eintrag.schonVersendet && istFrei( eintrag, jetzt ) ) {
+                    
+                    aendern( eintrag, transaktion, e -> {
+                        
+                        e.beanspruchtVon = token;
+                        e.beanspruchtBis = bis;
+                    });
+                    anzahl++;
+                }
+            }
+            return anzahl;
+        });
+    }
+    
+    
+    @Override
+    public List<FaelligerReminder> findBeansprucht( String token ) {
+        
+        return lesen( () -> _nachToken.getOrDefault( token, List.of() ).stream()
+                                      .filter( eintrag -> !eintrag.schonVersendet )
+                                      .sorted( Comparator.comparing( (Eintrag eintrag) -> eintrag.faellig )
+                                                         .thenComparingLong( eintrag -> eintrag.id ) )
+                                      .map( eintrag -> new FaelligerReminder( eintrag.id,
+                                                                              eintrag.reminderText,
+                                                                              eintrag.faellig ) )
+                                      .toList() );
+    }
+    
+    
+    @Override
+    public int inPostausgangUebernommen( Collection<Long> ids, long postausgangId ) {
+        
+        return schreiben( transaktion -> {
+            
+            int anzahl = 0;
+            for ( Long id : ids ) {
+                
+                final Eintrag eintrag = _eintraege.get( id );
+                if ( eintrag != null ) {
+                    
+                    aendern( eintrag, transaktion, e -> {
+                        
+                        e.postausgangId  = postausgangId;
+                        e.beanspruchtVon = null;
+                        e.beanspruchtBis = null;
+                    });
+                    schreibeZustand( eintrag );
+                    anzahl++;
+                }
+            }
+            return anzahl;
+        });
+    }
+    
+    
+    @Override
+    public List<ReminderFaelligkeit> findFaelligkeitenByPostausgang( Collection<Long> postausgangIds ) {
+        
+        return lesen( () -> {
+            
+            final List<ReminderFaelligkeit> ergebnis = new ArrayList<>( postausgangIds.size() );
+            for ( Long postausgangId : postausgangIds ) {
+                
+                for ( Eintrag eintrag : _nachPostausgang.getOrDefault( postausgangId, List.of() ) ) {
+                    
+                    ergebnis.add( new ReminderFaelligkeit( eintrag.id, eintrag.faellig ) );
+                }
+            }
+            return ergebnis;
+        });
+    }
+    
+    
+    @Override
+    public List<ReminderEntity> findWiederkehrendeByPostausgang( Collection<Long> postausgangIds ) {
+        
+        return findeEntities( () -> postausgangIds.stream()
+                                                    .flatMap( id -> _nachPostausgang.getOrDefault( id, List.of() ).stream() )
+                                                    .toList(),
+                              eintrag -> eintrag.wiederholung != null );
+    }
+    
+    
+    @Override
+    public int markiereAlsVersendet( Collection<Long> postausgangIds, LocalDateTime zeitpunktVersendet ) {
+        
+        return schreiben( transaktion -> {
+            
+            int anzahl = 0;
+            for ( Long postausgangId : postausgangIds ) {
+                
+                for ( Eintrag eintrag : List.copyOf( _nachPostausgang.getOrDefault( postausgangId, List.of() ) ) ) {
+                    
+                    if ( eintrag.wiederholung == null ) {
+                        
+                        aendern( eintrag, transaktion, e -> {
+                            
+                            e.schonVersendet = true;
+                            e.versendet      = zeitpunktVersendet;
+                        });
+                        schreibeVersendet( eintrag );
+                        anzahl++;
+                    }
+                }
+            }
+            return anzahl;
+        });
+    }
+    
+    
+    @Override
+    public int markiereAlsFehlgeschlagen( Collection<Long> postausgangIds, LocalDateTime zeitpunktFehlgeschlagen ) {
+        
+        return schreiben( transaktion -> {
+            
+            int anzahl = 0;
+            for ( Long postausgangId : postausgangIds ) {
+                
+                for ( Eintrag eintrag : List.copyOf( _nachPostausgang.getOrDefault( postausgangId, List.of() ) ) ) {
+                    
+                    if ( eintrag.wiederholung == null ) {
+                        
+                        aendern( eintrag, transaktion, e -> e.fehlgeschlagen = zeitpunktFehlgeschlagen );
+                        schreibeZustand( eintrag );
+                        anzahl++;
+                    }
+                }
+            }
+            return anzahl;
+        });
+    }
+    
+    
+    @Override
+    public boolean existsBy_idIsNotNull() {
+        
+        return lesen( () -> !_eintraege.isEmpty() );
+    }
+    
+    
+    @Override
+    public int countBy_schonVersendet( boolean schonVersendet ) {
+        
+        return lesen( () -> schonVersendet ? _versendet.size() : _offen.size() );
+    }
+    
+    
+    @Override
+    public List<LocalDateTime> findFaelligkeitenNochNichtVersendetBis( LocalDateTime bis ) {
+        
+        return lesen( () -> {
+            
+            final List<LocalDateTime> ergebnis = new ArrayList<>();
+            for ( Eintrag eintrag : offenBis( bis ) ) {
+                
+                if ( eintrag.postausgangId == null &&
+                     ( ergebnis.isEmpty() || !ergebnis.getLast().equals( eintrag.faellig ) ) ) {
+                    
+                    ergebnis.add( eintrag.faellig );
+                }
+            }
+            return ergebnis;
+        });
+    }
+    
+    
+    @Override
+    public List<ReminderVorschau> findVorschau( LocalDateTime bis, Limit limit ) {
+        
+        return lesen( () -> erste( offenBis( bis ), eintrag -> eintrag.postausgangId == null,
+                                     eintrag -> new ReminderVorschau( eintrag.id, eintrag.reminderText, eintrag.faellig ),
+                                     limit ) );
+    }
+    
+    
+    @Override
+    public List<ReminderVorschau> findTexteNachId( long nachId, Limit limit ) {
+        
+        return lesen( () -> erste( _eintraege.tailMap( nachId, false ).values(), eintrag -> true,
+                                     eintrag -> new ReminderVorschau( eintrag.id, eintrag.reminderText, eintrag.faellig ),
+                                     limit ) );
+    }
+    
+    
+    @Override
+    public List<Long> findVersendeteIdsBis( LocalDateTime grenze, Limit limit ) {
+        
+        return lesen( () -> {
+            
+            final List<Eintrag> kandidaten = new ArrayList<>();
+            for ( Eintrag eintrag : _versendet ) {
+                
+                if ( eintrag.versendet != null && eintrag.versendet.isBefore( grenze ) ) {
+                    
+                    kandidaten.add( eintrag );
+                }
+            }
+            kandidaten.sort( Comparator.comparing( ( Eintrag eintrag ) -> eintrag.versendet ) );
+            
+            return erste( kandidaten, eintrag -> true, eintrag -> eintrag.id, limit );
+        });
+    }
+    
+    
+    /**
+     * Die Reminder werden über die Entities ins Archiv in der Datenbank kopiert.
+     */
+    @Override
+    public int archiviere( Collection<Long> ids, LocalDateTime zeitpunktArchiviert ) {
+        
+        final List<ReminderArchivEntity> archiv = 
+                findAllById( ids ).stream()
+                                  .map( reminder -> new ReminderArchivEntity( reminder, zeitpunktArchiviert ) )
+                                  .toList();
+        
+        return _archivRepo.saveAll( archiv ).size();
+    }
+    
+    
+    // ------------------------------------------------------------------------------------
+    // Methoden von ReminderSpeicher: Speichern, Lesen und Löschen
+    // ------------------------------------------------------------------------------------
+    
+    
+    @Override
+    public <S extends ReminderEntity> S save( S entity ) {
+        
+        return schreiben( transaktion -> speichern( entity, transaktion ) );
+    }
+    
+    
+    @Override
+    public <S extends ReminderEntity> List<S> saveAll( Iterable<S> entities ) {
+        
+        return schreiben( transaktion -> {
+            
+            final List<S> ergebnis = new ArrayList<>();
+            for ( S entity : entities ) {
+                
+                ergebnis.add( speichern( entity, transaktion ) );
+            }
+            return ergebnis;
+        });
+    }
+    
+    
+    /**
+     * Im Journal gibt es keinen schnelleren Weg als {@link #saveAll(Iterable)}.
+     */
+    @Override
+    public int fuegeEin( List<ReminderEntity> reminder ) {
+        
+        return saveAll( reminder ).size();
+    }
+    
+    
+    /**
+     * Legt einen Reminder an (ID ist {@code null}, wird vergeben und in die Entity geschrieben)
+     * oder überschreibt einen vorhandenen Reminder; nur mit Schreib-Sperre.
+     */
+    private <S extends ReminderEntity> S speichern( S entity, Transaktion transaktion ) {
+        
+        if ( entity.getId() == null ) {
+            
+            entity.setId( _naechsteId++ );
+        }
+        _naechsteId = Math.max( _naechsteId, entity.getId() + 1 );
+        
+        Eintrag eintrag = _eintraege.get( entity.getId() );
+        if ( eintrag == null ) {
+            
+            merkeVorher( transaktion, entity.getId(), null );
+            
+            eintrag    = new Eintrag();
+            eintrag.id = entity.getId();
+            eintrag.uebernehmen( entity );
+            
+            _eintraege.put( eintrag.id, eintrag );
+            indexEinfuegen( eintrag );
+        
+        } else {
+            
+            aendern( eintrag, transaktion, e -> e.uebernehmen( entity ) );
+        }
+        schreibeAngelegt( eintrag );
+        
+        if ( transaktion != null ) {
+            
+            transaktion.entities.put( entity.getId(), entity );
+        }
+        return entity;
+    }
+    
+    
+    @Override
+    public Optional<ReminderEntity> findById( Long id ) {
+        
+        final List<ReminderEntity> ergebnis = findAllById( List.of( id ) );
+        
+        return ergebnis.isEmpty() ? Optional.empty() : Optional.of( ergebnis.getFirst() );
+    }
+    
+    
+    @Override
+    public List<ReminderEntity> findAllById( Iterable<Long> ids ) {
+        
+        final List<Eintrag> eintraege = new ArrayList<>();
+        return findeEntities( () -> {
+            
+            for ( Long id : ids ) {
+                
+                final Eintrag eintrag = _eintraege.get( id );
+                if ( eintrag != null ) {
+                    
+                    eintraege.add( eintrag );
+                }
+            }
+            return eintraege;
+        }, eintrag -> true );
+    }
+    
+    
+    @Override
+    public void deleteAllByIdInBatch( Iterable<Long> ids ) {
+        
+        schreiben( transaktion -> {
+            
+            for ( Long id : ids ) {
+                
+                final Eintrag eintrag = _eintraege.remove( id );
+                if ( eintrag != null ) {
+                    
+                    merkeVorher( transaktion, id, eintrag );
+                    indexEntfernen( eintrag );
+                    schreibeGeloescht( id );
+                }
+                if ( transaktion != null ) {
+                    
+                    transaktion.entities.remove( id );
+                }
+            }
+            return null;
+        });
+    }
+    
+    
+    /**
+     * Löscht alle Reminder und leert die Journal-Datei (nicht transaktional); die nächste
+     * freie ID bleibt erhalten.
+     */
+    @Override
+    public void deleteAllInBatch() {
+        
+        schreiben( transaktion -> {
+            
+            try {
+                
+                _datei.leeren();
+                schreibeNaechsteId( _datei );
+            }
+            catch ( IOException ex ) {
+                
+                throw new DataAccessResourceFailureException( "Journal konnte nicht geleert werden.", ex );
+            }
+            
+            _eintraege.clear();
+            _offen.clear();
+            _versendet.clear();
+            _nachPostausgang.clear();
+            _nachToken.clear();
+            
+            if ( transaktion != null ) {
+                
+                transaktion.entities.clear();
+            }
+            return null;
+        });
+    }
+
+}
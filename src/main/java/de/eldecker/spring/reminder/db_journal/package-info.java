@@ -0,0 +1,8 @@
+
+/**
+ * Dieses Paket enthält einen alternativen Speicher für die Reminder: ein append-only Journal
+ * in einer per Memory Mapping eingeblendeten Datei mit einem Index im Speicher, der statt
+ * Tabelle {@code REMINDER} verwendet wird, wenn Property {@code de.eldecker.reminder.speicher}
+ * den Wert {@code journal} hat (für hohe Schreibraten, nur eine Instanz der Anwendung).
+ */
+package de.eldecker.spring.reminder.db_journal;
@@ -0,0 +1,21 @@
+package de.eldecker.spring.reminder.db_jpa;
+
+import java.time.LocalDateTime;
+
+
+/**
+ * Projektion eines fälligen Reminders auf die Attribute, die für den Aufbau der
+ * Reminder-Email benötigt werden; wird von {@link ReminderRepo#findBeansprucht}
+ * geliefert, ohne dass hierfür eine {@link ReminderEntity} geladen wird.
+ * 
+ * @param id Primärschlüssel des Reminders
+ * 
+ * @param reminderText Reminder-Text, z.B. "Milch kaufen!"
+ * 
+ * @param zeitpunktFaellig Fälligkeitszeitpunkt des Reminders
+ */
+public record FaelligerReminder( long          id, 
+                                 String        reminderText, 
+                                 LocalDateTime zeitpunktFaellig 
+                               ) {
+}
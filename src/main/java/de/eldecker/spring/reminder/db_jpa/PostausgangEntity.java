@@ -0,0 +1,200 @@
+package de.eldecker.spring.reminder.db_jpa;
+
+import static jakarta.persistence.EnumType.STRING;
+import static jakarta.persistence.GenerationType.SEQUENCE;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+
+
+/**
+ * Entity-Klasse für Tabelle mit dem Postausgang: Für jede zu versendende Email wird ein
+ * Datensatz angelegt, und zwar in derselben Transaktion, in der die zugehörigen Reminder 
+ * für den Versand übernommen werden (Transactional Outbox). Der eigentliche Versand 
+ * erfolgt danach unabhängig davon, mit eigenen Wiederholungsversuchen pro Email.
+ * Bei Sammel-Emails (Digest) verweisen mehrere Reminder auf dieselbe Email.
+ * <br><br>
+ * 
+ * Der Index {@code IDX_POSTAUSGANG_BEREIT} ist der Zugriffspfad für die Suche nach
+ * Emails, die (erneut) versendet werden können.
+ */
+@Entity
+@Table( name    = "POSTAUSGANG",
+        indexes = { @Index( name       = "IDX_POSTAUSGANG_BEREIT", 
+                            columnList = "STATUS, NAECHSTER_VERSUCH" ),
+                    @Index( name       = "IDX_POSTAUSGANG_BEANSPRUCHT", 
+                            columnList = "BEANSPRUCHT_VON" ) } )
+@SequenceGenerator( name           = "postausgang_seq", 
+                    sequenceName   = "postausgang_id_seq", 
+                    allocationSize = 50 )
+public class PostausgangEntity {
+    
+    /** Primärschlüssel, wird von JPA gesetzt/verwaltet. */
+    @Id
+    @GeneratedValue( strategy = SEQUENCE, generator = "postausgang_seq" )
+    @Column( name = "ID" )
+    private Long _id;
+    
+    /** Betreffzeile der Email. */
+    @Column( name = "BETREFF", length = 1000 )
+    private String _betreff;
+    
+    /** Text für Body der Email. */
+    @Column( name = "TEXT", length = 100_000 )
+    private String _text;
+    
+    @Enumerated( STRING )
+    @Column( name = "STATUS", length = 20 )
+    private PostausgangStatus _status;
+    
+    /** Anzahl der bisherigen (fehlgeschlagenen) Versuche, die Email zu versenden. */
+    @Column( name = "ANZAHL_VERSUCHE" )
+    private int _anzahlVersuche;
+    
+    /** Frühester Zeitpunkt für den nächsten Versuch, die Email zu versenden. */
+    @Column( name = "NAECHSTER_VERSUCH" )
+    private LocalDateTime _naechsterVersuch;
+    
+    /** Fehlerbeschreibung vom letzten fehlgeschlagenen Versuch. */
+    @Column( name = "LETZTER_FEHLER", length = 1000 )
+    private String _letzterFehler;
+    
+    @Column( name = "ZEITPUNKT_ANGELEGT" )
+    private LocalDateTime _zeitpunktAngelegt;
+    
+    @Column( name = "ZEITPUNKT_VERSENDET" )
+    private LocalDateTime _zeitpunktVersendet;
+    
+    /** Token der Instanz (und des Chunks), die die Email gerade versendet. */
+    @Column( name = "BEANSPRUCHT_VON", length = 120 )
+    private String _beanspruchtVon;
+    
+    /** Zeitpunkt, bis zu dem die Email von {@link #_beanspruchtVon} beansprucht ist. */
+    @Column( name = "BEANSPRUCHT_BIS" )
+    private LocalDateTime _beanspruchtBis;
+    
+    
+    /** 
+     * Leerer Default-Konstruktor.   
+     */
+    public PostausgangEntity() {}
+    
+    
+    /**
+     * Konstruktor für neue Email im Postausgang, die sofort versendet werden kann.
+     * 
+     * @param betreff Betreffzeile der Email
+     * 
+     * @param text Text für Body der Email
+     * 
+     * @param jetzt Aktueller Zeitpunkt
+     */
+    public PostausgangEntity( String betreff, String text, LocalDateTime jetzt ) {
+        
+        _betreff           = betreff;
+        _text              = text;
+        _status            = PostausgangStatus.OFFEN;
+        _anzahlVersuche    = 0;
+        _naechsterVersuch  = jetzt;
+        _zeitpunktAngelegt = jetzt;
+    }
+    
+    
+    public Long getId() {
+        
+        return _id;
+    }
+    
+    
+    public String getBetreff() {
+        
+        return _betreff;
+    }
+    
+    
+    public String getText() {
+        
+        return _text;
+    }
+    
+    
+    public PostausgangStatus getStatus() {
+        
+        return _status;
+    }
+    
+    
+    public int getAnzahlVersuche() {
+        
+        return _anzahlVersuche;
+    }
+    
+    
+    public LocalDateTime getNaechsterVersuch() {
+        
+        return _naechsterVersuch;
+    }
+    
+    
+    public String getLetzterFehler() {
+        
+        return _letzterFehler;
+    }
+    
+    
+    public LocalDateTime getZeitpunktAngelegt() {
+        
+        return _zeitpunktAngelegt;
+    }
+    
+    
+    public LocalDateTime getZeitpunktVersendet() {
+        
+        return _zeitpunktVersendet;
+    }
+    
+    
+    /**
+     * Vermerkt einen fehlgeschlagenen Versuch und hebt die Beanspruchung auf.
+     * 
+     * @param fehler Fehlerbeschreibung
+     * 
+     * @param naechsterVersuch Zeitpunkt für nächsten Versuch, oder {@code null} wenn es 
+     *                         keinen weiteren Versuch geben soll (Status wird dann 
+     *                         {@link PostausgangStatus#FEHLGESCHLAGEN})
+     */
+    public void versuchFehlgeschlagen( String fehler, LocalDateTime naechsterVersuch ) {
+        
+        _anzahlVersuche++;
+        _letzterFehler = fehler != null && fehler.length() > 1000 ? fehler.substring( 0, 1000 ) : fehler;
+        
+        if ( naechsterVersuch == null ) {
+            
+            _status = PostausgangStatus.FEHLGESCHLAGEN;
+            
+        } else {
+            
+            _naechsterVersuch = naechsterVersuch;
+        }
+        
+        _beanspruchtVon = null;
+        _beanspruchtBis = null;
+    }
+    
+    
+    @Override
+    public String toString() {
+        
+        return String.format( "Postausgang ID=%d, Status=%s, Versuche=%d: \"%s\"", 
+                              _id, _status, _anzahlVersuche, _betreff );
+    }
+    
+}
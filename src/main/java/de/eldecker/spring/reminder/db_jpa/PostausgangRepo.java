@@ -0,0 +1,151 @@
+package de.eldecker.spring.reminder.db_jpa;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+
+/**
+ * Repo-Interface für Zugriff auf Tabelle mit dem Postausgang.
+ */
+public interface PostausgangRepo 
+                 extends JpaRepository<PostausgangEntity, Long> {
+    
+    /**
+     * Findet die IDs von Emails, die (erneut) versendet werden können: Status 
+     * {@link PostausgangStatus#OFFEN}, Zeitpunkt für nächsten Versuch erreicht und nicht 
+     * (mehr) von einer Instanz beansprucht.
+     * 
+     * @param jetzt Aktueller Zeitpunkt
+     * 
+     * @param limit Maximale Anzahl Emails (Chunk-Größe)
+     * 
+     * @return IDs der Emails, aufsteigend sortiert nach Zeitpunkt für nächsten Versuch und ID
+     */
+    @Query( """
+            SELECT p._id
+              FROM PostausgangEntity p
+             WHERE p._status = de.eldecker.spring.reminder.db_jpa.PostausgangStatus.OFFEN
+               AND p._naechsterVersuch <= :jetzt
+               AND ( p._beanspruchtBis IS NULL OR p._beanspruchtBis < :jetzt )
+             ORDER BY p._naechsterVersuch, p._id
+            """ )
+    List<Long> findVersandbereitIds( LocalDateTime jetzt, Limit limit );
+    
+    
+    /**
+     * Zählt die Emails, die (erneut) versendet werden können, mit denselben Bedingungen 
+     * wie {@link #findVersandbereitIds(LocalDateTime, Limit)}.
+     * 
+     * @param jetzt Aktueller Zeitpunkt
+     * 
+     * @return Anzahl versandbereiter Emails
+     */
+    @Query( """
+            SELECT COUNT(p)
+              FROM PostausgangEntity p
+             WHERE p._status = de.eldecker.spring.reminder.db_jpa.PostausgangStatus.OFFEN
+               AND p._naechsterVersuch <= :jetzt
+               AND ( p._beanspruchtBis IS NULL OR p._beanspruchtBis < :jetzt )
+            """ )
+    int countVersandbereit( LocalDateTime jetzt );
+    
+    
+    /**
+     * Beansprucht die übergebenen Emails mit einem bedingten UPDATE, damit jede Email nur
+     * von einer Instanz versendet wird.
+     * 
+     * @param ids IDs der Kandidaten, siehe {@link #findVersandbereitIds(LocalDateTime, Limit)}
+     * 
+     * @param token Eindeutiges Token für Instanz und Chunk
+     * 
+     * @param jetzt Aktueller Zeitpunkt
+     * 
+     * @param bis Ende der Beanspruchung
+     * 
+     * @return Anzahl der beanspruchten Emails
+     */
+    @Modifying
+    @Transactional
+    @Query( """
+            UPDATE PostausgangEntity p
+               SET p._beanspruchtVon = :token,
+                   p._beanspruchtBis = :bis
+             WHERE p._id IN :ids
+               AND p._status = de.eldecker.spring.reminder.db_jpa.PostausgangStatus.OFFEN
+               AND ( p._beanspruchtBis IS NULL OR p._beanspruchtBis < :jetzt )
+            """ )
+    int beanspruche( Collection<Long> ids, String token, LocalDateTime jetzt, LocalDateTime bis );
+    
+    
+    /**
+     * Liest die Emails, die mit dem übergebenen Token beansprucht wurden; die Abfrage
+     * verwendet den Index {@code IDX_POSTAUSGANG_BEANSPRUCHT}.
+     * 
+     * @param token Token, das für {@link #beanspruche(Collection, String, LocalDateTime, LocalDateTime)}
+     *              verwendet wurde
+     * 
+     * @return Beanspruchte Emails
+     */
+    List<PostausgangEntity> findBy_beanspruchtVon( String token );
+    
+    
+    /**
+     * Markiert Emails mit einem UPDATE-Statement als versendet und hebt die 
+     * Beanspruchung auf.
+     * 
+     * @param ids IDs der Emails
+     * 
+     * @param zeitpunktVersendet Zeitpunkt, zu dem die Emails versendet wurden
+     * 
+     * @return Anzahl der geänderten Zeilen
+     */
+    @Modifying
+    @Query( """
+            UPDATE PostausgangEntity p
+               SET p._status             = de.eldecker.spring.reminder.db_jpa.PostausgangStatus.VERSENDET,
+                   p._zeitpunktVersendet = :zeitpunktVersendet,
+                   p._beanspruchtVon     = null,
+                   p._beanspruchtBis     = null
+             WHERE p._id IN :ids
+            """ )
+    int markiereAlsVersendet( Collection<Long> ids, LocalDateTime zeitpunktVersendet );
+    
+    
+    /**
+     * Zählt die Emails im Postausgang mit dem übergebenen Status.
+     * 
+     * @param status Status der Emails
+     * 
+     * @return Anzahl Emails
+     */
+    int countBy_status( PostausgangStatus status );
+    
+    
+    /**
+     * Findet die IDs von Emails, die vor dem übergebenen Zeitpunkt versendet wurden und
+     * auf die kein Reminder mehr verweist, weil die Reminder schon archiviert oder gelöscht
+     * wurden (oder weil es wiederkehrende Reminder mit neuer Fälligkeit sind).
+     * 
+     * @param grenze Ende der Aufbewahrungsfrist (exklusiv)
+     * 
+     * @param limit Maximale Anzahl Emails (Batch-Größe)
+     * 
+     * @return IDs der Emails
+     */
+    @Query( """
+            SELECT p._id
+              FROM PostausgangEntity p
+             WHERE p._status = de.eldecker.spring.reminder.db_jpa.PostausgangStatus.VERSENDET
+               AND p._zeitpunktVersendet < :grenze
+               AND NOT EXISTS ( SELECT r._id FROM ReminderEntity r WHERE r._postausgangId = p._id )
+            """ )
+    List<Long> findVersendeteOhneReminderIdsBis( LocalDateTime grenze, Limit limit );
+    
+}
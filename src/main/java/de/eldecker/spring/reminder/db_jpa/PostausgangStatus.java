@@ -0,0 +1,17 @@
+package de.eldecker.spring.reminder.db_jpa;
+
+
+/**
+ * Status einer Email im Postausgang (siehe {@link PostausgangEntity}).
+ */
+public enum PostausgangStatus {
+    
+    /** Email wurde noch nicht versendet, (weiterer) Versuch steht noch aus. */
+    OFFEN,
+    
+    /** Email wurde vom SMTP-Server angenommen. */
+    VERSENDET,
+    
+    /** Email konnte auch nach der maximalen Anzahl an Versuchen nicht versendet werden. */
+    FEHLGESCHLAGEN
+}
@@ -0,0 +1,111 @@
+package de.eldecker.spring.reminder.db_jpa;
+
+import static de.eldecker.spring.reminder.helferlein.ZeitpunktFormatierer.formatiere;
+
+import java.time.LocalDateTime;
+
+import de.eldecker.spring.reminder.model.Wiederholung;
+
+
+/**
+ * Read-only Projektion eines Reminders für die Anzeige (Reminder-Liste, REST-API); wird
+ * von den Abfragen in {@link ReminderRepo} mit einem Konstruktor-Ausdruck erzeugt, so dass 
+ * <i>Hibernate</i> dafür keine {@link ReminderEntity} im Persistence Context verwalten muss 
+ * (kein Entity-Eintrag, kein Snapshot für Dirty Checking).
+ * <br><br>
+ * 
+ * Der Anzeige-Text (siehe {@link ReminderEntity#toString()}) wird einmal beim Erzeugen 
+ * der Projektion aufgebaut und danach von {@link #toString()} nur noch zurückgegeben.
+ * 
+ * @param id Primärschlüssel des Reminders
+ * 
+ * @param reminderText Text für Betreffzeile der Reminder-Email
+ * 
+ * @param zeitpunktAngelegt Zeitpunkt, zu dem der Reminder angelegt wurde
+ * 
+ * @param zeitpunktFaellig (Nächster) Zeitpunkt, zu dem der Reminder versendet werden soll
+ * 
+ * @param zeitpunktVersendet Zeitpunkt des Versands, {@code null} wenn noch nicht versendet
+ * 
+ * @param schonVersendet {@code true} gdw. der Reminder schon versendet wurde
+ * 
+ * @param zeitpunktFehlgeschlagen Zeitpunkt, zu dem der Versand endgültig fehlgeschlagen ist,
+ *                                sonst {@code null}
+ * 
+ * @param wiederholung Regel für wiederkehrenden Reminder, {@code null} für einmaligen Reminder
+ * 
+ * @param wiederholungCron Cron-Ausdruck für {@link Wiederholung#CRON}
+ * 
+ * @param anzeigeText Text für Anzeige des Reminders in der Reminder-Liste
+ */
+public record ReminderAnzeige( long          id,
+                               String        reminderText,
+                               LocalDateTime zeitpunktAngelegt,
+                               LocalDateTime zeitpunktFaellig,
+                               LocalDateTime zeitpunktVersendet,
+                               boolean       schonVersendet,
+                               LocalDateTime zeitpunktFehlgeschlagen,
+                               Wiederholung  wiederholung,
+                               String        wiederholungCron,
+                               String        anzeigeText
+                             ) {
+    
+    /**
+     * Konstruktor für Konstruktor-Ausdrücke in JPQL-Abfragen, baut den Anzeige-Text auf.
+     */
+    public ReminderAnzeige( long          id,
+                            String        reminderText,
+                            LocalDateTime zeitpunktAngelegt,
+                            LocalDateTime zeitpunktFaellig,
+                            LocalDateTime zeitpunktVersendet,
+                            boolean       schonVersendet,
+                            LocalDateTime zeitpunktFehlgeschlagen,
+                            Wiederholung  wiederholung,
+                            String        wiederholungCron ) {
+        
+        this( id, reminderText, zeitpunktAngelegt, zeitpunktFaellig, zeitpunktVersendet, 
+              schonVersendet, zeitpunktFehlgeschlagen, wiederholung, wiederholungCron, 
+              erzeugeAnzeigeText( id, reminderText, zeitpunktFaellig, zeitpunktFehlgeschlagen, wiederholung ) );
+    }
+    
+    
+    /**
+     * Erzeugt denselben Text wie {@link ReminderEntity#toString()}, aber ohne 
+     * {@code String.format()}.
+     */
+    private static String erzeugeAnzeigeText( long          id, 
+                                              String        reminderText, 
+                                              LocalDateTime zeitpunktFaellig, 
+                                              LocalDateTime zeitpunktFehlgeschlagen,
+                                              Wiederholung  wiederholung ) {
+        
+        final StringBuilder sb = new StringBuilder( 64 + reminderText.length() );
+        sb.append( "Fällig am " ).append( formatiere( zeitpunktFaellig ) )
+          .append( " Uhr: \"" ).append( reminderText )
+          .append( "\" (ID=" ).append( id ).append( ')' );
+        
+        if ( wiederholung != null ) {
+            
+            sb.append( ", wiederholt " ).append( wiederholung.getBezeichnung() );
+        }
+        if ( zeitpunktFehlgeschlagen != null ) {
+            
+            sb.append( ", Versand fehlgeschlagen" );
+        }
+        
+        return sb.toString();
+    }
+    
+    
+    /**
+     * Text für Anzeige des Reminders, wird nicht bei jedem Aufruf neu erzeugt.
+     * 
+     * @return Anzeige-Text, z.B. {@code Fällig am 24.12.2026 (Do.), 08:00 Uhr: "Frohe Weihnachten!" (ID=42)}
+     */
+    @Override
+    public String toString() {
+        
+        return anzeigeText;
+    }
+    
+}
@@ -0,0 +1,136 @@
+package de.eldecker.spring.reminder.db_jpa;
+
+import static de.eldecker.spring.reminder.helferlein.ZeitpunktFormatierer.formatiere;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+
+/**
+ * Entity-Klasse für das Archiv mit versendeten Remindern: Reminder, die vor mehr als
+ * {@code de.eldecker.reminder.aufbewahrung_tage} Tagen versendet wurden, werden von
+ * {@code ReminderAufbewahrung} aus Tabelle {@code REMINDER} in diese Tabelle verschoben,
+ * so dass die Tabelle {@code REMINDER} nur noch ungefähr so groß ist wie die Menge der
+ * offenen Reminder.
+ * <br><br>
+ * 
+ * Die ID des Reminders wird übernommen und deshalb nicht von JPA erzeugt; die Zeilen
+ * werden mit {@link ReminderSpeicher#archiviere} kopiert, bei {@link ReminderRepo} direkt
+ * aus Tabelle {@code REMINDER}. Der Index {@code IDX_ARCHIV_VERSENDET} ist der Zugriffspfad für die Anzeige 
+ * des Archivs (neueste zuerst).
+ */
+@Entity
+@Table( name    = "REMINDER_ARCHIV",
+        indexes = { @Index( name       = "IDX_ARCHIV_VERSENDET", 
+                            columnList = "ZEITPUNKT_VERSENDET, ID" ) } )
+public class ReminderArchivEntity {
+    
+    /** Primärschlüssel, derselbe Wert wie in Tabelle {@code REMINDER}. */
+    @Id
+    @Column( name = "ID" )
+    private Long _id;
+    
+    @Column( name = "REMINDER_TEXT" )
+    private String _reminderText;
+    
+    @Column( name = "ZEITPUNKT_ANGELEGT" )
+    private LocalDateTime _zeitpunktAngelegt;
+    
+    @Column( name = "ZEITPUNKT_FAELLIG" )
+    private LocalDateTime _zeitpunktFaellig;
+    
+    @Column( name = "ZEITPUNKT_VERSENDET" )
+    private LocalDateTime _zeitpunktVersendet;
+    
+    /** Zeitpunkt, zu dem der Reminder ins Archiv verschoben wurde. */
+    @Column( name = "ZEITPUNKT_ARCHIVIERT" )
+    private LocalDateTime _zeitpunktArchiviert;
+    
+    
+    /** 
+     * Leerer Default-Konstruktor.   
+     */
+    public ReminderArchivEntity() {}
+    
+    
+    /**
+     * Konstruktor für Archivierung eines Reminders, der nicht in Tabelle {@code REMINDER}
+     * gespeichert ist (Journal-Speicher) und deshalb nicht mit einem INSERT-SELECT-Statement
+     * kopiert werden kann.
+     * 
+     * @param reminder Versendeter Reminder
+     * 
+     * @param zeitpunktArchiviert Aktueller Zeitpunkt
+     */
+    public ReminderArchivEntity( ReminderEntity reminder, LocalDateTime zeitpunktArchiviert ) {
+        
+        _id                  = reminder.getId();
+        _reminderText        = reminder.getReminderText();
+        _zeitpunktAngelegt   = reminder.getZeitpunktAngelegt();
+        _zeitpunktFaellig    = reminder.getZeitpunktFaelligkeit();
+        _zeitpunktVersendet  = reminder.getZeitpunktVersendet();
+        _zeitpunktArchiviert = zeitpunktArchiviert;
+    }
+    
+    
+    public Long getId() {
+        
+        return _id;
+    }
+    
+    
+    public String getReminderText() {
+        
+        return _reminderText;
+    }
+    
+    
+    public LocalDateTime getZeitpunktAngelegt() {
+        
+        return _zeitpunktAngelegt;
+    }
+    
+    
+    public LocalDateTime getZeitpunktFaelligkeit() {
+        
+        return _zeitpunktFaellig;
+    }
+    
+    
+    public LocalDateTime getZeitpunktVersendet() {
+        
+        return _zeitpunktVersendet;
+    }
+    
+    
+    public LocalDateTime getZeitpunktArchiviert() {
+        
+        return _zeitpunktArchiviert;
+    }
+    
+    
+    /**
+     * String-Repräsentation des aufrufenden Objekts.
+     * 
+     * @return Text mit Versandzeitpunkt, Reminder-Text und Fälligkeitszeitpunkt;
+     *         Beispiel:
+     *         <pre>
+     *         Versendet am 23.12.2026 (Mi.), 07:10 Uhr: "Schon alle Weihnachtsgeschenke besorgt?" (fällig am 23.12.2026 (Mi.), 07:10 Uhr, ID=123)
+     *         </pre>
+     */
+    @Override
+    public String toString() {
+        
+        return String.format( "Versendet am %s Uhr: \"%s\" (fällig am %s Uhr, ID=%d)",
+                              formatiere( _zeitpunktVersendet ),
+                              _reminderText,
+                              formatiere( _zeitpunktFaellig ),
+                              _id );
+    }
+    
+}
@@ -0,0 +1,54 @@
+package de.eldecker.spring.reminder.db_jpa;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+
+/**
+ * Repo-Interface für Zugriff auf Tabelle mit den archivierten Remindern.
+ */
+public interface ReminderArchivRepo 
+                 extends JpaRepository<ReminderArchivEntity, Long> {
+    
+    /**
+     * Liefert die erste Seite des Archivs; die weiteren Seiten werden mit 
+     * {@link #findSeiteNach(LocalDateTime, long, Limit)} gelesen.
+     * 
+     * @param limit Maximale Anzahl Reminder auf der Seite
+     * 
+     * @return Reminder, absteigend sortiert nach Versandzeitpunkt und ID (neueste zuerst)
+     */
+    @Query( """
+            SELECT a 
+              FROM ReminderArchivEntity a 
+             ORDER BY a._zeitpunktVersendet DESC, a._id DESC
+            """ )
+    List<ReminderArchivEntity> findSeite( Limit limit );
+    
+    
+    /**
+     * Liefert eine weitere Seite des Archivs (Keyset-Pagination über Versandzeitpunkt
+     * und ID).
+     * 
+     * @param vorZeitpunkt Versandzeitpunkt des letzten Reminders der vorherigen Seite
+     * 
+     * @param vorId ID des letzten Reminders der vorherigen Seite
+     * 
+     * @param limit Maximale Anzahl Reminder auf der Seite
+     * 
+     * @return Reminder, absteigend sortiert nach Versandzeitpunkt und ID (neueste zuerst)
+     */
+    @Query( """
+            SELECT a 
+              FROM ReminderArchivEntity a 
+             WHERE a._zeitpunktVersendet < :vorZeitpunkt 
+                OR ( a._zeitpunktVersendet = :vorZeitpunkt AND a._id < :vorId )
+             ORDER BY a._zeitpunktVersendet DESC, a._id DESC
+            """ )
+    List<ReminderArchivEntity> findSeiteNach( LocalDateTime vorZeitpunkt, long vorId, Limit limit );
+    
+}
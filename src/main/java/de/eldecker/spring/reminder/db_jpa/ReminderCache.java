@@ -0,0 +1,135 @@
+package de.eldecker.spring.reminder.db_jpa;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.persistence.EntityManagerFactory;
+
+
+/**
+ * Bean-Klasse für den Second-Level-Cache von <i>Hibernate</i> für {@link ReminderEntity}
+ * (Region {@value #REGION_REMINDER}) und den Query-Cache für die Abfragen der 
+ * Reminder-Liste (Region {@value #REGION_ABFRAGEN}); Cache-Provider ist <i>Caffeine</i>
+ * über JCache, die Größe der Regionen ist in {@code application.conf} begrenzt. Der Cache
+ * ist optional und wird mit der Property 
+ * {@code spring.jpa.properties.hibernate.cache.use_second_level_cache} eingeschaltet.
+ * <br><br>
+ * 
+ * Änderungen über <i>Hibernate</i> werden von <i>Hibernate</i> selbst im Cache nachgezogen:
+ * Das Anlegen eines Reminders macht nur die Abfragen auf Tabelle {@code REMINDER} ungültig,
+ * die gecachten Entities bleiben gültig; die UPDATE-Anweisungen im Versand-Lauf (Beanspruchen,
+ * als versendet markieren) werden nur ausgeführt, wenn es fällige Reminder gibt, so dass ein
+ * Versand-Lauf ohne fällige Reminder den Cache nicht leert. Für Änderungen mit JDBC an 
+ * <i>Hibernate</i> vorbei (Import) muss {@link #abfragenVerwerfen()} aufgerufen werden.
+ * <br><br>
+ * 
+ * Treffer und Fehlzugriffe pro Region werden als Micrometer-Metrik 
+ * {@code reminder.cache.zugriffe} (Tags {@code region} und {@code ergebnis}) erfasst und
+ * auf der Statistik-Seite angezeigt, damit die Größe des Cache angepasst werden kann.
+ */
+@Component
+public class ReminderCache {
+    
+    private static Logger LOG = LoggerFactory.getLogger( ReminderCache.class );
+    
+    /** Cache-Region für {@link ReminderEntity}. */
+    public static final String REGION_REMINDER = "reminder";
+    
+    /** Cache-Region für die Ergebnisse der Abfragen für die Reminder-Liste. */
+    public static final String REGION_ABFRAGEN = "reminder-abfragen";
+    
+    
+    /** Session-Factory von <i>Hibernate</i> für Zugriff auf Cache und Statistiken. */
+    private final SessionFactory _sessionFactory;
+    
+    
+    /**
+     * Zugriffe auf eine Cache-Region.
+     * 
+     * @param region Name der Region
+     * 
+     * @param treffer Anzahl der Zugriffe, die aus dem Cache beantwortet wurden
+     * 
+     * @param fehlzugriffe Anzahl der Zugriffe, für die die Datenbank abgefragt werden musste
+     * 
+     * @param trefferQuote Anteil der Treffer an allen Zugriffen in Prozent, 
+     *                     {@code 0} wenn es noch keine Zugriffe gab
+     */
+    public record Zugriffe( String region, long treffer, long fehlzugriffe, double trefferQuote ) {}
+    
+    
+    /**
+     * Konstruktor für Dependency Injection.
+     */
+    @Autowired
+    public ReminderCache( EntityManagerFactory entityManagerFactory,
+                          MeterRegistry        meterRegistry ) {
+        
+        _sessionFactory = entityManagerFactory.unwrap( SessionFactory.class );
+        
+        for ( String region : new String[] { REGION_REMINDER, REGION_ABFRAGEN } ) {
+            
+            FunctionCounter.builder( "reminder.cache.zugriffe", this, cache -> cache.getZugriffe( region ).treffer() )
+                           .description( "Zugriffe auf den Second-Level- bzw. Query-Cache" )
+                           .tags( "region", region, "ergebnis", "treffer" )
+                           .register( meterRegistry );
+            
+            FunctionCounter.builder( "reminder.cache.zugriffe", this, cache -> cache.getZugriffe( region ).fehlzugriffe() )
+                           .description( "Zugriffe auf den Second-Level- bzw. Query-Cache" )
+                           .tags( "region", region, "ergebnis", "fehlzugriff" )
+                           .register( meterRegistry );
+        }
+    }
+    
+    
+    /**
+     * Verwirft die gecachten Abfrage-Ergebnisse für Tabelle {@code REMINDER}, z.B. nachdem 
+     * mit JDBC neue Reminder eingefügt wurden; die gecachten Entities bleiben gültig, da
+     * sich bestehende Reminder nicht geändert haben.
+     */
+    public void abfragenVerwerfen() {
+        
+        _sessionFactory.getCache().evictQueryRegion( REGION_ABFRAGEN );
+        
+        LOG.debug( "Query-Cache-Region {} verworfen.", REGION_ABFRAGEN );
+    }
+    
+    
+    /**
+     * Zugriffe auf eine Cache-Region seit dem Start der Anwendung; die Werte sind nur
+     * verfügbar, wenn die Statistiken von <i>Hibernate</i> eingeschaltet sind
+     * (Property {@code spring.jpa.properties.hibernate.generate_statistics}).
+     * 
+     * @param region Name der Region, z.B. {@link #REGION_REMINDER}
+     * 
+     * @return Zugriffe; alle Werte {@code 0}, wenn der Cache oder die Statistiken 
+     *         ausgeschaltet sind
+     */
+    public Zugriffe getZugriffe( String region ) {
+        
+        final Statistics statistics = _sessionFactory.getStatistics();
+        
+        final CacheRegionStatistics regionStatistics = statistics.isStatisticsEnabled()
+                                                       ? statistics.getCacheRegionStatistics( region )
+                                                       : null;
+        if ( regionStatistics == null ) {
+            
+            return new Zugriffe( region, 0, 0, 0.0 );
+        }
+        
+        final long treffer      = regionStatistics.getHitCount();
+        final long fehlzugriffe = regionStatistics.getMissCount();
+        final long gesamt       = treffer + fehlzugriffe;
+        
+        return new Zugriffe( region, treffer, fehlzugriffe, gesamt == 0 ? 0.0 : 100.0 * treffer / gesamt );
+    }
+    
+}
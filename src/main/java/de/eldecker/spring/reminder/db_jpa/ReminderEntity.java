@@ -1,16 +1,25 @@
 package de.eldecker.spring.reminder.db_jpa;
 
 import static de.eldecker.spring.reminder.helferlein.ZeitpunktFormatierer.formatiere;
+import static jakarta.persistence.EnumType.STRING;
 import static jakarta.persistence.GenerationType.SEQUENCE;
+import static org.hibernate.annotations.CacheConcurrencyStrategy.READ_WRITE;
 import static java.time.LocalDateTime.now;
 
 import java.time.LocalDateTime;
 import java.util.Objects;
 
+import de.eldecker.spring.reminder.model.Wiederholung;
+
+import org.hibernate.annotations.Cache;
+
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 
@@ -22,9 +31,58 @@ import jakarta.persistence.Table;
  * Mit der Annotation {@code SequenceGenerator} wird der Sequenz-Generator für
  * die Erzeugung der Primärschlüsselwerte so konfiguriert, dass immer noch
  * ein Wert im Voraus erzeugt wird, so dass durch Neustarten der Anwendung 
+ * <br><br>
+ * 
+ * Der zusammengesetzte Index {@code IDX_REMINDER_FAELLIG} ist der Zugriffspfad für die
+ * Suche nach fälligen Remindern (siehe {@link ReminderRepo#findFreieFaelligeReminderIds}),
+ * so dass die schon versendeten Reminder dabei nicht gelesen werden müssen.
+ * <br><br>
+ * 
+ * Damit mehrere Instanzen der Anwendung auf dieselbe Datenbank zugreifen können, wird
+ * ein fälliger Reminder vor dem Versand von einer Instanz für eine begrenzte Zeit
+ * beansprucht (Spalten {@code BEANSPRUCHT_VON} und {@code BEANSPRUCHT_BIS}). Stürzt
+ * die Instanz ab, dann läuft die Beanspruchung ab und der Reminder kann von einer
+ * anderen Instanz versendet werden.
+ * <br><br>
+ * 
+ * Die Beanspruchung schützt nur die Übernahme in den Postausgang: In derselben Transaktion
+ * wird für den Reminder eine {@link PostausgangEntity} angelegt und deren ID in Spalte
+ * {@code POSTAUSGANG_ID} eingetragen; der Reminder wird erst als versendet markiert, wenn
+ * die Email aus dem Postausgang tatsächlich versendet wurde.
+ * <br><br>
+ * 
+ * Ein wiederkehrender Reminder (Spalte {@code WIEDERHOLUNG} ist gesetzt) wird nach dem 
+ * Versand nicht als versendet markiert; stattdessen wird {@code ZEITPUNKT_FAELLIG} auf die 
+ * nächste Fälligkeit gesetzt (siehe {@link #naechsteFaelligkeit(LocalDateTime)}), so dass
+ * eine Zeile für beliebig viele Fälligkeiten genügt und der Index weiterhin greift.
+ * <br><br>
+ * 
+ * Ist der Versand der Email endgültig fehlgeschlagen, dann wird der Reminder nicht als
+ * versendet markiert, sondern in Spalte {@code ZEITPUNKT_FEHLGESCHLAGEN} als fehlgeschlagen;
+ * er bleibt offen und mit der Email im Postausgang verknüpft (Status {@code FEHLGESCHLAGEN}),
+ * wird also nicht erneut versendet.
+ * <br><br>
+ * 
+ * Versendete Reminder werden nach Ablauf der Aufbewahrungsfrist archiviert (siehe
+ * {@link ReminderArchivEntity}) oder gelöscht; der Index {@code IDX_REMINDER_VERSENDET}
+ * ist der Zugriffspfad für die Suche nach diesen Remindern.
+ * <br><br>
+ * 
+ * Ist der Second-Level-Cache von <i>Hibernate</i> eingeschaltet, dann werden die Reminder
+ * in der Region {@link ReminderCache#REGION_REMINDER} gecacht (siehe {@link ReminderCache}).
  */
 @Entity
-@Table( name = "REMINDER" )
+@Cacheable
+@Cache( usage = READ_WRITE, region = ReminderCache.REGION_REMINDER )
+@Table( name    = "REMINDER",
+        indexes = { @Index( name       = "IDX_REMINDER_FAELLIG", 
+                            columnList = "SCHON_VERSENDET, ZEITPUNKT_FAELLIG" ),
+                    @Index( name       = "IDX_REMINDER_POSTAUSGANG", 
+                            columnList = "POSTAUSGANG_ID" ),
+                    @Index( name       = "IDX_REMINDER_VERSENDET", 
+                            columnList = "SCHON_VERSENDET, ZEITPUNKT_VERSENDET" ),
+                    @Index( name       = "IDX_REMINDER_BEANSPRUCHT", 
+                            columnList = "BEANSPRUCHT_VON" ) } )
 @SequenceGenerator( name           = "reminder_seq", 
                     sequenceName   = "reminder_id_seq", 
                     allocationSize = 1 )
@@ -63,6 +121,50 @@ public class ReminderEntity {
     @Column( name = "SCHON_VERSENDET" )
     private boolean _schonVersendet;
     
+    /**
+     * Token der Instanz (und des Chunks), die den Reminder gerade versendet; 
+     * {@code null}, wenn der Reminder nicht beansprucht ist.
+     */
+    @Column( name = "BEANSPRUCHT_VON", length = 120 )
+    private String _beanspruchtVon;
+    
+    /**
+     * Zeitpunkt, bis zu dem der Reminder von {@link #_beanspruchtVon} beansprucht ist;
+     * danach darf eine andere Instanz den Reminder beanspruchen.
+     */
+    @Column( name = "BEANSPRUCHT_BIS" )
+    private LocalDateTime _beanspruchtBis;
+    
+    /**
+     * ID der Email im Postausgang, mit der dieser Reminder versendet wird; {@code null},
+     * solange der Reminder noch nicht in den Postausgang übernommen wurde.
+     */
+    @Column( name = "POSTAUSGANG_ID" )
+    private Long _postausgangId;
+    
+    /**
+     * Zeitpunkt, zu dem der Versand der Email endgültig fehlgeschlagen ist; {@code null},
+     * solange das nicht der Fall ist.
+     */
+    @Column( name = "ZEITPUNKT_FEHLGESCHLAGEN" )
+    private LocalDateTime _zeitpunktFehlgeschlagen;
+    
+    /** Regel für wiederkehrenden Reminder, {@code null} für einmaligen Reminder. */
+    @Enumerated( STRING )
+    @Column( name = "WIEDERHOLUNG", length = 20 )
+    private Wiederholung _wiederholung;
+    
+    /** Cron-Ausdruck, nur für {@link Wiederholung#CRON}. */
+    @Column( name = "WIEDERHOLUNG_CRON", length = 120 )
+    private String _wiederholungCron;
+    
+    /** 
+     * Erste Fälligkeit; Anker für die Berechnung der weiteren Fälligkeiten eines
+     * wiederkehrenden Reminders.
+     */
+    @Column( name = "ZEITPUNKT_ERSTE_FAELLIGKEIT" )
+    private LocalDateTime _zeitpunktErsteFaelligkeit;
+    
     
     /** 
      * Leerer Default-Konstruktor.   
@@ -82,8 +184,33 @@ public class ReminderEntity {
                            LocalDateTime zeitpunktFaelligkeit
                          ) {
         
-        _reminderText     = reminderText;
-        _zeitpunktFaellig = zeitpunktFaelligkeit;
+        this( reminderText, zeitpunktFaelligkeit, null, null );
+    }
+    
+    
+    /**
+     * Konstruktur um ganz neuen (evtl. wiederkehrenden) Reminder zu ereugen.
+     * 
+     * @param reminderText Reminder-Text, z.B. "Milch kaufen!"
+     * 
+     * @param zeitpunktFaelligkeit Zeitpunkt, zu dem dieser Reminder
+     *                             (zum ersten Mal) versendet werden soll
+     * 
+     * @param wiederholung Regel für Wiederholung, {@code null} für einmaligen Reminder
+     * 
+     * @param wiederholungCron Cron-Ausdruck für {@link Wiederholung#CRON}, sonst {@code null}
+     */
+    public ReminderEntity( String        reminderText, 
+                           LocalDateTime zeitpunktFaelligkeit,
+                           Wiederholung  wiederholung,
+                           String        wiederholungCron
+                         ) {
+        
+        _reminderText              = reminderText;
+        _zeitpunktFaellig          = zeitpunktFaelligkeit;
+        _zeitpunktErsteFaelligkeit = zeitpunktFaelligkeit;
+        _wiederholung              = wiederholung;
+        _wiederholungCron          = wiederholungCron;
         
         _zeitpunktAngelegt = now();
         _schonVersendet    = false;
@@ -95,6 +222,20 @@ public class ReminderEntity {
         return _id;
     }
     
+    
+    /**
+     * Setzt die ID; wird nur vom Journal-Speicher (siehe
+     * {@link de.eldecker.spring.reminder.db_journal.ReminderJournalRepo}) und beim Import
+     * (siehe {@link ReminderSpeicher#fuegeEin(java.util.List)}) benötigt, sonst wird die ID bei JPA
+     * von der Sequenz vergeben.
+     * 
+     * @param id Primärschlüssel
+     */
+    public void setId( Long id ) {
+        
+        _id = id;
+    }
+    
     public String getReminderText() {
         
         return _reminderText;
@@ -155,6 +296,149 @@ public class ReminderEntity {
     }    
     
     
+    public String getBeanspruchtVon() {
+        
+        return _beanspruchtVon;
+    }
+    
+    
+    public LocalDateTime getBeanspruchtBis() {
+        
+        return _beanspruchtBis;
+    }
+    
+    
+    /**
+     * Vermerkt die Beanspruchung des Reminders; bei JPA wird sie stattdessen mit
+     * {@link ReminderRepo#beanspruche} in die Tabelle geschrieben.
+     * 
+     * @param beanspruchtVon Token der Instanz und des Chunks
+     * 
+     * @param beanspruchtBis Ende der Beanspruchung
+     */
+    public void beanspruchen( String beanspruchtVon, LocalDateTime beanspruchtBis ) {
+        
+        _beanspruchtVon = beanspruchtVon;
+        _beanspruchtBis = beanspruchtBis;
+    }
+    
+    
+    public Long getPostausgangId() {
+        
+        return _postausgangId;
+    }
+    
+    
+    /**
+     * Vermerkt, dass für diesen Reminder eine Email im Postausgang angelegt wurde, und hebt
+     * die Beanspruchung auf.
+     * 
+     * @param postausgangId ID der {@link PostausgangEntity}
+     */
+    public void inPostausgangUebernommen( long postausgangId ) {
+        
+        _postausgangId  = postausgangId;
+        _beanspruchtVon = null;
+        _beanspruchtBis = null;
+    }
+    
+    
+    public LocalDateTime getZeitpunktFehlgeschlagen() {
+        
+        return _zeitpunktFehlgeschlagen;
+    }
+    
+    
+    public void setZeitpunktFehlgeschlagen( LocalDateTime zeitpunktFehlgeschlagen ) {
+        
+        _zeitpunktFehlgeschlagen = zeitpunktFehlgeschlagen;
+    }
+    
+    
+    public Wiederholung getWiederholung() {
+        
+        return _wiederholung;
+    }
+    
+    
+    public String getWiederholungCron() {
+        
+        return _wiederholungCron;
+    }
+    
+    
+    public LocalDateTime getZeitpunktErsteFaelligkeit() {
+        
+        return _zeitpunktErsteFaelligkeit;
+    }
+    
+    
+    public void setZeitpunktErsteFaelligkeit( LocalDateTime zeitpunktErsteFaelligkeit ) {
+        
+        _zeitpunktErsteFaelligkeit = zeitpunktErsteFaelligkeit;
+    }
+    
+    
+    /**
+     * Berechnet für einen wiederkehrenden Reminder die nächste Fälligkeit nach dem Versand
+     * und gibt den Reminder wieder für die Übernahme in den Postausgang frei. Gibt es keine 
+     * weitere Fälligkeit, dann wird der Reminder als versendet markiert.
+     * 
+     * @param jetzt Aktueller Zeitpunkt; die nächste Fälligkeit liegt danach, verpasste 
+     *              Fälligkeiten werden also übersprungen
+     * 
+     * @return {@code true} gdw. es eine weitere Fälligkeit gibt
+     */
+    public boolean naechsteFaelligkeit( LocalDateTime jetzt ) {
+        
+        final LocalDateTime naechste = berechneNaechsteFaelligkeit( jetzt );
+        
+        _postausgangId = null;
+        
+        if ( naechste == null ) {
+            
+            _schonVersendet = true;
+            return false;
+        }
+        
+        _zeitpunktFaellig = naechste;
+        return true;
+    }
+    
+    
+    /**
+     * Wie {@link #naechsteFaelligkeit(LocalDateTime)}, aber nach endgültig fehlgeschlagenem
+     * Versand: Gibt es keine weitere Fälligkeit, dann wird der Reminder nicht als versendet,
+     * sondern als fehlgeschlagen markiert und bleibt mit der Email im Postausgang verknüpft.
+     * 
+     * @param jetzt Aktueller Zeitpunkt
+     * 
+     * @return {@code true} gdw. es eine weitere Fälligkeit gibt
+     */
+    public boolean naechsteFaelligkeitNachFehlschlag( LocalDateTime jetzt ) {
+        
+        final LocalDateTime naechste = berechneNaechsteFaelligkeit( jetzt );
+        if ( naechste == null ) {
+            
+            _zeitpunktFehlgeschlagen = jetzt;
+            return false;
+        }
+        
+        _postausgangId    = null;
+        _zeitpunktFaellig = naechste;
+        return true;
+    }
+    
+    
+    private LocalDateTime berechneNaechsteFaelligkeit( LocalDateTime jetzt ) {
+        
+        final LocalDateTime nach  = jetzt.isAfter( _zeitpunktFaellig ) ? jetzt : _zeitpunktFaellig;
+        final LocalDateTime anker = _zeitpunktErsteFaelligkeit != null ? _zeitpunktErsteFaelligkeit : _zeitpunktFaellig;
+        
+        return _wiederholung.naechsterZeitpunkt( anker, _wiederholungCron, nach );
+    }
+    
+    
     public String getZeitpunktFaelligkeitFormatiert() {
         
         return formatiere( _zeitpunktFaellig );
@@ -233,16 +517,30 @@ public class ReminderEntity {
      *         <pre>
      *         Fällig am 23.12.2026 (Mi.), 07:10 Uhr: "Schon alle Weihnachtsgeschenke besorgt?" (ID=123)
      *         </pre>
+     *         Bei wiederkehrenden Remindern wird noch die Regel angehängt, z.B. 
+     *         {@code ", wiederholt jährlich"}, nach endgültig fehlgeschlagenem Versand
+     *         {@code ", Versand fehlgeschlagen"}.
      */
     @Override
     public String toString() {
         
-        return String.format( 
-                    "Fällig am %s Uhr: \"%s\" (ID=%d)", 
-                    getZeitpunktFaelligkeitFormatiert(), 
-                    _reminderText,
-                    _id
-               );
+        String text = String.format( 
+                            "Fällig am %s Uhr: \"%s\" (ID=%d)", 
+                            getZeitpunktFaelligkeitFormatiert(), 
+                            _reminderText,
+                            _id
+                        );
+        
+        if ( _wiederholung != null ) {
+            
+            text += ", wiederholt " + _wiederholung.getBezeichnung();
+        }
+        if ( _zeitpunktFehlgeschlagen != null ) {
+            
+            text += ", Versand fehlgeschlagen";
+        }
+        
+        return text;
     }
 
 }
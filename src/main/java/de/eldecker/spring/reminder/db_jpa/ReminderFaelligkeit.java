@@ -0,0 +1,18 @@
+package de.eldecker.spring.reminder.db_jpa;
+
+import java.time.LocalDateTime;
+
+
+/**
+ * Projektion eines Reminders auf ID und Fälligkeitszeitpunkt; wird von 
+ * {@link ReminderRepo#findFaelligkeitenByPostausgang} geliefert, ohne dass hierfür 
+ * eine {@link ReminderEntity} geladen wird.
+ * 
+ * @param id Primärschlüssel des Reminders
+ * 
+ * @param zeitpunktFaellig Fälligkeitszeitpunkt des Reminders
+ */
+public record ReminderFaelligkeit( long          id, 
+                                   LocalDateTime zeitpunktFaellig 
+                                 ) {
+}
@@ -1,12 +1,21 @@
 package de.eldecker.spring.reminder.db_jpa;
 
-import static java.time.LocalDateTime.now;
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.HibernateHints.HINT_CACHE_REGION;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Sort;
-import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.QueryHint;
 
 
 /**
@@ -14,57 +23,277 @@ import org.springframework.data.jpa.repository.JpaRepository;
  * Dank <i>Spring Data JPA</i> wird zur Laufzeit automatisch
  * eine implementierende Klasse dieses Interfaces erzeugt
  * und instanziert.
+ * <br><br>
+ * 
+ * Die Geschäftslogik verwendet das Repo nur über {@link ReminderSpeicher}, so dass statt
+ * der Tabelle auch das Journal verwendet werden kann; hier stehen nur die Abfragen, die
+ * Beschreibung der Methoden siehe dort. Der Import mit JDBC-Batch ist in
+ * {@link ReminderRepoJdbcImpl} implementiert.
+ * <br><br>
+ * 
+ * Die Ergebnisse der Abfragen für die Seiten der Reminder-Liste werden im Query-Cache
+ * gespeichert, wenn dieser eingeschaltet ist (siehe {@link ReminderCache}).
  */
-public interface ReminderRepo 
-                 extends JpaRepository<ReminderEntity, Long> {
+public interface ReminderRepo
+                 extends JpaRepository<ReminderEntity, Long>, ReminderSpeicher, ReminderRepoJdbc {
     
     /**
      * Findet alle Reminder und sortiert sie gemäß dem übergebenen Sort-Objekt.
-     *
+     * 
      * @param sort Objekt für Spezifikation der Sortier-Reihenfolge
      * 
      * @return Eine Liste aller Reminder-Entitäten, sortiert Argument {@code sort}
      */
     List<ReminderEntity> findAll( Sort sort );
-
+    
+    
+    @Override
+    @Query( """
+            SELECT r
+              FROM ReminderEntity r
+             WHERE r._schonVersendet = false
+             ORDER BY r._zeitpunktFaellig, r._id
+            """ )
+    List<ReminderEntity> findNochNichtVersendet();
+    
+    
+    @Override
+    @Transactional( readOnly = true )
+    @QueryHints( { @QueryHint( name = HINT_CACHEABLE   , value = "true" ),
+                   @QueryHint( name = HINT_CACHE_REGION, value = ReminderCache.REGION_ABFRAGEN ) } )
+    @Query( """
+            SELECT new de.eldecker.spring.reminder.db_jpa.ReminderAnzeige(
+                       r._id, r._reminderText, r._zeitpunktAngelegt, r._zeitpunktFaellig, r._zeitpunktVersendet,
+                       r._schonVersendet, r._zeitpunktFehlgeschlagen, r._wiederholung, r._wiederholungCron )
+              FROM ReminderEntity r
+             WHERE r._schonVersendet = :schonVersendet
+             ORDER BY r._zeitpunktFaellig, r._id
+            """ )
+    List<ReminderAnzeige> findSeite( boolean schonVersendet, Limit limit );
+    
     
     /**
-     * Findet alle Reminder, die dem Filterkriterium entsprechen, 
-     * und sortiert sie gemäß dem übergebenen Sort-Objekt.
-     *
-     * @param spec Objekt für Spezifikation der Filter-Kriterien; kann z.B. 
-     *             mit Methode {@link #buildSpecFuerReminderZumVersenden()}
-     *             erzeugt werden.
-     * 
-     * @param sort Objekt für Spezifikation der Sortier-Reihenfolge
-     * 
-     * @return Eine Liste der gefilterten und sortierten Reminder-Entitäten
+     * Anders als bei OFFSET muss die Datenbank die Reminder der vorherigen Seiten nicht lesen.
      */
-    List<ReminderEntity> findAll( Specification<ReminderEntity> spec, Sort sort );
+    @Override
+    @Transactional( readOnly = true )
+    @QueryHints( { @QueryHint( name = HINT_CACHEABLE   , value = "true" ),
+                   @QueryHint( name = HINT_CACHE_REGION, value = ReminderCache.REGION_ABFRAGEN ) } )
+    @Query( """
+            SELECT new de.eldecker.spring.reminder.db_jpa.ReminderAnzeige(
+                       r._id, r._reminderText, r._zeitpunktAngelegt, r._zeitpunktFaellig, r._zeitpunktVersendet,
+                       r._schonVersendet, r._zeitpunktFehlgeschlagen, r._wiederholung, r._wiederholungCron )
+              FROM ReminderEntity r
+             WHERE r._schonVersendet = :schonVersendet
+               AND ( r._zeitpunktFaellig > :nachZeitpunkt
+                     OR ( r._zeitpunktFaellig = :nachZeitpunkt AND r._id > :nachId ) )
+             ORDER BY r._zeitpunktFaellig, r._id
+            """ )
+    List<ReminderAnzeige> findSeiteNach( boolean       schonVersendet,
+                                         LocalDateTime nachZeitpunkt,
+                                         long          nachId,
+                                         Limit         limit );
     
     
     /**
-     * Zählt die Anzahl der Reminder, die bereits versendet wurden.
-     * 
-     * @return Anzahl der versendeten Reminder
+     * Die Abfrage verwendet den Index {@code IDX_REMINDER_FAELLIG}.
+     */
+    @Override
+    @Query( """
+            SELECT r._id
+              FROM ReminderEntity r
+             WHERE r._schonVersendet = false
+               AND r._zeitpunktFaellig < :jetzt
+               AND ( r._beanspruchtBis IS NULL OR r._beanspruchtBis < :jetzt )
+               AND r._postausgangId IS NULL
+             ORDER BY r._zeitpunktFaellig, r._id
+            """ )
+    List<Long> findFreieFaelligeReminderIds( LocalDateTime jetzt, Limit limit );
+    
+    
+    /**
+     * Bedingtes UPDATE: Weil die Bedingung beim UPDATE selbst geprüft wird, kann jeder
+     * Reminder von höchstens einer Instanz beansprucht werden, auch wenn mehrere Instanzen
+     * dieselben Kandidaten gelesen haben.
+     */
+    @Override
+    @Modifying
+    @Transactional
+    @Query( """
+            UPDATE ReminderEntity r
+               SET r._beanspruchtVon = :token,
+                   r._beanspruchtBis = :bis
+             WHERE r._id IN :ids
+               AND r._schonVersendet = false
+               AND ( r._beanspruchtBis IS NULL OR r._beanspruchtBis < :jetzt )
+               AND r._postausgangId IS NULL
+            """ )
+    int beanspruche( Collection<Long> ids, String token, LocalDateTime jetzt, LocalDateTime bis );
+    
+    
+    /**
+     * Es werden nur die Spalten gelesen, die für den Aufbau der Email benötigt werden; die
+     * Abfrage verwendet den Index {@code IDX_REMINDER_BEANSPRUCHT}.
      */
+    @Override
+    @Query( """
+            SELECT new de.eldecker.spring.reminder.db_jpa.FaelligerReminder(
+                       r._id, r._reminderText, r._zeitpunktFaellig )
+              FROM ReminderEntity r
+             WHERE r._beanspruchtVon = :token
+               AND r._schonVersendet = false
+             ORDER BY r._zeitpunktFaellig, r._id
+            """ )
+    List<FaelligerReminder> findBeansprucht( String token );
+    
+    
+    /**
+     * UPDATE-Statement, ohne dass die Entities hierfür geladen werden müssen.
+     */
+    @Override
+    @Modifying
+    @Transactional
+    @Query( """
+            UPDATE ReminderEntity r
+               SET r._postausgangId  = :postausgangId,
+                   r._beanspruchtVon = null,
+                   r._beanspruchtBis = null
+             WHERE r._id IN :ids
+            """ )
+    int inPostausgangUebernommen( Collection<Long> ids, long postausgangId );
+    
+    
+    @Override
+    @Query( """
+            SELECT new de.eldecker.spring.reminder.db_jpa.ReminderFaelligkeit( r._id, r._zeitpunktFaellig )
+              FROM ReminderEntity r
+             WHERE r._postausgangId IN :postausgangIds
+            """ )
+    List<ReminderFaelligkeit> findFaelligkeitenByPostausgang( Collection<Long> postausgangIds );
+    
+    
+    @Override
+    @Query( """
+            SELECT r
+              FROM ReminderEntity r
+             WHERE r._postausgangId IN :postausgangIds
+               AND r._wiederholung IS NOT NULL
+            """ )
+    List<ReminderEntity> findWiederkehrendeByPostausgang( Collection<Long> postausgangIds );
+    
+    
+    /**
+     * Ein einziges UPDATE-Statement, ohne dass die Entities hierfür geladen werden müssen.
+     */
+    @Override
+    @Modifying
+    @Query( """
+            UPDATE ReminderEntity r
+               SET r._schonVersendet     = true,
+                   r._zeitpunktVersendet = :zeitpunktVersendet
+             WHERE r._postausgangId IN :postausgangIds
+               AND r._wiederholung IS NULL
+            """ )
+    int markiereAlsVersendet( Collection<Long> postausgangIds, LocalDateTime zeitpunktVersendet );
+    
+    
+    /**
+     * Ein einziges UPDATE-Statement, ohne dass die Entities hierfür geladen werden müssen.
+     */
+    @Override
+    @Modifying
+    @Query( """
+            UPDATE ReminderEntity r
+               SET r._zeitpunktFehlgeschlagen = :zeitpunktFehlgeschlagen
+             WHERE r._postausgangId IN :postausgangIds
+               AND r._wiederholung IS NULL
+            """ )
+    int markiereAlsFehlgeschlagen( Collection<Long> postausgangIds, LocalDateTime zeitpunktFehlgeschlagen );
+    
+    
+    /**
+     * Die Abfrage wird nach dem ersten Treffer abgebrochen.
+     */
+    @Override
+    boolean existsBy_idIsNotNull();
+    
+    
+    /**
+     * Das Ergebnis wird nicht im Query-Cache gespeichert, da die Abfrage für den Abgleich
+     * der Zähler in {@code ReminderZaehler} den tatsächlichen Stand der Tabelle liefern muss.
+     */
+    @Override
     int countBy_schonVersendet( boolean schonVersendet );
     
     
+    @Override
+    @Query( """
+            SELECT DISTINCT r._zeitpunktFaellig
+              FROM ReminderEntity r
+             WHERE r._schonVersendet = false
+               AND r._zeitpunktFaellig < :bis
+               AND r._postausgangId IS NULL
+             ORDER BY r._zeitpunktFaellig
+            """ )
+    List<LocalDateTime> findFaelligkeitenNochNichtVersendetBis( LocalDateTime bis );
+    
+    
     /**
-     * Erzeugt eine Spezifikation, um Reminder zu finden, die noch nicht versendet wurden
-     * und deren Fälligkeitsdatum in der Vergangenheit liegt.
-     * 
-     * @return Eine {@code Specification<ReminderEntity>} für die Filterung.
+     * Die Abfrage verwendet den Index {@code IDX_REMINDER_FAELLIG}.
+     */
+    @Override
+    @Query( """
+            SELECT new de.eldecker.spring.reminder.db_jpa.ReminderVorschau( r._id, r._reminderText, r._zeitpunktFaellig )
+              FROM ReminderEntity r
+             WHERE r._schonVersendet = false
+               AND r._zeitpunktFaellig < :bis
+               AND r._postausgangId IS NULL
+             ORDER BY r._zeitpunktFaellig
+            """ )
+    List<ReminderVorschau> findVorschau( LocalDateTime bis, Limit limit );
+    
+    
+    /**
+     * Die Abfrage verwendet den Primärschlüssel.
+     */
+    @Override
+    @Query( """
+            SELECT new de.eldecker.spring.reminder.db_jpa.ReminderVorschau( r._id, r._reminderText, r._zeitpunktFaellig )
+              FROM ReminderEntity r
+             WHERE r._id > :nachId
+             ORDER BY r._id
+            """ )
+    List<ReminderVorschau> findTexteNachId( long nachId, Limit limit );
+    
+    
+    /**
+     * Die Abfrage verwendet den Index {@code IDX_REMINDER_VERSENDET}.
+     */
+    @Override
+    @Query( """
+            SELECT r._id
+              FROM ReminderEntity r
+             WHERE r._schonVersendet = true
+               AND r._zeitpunktVersendet < :grenze
+             ORDER BY r._zeitpunktVersendet
+            """ )
+    List<Long> findVersendeteIdsBis( LocalDateTime grenze, Limit limit );
+    
+    
+    /**
+     * Kopiert die Reminder mit einem einzigen INSERT-SELECT-Statement ins Archiv, ohne
+     * dass die Entities hierfür geladen werden müssen.
      */
-    static Specification<ReminderEntity> buildSpecFuerReminderZumVersenden() {
-        
-        return ( root, query, criteriaBuilder ) -> {
-            return criteriaBuilder.and(
-                criteriaBuilder.isFalse(  root.get("_schonVersendet"  )        ),
-                criteriaBuilder.lessThan( root.get("_zeitpunktFaellig"), now() )
-            );
-        };
-    }
+    @Override
+    @Modifying
+    @Query( """
+            INSERT INTO ReminderArchivEntity ( _id, _reminderText, _zeitpunktAngelegt, _zeitpunktFaellig,
+                                               _zeitpunktVersendet, _zeitpunktArchiviert )
+            SELECT r._id, r._reminderText, r._zeitpunktAngelegt, r._zeitpunktFaellig,
+                   r._zeitpunktVersendet, :zeitpunktArchiviert
+              FROM ReminderEntity r
+             WHERE r._id IN :ids
+            """ )
+    int archiviere( Collection<Long> ids, LocalDateTime zeitpunktArchiviert );
 
 }
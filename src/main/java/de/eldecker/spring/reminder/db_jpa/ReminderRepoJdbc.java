@@ -0,0 +1,22 @@
+package de.eldecker.spring.reminder.db_jpa;
+
+import java.util.List;
+
+
+/**
+ * Erweiterung von {@link ReminderRepo} um Operationen, die nicht mit JPA, sondern direkt
+ * mit JDBC ausgeführt werden; <i>Spring Data JPA</i> verwendet hierfür die Implementierung
+ * in {@link ReminderRepoJdbcImpl}.
+ */
+public interface ReminderRepoJdbc {
+    
+    /**
+     * Beschreibung siehe {@link ReminderSpeicher#fuegeEin(List)}.
+     * 
+     * @param reminder Neue Reminder (ohne ID)
+     * 
+     * @return Anzahl der angelegten Reminder
+     */
+    int fuegeEin( List<ReminderEntity> reminder );
+    
+}
@@ -0,0 +1,82 @@
+package de.eldecker.spring.reminder.db_jpa;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+
+/**
+ * Implementierung von {@link ReminderRepoJdbc}, wird von <i>Spring Data JPA</i> anhand
+ * des Namens gefunden und in {@link ReminderRepo} eingebunden.
+ * <br><br>
+ * 
+ * Neue Reminder werden nicht über JPA, sondern per JDBC-Batch eingefügt. Die IDs werden
+ * mit einer einzigen Abfrage von der Sequenz {@code reminder_id_seq} geholt; die Sequenz
+ * selbst bleibt unverändert, damit sie weiterhin zu {@code allocationSize = 1} von
+ * {@link ReminderEntity} passt.
+ */
+public class ReminderRepoJdbcImpl implements ReminderRepoJdbc {
+    
+    /** SQL zum Einfügen eines Reminders. */
+    private static final String SQL_INSERT =
+            """
+            INSERT INTO REMINDER ( ID, REMINDER_TEXT, ZEITPUNKT_ANGELEGT, ZEITPUNKT_FAELLIG, 
+                                   ZEITPUNKT_ERSTE_FAELLIGKEIT, WIEDERHOLUNG, WIEDERHOLUNG_CRON, SCHON_VERSENDET )
+                 VALUES ( ?, ?, ?, ?, ?, ?, ?, FALSE )
+            """;
+    
+    /** SQL (H2), um mit einer Abfrage mehrere Werte von der Sequenz für die IDs zu holen. */
+    private static final String SQL_IDS = 
+            "SELECT NEXT VALUE FOR reminder_id_seq FROM SYSTEM_RANGE( 1, ? )";
+    
+    /** Bean für Zugriff auf Datenbank per JDBC. */
+    private final JdbcTemplate _jdbcTemplate;
+    
+    
+    /**
+     * Konstruktor für Dependency Injection.
+     */
+    @Autowired
+    public ReminderRepoJdbcImpl( JdbcTemplate jdbcTemplate ) {
+        
+        _jdbcTemplate = jdbcTemplate;
+    }
+    
+    
+    /**
+     * Muss innerhalb einer Transaktion aufgerufen werden, damit IDs und Zeilen gemeinsam
+     * übernommen oder verworfen werden.
+     */
+    @Override
+    public int fuegeEin( List<ReminderEntity> reminder ) {
+        
+        if ( reminder.isEmpty() ) {
+            
+            return 0;
+        }
+        
+        final List<Long> ids = _jdbcTemplate.queryForList( SQL_IDS, Long.class, reminder.size() );
+        for ( int i = 0; i < reminder.size(); i++ ) {
+            
+            reminder.get( i ).setId( ids.get( i ) );
+        }
+        
+        _jdbcTemplate.batchUpdate( SQL_INSERT, reminder, reminder.size(), ( ps, entity ) -> {
+            
+            final String wiederholung = entity.getWiederholung() == null ? null : entity.getWiederholung().name();
+            
+            ps.setLong(      1, entity.getId()                                              );
+            ps.setString(    2, entity.getReminderText()                                    );
+            ps.setTimestamp( 3, Timestamp.valueOf( entity.getZeitpunktAngelegt()         ) );
+            ps.setTimestamp( 4, Timestamp.valueOf( entity.getZeitpunktFaelligkeit()      ) );
+            ps.setTimestamp( 5, Timestamp.valueOf( entity.getZeitpunktErsteFaelligkeit() ) );
+            ps.setString(    6, wiederholung                                                );
+            ps.setString(    7, entity.getWiederholungCron()                                );
+        });
+        
+        return reminder.size();
+    }
+    
+}
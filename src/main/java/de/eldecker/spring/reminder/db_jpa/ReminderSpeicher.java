@@ -0,0 +1,329 @@
+package de.eldecker.spring.reminder.db_jpa;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Limit;
+
+
+/**
+ * Speicher für die Reminder, wie ihn die Geschäftslogik verwendet: Es sind nur die
+ * Operationen enthalten, die tatsächlich benötigt werden. Implementiert wird das Interface
+ * von {@link ReminderRepo} (Tabelle {@code REMINDER} über <i>Spring Data JPA</i>) und von
+ * {@code ReminderJournalRepo} (append-only Journal, Property {@code de.eldecker.reminder.speicher}).
+ * <br><br>
+ * 
+ * Änderungen an Entities, die innerhalb einer Transaktion geliefert wurden, werden bei
+ * beiden Implementierungen beim Commit übernommen und beim Rollback verworfen.
+ */
+public interface ReminderSpeicher {
+    
+    /**
+     * Legt einen Reminder an (ID ist dann {@code null} und wird vergeben) oder
+     * überschreibt einen vorhandenen Reminder.
+     * 
+     * @param reminder Reminder
+     * 
+     * @return Gespeicherter Reminder (mit ID)
+     */
+    <S extends ReminderEntity> S save( S reminder );
+    
+    
+    /**
+     * Legt mehrere Reminder an oder überschreibt sie, siehe {@link #save(ReminderEntity)}.
+     * 
+     * @param reminder Reminder
+     * 
+     * @return Gespeicherte Reminder (mit ID)
+     */
+    <S extends ReminderEntity> List<S> saveAll( Iterable<S> reminder );
+    
+    
+    /**
+     * Legt viele neue Reminder auf einmal an (Import); in Tabelle {@code REMINDER} nicht
+     * einzeln über JPA, sondern mit einem JDBC-Batch. Die vergebenen IDs werden in die
+     * übergebenen Reminder geschrieben. Muss innerhalb einer Transaktion aufgerufen werden.
+     * 
+     * @param reminder Neue Reminder (ohne ID)
+     * 
+     * @return Anzahl der angelegten Reminder
+     */
+    int fuegeEin( List<ReminderEntity> reminder );
+    
+    
+    /**
+     * Liest einen einzelnen Reminder.
+     * 
+     * @param id ID des Reminders
+     * 
+     * @return Optional mit Reminder, leer wenn es keinen Reminder mit dieser ID gibt
+     */
+    Optional<ReminderEntity> findById( Long id );
+    
+    
+    /**
+     * Liest mehrere Reminder; IDs, zu denen es keinen Reminder gibt, werden ignoriert.
+     * 
+     * @param ids IDs der Reminder
+     * 
+     * @return Reminder in beliebiger Reihenfolge
+     */
+    List<ReminderEntity> findAllById( Iterable<Long> ids );
+    
+    
+    /**
+     * Löscht mehrere Reminder, ohne sie vorher zu laden.
+     * 
+     * @param ids IDs der Reminder
+     */
+    void deleteAllByIdInBatch( Iterable<Long> ids );
+    
+    
+    /**
+     * Löscht alle Reminder (für Tests und Benchmarks).
+     */
+    void deleteAllInBatch();
+    
+    
+    /**
+     * Liefert alle noch nicht versendeten Reminder.
+     * 
+     * @return Reminder-Entitäten, aufsteigend sortiert nach Fälligkeitszeitpunkt und ID
+     */
+    List<ReminderEntity> findNochNichtVersendet();
+    
+    
+    /**
+     * Liefert die erste Seite der Reminder mit dem übergebenen Versand-Status für die
+     * Anzeige; die weiteren Seiten werden mit
+     * {@link #findSeiteNach(boolean, LocalDateTime, long, Limit)} gelesen.
+     * 
+     * @param schonVersendet Versand-Status der Reminder auf der Seite
+     * 
+     * @param limit Maximale Anzahl Reminder auf der Seite
+     * 
+     * @return Projektionen der Reminder, aufsteigend sortiert nach Fälligkeitszeitpunkt und ID
+     */
+    List<ReminderAnzeige> findSeite( boolean schonVersendet, Limit limit );
+    
+    
+    /**
+     * Liefert eine weitere Seite der Reminder mit dem übergebenen Versand-Status
+     * (Keyset-Pagination über Fälligkeitszeitpunkt und ID).
+     * 
+     * @param schonVersendet Versand-Status der Reminder auf der Seite
+     * 
+     * @param nachZeitpunkt Fälligkeitszeitpunkt des letzten Reminders der vorherigen Seite
+     * 
+     * @param nachId ID des letzten Reminders der vorherigen Seite
+     * 
+     * @param limit Maximale Anzahl Reminder auf der Seite
+     * 
+     * @return Projektionen der Reminder, aufsteigend sortiert nach Fälligkeitszeitpunkt und ID
+     */
+    List<ReminderAnzeige> findSeiteNach( boolean       schonVersendet,
+                                         LocalDateTime nachZeitpunkt,
+                                         long          nachId,
+                                         Limit         limit );
+    
+    
+    /**
+     * Findet die IDs von Remindern, die noch nicht versendet wurden, deren
+     * Fälligkeitszeitpunkt vor dem übergebenen Zeitpunkt liegt, die gerade nicht von
+     * einer Instanz beansprucht sind (oder deren Beanspruchung abgelaufen ist) und die noch
+     * nicht in den Postausgang übernommen wurden.
+     * <br><br>
+     * 
+     * Die IDs sind nur Kandidaten, die anschließend mit
+     * {@link #beanspruche(Collection, String, LocalDateTime, LocalDateTime)} beansprucht
+     * werden müssen, weil eine andere Instanz dieselben IDs gelesen haben kann.
+     * 
+     * @param jetzt Aktueller Zeitpunkt
+     * 
+     * @param limit Maximale Anzahl Reminder (Chunk-Größe)
+     * 
+     * @return IDs der fälligen Reminder, aufsteigend sortiert nach Fälligkeitszeitpunkt und ID
+     */
+    List<Long> findFreieFaelligeReminderIds( LocalDateTime jetzt, Limit limit );
+    
+    
+    /**
+     * Beansprucht die übergebenen Reminder, die noch nicht versendet, nicht (mehr)
+     * beansprucht und noch nicht im Postausgang sind; jeder Reminder kann so von höchstens
+     * einer Instanz beansprucht werden.
+     * 
+     * @param ids IDs der Kandidaten, siehe {@link #findFreieFaelligeReminderIds(LocalDateTime, Limit)}
+     * 
+     * @param token Eindeutiges Token für Instanz und Chunk
+     * 
+     * @param jetzt Aktueller Zeitpunkt
+     * 
+     * @param bis Ende der Beanspruchung
+     * 
+     * @return Anzahl der beanspruchten Reminder
+     */
+    int beanspruche( Collection<Long> ids, String token, LocalDateTime jetzt, LocalDateTime bis );
+    
+    
+    /**
+     * Liest die noch nicht versendeten Reminder, die mit dem übergebenen Token beansprucht
+     * wurden, um sie in den Postausgang zu übernehmen.
+     * 
+     * @param token Token, das für {@link #beanspruche(Collection, String, LocalDateTime, LocalDateTime)}
+     *              verwendet wurde
+     * 
+     * @return Beanspruchte Reminder, aufsteigend sortiert nach Fälligkeitszeitpunkt und ID
+     */
+    List<FaelligerReminder> findBeansprucht( String token );
+    
+    
+    /**
+     * Verknüpft Reminder mit ihrer Email im Postausgang und hebt die Beanspruchung auf.
+     * 
+     * @param ids IDs der Reminder, die mit der Email versendet werden
+     * 
+     * @param postausgangId ID der {@link PostausgangEntity}
+     * 
+     * @return Anzahl geänderter Reminder
+     */
+    int inPostausgangUebernommen( Collection<Long> ids, long postausgangId );
+    
+    
+    /**
+     * Liefert IDs und Fälligkeitszeitpunkte der Reminder, die mit den übergebenen Emails
+     * aus dem Postausgang versendet werden.
+     * 
+     * @param postausgangIds IDs von {@link PostausgangEntity}
+     * 
+     * @return IDs und Fälligkeitszeitpunkte der Reminder
+     */
+    List<ReminderFaelligkeit> findFaelligkeitenByPostausgang( Collection<Long> postausgangIds );
+    
+    
+    /**
+     * Liefert die wiederkehrenden Reminder, die mit den übergebenen Emails aus dem
+     * Postausgang versendet werden, um ihre nächste Fälligkeit zu berechnen.
+     * 
+     * @param postausgangIds IDs von {@link PostausgangEntity}
+     * 
+     * @return Wiederkehrende Reminder
+     */
+    List<ReminderEntity> findWiederkehrendeByPostausgang( Collection<Long> postausgangIds );
+    
+    
+    /**
+     * Markiert alle einmaligen Reminder, die mit den übergebenen Emails aus dem Postausgang
+     * versendet wurden, als versendet; wiederkehrende Reminder siehe
+     * {@link #findWiederkehrendeByPostausgang(Collection)}.
+     * 
+     * @param postausgangIds IDs von {@link PostausgangEntity}
+     * 
+     * @param zeitpunktVersendet Zeitpunkt, zu dem die Emails versendet wurden
+     * 
+     * @return Anzahl der geänderten Reminder
+     */
+    int markiereAlsVersendet( Collection<Long> postausgangIds, LocalDateTime zeitpunktVersendet );
+    
+    
+    /**
+     * Markiert alle einmaligen Reminder der übergebenen Emails aus dem Postausgang, deren
+     * Versand endgültig fehlgeschlagen ist, als fehlgeschlagen; sie bleiben nicht versendet
+     * und mit der Email verknüpft, werden also nicht erneut versendet.
+     * 
+     * @param postausgangIds IDs von {@link PostausgangEntity}
+     * 
+     * @param zeitpunktFehlgeschlagen Zeitpunkt des letzten Versuchs
+     * 
+     * @return Anzahl der geänderten Reminder
+     */
+    int markiereAlsFehlgeschlagen( Collection<Long> postausgangIds, LocalDateTime zeitpunktFehlgeschlagen );
+    
+    
+    /**
+     * Prüft, ob es mindestens einen Reminder gibt.
+     * 
+     * @return {@code true} gdw. der Speicher nicht leer ist
+     */
+    boolean existsBy_idIsNotNull();
+    
+    
+    /**
+     * Zählt die Reminder mit dem übergebenen Versand-Status.
+     * 
+     * @param schonVersendet {@code true} für versendete, {@code false} für noch nicht
+     *                       versendete Reminder
+     * 
+     * @return Anzahl der Reminder
+     */
+    int countBy_schonVersendet( boolean schonVersendet );
+    
+    
+    /**
+     * Liefert die (verschiedenen) Fälligkeitszeitpunkte aller noch nicht versendeten
+     * Reminder, die vor dem übergebenen Zeitpunkt liegen; auch schon überfällige
+     * Reminder werden also berücksichtigt, nicht aber Reminder, die schon im Postausgang
+     * auf den Versand warten.
+     * 
+     * @param bis Ende des Zeitraums (exklusiv)
+     * 
+     * @return Fälligkeitszeitpunkte ohne Duplikate, aufsteigend sortiert
+     */
+    List<LocalDateTime> findFaelligkeitenNochNichtVersendetBis( LocalDateTime bis );
+    
+    
+    /**
+     * Liefert ID, Text und Fälligkeitszeitpunkt der noch nicht versendeten Reminder, die
+     * vor dem übergebenen Zeitpunkt fällig sind und noch nicht im Postausgang sind, damit
+     * der Inhalt ihrer Emails schon vorher erzeugt werden kann (siehe {@code EmailVorbereitung}).
+     * 
+     * @param bis Ende des Zeitraums (exklusiv)
+     * 
+     * @param limit Maximale Anzahl Reminder
+     * 
+     * @return Projektionen der Reminder, aufsteigend sortiert nach Fälligkeitszeitpunkt
+     */
+    List<ReminderVorschau> findVorschau( LocalDateTime bis, Limit limit );
+    
+    
+    /**
+     * Liefert ID, Text und Fälligkeitszeitpunkt aller Reminder mit einer ID größer als
+     * der übergebenen ID, um den Suchindex (siehe {@code ReminderSuche}) in Blöcken
+     * aufzubauen bzw. nachzuziehen.
+     * 
+     * @param nachId Größte ID des vorherigen Blocks, {@code 0} für ersten Block
+     * 
+     * @param limit Maximale Anzahl Reminder pro Block
+     * 
+     * @return Projektionen der Reminder, aufsteigend sortiert nach ID
+     */
+    List<ReminderVorschau> findTexteNachId( long nachId, Limit limit );
+    
+    
+    /**
+     * Findet die IDs von Remindern, die vor dem übergebenen Zeitpunkt versendet wurden
+     * und deshalb archiviert oder gelöscht werden können (siehe {@code ReminderAufbewahrung}).
+     * 
+     * @param grenze Ende der Aufbewahrungsfrist (exklusiv)
+     * 
+     * @param limit Maximale Anzahl Reminder (Batch-Größe)
+     * 
+     * @return IDs der Reminder, aufsteigend sortiert nach Versandzeitpunkt
+     */
+    List<Long> findVersendeteIdsBis( LocalDateTime grenze, Limit limit );
+    
+    
+    /**
+     * Kopiert Reminder ins Archiv (siehe {@link ReminderArchivEntity}); anschließend müssen
+     * sie in derselben Transaktion mit {@link #deleteAllByIdInBatch(Iterable)} gelöscht werden.
+     * 
+     * @param ids IDs der Reminder, siehe {@link #findVersendeteIdsBis(LocalDateTime, Limit)}
+     * 
+     * @param zeitpunktArchiviert Aktueller Zeitpunkt
+     * 
+     * @return Anzahl der archivierten Reminder
+     */
+    int archiviere( Collection<Long> ids, LocalDateTime zeitpunktArchiviert );
+
+}
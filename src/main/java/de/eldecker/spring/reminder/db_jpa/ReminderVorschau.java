@@ -0,0 +1,22 @@
+package de.eldecker.spring.reminder.db_jpa;
+
+import java.time.LocalDateTime;
+
+
+/**
+ * Projektion eines Reminders auf die Attribute, die für den Inhalt der Email und für den
+ * Suchindex benötigt werden; wird von {@link ReminderRepo#findVorschau} und 
+ * {@link ReminderRepo#findTexteNachId} geliefert, ohne dass hierfür eine
+ * {@link ReminderEntity} geladen wird.
+ * 
+ * @param id Primärschlüssel des Reminders
+ * 
+ * @param reminderText Text des Reminders
+ * 
+ * @param zeitpunktFaellig Fälligkeitszeitpunkt des Reminders
+ */
+public record ReminderVorschau( long          id, 
+                                String        reminderText,
+                                LocalDateTime zeitpunktFaellig 
+                              ) {
+}
@@ -0,0 +1,19 @@
+package de.eldecker.spring.reminder.email;
+
+
+/**
+ * Auftrag für den Versand einer Email an den konfigurierten Empfänger, siehe
+ * {@link EmailSender#sendeEmails(java.util.List)}.
+ * 
+ * @param id ID, mit der das Ergebnis des Versands dem Auftrag zugeordnet werden
+ *           kann (z.B. ID des Reminders)
+ * 
+ * @param betreff Betreffzeile der Email
+ * 
+ * @param text Text für Body der Email
+ */
+public record EmailAuftrag( long   id, 
+                            String betreff, 
+                            String text 
+                          ) {
+}
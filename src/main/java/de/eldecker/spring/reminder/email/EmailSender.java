@@ -1,14 +1,30 @@
 package de.eldecker.spring.reminder.email;
 
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.MailSender;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.stereotype.Component;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
 
 /**
  * Diese Klasse definiert eine Bean, mit der Emails für fällige Reminder versendet werden können.
@@ -16,6 +32,12 @@ import org.springframework.stereotype.Component;
  * 
  * Für Versenden von Email mit <i>Spring Boot</i> siehe auch
  * <a href="https://docs.spring.io/spring-framework/reference/integration/email.html">diese Seite</a>.
+ * <br><br>
+ * 
+ * Die Dauer jedes Aufrufs von {@link MailSender#send(SimpleMailMessage...)} (also einer
+ * SMTP-Verbindung mit einer oder mehreren Emails) wird als Histogramm in der 
+ * Micrometer-Metrik {@code reminder.smtp.senden} erfasst, mit Tag {@code ergebnis}
+ * ({@code ok} oder {@code fehler}).
  */
 @Component
 public class EmailSender {
@@ -31,41 +53,217 @@ public class EmailSender {
     @Value( "${de.eldecker.reminder.email_empfaenger}" )
     private String _empfaengerAdresse;
     
+    /** Anzahl der Worker, die in {@link #sendeEmails(List)} parallel Emails versenden. */
+    @Value( "${de.eldecker.reminder.smtp_worker:4}" )
+    private int _anzahlWorker;
+    
     /** Bean für eigentlichen Versand der E-Mails. */
     private MailSender _mailSender;
     
+    /** SMTP-Dauer bei erfolgreichem Versand. */
+    private final Timer _smtpTimerOk;
+    
+    /** SMTP-Dauer bei (teilweise) fehlgeschlagenem Versand. */
+    private final Timer _smtpTimerFehler;
+    
     
     /**
      * Konstruktur für Dependency Injection.
      */
     @Autowired
-    public EmailSender( MailSender mailSender) {
+    public EmailSender( MailSender mailSender, MeterRegistry meterRegistry ) {
         
         _mailSender = mailSender;
+        
+        _smtpTimerOk     = erzeugeSmtpTimer( meterRegistry, "ok"     );
+        _smtpTimerFehler = erzeugeSmtpTimer( meterRegistry, "fehler" );
+    }
+    
+    
+    /**
+     * Erzeugt Timer mit Histogramm für die Dauer des SMTP-Versands.
+     */
+    private static Timer erzeugeSmtpTimer( MeterRegistry meterRegistry, String ergebnis ) {
+        
+        return Timer.builder( "reminder.smtp.senden" )
+                    .description( "Dauer eines SMTP-Versands (eine Verbindung, eine oder mehrere Emails)" )
+                    .tag( "ergebnis", ergebnis )
+                    .publishPercentileHistogram()
+                    .publishPercentiles( 0.5, 0.95, 0.99 )
+                    .register( meterRegistry );
     }
     
 
     /**
-     * Email an konfigurierten Empfänger versenden.
+     * Mehrere Emails an konfigurierten Empfänger versenden. Die Aufträge werden auf
+     * (bis zu) {@link #_anzahlWorker} Worker verteilt, die jeweils auf einem eigenen
+     * virtuellen Thread laufen. Jeder Worker übergibt seinen Anteil in einem einzigen
+     * Aufruf von {@link MailSender#send(SimpleMailMessage...)}, so dass (bei Verwendung
+     * von {@code JavaMailSenderImpl}) für alle diese Emails nur eine SMTP-Verbindung
+     * aufgebaut wird.
+     * <br><br>
+     * 
+     * Fehler beim Versand einzelner Emails führen nicht zu einer Exception, sondern
+     * werden im Ergebnis zurückgemeldet; bricht ein Worker mit einem unerwarteten Fehler
+     * ab, dann werden alle Aufträge seines Anteils, die er noch nicht zurückgemeldet hat,
+     * als fehlgeschlagen gemeldet.
+     * 
+     * @param auftragListe Zu versendende Emails
+     * 
+     * @return Ergebnis mit IDs der zugestellten und der fehlgeschlagenen Aufträge
+     */
+    public VersandErgebnis sendeEmails( List<EmailAuftrag> auftragListe ) {
+        
+        if ( auftragListe.isEmpty() ) {
+            
+            return new VersandErgebnis( List.of(), Map.of() );
+        }
+        
+        final int anzahlWorker = Math.max( 1, Math.min( _anzahlWorker, auftragListe.size() ) );
+        final int anteilGroesse = ( auftragListe.size() + anzahlWorker - 1 ) / anzahlWorker;
+        
+        final List<Long> zugestellt     = Collections.synchronizedList( new ArrayList<>( auftragListe.size() ) );
+        final Map<Long, String> fehlgeschlagen = new ConcurrentHashMap<>();
+        
+        try ( ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor() ) {
+            
+            final List<List<EmailAuftrag>> anteile = new ArrayList<>( anzahlWorker );
+            final List<Future<?>>          futures = new ArrayList<>( anzahlWorker );
+            for ( int i = 0; i < auftragListe.size(); i += anteilGroesse ) {
+                
+                final List<EmailAuftrag> anteil =
+                        auftragListe.subList( i, Math.min( i + anteilGroesse, auftragListe.size() ) );
+                
+                anteile.add( anteil );
+                futures.add( executor.submit( () -> sendeAnteil( anteil, zugestellt, fehlgeschlagen ) ) );
+            }
+            
+            for ( int i = 0; i < futures.size(); i++ ) {
+                
+                try {
+                    
+                    futures.get( i ).get();
+                }
+                catch ( ExecutionException ex ) {
+                    
+                    LOG.error( "Unerwarteter Fehler beim Versand von {} Email(s).", anteile.get( i ).size(), ex.getCause() );
+                    
+                    final String fehler = String.valueOf( ex.getCause() );
+                    for ( EmailAuftrag auftrag : anteile.get( i ) ) {
+                        
+                        if ( !zugestellt.contains( auftrag.id() ) ) {
+                            
+                            fehlgeschlagen.putIfAbsent( auftrag.id(), fehler );
+                        }
+                    }
+                }
+            }
+        }
+        catch ( InterruptedException ex ) {
+            
+            Thread.currentThread().interrupt();
+            LOG.error( "Versand von Emails wurde unterbrochen.", ex );
+        }
+        
+        LOG.info( "{} Email(s) mit {} Worker(n) versendet, {} fehlgeschlagen.",
+                  zugestellt.size(), anzahlWorker, fehlgeschlagen.size() );
+        
+        return new VersandErgebnis( List.copyOf( zugestellt ), Map.copyOf( fehlgeschlagen ) );
+    }
+    
+    
+    /**
+     * Versendet den Anteil eines Workers mit einem einzigen Aufruf von
+     * {@link MailSender#send(SimpleMailMessage...)}.
+     * <br><br>
+     * 
+     * Die Fehler werden den Aufträgen über die Position der Nachricht im Array zugeordnet.
+     * Weil {@link MailSendException#getFailedMessages()} die Nachrichten über {@code equals()}
+     * (also über den Inhalt) unterscheidet, werden gleiche Nachrichten im Anteil
+     * zusammengefasst; ist eine davon fehlgeschlagen, werden alle als fehlgeschlagen
+     * gemeldet und später erneut versendet, damit kein Reminder verloren geht.
+     * 
+     * @param anteil Aufträge dieses Workers
+     * 
+     * @param zugestellt Liste, in die IDs der zugestellten Aufträge geschrieben werden
+     * 
+     * @param fehlgeschlagen Map, in die IDs der fehlgeschlagenen Aufträge mit Fehlerbeschreibung 
+     *                       geschrieben werden
+     */
+    private void sendeAnteil( List<EmailAuftrag> anteil,
+                              List<Long>         zugestellt,
+                              Map<Long, String>  fehlgeschlagen ) {
+        
+        final SimpleMailMessage[] nachrichten = new SimpleMailMessage[ anteil.size() ];
+        for ( int i = 0; i < nachrichten.length; i++ ) {
+            
+            nachrichten[ i ] = erzeugeNachricht( anteil.get( i ).betreff(), anteil.get( i ).text() );
+        }
+        
+        final long startNanos = System.nanoTime();
+        try {
+            
+            _mailSender.send( nachrichten );
+            _smtpTimerOk.record( System.nanoTime() - startNanos, NANOSECONDS );
+            anteil.forEach( auftrag -> zugestellt.add( auftrag.id() ) );
+        }
+        catch ( MailSendException ex ) {
+            
+            _smtpTimerFehler.record( System.nanoTime() - startNanos, NANOSECONDS );
+            
+            final Map<Object, Exception> fehlerMap = ex.getFailedMessages();
+            if ( fehlerMap.isEmpty() ) {
+                
+                LOG.error( "Versand von {} Email(s) fehlgeschlagen.", nachrichten.length, ex );
+                anteil.forEach( auftrag -> fehlgeschlagen.put( auftrag.id(), String.valueOf( ex.getMessage() ) ) );
+                return;
+            }
+            
+            for ( int i = 0; i < nachrichten.length; i++ ) {
+                
+                final long      id     = anteil.get( i ).id();
+                final Exception fehler = fehlerMap.get( nachrichten[ i ] );
+                if ( fehler == null ) {
+                    
+                    zugestellt.add( id );
+                
+                } else {
+                    
+                    LOG.error( "Versand von Email mit Betreff \"{}\" fehlgeschlagen: {}",
+                               nachrichten[ i ].getSubject(), fehler.getMessage() );
+                    fehlgeschlagen.put( id, String.valueOf( fehler.getMessage() ) );
+                }
+            }
+        }
+        catch ( MailException ex ) {
+            
+            _smtpTimerFehler.record( System.nanoTime() - startNanos, NANOSECONDS );
+            LOG.error( "Versand von {} Email(s) fehlgeschlagen.", nachrichten.length, ex );
+            anteil.forEach( auftrag -> fehlgeschlagen.put( auftrag.id(), String.valueOf( ex.getMessage() ) ) );
+        }
+    }
+    
+    
+    /**
+     * Erzeugt Nachricht von konfiguriertem Absender an konfigurierten Empfänger.
      * 
      * @param betreff Betreffzeile der Email
      * 
      * @param emailInhalt Text für Body der Email
      * 
-     * @throws MailException Fehler beim Versenden der Email aufgetreten
+     * @return Nachricht, die versendet werden kann
      */
-    public void sendeEmail( String betreff, String emailInhalt ) throws MailException {
-
+    private SimpleMailMessage erzeugeNachricht( String betreff, String emailInhalt ) {
+        
         final SimpleMailMessage message = new SimpleMailMessage();
-                
+        
         message.setSubject( betreff     );
         message.setText(    emailInhalt );
         
         message.setTo(   _empfaengerAdresse );
         message.setFrom( _absenderAdresse   );
         
-        _mailSender.send( message );
-        LOG.info( "Email versendet mit folgendem Betreff: \"{}\"", betreff );
+        return message;
     }
     
 }
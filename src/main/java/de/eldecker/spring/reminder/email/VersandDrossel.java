@@ -0,0 +1,229 @@
+package de.eldecker.spring.reminder.email;
+
+import java.time.Duration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+
+
+/**
+ * Bean-Klasse, die die Anzahl der versendeten Emails mit Token-Buckets begrenzt, damit die
+ * Kontingente des SMTP-Providers pro Minute und pro Tag nicht überschritten werden. Vor dem
+ * Versand mit {@link EmailSender} wird mit {@link #reserviere(int)} für jede Email ein Token
+ * entnommen; sind nicht genügend Tokens vorhanden, dann werden die übrigen Emails nicht
+ * versendet, sondern bleiben für einen späteren Lauf im Postausgang.
+ * <br><br>
+ * 
+ * Es gibt zwei Buckets, aus denen jeweils ein Token entnommen werden muss:
+ * <ul>
+ * <li>Minute: Bis zu {@code de.eldecker.reminder.drossel_burst} Emails auf einmal, danach
+ *     werden {@code de.eldecker.reminder.drossel_pro_minute} Tokens pro Minute gleichmäßig 
+ *     nachgefüllt.</li>
+ * <li>Tag: {@code de.eldecker.reminder.drossel_pro_tag} Tokens, die über 24 Stunden
+ *     gleichmäßig nachgefüllt werden.</li>
+ * </ul>
+ * Ein Wert von {@code 0} schaltet den jeweiligen Bucket aus. Die Buckets werden im Speicher
+ * gehalten, die Grenzen gelten also pro Instanz der Anwendung und beginnen nach einem
+ * Neustart mit vollen Buckets.
+ */
+@Component
+public class VersandDrossel {
+    
+    private static Logger LOG = LoggerFactory.getLogger( VersandDrossel.class );
+    
+    
+    /** Maximale Anzahl Emails, die auf einmal versendet werden (Kapazität Minuten-Bucket). */
+    @Value( "${de.eldecker.reminder.drossel_burst:0}" )
+    private int _burst;
+    
+    /** Dauerhaft erlaubte Anzahl Emails pro Minute, {@code 0} für unbegrenzt. */
+    @Value( "${de.eldecker.reminder.drossel_pro_minute:0}" )
+    private int _proMinute;
+    
+    /** Erlaubte Anzahl Emails pro Tag, {@code 0} für unbegrenzt. */
+    @Value( "${de.eldecker.reminder.drossel_pro_tag:0}" )
+    private int _proTag;
+    
+    /** Bucket für Burst und Rate pro Minute, {@code null} wenn ausgeschaltet. */
+    private Bucket _minutenBucket;
+    
+    /** Bucket für Rate pro Tag, {@code null} wenn ausgeschaltet. */
+    private Bucket _tagesBucket;
+    
+    
+    /**
+     * Erzeugt die Buckets gemäß Konfiguration.
+     */
+    @PostConstruct
+    public void initialisieren() {
+        
+        final long jetzt = System.nanoTime();
+        
+        if ( _proMinute > 0 ) {
+            
+            final int kapazitaet = _burst > 0 ? _burst : _proMinute;
+            _minutenBucket = new Bucket( kapazitaet, _proMinute, Duration.ofMinutes( 1 ), jetzt );
+        }
+        if ( _proTag > 0 ) {
+            
+            _tagesBucket = new Bucket( _proTag, _proTag, Duration.ofDays( 1 ), jetzt );
+        }
+        
+        LOG.info( "Drosselung Email-Versand: Burst={}, pro Minute={}, pro Tag={} (0 = unbegrenzt)", 
+                  _burst, _proMinute, _proTag );
+    }
+    
+    
+    /**
+     * Entnimmt so viele Tokens wie möglich, höchstens aber {@code anzahl}; die Methode
+     * wartet nicht.
+     * 
+     * @param anzahl Anzahl der Emails, die versendet werden sollen
+     * 
+     * @return Anzahl der Emails, die jetzt versendet werden dürfen ({@code 0..anzahl})
+     */
+    public synchronized int reserviere( int anzahl ) {
+        
+        final long jetzt = System.nanoTime();
+        
+        int erlaubt = anzahl;
+        if ( _minutenBucket != null ) {
+            
+            erlaubt = Math.min( erlaubt, _minutenBucket.verfuegbar( jetzt ) );
+        }
+        if ( _tagesBucket != null ) {
+            
+            erlaubt = Math.min( erlaubt, _tagesBucket.verfuegbar( jetzt ) );
+        }
+        if ( _minutenBucket != null ) {
+            
+            _minutenBucket.entnehmen( erlaubt );
+        }
+        if ( _tagesBucket != null ) {
+            
+            _tagesBucket.entnehmen( erlaubt );
+        }
+        
+        return erlaubt;
+    }
+    
+    
+    /**
+     * Gibt Tokens zurück, die mit {@link #reserviere(int)} entnommen, aber nicht für
+     * einen Versand verwendet wurden.
+     * 
+     * @param anzahl Anzahl der nicht verwendeten Tokens
+     */
+    public synchronized void zurueckgeben( int anzahl ) {
+        
+        if ( _minutenBucket != null ) {
+            
+            _minutenBucket.entnehmen( -anzahl );
+        }
+        if ( _tagesBucket != null ) {
+            
+            _tagesBucket.entnehmen( -anzahl );
+        }
+    }
+    
+    
+    /**
+     * Zeit, bis wieder mindestens eine Email versendet werden darf.
+     * 
+     * @return Wartezeit, {@link Duration#ZERO} wenn schon jetzt ein Token verfügbar ist
+     */
+    public synchronized Duration wartezeitBisNaechstesToken() {
+        
+        final long jetzt = System.nanoTime();
+        
+        long nanos = 0;
+        if ( _minutenBucket != null ) {
+            
+            nanos = Math.max( nanos, _minutenBucket.nanosBisToken( jetzt ) );
+        }
+        if ( _tagesBucket != null ) {
+            
+            nanos = Math.max( nanos, _tagesBucket.nanosBisToken( jetzt ) );
+        }
+        
+        return Duration.ofNanos( nanos );
+    }
+    
+    
+    /**
+     * Token-Bucket, der kontinuierlich (nicht in festen Fenstern) nachgefüllt wird;
+     * nicht thread-safe, Synchronisierung erfolgt über {@link VersandDrossel}. Alle
+     * Zeitpunkte werden als Argument übergeben ({@link System#nanoTime()}), damit der
+     * Bucket ohne Warten getestet werden kann.
+     */
+    static final class Bucket {
+        
+        /** Maximale Anzahl Tokens. */
+        private final double _kapazitaet;
+        
+        /** Nachgefüllte Tokens pro Nanosekunde. */
+        private final double _tokenProNano;
+        
+        /** Aktuelle Anzahl Tokens (Bruchteile möglich). */
+        private double _tokens;
+        
+        /** Zeitpunkt ({@link System#nanoTime()}) der letzten Auffüllung. */
+        private long _letzteAuffuellung;
+        
+        
+        /**
+         * Erzeugt einen vollen Bucket.
+         * 
+         * @param kapazitaet Maximale Anzahl Tokens
+         * 
+         * @param anzahlProZeitraum Anzahl Tokens, die pro {@code zeitraum} nachgefüllt werden
+         * 
+         * @param zeitraum Zeitraum für {@code anzahlProZeitraum}
+         * 
+         * @param jetzt Aktueller Zeitpunkt
+         */
+        Bucket( int kapazitaet, int anzahlProZeitraum, Duration zeitraum, long jetzt ) {
+            
+            _kapazitaet        = kapazitaet;
+            _tokenProNano      = (double) anzahlProZeitraum / zeitraum.toNanos();
+            _tokens            = kapazitaet;
+            _letzteAuffuellung = jetzt;
+        }
+        
+        
+        /**
+         * Füllt den Bucket für die seit der letzten Auffüllung vergangene Zeit auf.
+         */
+        private void auffuellen( long jetzt ) {
+            
+            _tokens            = Math.min( _kapazitaet, _tokens + ( jetzt - _letzteAuffuellung ) * _tokenProNano );
+            _letzteAuffuellung = jetzt;
+        }
+        
+        
+        int verfuegbar( long jetzt ) {
+            
+            auffuellen( jetzt );
+            return (int) Math.floor( _tokens );
+        }
+        
+        
+        void entnehmen( int anzahl ) {
+            
+            _tokens = Math.min( _kapazitaet, _tokens - anzahl );
+        }
+        
+        
+        long nanosBisToken( long jetzt ) {
+            
+            auffuellen( jetzt );
+            return _tokens >= 1 ? 0 : (long) Math.ceil( ( 1 - _tokens ) / _tokenProNano );
+        }
+        
+    }
+    
+}
@@ -0,0 +1,19 @@
+package de.eldecker.spring.reminder.email;
+
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * Ergebnis von {@link EmailSender#sendeEmails(List)}.
+ * 
+ * @param zugestellt IDs der {@link EmailAuftrag}-Objekte, deren Email vom 
+ *                   SMTP-Server angenommen wurde
+ * 
+ * @param fehlgeschlagen IDs der {@link EmailAuftrag}-Objekte, deren Email nicht
+ *                       versendet werden konnte, jeweils mit Fehlerbeschreibung
+ */
+public record VersandErgebnis( List<Long>        zugestellt, 
+                               Map<Long, String> fehlgeschlagen 
+                             ) {
+}
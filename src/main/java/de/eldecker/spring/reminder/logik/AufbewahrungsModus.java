@@ -0,0 +1,19 @@
+package de.eldecker.spring.reminder.logik;
+
+
+/**
+ * Was {@link ReminderAufbewahrung} mit Remindern macht, deren Versand länger als
+ * die konfigurierte Aufbewahrungsfrist zurückliegt.
+ */
+public enum AufbewahrungsModus {
+    
+    /** Reminder in Tabelle {@code REMINDER_ARCHIV} verschieben. */
+    ARCHIVIEREN,
+    
+    /** Reminder löschen. */
+    LOESCHEN,
+    
+    /** Reminder in Tabelle {@code REMINDER} belassen (Aufbewahrungs-Job ausgeschaltet). */
+    AUS
+
+}
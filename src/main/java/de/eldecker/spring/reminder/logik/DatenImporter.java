@@ -9,10 +9,18 @@ import org.springframework.boot.ApplicationArguments;
 import org.springframework.boot.ApplicationRunner;
 import org.springframework.stereotype.Component;
 
+import de.eldecker.spring.reminder.model.ReminderException;
+
 
 /**
  * Diese Bean-Klasse enthält Logik, die unmittelbar nach Initialisierung der
  * Spring-Boot-Anwendung ausgeführt wird.
+ * <br><br>
+ * 
+ * Die Arbeit wird auf einem eigenen virtuellen Thread erledigt, damit sie nicht auf dem
+ * kritischen Pfad des Starts liegt: Die Anwendung meldet sich als bereit und beantwortet
+ * Anfragen, während im Hintergrund noch die Zähler initialisiert werden und die Metriken
+ * gepuffert werden; ist die InfluxDB nicht erreichbar, dann verzögert dies den Start nicht.
  */
 @Component
 public class DatenImporter implements ApplicationRunner {
@@ -22,52 +30,97 @@ public class DatenImporter implements ApplicationRunner {
 	
 	/** Bean mit Geschäftslogik für Verwaltung von Reminder. */
 	private ReminderService _reminderService;
+	
+	/** Bean mit Zählern für versendete und noch nicht versendete Reminder. */
+	private ReminderZaehler _reminderZaehler;
+	
+	/** Bean mit Index für die Volltextsuche. */
+	private ReminderSuche _reminderSuche;
 
 	
 	/**
 	 * Konstruktor für Dependency Injection.
 	 */
 	@Autowired
-	public DatenImporter( ReminderService reminderService ) {
+	public DatenImporter( ReminderService reminderService, 
+	                      ReminderZaehler reminderZaehler,
+	                      ReminderSuche   reminderSuche ) {
 
 		_reminderService = reminderService;
+		_reminderZaehler = reminderZaehler;
+		_reminderSuche   = reminderSuche;
 	}
 
 	
 	/**
-	 * Sobald die Anwendung gestartet wurde, wird diese Methode aufgerufen. Hier
-	 * werden die Metriken für die Anzahl der Reminder in die InfluxDB geschrieben.
+	 * Sobald die Anwendung gestartet wurde, wird diese Methode aufgerufen. Sie startet
+	 * nur den Thread für {@link #startAufgaben()} und kehrt sofort zurück.
 	 */
 	@Override
-	public void run( ApplicationArguments args ) throws Exception {
+	public void run( ApplicationArguments args ) {
 		
-		final int anzahlReminder = _reminderService.erfasseAnzahlReminderInInfluxDB();
+		Thread.ofVirtual().name( "start-aufgaben" ).start( this::startAufgaben );
+	}
+	
+	
+	/**
+	 * Initialisiert die Zähler in {@link ReminderZaehler} aus der Datenbank, baut den 
+	 * Suchindex in {@link ReminderSuche} auf, legt Demo-Daten an, wenn es noch keinen 
+	 * Reminder gibt, und puffert die Metriken für die Anzahl der Reminder für die InfluxDB.
+	 */
+	private void startAufgaben() {
 		
-		if ( anzahlReminder > 0 ) {
-									
-			LOG.info( 
-				"Es sind schon {} Reminder in der DB, lade deshalb keine Demo-Daten.",
-				anzahlReminder );			
+		try {
 			
-		} else {
-
-			final int naechstesJahr = now().plusYears( 1 ).getValue();
+			final long startNanos = System.nanoTime();
 			
-			_reminderService.reminderAnlegen( 1, 1, naechstesJahr, 8, 30, 					 
-                                              "Heute Sauerkraut essen" );				
+			_reminderZaehler.abgleichMitDatenbank();
+			_reminderSuche.neuAufbauen();
 			
-			_reminderService.reminderAnlegen( 23, 12, naechstesJahr, 12, 0, 					 
-					                          "Schon Geschenke für morgen gekauft?" );			
+			if ( _reminderService.gibtEsReminder() ) {
+				
+				LOG.info( "Es sind schon Reminder in der DB, lade deshalb keine Demo-Daten." );
+				
+			} else {
+				
+				demoDatenAnlegen();
+			}
+			
+			_reminderService.erfasseAnzahlReminderInInfluxDB();
+			
+			LOG.info( "Start-Aufgaben im Hintergrund nach {} ms erledigt.", 
+			          ( System.nanoTime() - startNanos ) / 1_000_000 );
+		}
+		catch ( ReminderException | RuntimeException ex ) {
 			
-			_reminderService.reminderAnlegen( 30, 4, naechstesJahr, 10, 15, 
-				    					      "Bier für morgigen Maifeiertag besorgen" );
+			LOG.error( "Fehler bei Start-Aufgaben im Hintergrund.", ex );
+		}
+	}
+	
+	
+	/**
+	 * Legt einige Reminder für das nächste Jahr an.
+	 * 
+	 * @throws ReminderException Ungültige Daten für Reminder
+	 */
+	private void demoDatenAnlegen() throws ReminderException {
 
-			_reminderService.reminderAnlegen( 31, 10, naechstesJahr, 15, 0, 
-				                              "Halloween – Süßes oder Saures vorbereiten!" );
+		final int naechstesJahr = now().plusYears( 1 ).getValue();
+		
+		_reminderService.reminderAnlegen( 1, 1, naechstesJahr, 8, 30, 					 
+                                          "Heute Sauerkraut essen" );				
+		
+		_reminderService.reminderAnlegen( 23, 12, naechstesJahr, 12, 0, 					 
+				                          "Schon Geschenke für morgen gekauft?" );			
+		
+		_reminderService.reminderAnlegen( 30, 4, naechstesJahr, 10, 15, 
+			    					      "Bier für morgigen Maifeiertag besorgen" );
 
-			_reminderService.reminderAnlegen( 5, 12, naechstesJahr, 7, 30, 
-				                              "Stiefel für Nikolaus rausstellen!");			
-		}
+		_reminderService.reminderAnlegen( 31, 10, naechstesJahr, 15, 0, 
+			                              "Halloween – Süßes oder Saures vorbereiten!" );
+
+		_reminderService.reminderAnlegen( 5, 12, naechstesJahr, 7, 30, 
+			                              "Stiefel für Nikolaus rausstellen!");			
 	}
 
 }
@@ -0,0 +1,233 @@
+package de.eldecker.spring.reminder.logik;
+
+import static de.eldecker.spring.reminder.helferlein.ZeitpunktFormatierer.formatiere;
+import static java.time.LocalDateTime.now;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import de.eldecker.spring.reminder.db_jpa.FaelligerReminder;
+import de.eldecker.spring.reminder.db_jpa.PostausgangEntity;
+import de.eldecker.spring.reminder.db_jpa.ReminderSpeicher;
+import de.eldecker.spring.reminder.db_jpa.ReminderVorschau;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+
+/**
+ * Bean-Klasse, die den Inhalt der Emails für die Reminder erzeugt, die in den Postausgang
+ * übernommen werden.
+ * <br><br>
+ * 
+ * Damit dies nicht erst zum Fälligkeitszeitpunkt geschieht (wenn viele Reminder gleichzeitig
+ * fällig werden, ist die Last am höchsten), werden Betreff, Body und formatierter 
+ * Fälligkeitszeitpunkt für alle Reminder, die in den nächsten 
+ * {@code de.eldecker.reminder.vorschau_minuten} Minuten fällig werden, schon vorher in
+ * einem Hintergrund-Lauf erzeugt und im Speicher gehalten (siehe {@link #vorbereiten()}).
+ * <br><br>
+ * 
+ * Ein vorbereiteter Inhalt wird nur verwendet, wenn Reminder-Text und Fälligkeitszeitpunkt
+ * noch mit dem Reminder übereinstimmen; wurde der Reminder inzwischen geändert, dann wird 
+ * der Inhalt verworfen und neu erzeugt. Die Verwendung wird in der Micrometer-Metrik 
+ * {@code reminder.vorschau.zugriff} mit Tag {@code ergebnis} ({@code treffer}, 
+ * {@code fehlt} oder {@code veraltet}) gezählt.
+ */
+@Component
+public class EmailVorbereitung {
+    
+    private static Logger LOG = LoggerFactory.getLogger( EmailVorbereitung.class );
+    
+    
+    /** Inhalte für Reminder, die in so vielen Minuten fällig werden, werden vorbereitet. */
+    @Value( "${de.eldecker.reminder.vorschau_minuten:5}" )
+    private int _vorschauMinuten;
+    
+    /** Maximale Anzahl vorbereiteter Inhalte. */
+    @Value( "${de.eldecker.reminder.vorschau_max_anzahl:10000}" )
+    private int _maxAnzahl;
+    
+    /** Speicher für die Reminder (Tabelle oder Journal). */
+    private final ReminderSpeicher _reminderSpeicher;
+    
+    /** Vorbereitete Inhalte, Schlüssel ist die ID des Reminders. */
+    private volatile Map<Long, VorbereiteterInhalt> _vorbereitet = new ConcurrentHashMap<>();
+    
+    /** Vorbereiteter Inhalt wurde verwendet. */
+    private final Counter _trefferCounter;
+    
+    /** Für den Reminder gab es keinen vorbereiteten Inhalt. */
+    private final Counter _fehltCounter;
+    
+    /** Vorbereiteter Inhalt wurde verworfen, weil der Reminder geändert wurde. */
+    private final Counter _veraltetCounter;
+    
+    
+    /**
+     * Vorbereiteter Inhalt der Email für einen Reminder.
+     * 
+     * @param reminderText Text des Reminders, für den der Inhalt erzeugt wurde
+     * 
+     * @param zeitpunktFaellig Fälligkeitszeitpunkt, für den der Inhalt erzeugt wurde
+     * 
+     * @param faelligFormatiert Formatierter Fälligkeitszeitpunkt
+     * 
+     * @param betreff Betreff für Email mit nur diesem Reminder
+     * 
+     * @param body Body für Email mit nur diesem Reminder
+     */
+    private record VorbereiteterInhalt( String        reminderText,
+                                        LocalDateTime zeitpunktFaellig,
+                                        String        faelligFormatiert,
+                                        String        betreff,
+                                        String        body ) {
+        
+        /**
+         * Prüft, ob der Inhalt noch zum aktuellen Stand des Reminders passt.
+         */
+        boolean passtZu( FaelligerReminder reminder ) {
+            
+            return Objects.equals( reminderText    , reminder.reminderText()     ) &&
+                   Objects.equals( zeitpunktFaellig, reminder.zeitpunktFaellig() );
+        }
+    }
+    
+    
+    /**
+     * Konstruktor für Dependency Injection.
+     */
+    @Autowired
+    public EmailVorbereitung( ReminderSpeicher reminderSpeicher,
+                              MeterRegistry    meterRegistry ) {
+        
+        _reminderSpeicher = reminderSpeicher;
+        
+        _trefferCounter  = erzeugeCounter( meterRegistry, "treffer"  );
+        _fehltCounter    = erzeugeCounter( meterRegistry, "fehlt"    );
+        _veraltetCounter = erzeugeCounter( meterRegistry, "veraltet" );
+    }
+    
+    
+    /**
+     * Erzeugt Zähler für Zugriffe auf die vorbereiteten Inhalte.
+     */
+    private static Counter erzeugeCounter( MeterRegistry meterRegistry, String ergebnis ) {
+        
+        return Counter.builder( "reminder.vorschau.zugriff" )
+                      .description( "Zugriffe auf vorbereitete Email-Inhalte" )
+                      .tag( "ergebnis", ergebnis )
+                      .register( meterRegistry );
+    }
+    
+    
+    /**
+     * Erzeugt die Inhalte für alle Reminder, die im Vorschau-Zeitraum fällig werden 
+     * (auch schon überfällige), und ersetzt damit die bisher vorbereiteten Inhalte; 
+     * Inhalte für inzwischen versendete oder geänderte Reminder fallen dabei weg.
+     */
+    @Scheduled( fixedDelayString = "${de.eldecker.reminder.vorschau_intervall_ms:60000}" )
+    public void vorbereiten() {
+        
+        final LocalDateTime bis = now().plusMinutes( _vorschauMinuten );
+        
+        final List<ReminderVorschau> vorschauListe = _reminderSpeicher.findVorschau( bis, Limit.of( _maxAnzahl ) );
+        
+        final Map<Long, VorbereiteterInhalt> vorbereitet = new ConcurrentHashMap<>( vorschauListe.size() * 2 );
+        for ( ReminderVorschau vorschau : vorschauListe ) {
+            
+            vorbereitet.put( vorschau.id(), 
+                             erzeugeInhalt( vorschau.reminderText(), vorschau.zeitpunktFaellig() ) );
+        }
+        _vorbereitet = vorbereitet;
+        
+        LOG.debug( "Email-Inhalte fuer {} Reminder mit Faelligkeit bis {} vorbereitet.", vorbereitet.size(), bis );
+    }
+    
+    
+    /**
+     * Erzeugt die Email im Postausgang für eine Gruppe von Remindern: Für einen einzelnen 
+     * Reminder steht der Reminder-Text im Betreff, für mehrere Reminder (Sammel-Email)
+     * enthält der Body eine Zeile mit Fälligkeitszeitpunkt und Text pro Reminder. Soweit
+     * vorhanden und noch aktuell, werden die vorbereiteten Inhalte verwendet.
+     * 
+     * @param gruppe Reminder, die mit dieser Email versendet werden (nicht leer)
+     * 
+     * @param jetzt Aktueller Zeitpunkt
+     * 
+     * @return Neue (noch nicht gespeicherte) Email für den Postausgang
+     */
+    public PostausgangEntity erzeugeEmail( List<FaelligerReminder> gruppe, LocalDateTime jetzt ) {
+        
+        if ( gruppe.size() == 1 ) {
+            
+            final VorbereiteterInhalt inhalt = holeInhalt( gruppe.getFirst() );
+            
+            return new PostausgangEntity( inhalt.betreff(), inhalt.body(), jetzt );
+        }
+        
+        final String        betreff = "[Reminder] " + gruppe.size() + " fällige Reminder";
+        final StringBuilder body    = new StringBuilder( gruppe.size() * 80 );
+        for ( FaelligerReminder reminder : gruppe ) {
+            
+            body.append( "- " ).append( holeInhalt( reminder ).faelligFormatiert() )
+                .append( " Uhr: " ).append( reminder.reminderText() ).append( '\n' );
+        }
+        
+        return new PostausgangEntity( betreff, body.toString(), jetzt );
+    }
+    
+    
+    /**
+     * Entnimmt den vorbereiteten Inhalt für einen Reminder, oder erzeugt ihn, wenn es keinen
+     * (aktuellen) vorbereiteten Inhalt gibt.
+     * 
+     * @param reminder Reminder, der in den Postausgang übernommen wird
+     * 
+     * @return Inhalt, der zum aktuellen Stand des Reminders passt
+     */
+    private VorbereiteterInhalt holeInhalt( FaelligerReminder reminder ) {
+        
+        final VorbereiteterInhalt inhalt = _vorbereitet.remove( reminder.id() );
+        if ( inhalt == null ) {
+            
+            _fehltCounter.increment();
+            
+        } else if ( inhalt.passtZu( reminder ) ) {
+            
+            _trefferCounter.increment();
+            return inhalt;
+            
+        } else {
+            
+            _veraltetCounter.increment();
+        }
+        
+        return erzeugeInhalt( reminder.reminderText(), reminder.zeitpunktFaellig() );
+    }
+    
+    
+    /**
+     * Erzeugt Betreff, Body und formatierten Fälligkeitszeitpunkt für einen Reminder.
+     */
+    private static VorbereiteterInhalt erzeugeInhalt( String reminderText, LocalDateTime zeitpunktFaellig ) {
+        
+        final String faelligFormatiert = formatiere( zeitpunktFaellig );
+        
+        final String betreff = "[Reminder] "                   + reminderText;
+        final String body    = "siehe Betreff\n\nFälligkeit: " + faelligFormatiert;
+        
+        return new VorbereiteterInhalt( reminderText, zeitpunktFaellig, faelligFormatiert, betreff, body );
+    }
+    
+}
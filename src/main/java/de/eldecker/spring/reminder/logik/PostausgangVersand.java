@@ -0,0 +1,465 @@
+package de.eldecker.spring.reminder.logik;
+
+import static java.time.LocalDateTime.now;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import de.eldecker.spring.reminder.db_jpa.PostausgangEntity;
+import de.eldecker.spring.reminder.db_jpa.PostausgangRepo;
+import de.eldecker.spring.reminder.db_jpa.ReminderEntity;
+import de.eldecker.spring.reminder.db_jpa.ReminderFaelligkeit;
+import de.eldecker.spring.reminder.db_jpa.ReminderSpeicher;
+import de.eldecker.spring.reminder.email.EmailAuftrag;
+import de.eldecker.spring.reminder.email.EmailSender;
+import de.eldecker.spring.reminder.email.VersandDrossel;
+import de.eldecker.spring.reminder.email.VersandErgebnis;
+import de.eldecker.spring.reminder.model.ReminderFehlgeschlagenEvent;
+import de.eldecker.spring.reminder.model.ReminderVersendetEvent;
+import de.eldecker.spring.reminder.model.ReminderWiederholtEvent;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+
+/**
+ * Bean-Klasse, die die Emails aus dem Postausgang (siehe {@link PostausgangEntity})
+ * versendet.
+ * <br><br>
+ * 
+ * Die versandbereiten Emails werden wie die fälligen Reminder in Chunks gelesen und vor
+ * dem Versand mit einem eindeutigen Token beansprucht, so dass auch mehrere Instanzen der
+ * Anwendung denselben Postausgang abarbeiten können. Schlägt der Versand einer Email fehl,
+ * dann wird nur für diese Email der nächste Versuch mit exponentiellem Backoff eingeplant
+ * (Basis {@code de.eldecker.reminder.postausgang_backoff_basis_sekunden}, höchstens
+ * {@code de.eldecker.reminder.postausgang_backoff_max_sekunden}); die übrigen Emails 
+ * werden davon nicht aufgehalten. Nach {@code de.eldecker.reminder.postausgang_max_versuche}
+ * Versuchen wird die Email als {@code FEHLGESCHLAGEN} markiert und nicht weiter versucht;
+ * einmalige Reminder dieser Email werden dann als fehlgeschlagen markiert (siehe
+ * {@link ReminderSpeicher#markiereAlsFehlgeschlagen(java.util.Collection, LocalDateTime)}),
+ * sie bleiben also nicht versendet, und es wird ein {@link ReminderFehlgeschlagenEvent}
+ * veröffentlicht. Der Fehler ist über die verknüpfte Email im Postausgang (Status und
+ * letzter Fehler) nachvollziehbar.
+ * <br><br>
+ * 
+ * Für wiederkehrende Reminder wird nach dem Versand (oder nach endgültig fehlgeschlagenem
+ * Versand) die nächste Fälligkeit in derselben Zeile gesetzt, anstatt den Reminder als
+ * versendet (bzw. als fehlgeschlagen) zu markieren.
+ * <br><br>
+ * 
+ * Für jeden versendeten Reminder wird die Verspätung (Zeitpunkt des Versands minus 
+ * Fälligkeitszeitpunkt) in der Micrometer-Metrik {@code reminder.versand.verspaetung}
+ * erfasst.
+ * <br><br>
+ * 
+ * Vor dem Lesen eines Chunks werden bei {@link VersandDrossel} die Tokens für die Emails 
+ * reserviert; es werden nur so viele Emails beansprucht und versendet, wie Tokens verfügbar
+ * sind. Ist die Drosselung erreicht, dann bleiben die übrigen Emails unverändert im 
+ * Postausgang und werden beim nächsten Lauf versendet (spätestens nach 
+ * {@code de.eldecker.reminder.postausgang_intervall_ms}), sie gelten also nicht als 
+ * fehlgeschlagen. Die Anzahl der dann noch wartenden Emails steht in der Metrik 
+ * {@code reminder.drossel.warteschlange}, die Wartezeit jeder versendeten Email im 
+ * Postausgang (ab Zeitpunkt für nächsten Versuch) in {@code reminder.drossel.wartezeit}.
+ */
+@Component
+public class PostausgangVersand {
+    
+    private static Logger LOG = LoggerFactory.getLogger( PostausgangVersand.class );
+    
+    
+    /** Maximale Anzahl Emails, die in einem Chunk gelesen und versendet werden. */
+    @Value( "${de.eldecker.reminder.versand_chunk_groesse:100}" )
+    private int _chunkGroesse;
+    
+    /** Name dieser Instanz der Anwendung für die Beanspruchung von Emails. */
+    @Value( "${de.eldecker.reminder.instanz_id:#{T(java.util.UUID).randomUUID().toString()}}" )
+    private String _instanzId;
+    
+    /** Dauer der Beanspruchung eines Chunks in Sekunden. */
+    @Value( "${de.eldecker.reminder.beanspruchung_sekunden:300}" )
+    private int _beanspruchungSekunden;
+    
+    /** Maximale Anzahl Versuche pro Email. */
+    @Value( "${de.eldecker.reminder.postausgang_max_versuche:8}" )
+    private int _maxVersuche;
+    
+    /** Wartezeit vor dem zweiten Versuch; verdoppelt sich mit jedem weiteren Versuch. */
+    @Value( "${de.eldecker.reminder.postausgang_backoff_basis_sekunden:30}" )
+    private long _backoffBasisSekunden;
+    
+    /** Obergrenze für die Wartezeit zwischen zwei Versuchen. */
+    @Value( "${de.eldecker.reminder.postausgang_backoff_max_sekunden:3600}" )
+    private long _backoffMaxSekunden;
+    
+    /** Repo-Bean für Zugriff auf Tabelle mit dem Postausgang. */
+    private final PostausgangRepo _postausgangRepo;
+    
+    /** Speicher für die Reminder, um sie als versendet zu markieren. */
+    private final ReminderSpeicher _reminderSpeicher;
+    
+    /** Bean, um Emails zu versenden. */
+    private final EmailSender _emailSender;
+    
+    /** Bean für Begrenzung der Anzahl versendeter Emails pro Minute und pro Tag. */
+    private final VersandDrossel _versandDrossel;
+    
+    /** Bean mit Zählern für versendete und noch nicht versendete Reminder. */
+    private final ReminderZaehler _reminderZaehler;
+    
+    /** 
+     * Bean, um {@link ReminderVersendetEvent}, {@link ReminderWiederholtEvent} und 
+     * {@link ReminderFehlgeschlagenEvent} zu veröffentlichen. 
+     */
+    private final ApplicationEventPublisher _eventPublisher;
+    
+    /** Für eine Transaktion pro Chunk beim Verbuchen des Versand-Ergebnisses. */
+    private final TransactionTemplate _transactionTemplate;
+    
+    /** Verteilung der Verspätung beim Versand (Versandzeitpunkt minus Fälligkeitszeitpunkt). */
+    private final Timer _verspaetungTimer;
+    
+    /** Wartezeit der Emails im Postausgang (Versandzeitpunkt minus Zeitpunkt für nächsten Versuch). */
+    private final Timer _wartezeitTimer;
+    
+    /** Anzahl der versandbereiten Emails, die beim letzten Lauf wegen der Drosselung warten mussten. */
+    private final AtomicInteger _warteschlange = new AtomicInteger( 0 );
+    
+    
+    /**
+     * Konstruktor für Dependency Injection.
+     */
+    @Autowired
+    public PostausgangVersand( PostausgangRepo            postausgangRepo,
+                               ReminderSpeicher           reminderSpeicher,
+                               EmailSender                emailSender,
+                               VersandDrossel             versandDrossel,
+                               ReminderZaehler            reminderZaehler,
+                               ApplicationEventPublisher  eventPublisher,
+                               PlatformTransactionManager transactionManager,
+                               MeterRegistry              meterRegistry
+                             ) {
+        
+        _postausgangRepo     = postausgangRepo;
+        _reminderSpeicher    = reminderSpeicher;
+        _emailSender         = emailSender;
+        _versandDrossel      = versandDrossel;
+        _reminderZaehler     = reminderZaehler;
+        _eventPublisher      = eventPublisher;
+        _transactionTemplate = new TransactionTemplate( transactionManager );
+        
+        _verspaetungTimer = Timer.builder( "reminder.versand.verspaetung" )
+                                 .description( "Zeitpunkt des Versands minus Fälligkeitszeitpunkt" )
+                                 .publishPercentiles( 0.5, 0.95, 0.99 )
+                                 .register( meterRegistry );
+        
+        _wartezeitTimer = Timer.builder( "reminder.drossel.wartezeit" )
+                               .description( "Wartezeit einer Email im Postausgang bis zum Versand" )
+                               .publishPercentiles( 0.5, 0.95, 0.99 )
+                               .register( meterRegistry );
+        
+        Gauge.builder( "reminder.drossel.warteschlange", _warteschlange, AtomicInteger::get )
+             .description( "Versandbereite Emails, die wegen der Drosselung auf einen späteren Lauf warten" )
+             .register( meterRegistry );
+    }
+    
+    
+    /**
+     * Versendet alle Emails aus dem Postausgang, die (erneut) versendet werden können.
+     * Emails, deren Versand in diesem Lauf fehlschlägt, werden erst nach Ablauf ihres 
+     * Backoffs wieder versucht, also nicht im selben Lauf.
+     * 
+     * @return Anzahl versendeter Emails
+     */
+    public int versendePostausgang() {
+        
+        int emailZaehler = 0;
+        while ( true ) {
+            
+            final LocalDateTime jetzt = now();
+            
+            final int erlaubt = _versandDrossel.reserviere( _chunkGroesse );
+            if ( erlaubt == 0 ) {
+                
+                erfasseWarteschlange( jetzt );
+                break;
+            }
+            
+            final List<Long> kandidaten = _postausgangRepo.findVersandbereitIds( jetzt, Limit.of( erlaubt ) );
+            if ( kandidaten.isEmpty() ) {
+                
+                _versandDrossel.zurueckgeben( erlaubt );
+                _warteschlange.set( 0 );
+                break;
+            }
+            
+            final String        token = _instanzId + "/" + UUID.randomUUID();
+            final LocalDateTime bis   = jetzt.plusSeconds( _beanspruchungSekunden );
+            
+            final List<PostausgangEntity> chunk = 
+                        _postausgangRepo.beanspruche( kandidaten, token, jetzt, bis ) > 0
+                        ? _postausgangRepo.findBy_beanspruchtVon( token )
+                        : List.of();
+            
+            // Tokens für Emails, die inzwischen von einer anderen Instanz beansprucht wurden
+            _versandDrossel.zurueckgeben( erlaubt - chunk.size() );
+            if ( !chunk.isEmpty() ) {
+                
+                emailZaehler += versendeChunk( chunk );
+            }
+            
+            if ( kandidaten.size() < erlaubt ) {
+                
+                _warteschlange.set( 0 );
+                break;
+            }
+        }
+        
+        return emailZaehler;
+    }
+    
+    
+    /**
+     * Ermittelt nach Erreichen der Drosselung die Anzahl der Emails, die auf einen 
+     * späteren Lauf warten müssen; nur in diesem Fall ist hierfür eine COUNT-Abfrage nötig.
+     * 
+     * @param jetzt Aktueller Zeitpunkt
+     */
+    private void erfasseWarteschlange( LocalDateTime jetzt ) {
+        
+        final int anzahlWartend = _postausgangRepo.countVersandbereit( jetzt );
+        _warteschlange.set( anzahlWartend );
+        
+        if ( anzahlWartend > 0 ) {
+            
+            LOG.info( "Email-Versand gedrosselt: {} Email(s) warten, naechstes Token in {} ms.", 
+                      anzahlWartend, _versandDrossel.wartezeitBisNaechstesToken().toMillis() );
+        }
+    }
+    
+    
+    /**
+     * Versendet einen Chunk beanspruchter Emails und verbucht danach in einer Transaktion
+     * das Ergebnis: Zugestellte Emails und die zugehörigen einmaligen Reminder werden als 
+     * versendet markiert, für wiederkehrende Reminder wird die nächste Fälligkeit gesetzt,
+     * und für fehlgeschlagene Emails wird der nächste Versuch eingeplant (oder sie werden
+     * nach dem letzten Versuch mit ihren Remindern als fehlgeschlagen markiert).
+     * 
+     * @param chunk Beanspruchte Emails
+     * 
+     * @return Anzahl versendeter Emails
+     */
+    private int versendeChunk( List<PostausgangEntity> chunk ) {
+        
+        final LocalDateTime      zeitpunktStart = now();
+        final List<EmailAuftrag> auftragListe   = new ArrayList<>( chunk.size() );
+        for ( PostausgangEntity email : chunk ) {
+            
+            auftragListe.add( new EmailAuftrag( email.getId(), email.getBetreff(), email.getText() ) );
+            _wartezeitTimer.record( Duration.between( email.getNaechsterVersuch(), zeitpunktStart ) );
+        }
+        
+        final VersandErgebnis   ergebnis           = _emailSender.sendeEmails( auftragListe );
+        final LocalDateTime     zeitpunktVersendet = now();
+        final Map<Long, String> fehlgeschlagen     = ergebnis.fehlgeschlagen();
+        
+        final List<ReminderWiederholtEvent> wiederholungen = new ArrayList<>();
+        
+        final Verbuchung verbuchung = _transactionTemplate.execute( status -> {
+            
+            List<Long>       reminderIds         = List.of();
+            int              anzahlAbgeschlossen = 0;
+            final List<Long> fehlgeschlageneIds  = new ArrayList<>();
+            if ( !ergebnis.zugestellt().isEmpty() ) {
+                
+                final List<ReminderFaelligkeit> faelligkeiten = 
+                            _reminderSpeicher.findFaelligkeitenByPostausgang( ergebnis.zugestellt() );
+                
+                reminderIds = new ArrayList<>( faelligkeiten.size() );
+                for ( ReminderFaelligkeit faelligkeit : faelligkeiten ) {
+                    
+                    reminderIds.add( faelligkeit.id() );
+                    _verspaetungTimer.record( Duration.between( faelligkeit.zeitpunktFaellig(), zeitpunktVersendet ) );
+                }
+                
+                _postausgangRepo.markiereAlsVersendet( ergebnis.zugestellt(), zeitpunktVersendet );
+                anzahlAbgeschlossen = _reminderSpeicher.markiereAlsVersendet( ergebnis.zugestellt(), zeitpunktVersendet );
+                
+                for ( ReminderEntity reminder : _reminderSpeicher.findWiederkehrendeByPostausgang( ergebnis.zugestellt() ) ) {
+                    
+                    reminder.setZeitpunktVersendet( zeitpunktVersendet );
+                    if ( !naechsteFaelligkeit( reminder, zeitpunktVersendet, wiederholungen ) ) {
+                        
+                        anzahlAbgeschlossen++;
+                    }
+                }
+            }
+            if ( !fehlgeschlagen.isEmpty() ) {
+                
+                for ( PostausgangEntity email : _postausgangRepo.findAllById( fehlgeschlagen.keySet() ) ) {
+                    
+                    fehlgeschlageneIds.addAll( verbucheFehlschlag( email, fehlgeschlagen.get( email.getId() ), 
+                                                                   zeitpunktVersendet, wiederholungen ) );
+                }
+            }
+            return new Verbuchung( reminderIds, anzahlAbgeschlossen, fehlgeschlageneIds );
+        });
+        
+        if ( verbuchung.anzahlAbgeschlossen() > 0 ) {
+            
+            _reminderZaehler.reminderVersendet( verbuchung.anzahlAbgeschlossen() );
+        }
+        if ( !verbuchung.reminderIds().isEmpty() ) {
+            
+            _eventPublisher.publishEvent( new ReminderVersendetEvent( verbuchung.reminderIds(), zeitpunktVersendet, 
+                                                                      ergebnis.zugestellt().size() ) );
+        }
+        if ( !verbuchung.fehlgeschlageneIds().isEmpty() ) {
+            
+            _eventPublisher.publishEvent( new ReminderFehlgeschlagenEvent( verbuchung.fehlgeschlageneIds(), zeitpunktVersendet ) );
+        }
+        wiederholungen.forEach( _eventPublisher::publishEvent );
+        
+        return ergebnis.zugestellt().size();
+    }
+    
+    
+    /**
+     * Plant für eine Email, deren Versand fehlgeschlagen ist, den nächsten Versuch ein, 
+     * oder markiert sie als endgültig fehlgeschlagen; in diesem Fall werden die einmaligen
+     * Reminder der Email als fehlgeschlagen markiert und für wiederkehrende Reminder wird
+     * die nächste Fälligkeit gesetzt (gibt es keine, dann sind auch sie fehlgeschlagen).
+     * 
+     * @param email Email aus dem Postausgang (im Persistence Context)
+     * 
+     * @param fehler Fehlerbeschreibung
+     * 
+     * @param jetzt Aktueller Zeitpunkt
+     * 
+     * @param wiederholungen Liste, in die Ereignisse für wiederkehrende Reminder geschrieben
+     *                       werden, deren Fälligkeit nach endgültigem Fehlschlag übersprungen wird
+     * 
+     * @return IDs der Reminder, die hierdurch als fehlgeschlagen markiert wurden; leer, 
+     *         wenn ein weiterer Versuch eingeplant wurde
+     */
+    List<Long> verbucheFehlschlag( PostausgangEntity             email, 
+                                   String                        fehler, 
+                                   LocalDateTime                 jetzt,
+                                   List<ReminderWiederholtEvent> wiederholungen ) {
+        
+        final int versuch = email.getAnzahlVersuche() + 1;
+        if ( versuch >= _maxVersuche ) {
+            
+            email.versuchFehlgeschlagen( fehler, null );
+            LOG.error( "Versand von Email {} nach {} Versuch(en) endgueltig fehlgeschlagen: {}", 
+                       email.getId(), versuch, fehler );
+            
+            final List<Long> postausgangIds     = List.of( email.getId() );
+            final List<Long> fehlgeschlageneIds = new ArrayList<>();
+            for ( ReminderFaelligkeit faelligkeit : _reminderSpeicher.findFaelligkeitenByPostausgang( postausgangIds ) ) {
+                
+                fehlgeschlageneIds.add( faelligkeit.id() );
+            }
+            
+            _reminderSpeicher.markiereAlsFehlgeschlagen( postausgangIds, jetzt );
+            for ( ReminderEntity reminder : _reminderSpeicher.findWiederkehrendeByPostausgang( postausgangIds ) ) {
+                
+                if ( reminder.naechsteFaelligkeitNachFehlschlag( jetzt ) ) {
+                    
+                    fehlgeschlageneIds.remove( reminder.getId() );
+                    wiederholungen.add( wiederholtEvent( reminder ) );
+                    
+                } else {
+                    
+                    LOG.info( "Wiederkehrender Reminder {} hat keine weitere Faelligkeit.", reminder.getId() );
+                }
+            }
+            return fehlgeschlageneIds;
+        }
+        
+        final LocalDateTime naechsterVersuch = jetzt.plusSeconds( berechneBackoffSekunden( versuch ) );
+        email.versuchFehlgeschlagen( fehler, naechsterVersuch );
+        LOG.warn( "Versand von Email {} fehlgeschlagen (Versuch {}), naechster Versuch um {}: {}", 
+                  email.getId(), versuch, naechsterVersuch, fehler );
+        
+        return List.of();
+    }
+    
+    
+    /**
+     * Setzt für einen wiederkehrenden Reminder die nächste Fälligkeit.
+     * 
+     * @param reminder Wiederkehrender Reminder (im Persistence Context)
+     * 
+     * @param jetzt Aktueller Zeitpunkt
+     * 
+     * @param wiederholungen Liste, in die bei weiterer Fälligkeit ein Ereignis geschrieben wird
+     * 
+     * @return {@code true} gdw. es eine weitere Fälligkeit gibt
+     */
+    private static boolean naechsteFaelligkeit( ReminderEntity                reminder, 
+                                                LocalDateTime                 jetzt,
+                                                List<ReminderWiederholtEvent> wiederholungen ) {
+        
+        if ( reminder.naechsteFaelligkeit( jetzt ) ) {
+            
+            wiederholungen.add( wiederholtEvent( reminder ) );
+            return true;
+        }
+        
+        LOG.info( "Wiederkehrender Reminder {} hat keine weitere Faelligkeit.", reminder.getId() );
+        return false;
+    }
+    
+    
+    private static ReminderWiederholtEvent wiederholtEvent( ReminderEntity reminder ) {
+        
+        return new ReminderWiederholtEvent( reminder.getId(), reminder.getZeitpunktFaelligkeit(),
+                                            reminder.getReminderText(), reminder.getWiederholung() );
+    }
+    
+    
+    /**
+     * Wartezeit nach dem übergebenen fehlgeschlagenen Versuch: Die Basis wird mit jedem
+     * Versuch verdoppelt, bis die Obergrenze erreicht ist.
+     * 
+     * @param versuch Nummer des fehlgeschlagenen Versuchs (ab 1)
+     * 
+     * @return Wartezeit in Sekunden
+     */
+    long berechneBackoffSekunden( int versuch ) {
+        
+        final int exponent = Math.min( versuch - 1, 30 );
+        
+        return Math.min( _backoffBasisSekunden << exponent, _backoffMaxSekunden );
+    }
+    
+    
+    /**
+     * Ergebnis der Verbuchung eines Chunks.
+     * 
+     * @param reminderIds IDs aller Reminder, deren Email zugestellt wurde
+     * 
+     * @param anzahlAbgeschlossen Anzahl dieser Reminder, die jetzt als versendet markiert 
+     *                            sind (also ohne weitere Fälligkeit)
+     * 
+     * @param fehlgeschlageneIds IDs der Reminder, deren Email endgültig fehlgeschlagen ist
+     */
+    private record Verbuchung( List<Long> reminderIds, int anzahlAbgeschlossen, List<Long> fehlgeschlageneIds ) {}
+    
+}
@@ -0,0 +1,257 @@
+package de.eldecker.spring.reminder.logik;
+
+import static java.time.LocalDateTime.now;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import de.eldecker.spring.reminder.db_jpa.PostausgangRepo;
+import de.eldecker.spring.reminder.db_jpa.ReminderArchivEntity;
+import de.eldecker.spring.reminder.db_jpa.ReminderArchivRepo;
+import de.eldecker.spring.reminder.db_jpa.ReminderSpeicher;
+import de.eldecker.spring.reminder.model.ArchivSeite;
+import de.eldecker.spring.reminder.model.ReminderArchiviertEvent;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+
+/**
+ * Bean-Klasse mit einem Hintergrund-Job, der versendete Reminder nach Ablauf der 
+ * Aufbewahrungsfrist ({@code de.eldecker.reminder.aufbewahrung_tage}) aus Tabelle
+ * {@code REMINDER} entfernt: Je nach {@link AufbewahrungsModus} werden sie ins Archiv
+ * (siehe {@link ReminderArchivEntity}) verschoben oder gelöscht. Die Tabelle 
+ * {@code REMINDER} bleibt so ungefähr so groß wie die Menge der offenen Reminder, so dass
+ * Listen, Zähler-Abgleich und Suche nach fälligen Remindern nicht mit der Anzahl der
+ * jemals versendeten Reminder wachsen.
+ * <br><br>
+ * 
+ * Der Job arbeitet in kleinen Batches ({@code de.eldecker.reminder.aufbewahrung_batch_groesse})
+ * mit jeweils einer eigenen kurzen Transaktion; weil nur schon versendete Reminder 
+ * betroffen sind, kommt er dem Versand nicht in die Quere. Danach werden auch die 
+ * versendeten Emails im Postausgang gelöscht, auf die kein Reminder mehr verweist;
+ * endgültig fehlgeschlagene Emails bleiben zur Analyse erhalten.
+ * <br><br>
+ * 
+ * Die Anzahl der entfernten Reminder wird in der Micrometer-Metrik 
+ * {@code reminder.aufbewahrung.entfernt} erfasst.
+ */
+@Component
+public class ReminderAufbewahrung {
+    
+    private static Logger LOG = LoggerFactory.getLogger( ReminderAufbewahrung.class );
+    
+    
+    /** Versendete Reminder werden so viele Tage nach dem Versand aus Tabelle {@code REMINDER} entfernt. */
+    @Value( "${de.eldecker.reminder.aufbewahrung_tage:30}" )
+    private int _aufbewahrungTage;
+    
+    /** Archivieren, Löschen oder Job ausgeschaltet. */
+    @Value( "${de.eldecker.reminder.aufbewahrung_modus:ARCHIVIEREN}" )
+    private AufbewahrungsModus _modus;
+    
+    /** Maximale Anzahl Reminder pro Transaktion. */
+    @Value( "${de.eldecker.reminder.aufbewahrung_batch_groesse:500}" )
+    private int _batchGroesse;
+    
+    /** Speicher für die Reminder (Tabelle oder Journal). */
+    private final ReminderSpeicher _reminderSpeicher;
+    
+    /** Repo-Bean für Zugriff auf Tabelle mit archivierten Remindern. */
+    private final ReminderArchivRepo _archivRepo;
+    
+    /** Repo-Bean für Zugriff auf Tabelle mit dem Postausgang. */
+    private final PostausgangRepo _postausgangRepo;
+    
+    /** Bean mit Zählern für versendete und noch nicht versendete Reminder. */
+    private final ReminderZaehler _reminderZaehler;
+    
+    /** Bean, um {@link ReminderArchiviertEvent} zu veröffentlichen. */
+    private final ApplicationEventPublisher _eventPublisher;
+    
+    /** Für eine Transaktion pro Batch. */
+    private final TransactionTemplate _transactionTemplate;
+    
+    /** Anzahl der archivierten Reminder. */
+    private final Counter _archiviertCounter;
+    
+    /** Anzahl der gelöschten Reminder. */
+    private final Counter _geloeschtCounter;
+    
+    
+    /**
+     * Konstruktor für Dependency Injection.
+     */
+    @Autowired
+    public ReminderAufbewahrung( ReminderSpeicher           reminderSpeicher,
+                                 ReminderArchivRepo         archivRepo,
+                                 PostausgangRepo            postausgangRepo,
+                                 ReminderZaehler            reminderZaehler,
+                                 ApplicationEventPublisher  eventPublisher,
+                                 PlatformTransactionManager transactionManager,
+                                 MeterRegistry              meterRegistry
+                               ) {
+        
+        _reminderSpeicher    = reminderSpeicher;
+        _archivRepo          = archivRepo;
+        _postausgangRepo     = postausgangRepo;
+        _reminderZaehler     = reminderZaehler;
+        _eventPublisher      = eventPublisher;
+        _transactionTemplate = new TransactionTemplate( transactionManager );
+        
+        _archiviertCounter = erzeugeCounter( meterRegistry, "archiviert" );
+        _geloeschtCounter  = erzeugeCounter( meterRegistry, "geloescht"  );
+    }
+    
+    
+    /**
+     * Erzeugt Zähler für die aus Tabelle {@code REMINDER} entfernten Reminder.
+     */
+    private static Counter erzeugeCounter( MeterRegistry meterRegistry, String aktion ) {
+        
+        return Counter.builder( "reminder.aufbewahrung.entfernt" )
+                      .description( "Anzahl versendeter Reminder, die nach Ablauf der Aufbewahrungsfrist entfernt wurden" )
+                      .tag( "aktion", aktion )
+                      .register( meterRegistry );
+    }
+    
+    
+    /**
+     * Entfernt alle versendeten Reminder, deren Versand länger als die Aufbewahrungsfrist
+     * zurückliegt, in Batches mit jeweils einer eigenen Transaktion.
+     * 
+     * @return Anzahl der archivierten bzw. gelöschten Reminder
+     */
+    @Scheduled( initialDelayString = "${de.eldecker.reminder.aufbewahrung_intervall_ms:3600000}",
+                fixedDelayString   = "${de.eldecker.reminder.aufbewahrung_intervall_ms:3600000}" )
+    public int aufraeumen() {
+        
+        if ( _modus == AufbewahrungsModus.AUS ) {
+            
+            return 0;
+        }
+        
+        final boolean       loeschen = _modus == AufbewahrungsModus.LOESCHEN;
+        final LocalDateTime grenze   = now().minusDays( _aufbewahrungTage );
+        final Limit         limit    = Limit.of( _batchGroesse );
+        
+        int reminderZaehler = 0;
+        while ( true ) {
+            
+            final int anzahl = _transactionTemplate.execute( status -> {
+                
+                final List<Long> ids = _reminderSpeicher.findVersendeteIdsBis( grenze, limit );
+                if ( ids.isEmpty() ) {
+                    
+                    return 0;
+                }
+                if ( !loeschen ) {
+                    
+                    _reminderSpeicher.archiviere( ids, now() );
+                }
+                _reminderSpeicher.deleteAllByIdInBatch( ids );
+                
+                return ids.size();
+            });
+            
+            if ( anzahl > 0 ) {
+                
+                reminderZaehler += anzahl;
+                
+                _reminderZaehler.reminderEntfernt( anzahl );
+                ( loeschen ? _geloeschtCounter : _archiviertCounter ).increment( anzahl );
+                _eventPublisher.publishEvent( new ReminderArchiviertEvent( anzahl, loeschen ) );
+            }
+            
+            if ( anzahl < _batchGroesse ) {
+                
+                break;
+            }
+        }
+        
+        final int emailZaehler = loeschePostausgang( grenze, limit );
+        
+        if ( reminderZaehler > 0 || emailZaehler > 0 ) {
+            
+            LOG.info( "Aufbewahrung: {} Reminder mit Versand vor {} {}, {} Email(s) aus Postausgang geloescht.",
+                      reminderZaehler, grenze, loeschen ? "geloescht" : "archiviert", emailZaehler );
+        }
+        
+        return reminderZaehler;
+    }
+    
+    
+    /**
+     * Löscht die versendeten Emails im Postausgang, deren Versand länger als die 
+     * Aufbewahrungsfrist zurückliegt und auf die kein Reminder mehr verweist.
+     * 
+     * @param grenze Ende der Aufbewahrungsfrist
+     * 
+     * @param limit Batch-Größe
+     * 
+     * @return Anzahl der gelöschten Emails
+     */
+    private int loeschePostausgang( LocalDateTime grenze, Limit limit ) {
+        
+        int emailZaehler = 0;
+        while ( true ) {
+            
+            final int anzahl = _transactionTemplate.execute( status -> {
+                
+                final List<Long> ids = _postausgangRepo.findVersendeteOhneReminderIdsBis( grenze, limit );
+                _postausgangRepo.deleteAllByIdInBatch( ids );
+                
+                return ids.size();
+            });
+            
+            emailZaehler += anzahl;
+            if ( anzahl < _batchGroesse ) {
+                
+                return emailZaehler;
+            }
+        }
+    }
+    
+    
+    /**
+     * Liefert eine Seite des Archivs für die Anzeige.
+     * 
+     * @param vorZeitpunkt Versandzeitpunkt des letzten Reminders der vorherigen Seite,
+     *                     {@code null} für erste Seite
+     * 
+     * @param vorId ID des letzten Reminders der vorherigen Seite, {@code null} für erste Seite
+     * 
+     * @param seitenGroesse Maximale Anzahl Reminder auf der Seite
+     * 
+     * @return Seite mit archivierten Remindern, neueste zuerst
+     */
+    public ArchivSeite getArchivSeite( LocalDateTime vorZeitpunkt, 
+                                       Long          vorId, 
+                                       int           seitenGroesse ) {
+        
+        // ein Element mehr lesen, um festzustellen, ob es eine weitere Seite gibt
+        final Limit limit = Limit.of( seitenGroesse + 1 );
+        
+        final List<ReminderArchivEntity> liste = 
+                vorZeitpunkt == null || vorId == null 
+                ? _archivRepo.findSeite( limit )
+                : _archivRepo.findSeiteNach( vorZeitpunkt, vorId, limit );
+        
+        final boolean hatWeitere = liste.size() > seitenGroesse;
+        
+        return new ArchivSeite( hatWeitere ? liste.subList( 0, seitenGroesse ) : liste, 
+                                hatWeitere );
+    }
+    
+}
@@ -0,0 +1,343 @@
+package de.eldecker.spring.reminder.logik;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.time.LocalDateTime.now;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import de.eldecker.spring.reminder.db_jpa.ReminderCache;
+import de.eldecker.spring.reminder.db_jpa.ReminderEntity;
+import de.eldecker.spring.reminder.db_jpa.ReminderSpeicher;
+import de.eldecker.spring.reminder.model.ImportErgebnis;
+import de.eldecker.spring.reminder.model.ImportFehler;
+import de.eldecker.spring.reminder.model.ReminderException;
+import de.eldecker.spring.reminder.model.ReminderImportZeile;
+import de.eldecker.spring.reminder.model.ReminderImportiertEvent;
+import de.eldecker.spring.reminder.model.Wiederholung;
+
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.json.JsonMapper;
+
+
+/**
+ * Bean-Klasse für den Import vieler Reminder aus einer CSV- oder NDJSON-Datei.
+ * <br><br>
+ * 
+ * Die Datei wird zeilenweise gelesen, also nie komplett im Speicher gehalten. Jede Zeile
+ * wird mit denselben Regeln wie beim Anlegen eines einzelnen Reminders geprüft (siehe
+ * {@link ReminderPruefer}); fehlerhafte Zeilen werden übersprungen und im Ergebnis
+ * gemeldet. Die gültigen Zeilen werden in Batches mit {@link ReminderSpeicher#fuegeEin(List)}
+ * eingefügt (bei Tabelle {@code REMINDER} nicht über JPA, sondern per JDBC-Batch), jeder
+ * Batch in einer eigenen Transaktion.
+ */
+@Service
+public class ReminderImporter {
+    
+    private static Logger LOG = LoggerFactory.getLogger( ReminderImporter.class );
+    
+    
+    /** Trennzeichen für CSV-Dateien. */
+    private static final String CSV_TRENNER = ";";
+    
+    /** Anzahl Reminder, die mit einem Batch in einer Transaktion eingefügt werden. */
+    @Value( "${de.eldecker.reminder.import_batch_groesse:5000}" )
+    private int _batchGroesse;
+    
+    /** Maximale Anzahl der Fehler pro Zeile, die im Ergebnis zurückgeliefert werden. */
+    @Value( "${de.eldecker.reminder.import_max_fehler:1000}" )
+    private int _maxFehler;
+    
+    /** Speicher für die Reminder (Tabelle oder Journal). */
+    private final ReminderSpeicher _reminderSpeicher;
+    
+    /** Für eine Transaktion pro Batch. */
+    private final TransactionTemplate _transactionTemplate;
+    
+    /** Für Parsen der Zeilen im NDJSON-Format. */
+    private final JsonMapper _jsonMapper;
+    
+    /** Bean mit Zählern für versendete und noch nicht versendete Reminder. */
+    private final ReminderZaehler _reminderZaehler;
+    
+    /** Bean mit Geschäftslogik, für Schreiben der Anzahl Reminder in InfluxDB. */
+    private final ReminderService _reminderService;
+    
+    /** Bean, um {@link ReminderImportiertEvent} zu veröffentlichen. */
+    private final ApplicationEventPublisher _eventPublisher;
+    
+    /** Bean für Query-Cache, der nach dem Einfügen mit JDBC ungültig ist. */
+    private final ReminderCache _reminderCache;
+    
+    
+    /**
+     * Konstruktor für Dependency Injection.
+     */
+    @Autowired
+    public ReminderImporter( ReminderSpeicher           reminderSpeicher,
+                             PlatformTransactionManager transactionManager,
+                             JsonMapper                 jsonMapper,
+                             ReminderZaehler            reminderZaehler,
+                             ReminderService            reminderService,
+                             ApplicationEventPublisher  eventPublisher,
+                             ReminderCache              reminderCache
+                           ) {
+        
+        _reminderSpeicher    = reminderSpeicher;
+        _transactionTemplate = new TransactionTemplate( transactionManager );
+        _jsonMapper          = jsonMapper;
+        _reminderZaehler     = reminderZaehler;
+        _reminderService     = reminderService;
+        _eventPublisher      = eventPublisher;
+        _reminderCache       = reminderCache;
+    }
+    
+    
+    /**
+     * Importiert Reminder aus CSV-Datei mit einer Zeile pro Reminder im Format
+     * <pre>
+     * TT;MM;JJJJ;HH;MM;Text
+     * </pre>
+     * Der Text darf weitere Semikolons enthalten. Leere Zeilen und Zeilen, die mit 
+     * {@code #} beginnen (z.B. eine Kopfzeile), werden ignoriert.
+     * 
+     * @param eingabe CSV-Datei (UTF-8)
+     * 
+     * @return Ergebnis mit Anzahl importierter Reminder und Fehlern pro Zeile
+     * 
+     * @throws IOException Fehler beim Lesen der Eingabe
+     */
+    public ImportErgebnis importiereCsv( InputStream eingabe ) throws IOException {
+        
+        return importiere( eingabe, this::parseCsvZeile );
+    }
+    
+    
+    /**
+     * Importiert Reminder aus NDJSON-Datei mit einem JSON-Objekt pro Zeile, z.B.
+     * <pre>
+     * {"tag":24,"monat":12,"jahr":2026,"stunde":8,"minute":0,"text":"Frohe Weihnachten!"}
+     * {"tag":1,"monat":1,"jahr":2027,"stunde":7,"minute":0,"text":"Ablesen","wiederholung":"MONATLICH"}
+     * </pre>
+     * Leere Zeilen werden ignoriert. Nur in diesem Format können wiederkehrende Reminder
+     * importiert werden (Attribute {@code wiederholung} und {@code cron}).
+     * 
+     * @param eingabe NDJSON-Datei (UTF-8)
+     * 
+     * @return Ergebnis mit Anzahl importierter Reminder und Fehlern pro Zeile
+     * 
+     * @throws IOException Fehler beim Lesen der Eingabe
+     */
+    public ImportErgebnis importiereNdjson( InputStream eingabe ) throws IOException {
+        
+        return importiere( eingabe, this::parseJsonZeile );
+    }
+    
+    
+    /**
+     * Liest die Eingabe zeilenweise, prüft die Zeilen und fügt die gültigen Zeilen in
+     * Batches ein.
+     * 
+     * @param eingabe Import-Datei (UTF-8)
+     * 
+     * @param parser Parser für das Format der Import-Datei
+     * 
+     * @return Ergebnis des Imports
+     * 
+     * @throws IOException Fehler beim Lesen der Eingabe
+     */
+    private ImportErgebnis importiere( InputStream eingabe, ZeilenParser parser ) throws IOException {
+        
+        final long          startMillis = System.currentTimeMillis();
+        final LocalDateTime jetzt       = now();
+        
+        final List<ReminderEntity> batch      = new ArrayList<>( _batchGroesse );
+        final List<ImportFehler>   fehlerList = new ArrayList<>();
+        
+        long          zeilenNr             = 0;
+        int           anzahlImportiert     = 0;
+        int           anzahlFehler         = 0;
+        LocalDateTime fruehesteFaelligkeit = null;
+        
+        try ( BufferedReader reader = new BufferedReader( new InputStreamReader( eingabe, UTF_8 ) ) ) {
+            
+            String zeile;
+            while ( ( zeile = reader.readLine() ) != null ) {
+                
+                zeilenNr++;
+                if ( zeile.isBlank() || zeile.startsWith( "#" ) ) {
+                    
+                    continue;
+                }
+                
+                try {
+                    
+                    final ReminderImportZeile importZeile = parser.parse( zeile );
+                    
+                    final String        text    = ReminderPruefer.pruefeText( importZeile.text() );
+                    final LocalDateTime zeitpunkt = ReminderPruefer.pruefeZeitpunkt( importZeile.tag(), 
+                                                                                     importZeile.monat(), 
+                                                                                     importZeile.jahr(), 
+                                                                                     importZeile.stunde(), 
+                                                                                     importZeile.minute(), 
+                                                                                     jetzt );
+                    
+                    final Wiederholung  wiederholung = importZeile.wiederholung();
+                    final LocalDateTime faellig      = ReminderPruefer.pruefeWiederholung( wiederholung, 
+                                                                                           importZeile.cron(), 
+                                                                                           zeitpunkt );
+                    
+                    final ReminderEntity reminder = 
+                            new ReminderEntity( text, faellig, wiederholung,
+                                                wiederholung == Wiederholung.CRON ? importZeile.cron().trim() : null );
+                    reminder.setZeitpunktAngelegt( jetzt );
+                    batch.add( reminder );
+                    
+                    if ( fruehesteFaelligkeit == null || faellig.isBefore( fruehesteFaelligkeit ) ) {
+                        
+                        fruehesteFaelligkeit = faellig;
+                    }
+                }
+                catch ( ReminderException ex ) {
+                    
+                    anzahlFehler++;
+                    if ( fehlerList.size() < _maxFehler ) {
+                        
+                        fehlerList.add( new ImportFehler( zeilenNr, ex.getMessage() ) );
+                    }
+                }
+                
+                if ( batch.size() >= _batchGroesse ) {
+                    
+                    anzahlImportiert += schreibeBatch( batch );
+                    batch.clear();
+                }
+            }
+        }
+        finally {
+            
+            if ( !batch.isEmpty() ) {
+                
+                anzahlImportiert += schreibeBatch( batch );
+            }
+            
+            if ( anzahlImportiert > 0 ) {
+                
+                _reminderCache.abfragenVerwerfen();
+                _reminderZaehler.reminderAngelegt( anzahlImportiert );
+                _reminderService.erfasseAnzahlReminderInInfluxDB();
+                _eventPublisher.publishEvent( new ReminderImportiertEvent( anzahlImportiert, fruehesteFaelligkeit ) );
+            }
+        }
+        
+        LOG.info( "Import beendet: {} Zeile(n) gelesen, {} Reminder importiert, {} fehlerhafte Zeile(n), {} ms",
+                  zeilenNr, anzahlImportiert, anzahlFehler, System.currentTimeMillis() - startMillis );
+        
+        return new ImportErgebnis( zeilenNr, anzahlImportiert, anzahlFehler, fehlerList );
+    }
+    
+    
+    /**
+     * Fügt einen Batch in einer Transaktion ein.
+     * 
+     * @param batch Neue Reminder
+     * 
+     * @return Anzahl eingefügter Reminder
+     */
+    private int schreibeBatch( List<ReminderEntity> batch ) {
+        
+        final int anzahl = _transactionTemplate.execute( status -> _reminderSpeicher.fuegeEin( batch ) );
+        
+        LOG.debug( "Batch mit {} Reminder(n) importiert.", anzahl );
+        
+        return anzahl;
+    }
+    
+    
+    /**
+     * Zerlegt eine CSV-Zeile {@code TT;MM;JJJJ;HH;MM;Text}.
+     */
+    private ReminderImportZeile parseCsvZeile( String zeile ) throws ReminderException {
+        
+        final String[] felder = zeile.split( CSV_TRENNER, 6 );
+        if ( felder.length != 6 ) {
+            
+            throw new ReminderException( "Zeile hat nicht das Format TT;MM;JJJJ;HH;MM;Text" );
+        }
+        
+        return new ReminderImportZeile( parseZahl( felder[ 0 ], "Tag"    ),
+                                        parseZahl( felder[ 1 ], "Monat"  ),
+                                        parseZahl( felder[ 2 ], "Jahr"   ),
+                                        parseZahl( felder[ 3 ], "Stunde" ),
+                                        parseZahl( felder[ 4 ], "Minute" ),
+                                        felder[ 5 ],
+                                        null,
+                                        null );
+    }
+    
+    
+    /**
+     * Parst eine Zahl aus einem CSV-Feld.
+     */
+    private static int parseZahl( String feld, String feldName ) throws ReminderException {
+        
+        try {
+            
+            return Integer.parseInt( feld.trim() );
+        }
+        catch ( NumberFormatException ex ) {
+            
+            throw new ReminderException( "Ungültige Zahl für " + feldName + ": \"" + feld + "\"" );
+        }
+    }
+    
+    
+    /**
+     * Parst ein JSON-Objekt aus einer NDJSON-Zeile; eine Zeile mit dem JSON-Wert
+     * {@code null} ist wie ungültiges JSON ein Fehler für diese Zeile.
+     */
+    private ReminderImportZeile parseJsonZeile( String zeile ) throws ReminderException {
+        
+        final ReminderImportZeile importZeile;
+        try {
+            
+            importZeile = _jsonMapper.readValue( zeile, ReminderImportZeile.class );
+        }
+        catch ( JacksonException ex ) {
+            
+            throw new ReminderException( "Ungültiges JSON: " + ex.getOriginalMessage() );
+        }
+        
+        if ( importZeile == null ) {
+            
+            throw new ReminderException( "Zeile enthält kein JSON-Objekt." );
+        }
+        
+        return importZeile;
+    }
+    
+    
+    /**
+     * Parser für eine Zeile der Import-Datei.
+     */
+    @FunctionalInterface
+    private interface ZeilenParser {
+        
+        ReminderImportZeile parse( String zeile ) throws ReminderException;
+    }
+
+}
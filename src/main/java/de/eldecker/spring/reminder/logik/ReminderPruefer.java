@@ -0,0 +1,145 @@
+package de.eldecker.spring.reminder.logik;
+
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+
+import de.eldecker.spring.reminder.model.ReminderException;
+import de.eldecker.spring.reminder.model.Wiederholung;
+
+
+/**
+ * Prüfregeln für neue Reminder; diese werden sowohl beim Anlegen eines einzelnen 
+ * Reminders (siehe {@link ReminderService#reminderAnlegen(int, int, int, int, int, String)})
+ * als auch beim Import (siehe {@link ReminderImporter}) angewendet.
+ */
+final class ReminderPruefer {
+    
+    /** Statische Hilfsklasse, keine Instanzen. */
+    private ReminderPruefer() {}
+    
+    
+    /**
+     * Prüft den Text für die Betreffzeile der Reminder-Email.
+     * 
+     * @param reminderText Text, darf Leerzeichen am Anfang und Ende enthalten
+     * 
+     * @return Text ohne Leerzeichen am Anfang und Ende
+     * 
+     * @throws ReminderException Text ist leer oder {@code null}
+     */
+    static String pruefeText( String reminderText ) throws ReminderException {
+        
+        if ( reminderText == null || reminderText.isBlank() ) {
+            
+            throw new ReminderException( "Leerer Reminder-Text" );
+        }
+        
+        return reminderText.trim();
+    }
+    
+    
+    /**
+     * Prüft den Fälligkeitszeitpunkt.
+     * 
+     * @param tag Tag von Fälligkeitsdatum (1..31)
+     * 
+     * @param monat Montag von Fälligkeitsdatum (1..12)
+     * 
+     * @param jahr Vierstelliges Jahr von Fälligkeitsdatum
+     * 
+     * @param stunde Stunde von Fälligkeitszeitpunkt (0..23)
+     * 
+     * @param minute Minute von Fälligkeitszeitpunkt (0..59)
+     * 
+     * @param jetzt Aktueller Zeitpunkt, der Fälligkeitszeitpunkt darf nicht davor liegen
+     * 
+     * @return Fälligkeitszeitpunkt
+     * 
+     * @throws ReminderException Ungültiger Fälligkeitzeitpunkt oder Zeitpunkt in Vergangenheit
+     */
+    static LocalDateTime pruefeZeitpunkt( int tag, int monat, int jahr,
+                                          int stunde, int minute,
+                                          LocalDateTime jetzt ) 
+                            throws ReminderException {
+        
+        final LocalDateTime faelligkeitsZeitpunkt;
+        try {
+            
+            faelligkeitsZeitpunkt = LocalDateTime.of( jahr, monat, tag,                                     
+                                                      stunde, minute );
+        } 
+        catch ( DateTimeException ex ) {
+            
+            final String zeitpunkt = String.format( "%d.%d.%d, %d:%d Uhr",                      
+                                                    tag, monat, jahr, 
+                                                    stunde, minute );
+            
+            throw new ReminderException( "Ungültiger Fälligkeitszeitpunkt: " + zeitpunkt );
+        }
+        
+        if ( faelligkeitsZeitpunkt.isBefore( jetzt ) ) {
+            
+            throw new ReminderException( "Der angegebene Zeitpunkt liegt in der Vergangenheit." );
+        }
+        
+        return faelligkeitsZeitpunkt;
+    }
+    
+    
+    /**
+     * Prüft die Regel für einen wiederkehrenden Reminder und berechnet die erste Fälligkeit.
+     * 
+     * @param wiederholung Regel, {@code null} für einmaligen Reminder
+     * 
+     * @param cronAusdruck Cron-Ausdruck, muss genau für {@link Wiederholung#CRON} angegeben sein
+     * 
+     * @param faelligkeitsZeitpunkt Geprüfter Fälligkeitszeitpunkt
+     * 
+     * @return Erste Fälligkeit: für {@link Wiederholung#CRON} der erste Zeitpunkt des 
+     *         Cron-Ausdrucks ab {@code faelligkeitsZeitpunkt}, sonst {@code faelligkeitsZeitpunkt}
+     * 
+     * @throws ReminderException Fehlender oder ungültiger Cron-Ausdruck, oder Cron-Ausdruck
+     *                           ohne Fälligkeit
+     */
+    static LocalDateTime pruefeWiederholung( Wiederholung  wiederholung, 
+                                             String        cronAusdruck,
+                                             LocalDateTime faelligkeitsZeitpunkt ) 
+                            throws ReminderException {
+        
+        final boolean mitCron = cronAusdruck != null && !cronAusdruck.isBlank();
+        
+        if ( wiederholung != Wiederholung.CRON ) {
+            
+            if ( mitCron ) {
+                
+                throw new ReminderException( "Cron-Ausdruck nur für Wiederholung " + Wiederholung.CRON + " erlaubt." );
+            }
+            return faelligkeitsZeitpunkt;
+        }
+        
+        if ( !mitCron ) {
+            
+            throw new ReminderException( "Für Wiederholung " + Wiederholung.CRON + " fehlt der Cron-Ausdruck." );
+        }
+        
+        final LocalDateTime ersteFaelligkeit;
+        try {
+            
+            ersteFaelligkeit = Wiederholung.CRON.naechsterZeitpunkt( null, 
+                                                                     cronAusdruck.trim(), 
+                                                                     faelligkeitsZeitpunkt.minusSeconds( 1 ) );
+        }
+        catch ( IllegalArgumentException ex ) {
+            
+            throw new ReminderException( "Ungültiger Cron-Ausdruck \"" + cronAusdruck + "\": " + ex.getMessage() );
+        }
+        
+        if ( ersteFaelligkeit == null ) {
+            
+            throw new ReminderException( "Cron-Ausdruck \"" + cronAusdruck + "\" hat keine Fälligkeit." );
+        }
+        
+        return ersteFaelligkeit;
+    }
+    
+}
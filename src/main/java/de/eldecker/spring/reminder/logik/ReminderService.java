@@ -1,27 +1,39 @@
 package de.eldecker.spring.reminder.logik;
 
-import static de.eldecker.spring.reminder.db_jpa.ReminderRepo.buildSpecFuerReminderZumVersenden;
 import static java.time.LocalDateTime.now;
-import static org.springframework.data.domain.Sort.Direction.ASC;
 
-import java.time.DateTimeException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Sort;
-import org.springframework.data.jpa.domain.Specification;
-import org.springframework.scheduling.annotation.Scheduled; // Added import
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import de.eldecker.spring.reminder.EmailReminderApplication;
 import de.eldecker.spring.reminder.db_influx.InfluxDB;
+import de.eldecker.spring.reminder.db_jpa.FaelligerReminder;
+import de.eldecker.spring.reminder.db_jpa.PostausgangEntity;
+import de.eldecker.spring.reminder.db_jpa.PostausgangRepo;
+import de.eldecker.spring.reminder.db_jpa.ReminderAnzeige;
 import de.eldecker.spring.reminder.db_jpa.ReminderEntity;
-import de.eldecker.spring.reminder.db_jpa.ReminderRepo;
-import de.eldecker.spring.reminder.email.EmailSender;
+import de.eldecker.spring.reminder.db_jpa.ReminderSpeicher;
+import de.eldecker.spring.reminder.model.ReminderAngelegtEvent;
 import de.eldecker.spring.reminder.model.ReminderException;
+import de.eldecker.spring.reminder.model.ReminderSeite;
+import de.eldecker.spring.reminder.model.Wiederholung;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 
 
 /**
@@ -37,31 +49,96 @@ public class ReminderService {
     private static Logger LOG = LoggerFactory.getLogger( ReminderService.class );
     
     
-    /** Sortierobjekt, um Reminder-Liste nach Fälligkeit aufsteigend zu sortieren. */
-    private final Sort _sortByZeitpunktFaelligAsc = Sort.by( ASC, "_zeitpunktFaellig" );    
+    /** Maximale Anzahl fälliger Reminder, die in einem Chunk gelesen und versendet werden. */
+    @Value( "${de.eldecker.reminder.versand_chunk_groesse:100}" )
+    private int _chunkGroesse;
+    
+    /** 
+     * Name dieser Instanz der Anwendung für die Beanspruchung von Remindern; ohne 
+     * Konfiguration wird eine zufällige UUID verwendet.
+     */
+    @Value( "${de.eldecker.reminder.instanz_id:#{T(java.util.UUID).randomUUID().toString()}}" )
+    private String _instanzId;
+    
+    /** 
+     * Dauer der Beanspruchung eines Chunks in Sekunden; muss deutlich länger sein als
+     * der Versand eines Chunks dauert.
+     */
+    @Value( "${de.eldecker.reminder.beanspruchung_sekunden:300}" )
+    private int _beanspruchungSekunden;
+    
+    /** 
+     * Sammel-Email (Digest): Fällige Reminder, deren Fälligkeitszeitpunkte innerhalb von so
+     * vielen Minuten liegen, werden mit einer Email versendet; {@code 0} schaltet die 
+     * Sammel-Emails aus (eine Email pro Reminder).
+     */
+    @Value( "${de.eldecker.reminder.digest_fenster_minuten:0}" )
+    private int _digestFensterMinuten;
+    
+    /** Maximale Anzahl Reminder in einer Sammel-Email. */
+    @Value( "${de.eldecker.reminder.digest_max_reminder:50}" )
+    private int _digestMaxReminder;
 
-    /** Repo-Bean für Zugriff auf Tabelle mit Remindern. */
-    private ReminderRepo _reminderRepo;
+    /** Speicher für die Reminder (Tabelle oder Journal). */
+    private ReminderSpeicher _reminderSpeicher;
+    
+    /** Repo-Bean für Zugriff auf Tabelle mit dem Postausgang. */
+    private PostausgangRepo _postausgangRepo;
+    
+    /** Bean, um die Emails aus dem Postausgang zu versenden. */
+    private PostausgangVersand _postausgangVersand;
     
-    /** Bean, um Emails zu versenden. */
-    private EmailSender _emailSender;
+    /** Bean, die den Inhalt der Emails (im Voraus) erzeugt. */
+    private EmailVorbereitung _emailVorbereitung;
+    
+    /** Für eine Transaktion pro Chunk bei der Übernahme in den Postausgang. */
+    private TransactionTemplate _transactionTemplate;
     
     /** Bean für Zugriff auf InfluxDB-Instanz. */
     private InfluxDB _influxDB;
     
+    /** Bean, um {@link ReminderAngelegtEvent} zu veröffentlichen. */
+    private ApplicationEventPublisher _eventPublisher;
+    
+    /** Bean mit Zählern für versendete und noch nicht versendete Reminder. */
+    private ReminderZaehler _reminderZaehler;
+    
+    /** Für Micrometer-Metriken. */
+    private MeterRegistry _meterRegistry;
+    
+    /** Laufzeit von {@link #versendeEmails()}. */
+    private Timer _versandLaufTimer;
+    
     
     /**
      * Konstruktor für Dependency Injection.
      */    
     @Autowired
-    public ReminderService( ReminderRepo reminderRepo,
-                            EmailSender  emailSender,
-                            InfluxDB     influxDB
+    public ReminderService( ReminderSpeicher           reminderSpeicher,
+                            PostausgangRepo            postausgangRepo,
+                            PostausgangVersand         postausgangVersand,
+                            EmailVorbereitung          emailVorbereitung,
+                            PlatformTransactionManager transactionManager,
+                            InfluxDB                   influxDB,
+                            ApplicationEventPublisher  eventPublisher,
+                            ReminderZaehler            reminderZaehler,
+                            MeterRegistry              meterRegistry
                           ) {
        
-        _reminderRepo = reminderRepo;
-        _emailSender  = emailSender;
-        _influxDB     = influxDB;
+        _reminderSpeicher    = reminderSpeicher;
+        _postausgangRepo     = postausgangRepo;
+        _postausgangVersand  = postausgangVersand;
+        _emailVorbereitung   = emailVorbereitung;
+        _transactionTemplate = new TransactionTemplate( transactionManager );
+        _influxDB            = influxDB;
+        _eventPublisher      = eventPublisher;
+        _reminderZaehler     = reminderZaehler;
+        _meterRegistry       = meterRegistry;
+        
+        _versandLaufTimer = Timer.builder( "reminder.versand.lauf" )
+                                 .description( "Laufzeit eines Versand-Laufs (Übernahme in Postausgang und Versand)" )
+                                 .publishPercentiles( 0.5, 0.95, 0.99 )
+                                 .register( meterRegistry );
     }
     
     
@@ -91,52 +168,79 @@ public class ReminderService {
                                  int stunde, int minute,
                                  String reminderText )
                     throws ReminderException {
+        
+        return reminderAnlegen( tag, monat, jahr, stunde, minute, reminderText, null, null );
+    }
+    
+    
+    /**
+     * Neuen (evtl. wiederkehrenden) Reminder einplanen.
+     * 
+     * @param tag Tag von Fälligkeitsdatum (1..31)
+     * 
+     * @param monat Montag von Fälligkeitsdatum (1..12)
+     * 
+     * @param jahr Vierstelliges Jahr von Fälligkeitsdatum, 
+     *             darf nicht in Vergangenheit liegen (2025..)
+     * 
+     * @param stunde Stunde von (erstem) Fälligkeitszeitpunkt (0..23)
+     * 
+     * @param minute Minute von (erstem) Fälligkeitszeitpunkt (0..59)
+     * 
+     * @param Text für Betreffzeile der Reminder-Email
+     * 
+     * @param wiederholung Regel für Wiederholung, {@code null} für einmaligen Reminder
+     * 
+     * @param cronAusdruck Cron-Ausdruck für {@link Wiederholung#CRON}, sonst {@code null};
+     *                     die erste Fälligkeit ist dann der erste Zeitpunkt des Cron-Ausdrucks
+     *                     ab dem angegebenen Datum
+     * 
+     * @return ID von neu angelegtem Reminder
+     * 
+     * @throws ReminderException Ungültiger Fälligkeitzeitpunkt, leerer {@code reminderText} 
+     *                           oder ungültiger Cron-Ausdruck
+     */
+    public long reminderAnlegen( int tag, int monat, int jahr,
+                                 int stunde, int minute,
+                                 String reminderText,
+                                 Wiederholung wiederholung, String cronAusdruck )
+                    throws ReminderException {
 
-        reminderText = reminderText.trim();        
-        if ( reminderText.isEmpty() ) {
-            
-            throw new ReminderException( "Leerer Reminder-Text" );
-        }
+        reminderText = ReminderPruefer.pruefeText( reminderText );
         
-        LocalDateTime faelligkeitsZeitpunkt = null;
+        final LocalDateTime faelligkeitsZeitpunkt = 
+                ReminderPruefer.pruefeWiederholung( 
+                        wiederholung, 
+                        cronAusdruck,
+                        ReminderPruefer.pruefeZeitpunkt( tag, monat, jahr, stunde, minute, now() ) );
         
-        try {
-            
-            faelligkeitsZeitpunkt = LocalDateTime.of( jahr, monat, tag,                                     
-                                                      stunde, minute );                                                          
-            final LocalDateTime now = now();
-            if ( faelligkeitsZeitpunkt.isBefore( now ) ) {
-                
-                throw new ReminderException( "Der angegebene Zeitpunkt liegt in der Vergangenheit." );
-            }
-            
-        } catch ( DateTimeException ex ) {
-            
-            final String zeitpunkt = String.format( "%d.%d.%d, %d:%d Uhr",                      
-                                                    tag, monat, jahr, 
-                                                    stunde, minute );
-            
-            throw new ReminderException( "Ungültiger Fälligkeitszeitpunkt: " + zeitpunkt );
-        }
+        final String cron = wiederholung == Wiederholung.CRON ? cronAusdruck.trim() : null;
         
-        final ReminderEntity reminderEntity = new ReminderEntity( reminderText, faelligkeitsZeitpunkt );
-        _reminderRepo.save( reminderEntity );
+        final ReminderEntity reminderEntity = 
+                new ReminderEntity( reminderText, faelligkeitsZeitpunkt, wiederholung, cron );
+        _reminderSpeicher.save( reminderEntity );
+        _reminderZaehler.reminderAngelegt( 1 );
         
         LOG.info( "Neuer Reminder mit Faelligkeitszeitpunkt {} angelegt.", faelligkeitsZeitpunkt );
         erfasseAnzahlReminderInInfluxDB();
         
+        _eventPublisher.publishEvent( 
+                new ReminderAngelegtEvent( reminderEntity.getId(), faelligkeitsZeitpunkt, reminderText, wiederholung ) );
+        
         return reminderEntity.getId();
     }
     
     
     /**
-     * Gibt alle Reminder (auch solche, für die schon die Email versendet wurde), zurück.
+     * Gibt einen einzelnen Reminder zurück.
      * 
-     * @return Aller Reminder, aufsteigend sortiert nach Fälligkeitszeitpunkt
+     * @param id ID des Reminders
+     * 
+     * @return Optional mit Reminder, leer wenn es keinen Reminder mit dieser ID gibt
      */
-    public List<ReminderEntity> getAlleReminderSortiert() {
+    public Optional<ReminderEntity> getReminder( long id ) {
         
-        return _reminderRepo.findAll( _sortByZeitpunktFaelligAsc );
+        return _reminderSpeicher.findById( id );
     }
     
     
@@ -147,66 +251,275 @@ public class ReminderService {
      */
     public List<ReminderEntity> getAlleReminderNochNichtVersendet() {
         
-        return _reminderRepo.findAll( _sortByZeitpunktFaelligAsc );
+        return _reminderSpeicher.findNochNichtVersendet();
+    }
+    
+    
+    /**
+     * Gibt eine Seite der Reminder-Liste zurück (Keyset-Pagination).
+     * 
+     * @param schonVersendet {@code true} für Seite mit versendeten Remindern, 
+     *                       {@code false} für Seite mit noch offenen Remindern
+     * 
+     * @param nachZeitpunkt Fälligkeitszeitpunkt des letzten Reminders der vorherigen Seite,
+     *                      {@code null} für erste Seite
+     * 
+     * @param nachId ID des letzten Reminders der vorherigen Seite, 
+     *               {@code null} für erste Seite
+     * 
+     * @param seitenGroesse Maximale Anzahl Reminder auf der Seite
+     * 
+     * @return Seite mit Remindern, aufsteigend sortiert nach Fälligkeitszeitpunkt und ID
+     */
+    public ReminderSeite getReminderSeite( boolean       schonVersendet, 
+                                           LocalDateTime nachZeitpunkt, 
+                                           Long          nachId, 
+                                           int           seitenGroesse ) {
+        
+        // ein Element mehr lesen, um festzustellen, ob es eine weitere Seite gibt
+        final Limit limit = Limit.of( seitenGroesse + 1 );
+        
+        final List<ReminderAnzeige> liste = 
+                nachZeitpunkt == null || nachId == null 
+                ? _reminderSpeicher.findSeite(     schonVersendet, limit )
+                : _reminderSpeicher.findSeiteNach( schonVersendet, nachZeitpunkt, nachId, limit );
+        
+        final boolean hatWeitere = liste.size() > seitenGroesse;
+        
+        return new ReminderSeite( hatWeitere ? liste.subList( 0, seitenGroesse ) : liste, 
+                                  hatWeitere );
     }
 
 
     /**
-     * Methode zum Versenden fälliger Reminder, wird regelmäßig ausgeführt;
+     * Methode zum Versenden fälliger Reminder; 
      * es wird bei jedem Aufruf (auch wenn keine Emails versendet wurden)
      * auch die Anzahl der Emails in die InfluxDB geschrieben.
      * <br><br>
      * 
-     * Für "Einschalten" der Annotation "Scheduled" wurde die Klasse 
-     * {@link EmailReminderApplication} mit Annotation {@code EnableScheduling}
-     * versehen. 
-     * Werte der Attribute der Annotation {@code Scheduled} sind jeweils
-     * Zeitspannen in Millisekunden. 
+     * Die Methode wird von {@link VersandPlaner} jeweils zum Fälligkeitszeitpunkt
+     * des nächsten Reminders aufgerufen und nicht mehr in einem festen Intervall.
+     * <br><br>
+     * 
+     * Die fälligen Reminder werden zunächst in den Postausgang übernommen (siehe
+     * {@link #uebernehmeInPostausgang()}), danach werden die Emails aus dem Postausgang
+     * mit {@link PostausgangVersand} versendet. Ein Fehler beim Versand einer Email hält
+     * also die übrigen Emails nicht auf; die fehlgeschlagene Email wird mit Backoff
+     * erneut versucht, siehe {@link #versendePostausgang()}.
+     * <br><br>
+     * 
+     * Die Laufzeit wird in der Micrometer-Metrik {@code reminder.versand.lauf} erfasst.
      */
-    @Scheduled( initialDelay = 30_000, fixedRate = 60_000 )
     public void versendeEmails() {
         
-        final Specification<ReminderEntity> spec = buildSpecFuerReminderZumVersenden();
-        final List<ReminderEntity> faelligeReminderList = 
-                                        _reminderRepo.findAll( spec, _sortByZeitpunktFaelligAsc );
-
-        LOG.info( "Anzahl faelliger Reminder gefunden : {}", faelligeReminderList.size() );
-        
-        int emailZaehler = 0;
-        for ( ReminderEntity r : faelligeReminderList ) {
+        final Timer.Sample sample = Timer.start( _meterRegistry );
+        try {
             
-            final String betreff = "[Reminder] "                   + r.getReminderText();
-            final String body    = "siehe Betreff\n\nFälligkeit: " + r.getZeitpunktFaelligkeitFormatiert();
+            final int anzahlUebernommen = uebernehmeInPostausgang();
+            if ( anzahlUebernommen > 0 ) {
+                
+                LOG.info( "{} faellige(r) Reminder in den Postausgang uebernommen.", anzahlUebernommen );
+            }
             
-            _emailSender.sendeEmail( betreff, body );
+            final int emailZaehler = _postausgangVersand.versendePostausgang();
+            if ( emailZaehler > 0 ) {
+                
+                LOG.info( "Es wurde(n) {} Email(s) versendet.", emailZaehler );                                    
+                erfasseAnzahlReminderInInfluxDB();
+            }
             
-            r.wurdeVersendet();                        
-            _reminderRepo.save( r );
+            _influxDB.schreibeAnzahlEmails( emailZaehler );
+        }
+        finally {
             
-            emailZaehler++;
+            sample.stop( _versandLaufTimer );
         }
+    }
+    
+    
+    /**
+     * Versendet in einem festen Intervall die Emails aus dem Postausgang, deren nächster
+     * Versuch erreicht ist; damit werden fehlgeschlagene Emails auch dann erneut versucht,
+     * wenn kein weiterer Reminder fällig wird.
+     */
+    @Scheduled( initialDelayString = "${de.eldecker.reminder.postausgang_intervall_ms:15000}",
+                fixedDelayString   = "${de.eldecker.reminder.postausgang_intervall_ms:15000}" )
+    public void versendePostausgang() {
         
+        final int emailZaehler = _postausgangVersand.versendePostausgang();
         if ( emailZaehler > 0 ) {
             
-            LOG.info( "Es wurde(n) {} Email(s) versendet.", emailZaehler );                                    
+            LOG.info( "Es wurde(n) {} Email(s) aus dem Postausgang versendet.", emailZaehler );
             erfasseAnzahlReminderInInfluxDB();
+            _influxDB.schreibeAnzahlEmails( emailZaehler );
+        }
+    }
+    
+    
+    /**
+     * Übernimmt alle fälligen Reminder in den Postausgang. Die Reminder werden in Chunks
+     * mit fester Größe gelesen (siehe Property {@code de.eldecker.reminder.versand_chunk_groesse}),
+     * so dass auch nach einer längeren Downtime nicht alle fälligen Reminder gleichzeitig im
+     * Speicher gehalten werden müssen.
+     * <br><br>
+     * 
+     * Damit mehrere Instanzen der Anwendung dieselbe Datenbank verwenden können, wird jeder
+     * Chunk mit einem eindeutigen Token beansprucht (bedingtes UPDATE); in derselben 
+     * Transaktion wird für jeden beanspruchten Reminder eine Email im Postausgang angelegt.
+     * Ein Reminder landet also genau einmal im Postausgang.
+     * 
+     * @return Anzahl der in den Postausgang übernommenen Reminder
+     */
+    private int uebernehmeInPostausgang() {
+        
+        final LocalDateTime jetzt = now();
+        final Limit         limit = Limit.of( _chunkGroesse );
+        
+        int anzahl = 0;
+        while ( true ) {
+            
+            final List<Long> kandidaten = _reminderSpeicher.findFreieFaelligeReminderIds( jetzt, limit );
+            if ( kandidaten.isEmpty() ) {
+                
+                break;
+            }
+            
+            final String        token = _instanzId + "/" + UUID.randomUUID();
+            final LocalDateTime bis   = now().plusSeconds( _beanspruchungSekunden );
+            
+            anzahl += _transactionTemplate.execute( 
+                            status -> uebernehmeChunk( kandidaten, token, jetzt, bis ) );
+            
+            if ( kandidaten.size() < _chunkGroesse ) {
+                
+                break;
+            }
         }
         
-        _influxDB.schreibeAnzahlEmails( emailZaehler );
+        return anzahl;
+    }
+    
+    
+    /**
+     * Beansprucht einen Chunk fälliger Reminder und legt für jeden davon eine Email im
+     * Postausgang an; muss innerhalb einer Transaktion aufgerufen werden.
+     * <br><br>
+     * 
+     * Sind Sammel-Emails eingeschaltet (Property {@code de.eldecker.reminder.digest_fenster_minuten}),
+     * dann wird für alle Reminder einer Gruppe (siehe {@link #bildeGruppen(List)}) nur eine
+     * Email angelegt (Inhalt siehe {@link EmailVorbereitung}) und alle Reminder der Gruppe
+     * verweisen auf dieselbe Email im Postausgang.
+     * Sie werden deshalb nach dem Versand mit einem UPDATE gemeinsam als versendet markiert
+     * (siehe {@link PostausgangVersand}), bei einem Fehler gemeinsam erneut versucht.
+     * 
+     * @param kandidaten IDs der fälligen Reminder
+     * 
+     * @param token Eindeutiges Token für Instanz und Chunk
+     * 
+     * @param jetzt Aktueller Zeitpunkt
+     * 
+     * @param bis Ende der Beanspruchung
+     * 
+     * @return Anzahl der in den Postausgang übernommenen Reminder
+     */
+    private int uebernehmeChunk( List<Long> kandidaten, String token, 
+                                 LocalDateTime jetzt, LocalDateTime bis ) {
+        
+        if ( _reminderSpeicher.beanspruche( kandidaten, token, jetzt, bis ) == 0 ) {
+            
+            return 0;
+        }
+        
+        final List<FaelligerReminder>       chunk      = _reminderSpeicher.findBeansprucht( token );
+        final List<List<FaelligerReminder>> gruppen    = bildeGruppen( chunk );
+        final List<PostausgangEntity>       emailListe = new ArrayList<>( gruppen.size() );
+        for ( List<FaelligerReminder> gruppe : gruppen ) {
+            
+            emailListe.add( _emailVorbereitung.erzeugeEmail( gruppe, jetzt ) );
+        }
+        _postausgangRepo.saveAll( emailListe );
+        
+        for ( int i = 0; i < gruppen.size(); i++ ) {
+            
+            final List<Long> ids = gruppen.get( i ).stream().map( FaelligerReminder::id ).toList();
+            _reminderSpeicher.inPostausgangUebernommen( ids, emailListe.get( i ).getId() );
+        }
+        
+        LOG.debug( "Chunk mit {} von {} faelligen Reminder(n) als {} Email(s) in Postausgang uebernommen.", 
+                   chunk.size(), kandidaten.size(), emailListe.size() );
+        
+        return chunk.size();
+    }
+    
+    
+    /**
+     * Teilt die Reminder eines Chunks in Gruppen auf, für die jeweils eine Email versendet
+     * wird. Ohne Sammel-Emails besteht jede Gruppe aus genau einem Reminder. Ansonsten 
+     * werden die Reminder nach Fälligkeit sortiert, und eine Gruppe umfasst alle Reminder, 
+     * die höchstens {@link #_digestFensterMinuten} nach dem ersten Reminder der Gruppe 
+     * fällig sind (höchstens {@link #_digestMaxReminder} Reminder). Gruppen werden nur 
+     * innerhalb eines Chunks gebildet.
+     * 
+     * @param chunk Beanspruchte Reminder
+     * 
+     * @return Gruppen von Remindern, jeweils nicht leer
+     */
+    private List<List<FaelligerReminder>> bildeGruppen( List<FaelligerReminder> chunk ) {
+        
+        final List<List<FaelligerReminder>> gruppen = new ArrayList<>( chunk.size() );
+        if ( _digestFensterMinuten <= 0 ) {
+            
+            chunk.forEach( reminder -> gruppen.add( List.of( reminder ) ) );
+            return gruppen;
+        }
+        
+        final List<FaelligerReminder> sortiert = new ArrayList<>( chunk );
+        sortiert.sort( Comparator.comparing( FaelligerReminder::zeitpunktFaellig )
+                                 .thenComparing( FaelligerReminder::id ) );
+        
+        List<FaelligerReminder> gruppe      = null;
+        LocalDateTime           fensterEnde = null;
+        for ( FaelligerReminder reminder : sortiert ) {
+            
+            if ( gruppe == null || 
+                 gruppe.size() >= _digestMaxReminder || 
+                 reminder.zeitpunktFaellig().isAfter( fensterEnde ) ) {
+                
+                gruppe      = new ArrayList<>();
+                fensterEnde = reminder.zeitpunktFaellig().plusMinutes( _digestFensterMinuten );
+                gruppen.add( gruppe );
+            }
+            gruppe.add( reminder );
+        }
+        
+        return gruppen;
+    }
+    
+    
+    /**
+     * Prüft, ob es mindestens einen Reminder gibt (auch einen schon versendeten). Anders 
+     * als mit COUNT bricht die Datenbank die Suche beim ersten Treffer ab.
+     * 
+     * @return {@code true} gdw. die Tabelle mit den Remindern nicht leer ist
+     */
+    public boolean gibtEsReminder() {
+        
+        return _reminderSpeicher.existsBy_idIsNotNull();
     }
     
     
     /**
      * Methode, mit der Anzahl der Reminder in der InfluxDB gespeichert werden.
      * Sollte immer nach Versenden eines Reminders oder nach Anlegen eines neuen Reminders
-     * aufgerufen werden.
+     * aufgerufen werden. Die Werte werden nicht aus der Datenbank gezählt, sondern 
+     * aus {@link ReminderZaehler} gelesen.
      * 
      * @return Gesamtanzahl Reminder (also versendete und noch ausstehende)
      */
     public int erfasseAnzahlReminderInInfluxDB() {
 
-        final int anzahlSchonVersendet = _reminderRepo.countBy_schonVersendet( true  );
-        final int anzahlNichtVersendet = _reminderRepo.countBy_schonVersendet( false );
+        final int anzahlSchonVersendet = _reminderZaehler.getAnzahlVersendet();
+        final int anzahlNichtVersendet = _reminderZaehler.getAnzahlNichtVersendet();
         
         _influxDB.schreibeAnzahlReminder( anzahlSchonVersendet, anzahlNichtVersendet );
         
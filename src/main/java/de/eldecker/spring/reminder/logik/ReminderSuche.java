@@ -0,0 +1,630 @@
+package de.eldecker.spring.reminder.logik;
+
+import static java.util.Locale.GERMAN;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import de.eldecker.spring.reminder.db_jpa.ReminderEntity;
+import de.eldecker.spring.reminder.db_jpa.ReminderSpeicher;
+import de.eldecker.spring.reminder.db_jpa.ReminderVorschau;
+import de.eldecker.spring.reminder.model.ReminderAngelegtEvent;
+import de.eldecker.spring.reminder.model.ReminderImportiertEvent;
+import de.eldecker.spring.reminder.model.SuchErgebnis;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+
+/**
+ * Bean-Klasse für die Volltextsuche über die Texte der Reminder in Tabelle {@code REMINDER}.
+ * <br><br>
+ * 
+ * Die Suche verwendet einen invertierten Index im Speicher: Für jedes Wort (klein geschrieben)
+ * wird die aufsteigend sortierte Liste der IDs der Reminder gespeichert, deren Text dieses
+ * Wort enthält. Eine Suche muss deshalb weder die Tabelle lesen (kein {@code LIKE '%...%'})
+ * noch alle Reminder durchlaufen; aus der Datenbank werden nur die Reminder der angezeigten
+ * Seite geladen.
+ * <br><br>
+ * 
+ * Der Index wird kurz nach dem Start im Hintergrund aufgebaut (siehe {@link DatenImporter})
+ * und danach inkrementell fortgeschrieben: Neue Reminder werden über das 
+ * {@link ReminderAngelegtEvent} aufgenommen, nach einem Import werden alle Reminder mit einer 
+ * ID größer als die bisher größte nachgezogene ID gelesen. Archivierte oder gelöschte Reminder 
+ * werden beim Laden einer Trefferseite erkannt und ab dann ausgeblendet. Ein regelmäßiger
+ * Neuaufbau (siehe {@link #neuAufbauen()}) korrigiert Abweichungen, z.B. durch Änderungen 
+ * direkt in der Datenbank.
+ * <br><br>
+ * 
+ * Die Dauer der Suchen wird in der Micrometer-Metrik {@code reminder.suche} erfasst, die 
+ * Anzahl der Wörter im Index in {@code reminder.suche.woerter}.
+ */
+@Component
+public class ReminderSuche {
+    
+    private static Logger LOG = LoggerFactory.getLogger( ReminderSuche.class );
+    
+    /** Trennzeichen zwischen Wörtern: alles außer Buchstaben und Ziffern. */
+    private static final Pattern WORT_TRENNER = Pattern.compile( "[^\\p{L}\\p{N}]+" );
+    
+    /** Suchbegriffe mit mindestens so vielen Zeichen finden auch Wörter, die damit beginnen. */
+    private static final int MIN_LAENGE_PRAEFIX = 3;
+    
+    /** Maximale Anzahl Wörter im Index, auf die ein Suchbegriff als Präfix erweitert wird. */
+    private static final int MAX_ERWEITERUNGEN = 200;
+    
+    /** Gewicht eines Treffers über ein Präfix relativ zu einem Treffer für das ganze Wort. */
+    private static final double GEWICHT_PRAEFIX = 0.5;
+    
+    /** 
+     * Maximale Anzahl Treffer, die durchblättert werden können (Seite mal Seitengröße), 
+     * damit eine Anfrage mit sehr großer Seitennummer keinen riesigen Heap anlegt.
+     */
+    private static final int MAX_TREFFER = 10_000;
+    
+    
+    /** Anzahl Reminder, die beim Aufbau des Index pro Abfrage gelesen werden. */
+    @Value( "${de.eldecker.reminder.suche_batch_groesse:5000}" )
+    private int _batchGroesse;
+    
+    /** Speicher für die Reminder (Tabelle oder Journal). */
+    private final ReminderSpeicher _reminderSpeicher;
+    
+    /** Aktueller Index. */
+    private volatile Index _index = new Index();
+    
+    /** 
+     * Index, der gerade neu aufgebaut wird, oder {@code null}; neue Reminder werden auch 
+     * in diesen Index geschrieben, damit sie beim Austausch nicht verloren gehen.
+     */
+    private volatile Index _neuerIndex = null;
+    
+    /** Größte ID, bis zu der alle Reminder in den Index übernommen wurden. */
+    private long _nachgezogenBisId = 0;
+    
+    /** 
+     * IDs von Remindern, die noch im Index sind, aber nicht mehr in der Datenbank
+     * (z.B. archiviert); wird beim Neuaufbau geleert. 
+     */
+    private final Set<Long> _entfernt = ConcurrentHashMap.newKeySet();
+    
+    /** Dauer der Suchen. */
+    private final Timer _sucheTimer;
+    
+    
+    /**
+     * Invertierter Index: Wort auf sortierte Liste der IDs. Es wird eine sortierte Map 
+     * verwendet, damit alle Wörter mit einem bestimmten Präfix schnell gefunden werden.
+     */
+    private static final class Index {
+        
+        /** Posting-Listen, Schlüssel ist das klein geschriebene Wort. */
+        final NavigableMap<String, Postings> _woerter = new ConcurrentSkipListMap<>();
+        
+        /** Anzahl der indizierten Reminder, für die Gewichtung seltener Wörter. */
+        final AtomicInteger _anzahlDokumente = new AtomicInteger( 0 );
+        
+        
+        void hinzufuegen( long id, String text ) {
+            
+            boolean neu = false;
+            for ( String wort : zerlege( text ) ) {
+                
+                neu |= _woerter.computeIfAbsent( wort, w -> new Postings() ).hinzufuegen( id );
+            }
+            if ( neu ) {
+                
+                _anzahlDokumente.incrementAndGet();
+            }
+        }
+    }
+    
+    
+    /**
+     * Aufsteigend sortierte Liste von Reminder-IDs ohne Duplikate für ein Wort. Da neue
+     * Reminder (fast) immer eine größere ID haben, wird in der Regel nur angehängt.
+     */
+    private static final class Postings {
+        
+        private long[] _ids = new long[ 4 ];
+        
+        private int _anzahl = 0;
+        
+        
+        /**
+         * @return {@code true} gdw. die ID noch nicht enthalten war
+         */
+        synchronized boolean hinzufuegen( long id ) {
+            
+            int position = _anzahl;
+            if ( _anzahl > 0 && _ids[ _anzahl - 1 ] >= id ) {
+                
+                position = Arrays.binarySearch( _ids, 0, _anzahl, id );
+                if ( position >= 0 ) {
+                    
+                    return false;
+                }
+                position = -position - 1;
+            }
+            
+            if ( _anzahl == _ids.length ) {
+                
+                _ids = Arrays.copyOf( _ids, _anzahl * 2 );
+            }
+            System.arraycopy( _ids, position, _ids, position + 1, _anzahl - position );
+            _ids[ position ] = id;
+            _anzahl++;
+            
+            return true;
+        }
+        
+        
+        synchronized int anzahl() {
+            
+            return _anzahl;
+        }
+        
+        
+        synchronized long[] kopie() {
+            
+            return Arrays.copyOf( _ids, _anzahl );
+        }
+    }
+    
+    
+    /**
+     * Treffer mit Relevanz für die Sortierung.
+     */
+    private record Treffer( long id, double relevanz ) {}
+    
+    /** Höhere Relevanz zuerst, bei gleicher Relevanz neuere Reminder (größere ID) zuerst. */
+    private static final Comparator<Treffer> NACH_RELEVANZ = 
+            Comparator.comparingDouble( Treffer::relevanz ).reversed()
+                      .thenComparing( Comparator.comparingLong( Treffer::id ).reversed() );
+    
+    
+    /**
+     * Konstruktor für Dependency Injection.
+     */
+    @Autowired
+    public ReminderSuche( ReminderSpeicher reminderSpeicher,
+                          MeterRegistry    meterRegistry ) {
+        
+        _reminderSpeicher = reminderSpeicher;
+        
+        _sucheTimer = Timer.builder( "reminder.suche" )
+                           .description( "Dauer einer Volltextsuche über die Reminder-Texte" )
+                           .publishPercentiles( 0.5, 0.95, 0.99 )
+                           .register( meterRegistry );
+        
+        Gauge.builder( "reminder.suche.woerter", this, suche -> suche._index._woerter.size() )
+             .description( "Anzahl verschiedener Wörter im Suchindex" )
+             .register( meterRegistry );
+    }
+    
+    
+    /**
+     * Baut den Index aus allen Remindern in der Datenbank neu auf und ersetzt damit den 
+     * bisherigen Index; Suchen verwenden bis dahin den bisherigen Index.
+     */
+    @Scheduled( initialDelayString = "${de.eldecker.reminder.suche_neuaufbau_ms:21600000}",
+                fixedDelayString   = "${de.eldecker.reminder.suche_neuaufbau_ms:21600000}" )
+    public synchronized void neuAufbauen() {
+        
+        final long startNanos = System.nanoTime();
+        
+        final Index neuerIndex = new Index();
+        _neuerIndex = neuerIndex;
+        try {
+            
+            final long bisId = indiziereNach( 0, neuerIndex );
+            
+            _index            = neuerIndex;
+            _nachgezogenBisId = bisId;
+            _entfernt.clear();
+        }
+        finally {
+            
+            _neuerIndex = null;
+        }
+        
+        LOG.info( "Suchindex mit {} Reminder(n) und {} Woertern in {} ms aufgebaut.",
+                  neuerIndex._anzahlDokumente.get(), neuerIndex._woerter.size(), 
+                  ( System.nanoTime() - startNanos ) / 1_000_000 );
+    }
+    
+    
+    /**
+     * Übernimmt alle Reminder, die nach dem letzten Aufbau bzw. Nachziehen angelegt wurden,
+     * in den Index.
+     */
+    public synchronized void nachziehen() {
+        
+        _nachgezogenBisId = indiziereNach( _nachgezogenBisId, _index );
+    }
+    
+    
+    /**
+     * Liest alle Reminder mit einer größeren ID als {@code nachId} blockweise aus der 
+     * Datenbank und nimmt sie in den Index auf.
+     * 
+     * @param nachId Reminder mit dieser oder einer kleineren ID werden nicht gelesen
+     * 
+     * @param index Index, in den die Reminder aufgenommen werden
+     * 
+     * @return Größte gelesene ID, bzw. {@code nachId}, wenn es keine neueren Reminder gibt
+     */
+    private long indiziereNach( long nachId, Index index ) {
+        
+        while ( true ) {
+            
+            final List<ReminderVorschau> block = _reminderSpeicher.findTexteNachId( nachId, Limit.of( _batchGroesse ) );
+            for ( ReminderVorschau reminder : block ) {
+                
+                index.hinzufuegen( reminder.id(), reminder.reminderText() );
+            }
+            if ( block.isEmpty() ) {
+                
+                return nachId;
+            }
+            nachId = block.getLast().id();
+        }
+    }
+    
+    
+    @EventListener
+    public void onReminderAngelegt( ReminderAngelegtEvent event ) {
+        
+        _index.hinzufuegen( event.reminderId(), event.reminderText() );
+        
+        final Index neuerIndex = _neuerIndex;
+        if ( neuerIndex != null ) {
+            
+            neuerIndex.hinzufuegen( event.reminderId(), event.reminderText() );
+        }
+    }
+    
+    
+    @EventListener
+    public void onReminderImportiert( ReminderImportiertEvent event ) {
+        
+        nachziehen();
+    }
+    
+    
+    /**
+     * Volltextsuche über die Reminder-Texte. Gefunden werden Reminder, deren Text alle
+     * Suchbegriffe enthält (Groß-/Kleinschreibung wird nicht unterschieden); Suchbegriffe
+     * mit mindestens {@value #MIN_LAENGE_PRAEFIX} Zeichen finden auch Wörter, die mit dem
+     * Suchbegriff beginnen. Die Treffer werden nach Relevanz sortiert: Wörter, die in 
+     * wenigen Remindern vorkommen, zählen mehr, Treffer über ein Präfix zählen weniger.
+     * Es können nur die ersten {@value #MAX_TREFFER} Treffer durchblättert werden; Seiten
+     * dahinter sind leer.
+     * 
+     * @param suchText Suchbegriffe, durch Leerzeichen oder Satzzeichen getrennt
+     * 
+     * @param seite Nummer der Seite, beginnend mit 0
+     * 
+     * @param seitenGroesse Anzahl Treffer pro Seite
+     * 
+     * @return Treffer auf der angeforderten Seite und Gesamtzahl der Treffer
+     */
+    public SuchErgebnis suche( String suchText, int seite, int seitenGroesse ) {
+        
+        return _sucheTimer.record( () -> sucheIntern( suchText, seite, seitenGroesse ) );
+    }
+    
+    
+    private SuchErgebnis sucheIntern( String suchText, int seite, int seitenGroesse ) {
+        
+        final Index        index    = _index;
+        final List<String> begriffe = zerlege( suchText );
+        if ( begriffe.isEmpty() ) {
+            
+            return new SuchErgebnis( List.of(), 0, false );
+        }
+        
+        final int anzahlDokumente = Math.max( 1, index._anzahlDokumente.get() );
+        
+        final List<Trefferliste> listen = new ArrayList<>( begriffe.size() );
+        for ( String begriff : begriffe ) {
+            
+            final Trefferliste liste = bewerte( index, begriff, anzahlDokumente );
+            if ( liste.anzahl() == 0 ) {
+                
+                return new SuchErgebnis( List.of(), 0, false );
+            }
+            listen.add( liste );
+        }
+        
+        // mit dem seltensten Begriff beginnen, damit die Zwischenergebnisse klein bleiben
+        listen.sort( Comparator.comparingInt( Trefferliste::anzahl ) );
+        
+        Trefferliste ergebnis = listen.getFirst();
+        for ( int i = 1; i < listen.size() && ergebnis.anzahl() > 0; i++ ) {
+            
+            ergebnis = ergebnis.schnittmenge( listen.get( i ) );
+        }
+        
+        // in long rechnen, damit große Seitennummern nicht überlaufen
+        final long von = (long) seite * seitenGroesse;
+        final int  bis = (int) Math.min( von + seitenGroesse, Math.min( ergebnis.anzahl(), MAX_TREFFER ) );
+        if ( von >= bis ) {
+            
+            return new SuchErgebnis( List.of(), ergebnis.anzahl() - zaehleEntfernte( ergebnis ), false );
+        }
+        
+        final List<Treffer> treffer = besteTreffer( ergebnis, bis );
+        
+        final int anzahlTreffer = treffer.size() == ergebnis.anzahl() 
+                                  ? treffer.size() 
+                                  : ergebnis.anzahl() - zaehleEntfernte( ergebnis );
+        if ( von >= treffer.size() ) {
+            
+            return new SuchErgebnis( List.of(), anzahlTreffer, false );
+        }
+        
+        final List<Long> ids = treffer.subList( (int) von, treffer.size() ).stream().map( Treffer::id ).toList();
+        
+        return new SuchErgebnis( lade( ids ), anzahlTreffer, von + ids.size() < Math.min( anzahlTreffer, MAX_TREFFER ) );
+    }
+    
+    
+    /**
+     * Treffer für einen oder mehrere Suchbegriffe: IDs aufsteigend sortiert und ohne 
+     * Duplikate, mit der Relevanz an derselben Position. Es werden Arrays mit primitiven
+     * Typen verwendet, da häufige Wörter in sehr vielen Remindern vorkommen können.
+     */
+    private record Trefferliste( long[] ids, double[] relevanz, int anzahl ) {
+        
+        /**
+         * Schnittmenge mit einer anderen Trefferliste, die Relevanz wird addiert
+         * (Zusammenführen von zwei sortierten Listen).
+         */
+        Trefferliste schnittmenge( Trefferliste andere ) {
+            
+            final long[]   ids      = new long[   Math.min( anzahl, andere.anzahl ) ];
+            final double[] relevanz = new double[ ids.length ];
+            
+            int n = 0;
+            int i = 0;
+            int j = 0;
+            while ( i < anzahl && j < andere.anzahl ) {
+                
+                if ( this.ids[ i ] < andere.ids[ j ] ) {
+                    
+                    i++;
+                    
+                } else if ( this.ids[ i ] > andere.ids[ j ] ) {
+                    
+                    j++;
+                    
+                } else {
+                    
+                    ids[ n ]      = this.ids[ i ];
+                    relevanz[ n ] = this.relevanz[ i ] + andere.relevanz[ j ];
+                    n++; i++; j++;
+                }
+            }
+            
+            return new Trefferliste( ids, relevanz, n );
+        }
+        
+        
+        /**
+         * Vereinigung mit einer anderen Trefferliste, bei Reminder in beiden Listen zählt 
+         * die höhere Relevanz.
+         */
+        Trefferliste vereinigung( Trefferliste andere ) {
+            
+            final long[]   ids      = new long[   anzahl + andere.anzahl ];
+            final double[] relevanz = new double[ ids.length ];
+            
+            int n = 0;
+            int i = 0;
+            int j = 0;
+            while ( i < anzahl || j < andere.anzahl ) {
+                
+                if ( j == andere.anzahl || ( i < anzahl && this.ids[ i ] < andere.ids[ j ] ) ) {
+                    
+                    ids[ n ]      = this.ids[ i ];
+                    relevanz[ n ] = this.relevanz[ i++ ];
+                    
+                } else if ( i == anzahl || this.ids[ i ] > andere.ids[ j ] ) {
+                    
+                    ids[ n ]      = andere.ids[ j ];
+                    relevanz[ n ] = andere.relevanz[ j++ ];
+                    
+                } else {
+                    
+                    ids[ n ]      = this.ids[ i ];
+                    relevanz[ n ] = Math.max( this.relevanz[ i++ ], andere.relevanz[ j++ ] );
+                }
+                n++;
+            }
+            
+            return new Trefferliste( ids, relevanz, n );
+        }
+    }
+    
+    
+    /**
+     * Berechnet die Relevanz eines Suchbegriffs für alle Reminder, die das Wort selbst oder,
+     * für längere Suchbegriffe, ein Wort mit dem Suchbegriff als Präfix enthalten. Wörter, 
+     * die in wenigen Remindern vorkommen, haben eine höhere Relevanz.
+     * 
+     * @param index Suchindex
+     * 
+     * @param begriff Suchbegriff (klein geschrieben)
+     * 
+     * @param anzahlDokumente Anzahl der Reminder im Index
+     * 
+     * @return Treffer für den Suchbegriff, evtl. leer
+     */
+    private static Trefferliste bewerte( Index index, String begriff, int anzahlDokumente ) {
+        
+        final Map<String, Postings> woerter = begriff.length() < MIN_LAENGE_PRAEFIX
+                                              ? index._woerter.subMap( begriff, true, begriff, true )
+                                              : index._woerter.subMap( begriff, true, begriff + Character.MAX_VALUE, false );
+        
+        Trefferliste ergebnis = new Trefferliste( new long[ 0 ], new double[ 0 ], 0 );
+        int          anzahlWoerter = 0;
+        for ( Map.Entry<String, Postings> eintrag : woerter.entrySet() ) {
+            
+            final long[]   ids      = eintrag.getValue().kopie();
+            final double[] relevanz = new double[ ids.length ];
+            Arrays.fill( relevanz, Math.log( 1.0 + (double) anzahlDokumente / Math.max( 1, ids.length ) )
+                                   * ( eintrag.getKey().equals( begriff ) ? 1.0 : GEWICHT_PRAEFIX ) );
+            
+            final Trefferliste wortTreffer = new Trefferliste( ids, relevanz, ids.length );
+            ergebnis = ergebnis.anzahl() == 0 ? wortTreffer : ergebnis.vereinigung( wortTreffer );
+            
+            if ( ++anzahlWoerter >= MAX_ERWEITERUNGEN ) {
+                
+                break;
+            }
+        }
+        
+        return ergebnis;
+    }
+    
+    
+    /**
+     * Liefert die {@code anzahl} relevantesten Treffer ohne entfernte Reminder, ohne alle 
+     * Treffer zu sortieren; {@link Treffer}-Objekte werden nur für Kandidaten erzeugt.
+     * Die Liste wird von der größten ID an durchlaufen, damit bei gleicher Relevanz 
+     * (z.B. Suche nach nur einem Wort) nach den ersten Treffern keine Kandidaten mehr 
+     * hinzukommen.
+     */
+    private List<Treffer> besteTreffer( Trefferliste liste, int anzahl ) {
+        
+        final PriorityQueue<Treffer> heap = new PriorityQueue<>( anzahl + 1, NACH_RELEVANZ.reversed() );
+        for ( int i = liste.anzahl() - 1; i >= 0; i-- ) {
+            
+            if ( heap.size() == anzahl ) {
+                
+                final Treffer schlechtester = heap.peek();
+                if ( liste.relevanz()[ i ] < schlechtester.relevanz() ||
+                     ( liste.relevanz()[ i ] == schlechtester.relevanz() && liste.ids()[ i ] < schlechtester.id() ) ) {
+                    
+                    continue;
+                }
+            }
+            if ( !_entfernt.isEmpty() && _entfernt.contains( liste.ids()[ i ] ) ) {
+                
+                continue;
+            }
+            
+            heap.add( new Treffer( liste.ids()[ i ], liste.relevanz()[ i ] ) );
+            if ( heap.size() > anzahl ) {
+                
+                heap.poll();
+            }
+        }
+        
+        final List<Treffer> treffer = new ArrayList<>( heap );
+        treffer.sort( NACH_RELEVANZ );
+        
+        return treffer;
+    }
+    
+    
+    /**
+     * Anzahl der Treffer, die zu entfernten Remindern gehören.
+     */
+    private int zaehleEntfernte( Trefferliste liste ) {
+        
+        if ( _entfernt.isEmpty() ) {
+            
+            return 0;
+        }
+        
+        int anzahl = 0;
+        for ( int i = 0; i < liste.anzahl(); i++ ) {
+            
+            if ( _entfernt.contains( liste.ids()[ i ] ) ) {
+                
+                anzahl++;
+            }
+        }
+        
+        return anzahl;
+    }
+    
+    
+    /**
+     * Lädt die Reminder für die IDs in der übergebenen Reihenfolge; Reminder, die es nicht 
+     * mehr gibt, werden übersprungen und bei weiteren Suchen ausgeblendet.
+     */
+    private List<ReminderEntity> lade( List<Long> ids ) {
+        
+        final Map<Long, ReminderEntity> reminderMap = new HashMap<>( ids.size() * 2 );
+        _reminderSpeicher.findAllById( ids ).forEach( reminder -> reminderMap.put( reminder.getId(), reminder ) );
+        
+        final List<ReminderEntity> ergebnis = new ArrayList<>( ids.size() );
+        for ( Long id : ids ) {
+            
+            final ReminderEntity reminder = reminderMap.get( id );
+            if ( reminder == null ) {
+                
+                _entfernt.add( id );
+                
+            } else {
+                
+                ergebnis.add( reminder );
+            }
+        }
+        
+        return ergebnis;
+    }
+    
+    
+    /**
+     * Zerlegt einen Text in klein geschriebene Wörter ohne Duplikate.
+     * 
+     * @param text Reminder-Text oder Suchtext, darf {@code null} sein
+     * 
+     * @return Wörter in der Reihenfolge ihres ersten Auftretens
+     */
+    static List<String> zerlege( String text ) {
+        
+        if ( text == null || text.isBlank() ) {
+            
+            return List.of();
+        }
+        
+        final Set<String> woerter = new LinkedHashSet<>();
+        for ( String wort : WORT_TRENNER.split( text.toLowerCase( GERMAN ) ) ) {
+            
+            if ( !wort.isEmpty() ) {
+                
+                woerter.add( wort );
+            }
+        }
+        
+        return List.copyOf( woerter );
+    }
+    
+}
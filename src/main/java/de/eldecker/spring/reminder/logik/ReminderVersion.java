@@ -0,0 +1,88 @@
+package de.eldecker.spring.reminder.logik;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import de.eldecker.spring.reminder.model.ReminderAngelegtEvent;
+import de.eldecker.spring.reminder.model.ReminderArchiviertEvent;
+import de.eldecker.spring.reminder.model.ReminderFehlgeschlagenEvent;
+import de.eldecker.spring.reminder.model.ReminderImportiertEvent;
+import de.eldecker.spring.reminder.model.ReminderVersendetEvent;
+import de.eldecker.spring.reminder.model.ReminderWiederholtEvent;
+
+
+/**
+ * Bean-Klasse mit einem Versionszähler für die Tabelle mit den Remindern: Der Zähler wird
+ * bei jeder Änderung durch diese Instanz der Anwendung (Anlegen, Import, Versand, nächste
+ * Fälligkeit eines wiederkehrenden Reminders, endgültig fehlgeschlagener Versand,
+ * Archivierung) erhöht.
+ * Er dient als Grundlage für ETags, so dass bei unveränderten Daten eine Anfrage ohne
+ * Datenbankzugriff mit "304 Not Modified" beantwortet werden kann.
+ * <br><br>
+ * 
+ * Der Zähler startet mit dem Startzeitpunkt der Anwendung in Millisekunden, damit nach
+ * einem Neustart keine alten Versionen wiederverwendet werden. Änderungen durch andere
+ * Instanzen oder direkt in der Datenbank werden nicht erfasst.
+ */
+@Component
+public class ReminderVersion {
+    
+    /** Aktuelle Version der Tabelle. */
+    private final AtomicLong _version = new AtomicLong( System.currentTimeMillis() );
+    
+    
+    /**
+     * Aktuelle Version der Tabelle mit den Remindern.
+     * 
+     * @return Versionsnummer, wird bei jeder Änderung größer
+     */
+    public long getVersion() {
+        
+        return _version.get();
+    }
+    
+    
+    @EventListener
+    public void onReminderAngelegt( ReminderAngelegtEvent event ) {
+        
+        _version.incrementAndGet();
+    }
+    
+    
+    @EventListener
+    public void onReminderImportiert( ReminderImportiertEvent event ) {
+        
+        _version.incrementAndGet();
+    }
+    
+    
+    @EventListener
+    public void onReminderVersendet( ReminderVersendetEvent event ) {
+        
+        _version.incrementAndGet();
+    }
+    
+    
+    @EventListener
+    public void onReminderWiederholt( ReminderWiederholtEvent event ) {
+        
+        _version.incrementAndGet();
+    }
+    
+    
+    @EventListener
+    public void onReminderFehlgeschlagen( ReminderFehlgeschlagenEvent event ) {
+        
+        _version.incrementAndGet();
+    }
+    
+    
+    @EventListener
+    public void onReminderArchiviert( ReminderArchiviertEvent event ) {
+        
+        _version.incrementAndGet();
+    }
+    
+}
@@ -0,0 +1,132 @@
+package de.eldecker.spring.reminder.logik;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import de.eldecker.spring.reminder.db_jpa.ReminderSpeicher;
+
+/**
+ * Bean-Klasse mit Zählern für die Anzahl der versendeten und der noch nicht versendeten
+ * Reminder, damit diese Werte nicht bei jedem Anlegen eines Reminders oder nach jedem
+ * Versand-Lauf mit zwei COUNT-Abfragen ermittelt werden müssen.
+ * <br><br>
+ * 
+ * Die Zähler werden kurz nach dem Start einmal aus der Datenbank initialisiert (im 
+ * Hintergrund, siehe {@link DatenImporter}, also nicht auf dem kritischen Pfad des Starts)
+ * und danach von {@link ReminderService} inkrementell fortgeschrieben. Ein regelmäßiger 
+ * Abgleich mit der
+ * Datenbank (siehe {@link #abgleichMitDatenbank()}) korrigiert eventuelle Abweichungen,
+ * z.B. durch Änderungen direkt in der Datenbank; nur dieser Abgleich führt noch
+ * COUNT-Abfragen aus.
+ */
+@Component
+public class ReminderZaehler {
+    
+    private static Logger LOG = LoggerFactory.getLogger( ReminderZaehler.class );
+    
+    
+    /** Repo-Bean für COUNT-Abfragen beim Abgleich. */
+    private final ReminderSpeicher _reminderSpeicher;
+    
+    /** Anzahl der Reminder, für die schon eine Email versendet wurde. */
+    private final AtomicInteger _anzahlVersendet = new AtomicInteger( 0 );
+    
+    /** Anzahl der Reminder, für die noch keine Email versendet wurde. */
+    private final AtomicInteger _anzahlNichtVersendet = new AtomicInteger( 0 );
+    
+    
+    /**
+     * Konstruktor für Dependency Injection.
+     */
+    @Autowired
+    public ReminderZaehler( ReminderSpeicher reminderSpeicher ) {
+        
+        _reminderSpeicher = reminderSpeicher;
+    }
+    
+    
+    /**
+     * Setzt die Zähler auf die aktuellen Werte aus der Datenbank. Inkremente, die parallel
+     * zu den COUNT-Abfragen erfolgen, können hierbei verloren gehen; sie werden beim
+     * nächsten Abgleich korrigiert.
+     */
+    @Scheduled( initialDelayString = "${de.eldecker.reminder.zaehler_abgleich_ms:600000}",
+                fixedDelayString   = "${de.eldecker.reminder.zaehler_abgleich_ms:600000}" )
+    public void abgleichMitDatenbank() {
+        
+        final int anzahlVersendet      = _reminderSpeicher.countBy_schonVersendet( true  );
+        final int anzahlNichtVersendet = _reminderSpeicher.countBy_schonVersendet( false );
+        
+        final int abweichungVersendet      = anzahlVersendet      - _anzahlVersendet.getAndSet(      anzahlVersendet      );
+        final int abweichungNichtVersendet = anzahlNichtVersendet - _anzahlNichtVersendet.getAndSet( anzahlNichtVersendet );
+        
+        if ( abweichungVersendet != 0 || abweichungNichtVersendet != 0 ) {
+            
+            LOG.info( "Reminder-Zaehler abgeglichen: versendet={} ({}), nicht versendet={} ({})",
+                      anzahlVersendet, abweichungVersendet, anzahlNichtVersendet, abweichungNichtVersendet );
+        }
+    }
+    
+    
+    /**
+     * Zähler nach Anlegen neuer Reminder fortschreiben.
+     * 
+     * @param anzahl Anzahl der neu angelegten Reminder
+     */
+    public void reminderAngelegt( int anzahl ) {
+        
+        _anzahlNichtVersendet.addAndGet( anzahl );
+    }
+    
+    
+    /**
+     * Zähler nach Versand von Remindern fortschreiben.
+     * 
+     * @param anzahl Anzahl der versendeten Reminder
+     */
+    public void reminderVersendet( int anzahl ) {
+        
+        _anzahlNichtVersendet.addAndGet( -anzahl );
+        _anzahlVersendet.addAndGet( anzahl );
+    }
+    
+    
+    /**
+     * Zähler fortschreiben, nachdem versendete Reminder nach Ablauf der Aufbewahrungsfrist
+     * archiviert oder gelöscht wurden.
+     * 
+     * @param anzahl Anzahl der aus Tabelle {@code REMINDER} entfernten Reminder
+     */
+    public void reminderEntfernt( int anzahl ) {
+        
+        _anzahlVersendet.addAndGet( -anzahl );
+    }
+    
+    
+    /**
+     * Anzahl der Reminder, für die schon eine Email versendet wurde.
+     * 
+     * @return Anzahl Reminder
+     */
+    public int getAnzahlVersendet() {
+        
+        return _anzahlVersendet.get();
+    }
+    
+    
+    /**
+     * Anzahl der Reminder, für die noch keine Email versendet wurde.
+     * 
+     * @return Anzahl Reminder
+     */
+    public int getAnzahlNichtVersendet() {
+        
+        return _anzahlNichtVersendet.get();
+    }
+
+}
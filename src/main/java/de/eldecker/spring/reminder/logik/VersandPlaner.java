@@ -0,0 +1,265 @@
+package de.eldecker.spring.reminder.logik;
+
+import static java.time.LocalDateTime.now;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.ScheduledFuture;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import de.eldecker.spring.reminder.db_jpa.ReminderSpeicher;
+import de.eldecker.spring.reminder.model.ReminderAngelegtEvent;
+import de.eldecker.spring.reminder.model.ReminderImportiertEvent;
+import de.eldecker.spring.reminder.model.ReminderWiederholtEvent;
+
+
+/**
+ * Bean-Klasse, die den Versand fälliger Reminder genau zum Fälligkeitszeitpunkt
+ * anstößt, anstatt die Datenbank in einem festen Intervall abzufragen.
+ * <br><br>
+ *
+ * Hierzu werden die Fälligkeitszeitpunkte aller noch nicht versendeten Reminder,
+ * die innerhalb des "Planungshorizonts" liegen, in einer sortierten Menge im
+ * Hauptspeicher gehalten. Für den frühesten dieser Zeitpunkte wird beim
+ * {@link TaskScheduler} ein einmaliger Lauf von {@link ReminderService#versendeEmails()}
+ * eingeplant.
+ * <br><br>
+ *
+ * Die Datenbank bleibt die "Single Source of Truth": Die Menge wird beim Start der
+ * Anwendung und danach regelmäßig (siehe {@link #abgleichMitDatenbank()}) aus der
+ * Datenbank ergänzt, so dass nach einem Neustart nichts verloren geht und
+ * auch Reminder, die jenseits des Horizonts angelegt wurden, rechtzeitig
+ * eingeplant werden.
+ */
+@Component
+public class VersandPlaner {
+
+    private static Logger LOG = LoggerFactory.getLogger( VersandPlaner.class );
+
+
+    /**
+     * Zeitspanne in Minuten ab "jetzt", für die die Fälligkeitszeitpunkte im
+     * Hauptspeicher gehalten werden; muss größer als das Intervall für den
+     * Abgleich mit der Datenbank sein.
+     */
+    @Value( "${de.eldecker.reminder.planungshorizont_minuten:60}" )
+    private int _planungshorizontMinuten;
+
+    /** Bean für einmalige Ausführung des Versand-Laufs zu einem bestimmten Zeitpunkt. */
+    private final TaskScheduler _taskScheduler;
+
+    /** Speicher für die Reminder, zum Laden der Fälligkeitszeitpunkte. */
+    private final ReminderSpeicher _reminderSpeicher;
+
+    /** Bean mit eigentlicher Logik für Versand der fälligen Reminder. */
+    private final ReminderService _reminderService;
+
+    /**
+     * Fälligkeitszeitpunkte der noch nicht versendeten Reminder bis {@link #_horizontEnde};
+     * Zugriff nur in {@code synchronized}-Methoden.
+     */
+    private final TreeSet<LocalDateTime> _faelligkeiten = new TreeSet<>();
+
+    /** Ende des Zeitraums, für den {@link #_faelligkeiten} vollständig ist. */
+    private LocalDateTime _horizontEnde = LocalDateTime.MIN;
+
+    /** Aktuell eingeplanter Versand-Lauf, {@code null} wenn keiner eingeplant ist. */
+    private ScheduledFuture<?> _naechsterLauf = null;
+
+    /** Zeitpunkt von {@link #_naechsterLauf}. */
+    private LocalDateTime _naechsterLaufZeitpunkt = null;
+
+
+    /**
+     * Konstruktor für Dependency Injection.
+     */
+    @Autowired
+    public VersandPlaner( TaskScheduler    taskScheduler,
+                          ReminderSpeicher reminderSpeicher,
+                          ReminderService  reminderService
+                        ) {
+
+        _taskScheduler    = taskScheduler;
+        _reminderSpeicher = reminderSpeicher;
+        _reminderService  = reminderService;
+    }
+
+
+    /**
+     * Befüllt die Menge der Fälligkeitszeitpunkte, sobald die Anwendung bereit ist;
+     * schon überfällige Reminder (z.B. nach einer Downtime) werden sofort versendet.
+     */
+    @EventListener( ApplicationReadyEvent.class )
+    public void initialisieren() {
+
+        abgleichMitDatenbank();
+    }
+
+
+    /**
+     * Ergänzt die Menge der Fälligkeitszeitpunkte aus der Datenbank und verschiebt dabei
+     * das Ende des Planungshorizonts. Dies ist auch das Sicherheitsnetz für Reminder,
+     * die ohne {@link ReminderAngelegtEvent} in die Datenbank gelangt sind.
+     * <br><br>
+     * 
+     * Die Abfrage läuft ohne Sperre; die Menge wird deshalb nicht durch das Ergebnis
+     * ersetzt, sondern nur ergänzt, sonst würden Zeitpunkte verloren gehen, die während
+     * der Abfrage über ein Event hinzugekommen sind. Zeitpunkte von inzwischen gelöschten
+     * oder schon versendeten Remindern bleiben so bis zu ihrem Erreichen in der Menge und
+     * lösen höchstens einen Versand-Lauf ohne fällige Reminder aus.
+     */
+    @Scheduled( initialDelayString = "${de.eldecker.reminder.planer_abgleich_ms:1800000}",
+                fixedRateString    = "${de.eldecker.reminder.planer_abgleich_ms:1800000}" )
+    public void abgleichMitDatenbank() {
+
+        final LocalDateTime horizontEnde = now().plusMinutes( _planungshorizontMinuten );
+
+        final List<LocalDateTime> faelligkeiten =
+                            _reminderSpeicher.findFaelligkeitenNochNichtVersendetBis( horizontEnde );
+
+        synchronized ( this ) {
+
+            _faelligkeiten.addAll( faelligkeiten );
+            if ( horizontEnde.isAfter( _horizontEnde ) ) {
+
+                _horizontEnde = horizontEnde;
+            }
+
+            planeNaechstenLauf();
+        }
+
+        LOG.info( "Abgleich Versand-Planer: {} Faelligkeitszeitpunkt(e) bis {} eingeplant.",
+                  faelligkeiten.size(), horizontEnde );
+    }
+
+
+    /**
+     * Nimmt den Fälligkeitszeitpunkt eines neu angelegten Reminders in die Planung auf,
+     * sofern er innerhalb des Planungshorizonts liegt; ansonsten wird er beim
+     * nächsten {@link #abgleichMitDatenbank()} aus der Datenbank geladen.
+     *
+     * @param event Ereignis mit Fälligkeitszeitpunkt des neuen Reminders
+     */
+    @EventListener
+    public synchronized void onReminderAngelegt( ReminderAngelegtEvent event ) {
+
+        final LocalDateTime zeitpunkt = event.zeitpunktFaellig();
+
+        if ( zeitpunkt.isBefore( _horizontEnde ) && _faelligkeiten.add( zeitpunkt ) ) {
+
+            planeNaechstenLauf();
+        }
+    }
+
+
+    /**
+     * Nimmt die nächste Fälligkeit eines wiederkehrenden Reminders in die Planung auf,
+     * sofern sie innerhalb des Planungshorizonts liegt.
+     *
+     * @param event Ereignis mit nächstem Fälligkeitszeitpunkt des Reminders
+     */
+    @EventListener
+    public synchronized void onReminderWiederholt( ReminderWiederholtEvent event ) {
+
+        final LocalDateTime zeitpunkt = event.zeitpunktFaellig();
+
+        if ( zeitpunkt.isBefore( _horizontEnde ) && _faelligkeiten.add( zeitpunkt ) ) {
+
+            planeNaechstenLauf();
+        }
+    }
+
+
+    /**
+     * Nach einem Import wird die Planung aus der Datenbank ergänzt, wenn mindestens ein
+     * importierter Reminder innerhalb des Planungshorizonts fällig ist.
+     *
+     * @param event Ereignis mit frühestem Fälligkeitszeitpunkt der importierten Reminder
+     */
+    @EventListener
+    public void onReminderImportiert( ReminderImportiertEvent event ) {
+
+        final boolean imHorizont;
+        synchronized ( this ) {
+
+            imHorizont = event.fruehesteFaelligkeit().isBefore( _horizontEnde );
+        }
+        if ( imHorizont ) {
+
+            abgleichMitDatenbank();
+        }
+    }
+
+
+    /**
+     * Versand-Lauf, der vom {@link TaskScheduler} zum eingeplanten Zeitpunkt ausgeführt
+     * wird: Alle erreichten Fälligkeitszeitpunkte werden aus der Menge entfernt, danach
+     * werden die fälligen Reminder versendet und der nächste Lauf wird eingeplant.
+     */
+    private void ausfuehren() {
+
+        synchronized ( this ) {
+
+            _faelligkeiten.headSet( now(), true ).clear();
+            _naechsterLauf          = null;
+            _naechsterLaufZeitpunkt = null;
+        }
+
+        try {
+
+            _reminderService.versendeEmails();
+        }
+        finally {
+
+            synchronized ( this ) {
+
+                planeNaechstenLauf();
+            }
+        }
+    }
+
+
+    /**
+     * Plant einen Versand-Lauf für den frühesten Fälligkeitszeitpunkt ein; ein schon
+     * eingeplanter späterer Lauf wird dabei abgebrochen. Darf nur innerhalb eines
+     * {@code synchronized}-Blocks aufgerufen werden.
+     */
+    private void planeNaechstenLauf() {
+
+        if ( _faelligkeiten.isEmpty() ) {
+
+            return;
+        }
+
+        final LocalDateTime fruehesteFaelligkeit = _faelligkeiten.first();
+
+        if ( _naechsterLauf != null ) {
+
+            if ( !fruehesteFaelligkeit.isBefore( _naechsterLaufZeitpunkt ) ) {
+
+                return; // schon passend eingeplant
+            }
+            _naechsterLauf.cancel( false );
+        }
+
+        _naechsterLaufZeitpunkt = fruehesteFaelligkeit;
+        _naechsterLauf          = _taskScheduler.schedule(
+                                        this::ausfuehren,
+                                        fruehesteFaelligkeit.atZone( ZoneId.systemDefault() ).toInstant()
+                                  );
+
+        LOG.debug( "Naechster Versand-Lauf eingeplant fuer {}.", fruehesteFaelligkeit );
+    }
+
+}
@@ -0,0 +1,20 @@
+package de.eldecker.spring.reminder.model;
+
+import java.util.List;
+
+import de.eldecker.spring.reminder.db_jpa.ReminderArchivEntity;
+
+
+/**
+ * Eine Seite des Archivs mit versendeten Remindern (Keyset-Pagination).
+ * 
+ * @param reminder Archivierte Reminder auf dieser Seite, absteigend sortiert nach 
+ *                 Versandzeitpunkt und ID
+ * 
+ * @param hatWeitere {@code true} gdw. es nach dieser Seite noch weitere Reminder gibt;
+ *                   die nächste Seite beginnt dann nach dem letzten Element von {@code reminder}
+ */
+public record ArchivSeite( List<ReminderArchivEntity> reminder, 
+                           boolean                    hatWeitere 
+                         ) {
+}
@@ -0,0 +1,23 @@
+package de.eldecker.spring.reminder.model;
+
+import java.util.List;
+
+
+/**
+ * Ergebnis eines Imports von Remindern.
+ * 
+ * @param anzahlZeilen Anzahl der gelesenen Zeilen (inkl. Leer- und Kommentarzeilen)
+ * 
+ * @param anzahlImportiert Anzahl der importierten Reminder
+ * 
+ * @param anzahlFehler Anzahl der Zeilen, die wegen eines Fehlers nicht importiert wurden
+ * 
+ * @param fehler Fehler pro Zeile; enthält höchstens so viele Einträge wie konfiguriert,
+ *               auch wenn {@code anzahlFehler} größer ist
+ */
+public record ImportErgebnis( long               anzahlZeilen,
+                              int                anzahlImportiert,
+                              int                anzahlFehler,
+                              List<ImportFehler> fehler 
+                            ) {
+}
@@ -0,0 +1,14 @@
+package de.eldecker.spring.reminder.model;
+
+
+/**
+ * Fehler in einer Zeile einer Import-Datei.
+ * 
+ * @param zeile Zeilennummer in der Import-Datei (beginnend mit 1)
+ * 
+ * @param fehlerbeschreibung Grund, warum die Zeile nicht importiert wurde
+ */
+public record ImportFehler( long   zeile, 
+                            String fehlerbeschreibung 
+                          ) {
+}
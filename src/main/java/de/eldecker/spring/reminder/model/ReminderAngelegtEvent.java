@@ -0,0 +1,23 @@
+package de.eldecker.spring.reminder.model;
+
+import java.time.LocalDateTime;
+
+
+/**
+ * Ereignis, das nach dem Anlegen eines neuen Reminders veröffentlicht wird
+ * (siehe {@code ApplicationEventPublisher} von <i>Spring</i>).
+ * 
+ * @param reminderId ID des neu angelegten Reminders
+ * 
+ * @param zeitpunktFaellig Zeitpunkt, zu dem der Reminder versendet werden soll
+ * 
+ * @param reminderText Text des Reminders
+ * 
+ * @param wiederholung Regel für wiederkehrenden Reminder, {@code null} für einmaligen Reminder
+ */
+public record ReminderAngelegtEvent( long          reminderId, 
+                                     LocalDateTime zeitpunktFaellig,
+                                     String        reminderText,
+                                     Wiederholung  wiederholung
+                                   ) {
+}
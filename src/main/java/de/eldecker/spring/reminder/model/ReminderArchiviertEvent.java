@@ -0,0 +1,16 @@
+package de.eldecker.spring.reminder.model;
+
+
+/**
+ * Ereignis, das veröffentlicht wird, nachdem versendete Reminder nach Ablauf der 
+ * Aufbewahrungsfrist aus Tabelle {@code REMINDER} archiviert oder gelöscht wurden
+ * (siehe {@code ApplicationEventPublisher} von <i>Spring</i>).
+ * 
+ * @param anzahl Anzahl der entfernten Reminder
+ * 
+ * @param geloescht {@code true}, wenn die Reminder gelöscht und nicht archiviert wurden
+ */
+public record ReminderArchiviertEvent( int     anzahl, 
+                                       boolean geloescht 
+                                     ) {
+}
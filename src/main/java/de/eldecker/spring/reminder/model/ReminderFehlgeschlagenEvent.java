@@ -0,0 +1,20 @@
+package de.eldecker.spring.reminder.model;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+
+/**
+ * Ereignis, das veröffentlicht wird, nachdem der Versand einer Email nach der maximalen
+ * Anzahl an Versuchen endgültig fehlgeschlagen ist (siehe {@code ApplicationEventPublisher}
+ * von <i>Spring</i>); die Reminder dieser Email bleiben offen, werden aber nicht erneut
+ * versendet.
+ * 
+ * @param reminderIds IDs der Reminder, die als fehlgeschlagen markiert wurden
+ * 
+ * @param zeitpunktFehlgeschlagen Zeitpunkt des letzten Versuchs
+ */
+public record ReminderFehlgeschlagenEvent( List<Long>    reminderIds, 
+                                           LocalDateTime zeitpunktFehlgeschlagen 
+                                         ) {
+}
@@ -0,0 +1,33 @@
+package de.eldecker.spring.reminder.model;
+
+
+/**
+ * Daten für einen neuen Reminder, noch nicht geprüft: eine Zeile einer Import-Datei
+ * (CSV oder NDJSON) oder der Request-Body beim Anlegen über die REST-API.
+ * 
+ * @param tag Tag von Fälligkeitsdatum (1..31)
+ * 
+ * @param monat Monat von Fälligkeitsdatum (1..12)
+ * 
+ * @param jahr Vierstelliges Jahr von Fälligkeitsdatum
+ * 
+ * @param stunde Stunde von Fälligkeitszeitpunkt (0..23)
+ * 
+ * @param minute Minute von Fälligkeitszeitpunkt (0..59)
+ * 
+ * @param text Text für Betreffzeile der Reminder-Email
+ * 
+ * @param wiederholung Regel für wiederkehrenden Reminder, {@code null} für einmaligen Reminder
+ * 
+ * @param cron Cron-Ausdruck für {@link Wiederholung#CRON}, sonst {@code null}
+ */
+public record ReminderImportZeile( int          tag, 
+                                   int          monat, 
+                                   int          jahr, 
+                                   int          stunde, 
+                                   int          minute, 
+                                   String       text,
+                                   Wiederholung wiederholung,
+                                   String       cron
+                                 ) {
+}
@@ -0,0 +1,18 @@
+package de.eldecker.spring.reminder.model;
+
+import java.time.LocalDateTime;
+
+
+/**
+ * Ereignis, das nach einem Import von Remindern veröffentlicht wird
+ * (siehe {@code ApplicationEventPublisher} von <i>Spring</i>). Anders als bei
+ * {@link ReminderAngelegtEvent} wird nicht jeder einzelne Reminder gemeldet.
+ * 
+ * @param anzahl Anzahl der importierten Reminder
+ * 
+ * @param fruehesteFaelligkeit Frühester Fälligkeitszeitpunkt der importierten Reminder
+ */
+public record ReminderImportiertEvent( int           anzahl, 
+                                       LocalDateTime fruehesteFaelligkeit 
+                                     ) {
+}
@@ -0,0 +1,19 @@
+package de.eldecker.spring.reminder.model;
+
+import java.util.List;
+
+import de.eldecker.spring.reminder.db_jpa.ReminderAnzeige;
+
+
+/**
+ * Eine Seite der Reminder-Liste (Keyset-Pagination).
+ * 
+ * @param reminder Projektionen der Reminder auf dieser Seite, aufsteigend sortiert nach Fälligkeitszeitpunkt und ID
+ * 
+ * @param hatWeitere {@code true} gdw. es nach dieser Seite noch weitere Reminder gibt;
+ *                   die nächste Seite beginnt dann nach dem letzten Element von {@code reminder}
+ */
+public record ReminderSeite( List<ReminderAnzeige> reminder, 
+                             boolean               hatWeitere 
+                           ) {
+}
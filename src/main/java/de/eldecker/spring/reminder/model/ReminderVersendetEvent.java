@@ -0,0 +1,22 @@
+package de.eldecker.spring.reminder.model;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+
+/**
+ * Ereignis, das nach dem Versand eines Chunks von Remindern veröffentlicht wird
+ * (siehe {@code ApplicationEventPublisher} von <i>Spring</i>).
+ * 
+ * @param reminderIds IDs der Reminder, die versendet und als versendet markiert wurden
+ * 
+ * @param zeitpunktVersendet Zeitpunkt, zu dem die Reminder als versendet markiert wurden
+ * 
+ * @param anzahlEmails Anzahl der zugestellten Emails; bei Sammel-Emails kleiner als die
+ *                     Anzahl der Reminder
+ */
+public record ReminderVersendetEvent( List<Long>    reminderIds, 
+                                      LocalDateTime zeitpunktVersendet,
+                                      int           anzahlEmails
+                                    ) {
+}
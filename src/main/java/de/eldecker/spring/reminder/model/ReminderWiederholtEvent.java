@@ -0,0 +1,24 @@
+package de.eldecker.spring.reminder.model;
+
+import java.time.LocalDateTime;
+
+
+/**
+ * Ereignis, das veröffentlicht wird, nachdem ein wiederkehrender Reminder versendet
+ * und seine nächste Fälligkeit berechnet wurde (siehe {@code ApplicationEventPublisher} 
+ * von <i>Spring</i>).
+ * 
+ * @param reminderId ID des Reminders
+ * 
+ * @param zeitpunktFaellig Nächster Zeitpunkt, zu dem der Reminder versendet werden soll
+ * 
+ * @param reminderText Text des Reminders
+ * 
+ * @param wiederholung Regel für die Wiederholung
+ */
+public record ReminderWiederholtEvent( long          reminderId, 
+                                       LocalDateTime zeitpunktFaellig,
+                                       String        reminderText,
+                                       Wiederholung  wiederholung
+                                     ) {
+}
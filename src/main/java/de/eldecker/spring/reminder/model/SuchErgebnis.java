@@ -0,0 +1,21 @@
+package de.eldecker.spring.reminder.model;
+
+import java.util.List;
+
+import de.eldecker.spring.reminder.db_jpa.ReminderEntity;
+
+
+/**
+ * Eine Seite mit den Treffern einer Volltextsuche über die Reminder-Texte.
+ * 
+ * @param reminder Reminder auf dieser Seite, absteigend sortiert nach Relevanz
+ * 
+ * @param anzahlTreffer Gesamtzahl der Treffer (über alle Seiten)
+ * 
+ * @param hatWeitere {@code true} gdw. es nach dieser Seite noch weitere Treffer gibt
+ */
+public record SuchErgebnis( List<ReminderEntity> reminder,
+                            int                  anzahlTreffer,
+                            boolean              hatWeitere
+                          ) {
+}
@@ -0,0 +1,95 @@
+package de.eldecker.spring.reminder.model;
+
+import static java.time.temporal.ChronoUnit.DAYS;
+import static java.time.temporal.ChronoUnit.MONTHS;
+import static java.time.temporal.ChronoUnit.WEEKS;
+import static java.time.temporal.ChronoUnit.YEARS;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+import org.springframework.scheduling.support.CronExpression;
+
+
+/**
+ * Regel, nach der ein wiederkehrender Reminder erneut fällig wird; für einmalige
+ * Reminder ist die Regel {@code null}.
+ * <br><br>
+ * 
+ * Gespeichert wird nur der jeweils nächste Fälligkeitszeitpunkt; der übernächste wird 
+ * erst nach dem Versand mit {@link #naechsterZeitpunkt(LocalDateTime, String, LocalDateTime)}
+ * berechnet.
+ */
+public enum Wiederholung {
+    
+    TAEGLICH(     "täglich"    , DAYS   ),
+    WOECHENTLICH( "wöchentlich", WEEKS  ),
+    MONATLICH(    "monatlich"  , MONTHS ),
+    JAEHRLICH(    "jährlich"   , YEARS  ),
+    
+    /** 
+     * Cron-Ausdruck mit sechs Feldern (Sekunde, Minute, Stunde, Tag, Monat, Wochentag), 
+     * siehe {@link CronExpression}; z.B. {@code 0 0 8 * * MON-FRI} für werktags um 8 Uhr.
+     */
+    CRON(         "nach Cron-Ausdruck", null );
+    
+    
+    /** Bezeichnung für Anzeige. */
+    private final String _bezeichnung;
+    
+    /** Abstand zwischen zwei Fälligkeiten, {@code null} für {@link #CRON}. */
+    private final ChronoUnit _einheit;
+    
+    
+    private Wiederholung( String bezeichnung, ChronoUnit einheit ) {
+        
+        _bezeichnung = bezeichnung;
+        _einheit     = einheit;
+    }
+    
+    
+    public String getBezeichnung() {
+        
+        return _bezeichnung;
+    }
+    
+    
+    /**
+     * Berechnet die erste Fälligkeit nach dem übergebenen Zeitpunkt. Die Fälligkeiten 
+     * werden immer vom Anker aus berechnet und nicht von der vorherigen Fälligkeit, damit 
+     * z.B. ein monatlicher Reminder am 31. nach dem Februar wieder am 31. fällig wird.
+     * Verpasste Fälligkeiten (z.B. nach einer Downtime) werden übersprungen.
+     * 
+     * @param anker Erste Fälligkeit des Reminders (wird für {@link #CRON} ignoriert)
+     * 
+     * @param cronAusdruck Cron-Ausdruck, nur für {@link #CRON}
+     * 
+     * @param nach Ergebnis muss nach diesem Zeitpunkt liegen
+     * 
+     * @return Nächste Fälligkeit, oder {@code null} wenn der Cron-Ausdruck keine weitere
+     *         Fälligkeit hat
+     * 
+     * @throws IllegalArgumentException Ungültiger Cron-Ausdruck
+     */
+    public LocalDateTime naechsterZeitpunkt( LocalDateTime anker, 
+                                             String        cronAusdruck, 
+                                             LocalDateTime nach ) {
+        
+        if ( this == CRON ) {
+            
+            return CronExpression.parse( cronAusdruck ).next( nach );
+        }
+        
+        long anzahl = Math.max( 0, _einheit.between( anker, nach ) );
+        
+        LocalDateTime zeitpunkt = anker.plus( anzahl, _einheit );
+        while ( !zeitpunkt.isAfter( nach ) ) {
+            
+            anzahl++;
+            zeitpunkt = anker.plus( anzahl, _einheit );
+        }
+        
+        return zeitpunkt;
+    }
+    
+}
@@ -0,0 +1,67 @@
+package de.eldecker.spring.reminder.web;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import de.eldecker.spring.reminder.logik.ReminderImporter;
+import de.eldecker.spring.reminder.model.ImportErgebnis;
+
+
+/**
+ * REST-Controller für den Import vieler Reminder. Die Datei wird als Request-Body 
+ * hochgeladen und als Stream verarbeitet, Beispiel:
+ * <pre>
+ * curl -X POST -H "Content-Type: text/csv" --data-binary @reminder.csv http://localhost:8080/api/v1/reminder/import
+ * </pre>
+ */
+@RestController
+@RequestMapping( "api/v1/reminder" )
+public class ReminderImportController {
+    
+    /** Bean mit Logik für den Import. */
+    private ReminderImporter _reminderImporter;
+    
+    
+    /**
+     * Konstruktor für Dependency Injection.
+     */
+    @Autowired
+    public ReminderImportController( ReminderImporter reminderImporter ) {
+        
+        _reminderImporter = reminderImporter;
+    }
+    
+    
+    /**
+     * Import von Remindern aus CSV-Datei, Format siehe {@link ReminderImporter#importiereCsv(InputStream)}.
+     * 
+     * @param requestBody CSV-Datei
+     * 
+     * @return Ergebnis mit Anzahl importierter Reminder und Fehlern pro Zeile
+     */
+    @PostMapping( value = "/import", consumes = "text/csv" )
+    public ImportErgebnis importiereCsv( InputStream requestBody ) throws IOException {
+        
+        return _reminderImporter.importiereCsv( requestBody );
+    }
+    
+    
+    /**
+     * Import von Remindern aus NDJSON-Datei, Format siehe {@link ReminderImporter#importiereNdjson(InputStream)}.
+     * 
+     * @param requestBody NDJSON-Datei
+     * 
+     * @return Ergebnis mit Anzahl importierter Reminder und Fehlern pro Zeile
+     */
+    @PostMapping( value = "/import", consumes = "application/x-ndjson" )
+    public ImportErgebnis importiereNdjson( InputStream requestBody ) throws IOException {
+        
+        return _reminderImporter.importiereNdjson( requestBody );
+    }
+    
+}
@@ -0,0 +1,85 @@
+package de.eldecker.spring.reminder.web;
+
+import java.time.LocalDateTime;
+
+import de.eldecker.spring.reminder.db_jpa.ReminderAnzeige;
+import de.eldecker.spring.reminder.db_jpa.ReminderEntity;
+import de.eldecker.spring.reminder.model.Wiederholung;
+
+
+/**
+ * JSON-Darstellung eines Reminders für die REST-API.
+ * 
+ * @param id ID des Reminders
+ * 
+ * @param text Text für Betreffzeile der Reminder-Email
+ * 
+ * @param zeitpunktAngelegt Zeitpunkt, zu dem der Reminder angelegt wurde
+ * 
+ * @param zeitpunktFaellig (Nächster) Zeitpunkt, zu dem der Reminder versendet werden soll
+ * 
+ * @param zeitpunktVersendet Zeitpunkt des Versands, {@code null} wenn noch nicht versendet
+ * 
+ * @param schonVersendet {@code true} gdw. der Reminder schon versendet wurde (bei wiederkehrenden
+ *                       Remindern erst, wenn es keine weitere Fälligkeit gibt)
+ * 
+ * @param zeitpunktFehlgeschlagen Zeitpunkt, zu dem der Versand endgültig fehlgeschlagen ist,
+ *                                {@code null} wenn nicht fehlgeschlagen
+ * 
+ * @param wiederholung Regel für wiederkehrenden Reminder, {@code null} für einmaligen Reminder
+ * 
+ * @param cron Cron-Ausdruck für {@link Wiederholung#CRON}
+ */
+public record ReminderJson( long          id,
+                            String        text,
+                            LocalDateTime zeitpunktAngelegt,
+                            LocalDateTime zeitpunktFaellig,
+                            LocalDateTime zeitpunktVersendet,
+                            boolean       schonVersendet,
+                            LocalDateTime zeitpunktFehlgeschlagen,
+                            Wiederholung  wiederholung,
+                            String        cron
+                          ) {
+    
+    /**
+     * Erzeugt JSON-Darstellung für eine Reminder-Entity.
+     * 
+     * @param entity Reminder aus der Datenbank
+     * 
+     * @return JSON-Darstellung
+     */
+    public static ReminderJson von( ReminderEntity entity ) {
+        
+        return new ReminderJson( entity.getId(),
+                                 entity.getReminderText(),
+                                 entity.getZeitpunktAngelegt(),
+                                 entity.getZeitpunktFaelligkeit(),
+                                 entity.getZeitpunktVersendet(),
+                                 entity.isSchonVersendet(),
+                                 entity.getZeitpunktFehlgeschlagen(),
+                                 entity.getWiederholung(),
+                                 entity.getWiederholungCron() );
+    }
+    
+    
+    /**
+     * Erzeugt JSON-Darstellung für eine read-only Projektion eines Reminders.
+     * 
+     * @param anzeige Reminder aus der Datenbank
+     * 
+     * @return JSON-Darstellung
+     */
+    public static ReminderJson von( ReminderAnzeige anzeige ) {
+        
+        return new ReminderJson( anzeige.id(),
+                                 anzeige.reminderText(),
+                                 anzeige.zeitpunktAngelegt(),
+                                 anzeige.zeitpunktFaellig(),
+                                 anzeige.zeitpunktVersendet(),
+                                 anzeige.schonVersendet(),
+                                 anzeige.zeitpunktFehlgeschlagen(),
+                                 anzeige.wiederholung(),
+                                 anzeige.wiederholungCron() );
+    }
+    
+}
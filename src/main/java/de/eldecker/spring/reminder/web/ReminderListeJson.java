@@ -0,0 +1,17 @@
+package de.eldecker.spring.reminder.web;
+
+import java.util.List;
+
+
+/**
+ * Eine Seite der Reminder-Liste für die REST-API.
+ * 
+ * @param reminder Reminder auf der Seite, aufsteigend sortiert nach Fälligkeitszeitpunkt und ID
+ * 
+ * @param naechsterCursor Wert für Parameter {@code cursor}, um die nächste Seite zu laden;
+ *                        {@code null}, wenn dies die letzte Seite ist
+ */
+public record ReminderListeJson( List<ReminderJson> reminder,
+                                 String             naechsterCursor 
+                               ) {
+}
@@ -0,0 +1,58 @@
+package de.eldecker.spring.reminder.web;
+
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+
+/**
+ * Controller für den Live-Feed (Server-Sent Events) der Seiten "liste.html" und "stats.html",
+ * siehe {@link ReminderLiveFeed}. Beispiel:
+ * <pre>
+ * curl -N http://localhost:8080/app/v1/live
+ * </pre>
+ */
+@RestController
+@RequestMapping( "app/v1" )
+public class ReminderLiveController {
+    
+    /** Bean, die die Änderungen an alle offenen Verbindungen schickt. */
+    private ReminderLiveFeed _reminderLiveFeed;
+    
+    
+    /**
+     * Konstruktor für Dependency Injection.
+     */
+    @Autowired
+    public ReminderLiveController( ReminderLiveFeed reminderLiveFeed ) {
+        
+        _reminderLiveFeed = reminderLiveFeed;
+    }
+    
+    
+    /**
+     * Öffnet eine Verbindung für den Live-Feed.
+     * 
+     * @return Event-Stream, oder Status 503 wenn schon zu viele Verbindungen offen sind
+     *         (der Browser versucht es dann nicht erneut, die Seite wird nur nicht
+     *         aktualisiert)
+     */
+    @GetMapping( value = "/live", produces = MediaType.TEXT_EVENT_STREAM_VALUE )
+    public ResponseEntity<SseEmitter> live() {
+        
+        final SseEmitter verbindung = _reminderLiveFeed.verbinden();
+        if ( verbindung == null ) {
+            
+            return ResponseEntity.status( SERVICE_UNAVAILABLE ).build();
+        }
+        
+        return ResponseEntity.ok( verbindung );
+    }
+
+}
@@ -0,0 +1,502 @@
+package de.eldecker.spring.reminder.web;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import de.eldecker.spring.reminder.db_jpa.ReminderAnzeige;
+import de.eldecker.spring.reminder.logik.ReminderZaehler;
+import de.eldecker.spring.reminder.model.ReminderAngelegtEvent;
+import de.eldecker.spring.reminder.model.ReminderArchiviertEvent;
+import de.eldecker.spring.reminder.model.ReminderFehlgeschlagenEvent;
+import de.eldecker.spring.reminder.model.ReminderImportiertEvent;
+import de.eldecker.spring.reminder.model.ReminderVersendetEvent;
+import de.eldecker.spring.reminder.model.ReminderWiederholtEvent;
+import de.eldecker.spring.reminder.model.Wiederholung;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import tools.jackson.databind.json.JsonMapper;
+
+
+/**
+ * Bean-Klasse für den Live-Feed (Server-Sent Events) der Seiten "liste.html" und
+ * "stats.html": Statt die Seiten regelmäßig komplett neu zu laden, bekommen die geöffneten
+ * Seiten nur kleine Änderungen (Deltas) geschickt, die per JavaScript eingearbeitet werden.
+ * <br><br>
+ * 
+ * Events (Name und JSON-Inhalt):
+ * <ul>
+ * <li>{@code angelegt}: Neuer Reminder (aus {@link ReminderAngelegtEvent}) mit ID,
+ *     Fälligkeit und Anzeige-Text</li>
+ * <li>{@code versendet}: IDs der versendeten Reminder eines Chunks und Anzahl der dafür
+ *     zugestellten Emails (aus {@link ReminderVersendetEvent})</li>
+ * <li>{@code verschoben}: Wiederkehrender Reminder mit neuer Fälligkeit nach dem Versand
+ *     (aus {@link ReminderWiederholtEvent}), Inhalt wie bei {@code angelegt}</li>
+ * <li>{@code fehlgeschlagen}: IDs der Reminder, deren Email endgültig nicht versendet
+ *     werden konnte (aus {@link ReminderFehlgeschlagenEvent}); sie bleiben offen</li>
+ * <li>{@code zaehler}: Nur die Zähler, nach Import und Archivierung sowie direkt nach dem
+ *     Verbindungsaufbau</li>
+ * </ul>
+ * Alle Events enthalten die aktuellen Zähler aus {@link ReminderZaehler}.
+ * <br><br>
+ * 
+ * Die Event-Listener stellen die Deltas nur in eine Warteschlange; ein eigener Thread
+ * serialisiert jedes Delta genau einmal und stellt es in die Warteschlangen aller offenen
+ * Verbindungen, so dass viele geöffnete Seiten nur ein Fan-out pro Änderung kosten und ein
+ * langsamer Client nicht das Anlegen oder den Versand der Reminder aufhält. Ist die
+ * Warteschlange voll, wird das älteste Delta verworfen.
+ * <br><br>
+ * 
+ * Geschrieben wird jede Verbindung von einem eigenen virtuellen Thread, denn
+ * {@link SseEmitter#send(Set)} blockiert, bis der Client die Daten abnimmt; ein langsamer
+ * Client hält so die anderen Verbindungen nicht auf. Ist die Warteschlange einer Verbindung
+ * voll, weil der Client nicht mehr mitkommt, dann wird die Verbindung geschlossen (der
+ * Browser baut sie danach neu auf).
+ */
+@Component
+public class ReminderLiveFeed {
+    
+    private static Logger LOG = LoggerFactory.getLogger( ReminderLiveFeed.class );
+    
+    /** Maximale Anzahl Deltas in der Warteschlange. */
+    private static final int KAPAZITAET = 1000;
+    
+    /** Maximale Anzahl noch nicht geschriebener Events pro Verbindung. */
+    private static final int KAPAZITAET_VERBINDUNG = 100;
+    
+    
+    /** Delta für einen neuen Reminder oder einen Reminder mit neuer Fälligkeit. */
+    record Faellig( long          id,
+                    LocalDateTime zeitpunktFaellig,
+                    String        anzeigeText,
+                    int           anzahlOffen,
+                    int           anzahlVersendet
+                  ) {}
+    
+    /** Delta für versendete Reminder. */
+    record Versendet( List<Long> ids,
+                      int        anzahlEmails,
+                      int        anzahlOffen,
+                      int        anzahlVersendet
+                    ) {}
+    
+    /** Delta für Reminder, deren Versand endgültig fehlgeschlagen ist. */
+    record Fehlgeschlagen( List<Long> ids,
+                           int        anzahlOffen,
+                           int        anzahlVersendet
+                         ) {}
+    
+    /** Delta nur mit den Zählern. */
+    record Zaehler( int anzahlOffen,
+                    int anzahlVersendet
+                  ) {}
+    
+    /** Eintrag in der Warteschlange: Name des Events und Inhalt, {@code null} für Heartbeat. */
+    private record Delta( String name, Object inhalt ) {}
+    
+    
+    /**
+     * Offene Verbindung mit eigener Warteschlange und eigenem virtuellen Thread, der die
+     * Events aus der Warteschlange schreibt.
+     */
+    private final class Verbindung {
+        
+        /** Verbindung zum Browser. */
+        final SseEmitter emitter;
+        
+        /** Noch nicht geschriebene Events. */
+        final BlockingQueue<Set<DataWithMediaType>> ausstehend = new ArrayBlockingQueue<>( KAPAZITAET_VERBINDUNG );
+        
+        /** Thread, der die Events schreibt. */
+        volatile Thread schreibThread;
+        
+        
+        Verbindung( SseEmitter emitter ) {
+            
+            this.emitter = emitter;
+        }
+        
+        
+        /**
+         * Schleife des Schreib-Threads, endet nach {@link ReminderLiveFeed#entfernen(Verbindung)}
+         * und schließt dann die Verbindung; das Schließen muss hier erfolgen, weil
+         * {@link SseEmitter#complete()} wartet, bis ein laufendes {@code send()} fertig ist.
+         */
+        void schreiben() {
+            
+            try {
+                
+                while ( true ) {
+                    
+                    emitter.send( ausstehend.take() );
+                }
+            }
+            catch ( InterruptedException ex ) {
+                
+                emitter.complete();
+            }
+            catch ( IOException | IllegalStateException ex ) {
+                
+                LOG.debug( "Verbindung fuer Live-Feed beim Schreiben geschlossen: {}", ex.getMessage() );
+                entfernen( this );
+                emitter.completeWithError( ex );
+            }
+        }
+    }
+    
+    
+    /** Maximale Anzahl gleichzeitig geöffneter Verbindungen. */
+    @Value( "${de.eldecker.reminder.live_max_verbindungen:1000}" )
+    private int _maxVerbindungen;
+    
+    /** Timeout einer Verbindung in Millisekunden, danach baut der Browser sie neu auf. */
+    @Value( "${de.eldecker.reminder.live_timeout_ms:1800000}" )
+    private long _timeoutMs;
+    
+    /** Bean mit Zählern für versendete und noch nicht versendete Reminder. */
+    private final ReminderZaehler _reminderZaehler;
+    
+    /** Für Serialisierung der Deltas nach JSON. */
+    private final JsonMapper _jsonMapper;
+    
+    /** Offene Verbindungen. */
+    private final List<Verbindung> _verbindungen = new CopyOnWriteArrayList<>();
+    
+    /** Noch nicht verteilte Deltas. */
+    private final BlockingQueue<Delta> _warteschlange = new ArrayBlockingQueue<>( KAPAZITAET );
+    
+    /** Anzahl der wegen voller Warteschlange verworfenen Deltas. */
+    private final AtomicLong _anzahlVerworfen = new AtomicLong( 0 );
+    
+    /** Thread, der die Deltas auf die Verbindungen verteilt. */
+    private Thread _verteilThread;
+    
+    /** Wird beim Herunterfahren auf {@code false} gesetzt. */
+    private volatile boolean _aktiv = false;
+    
+    
+    /**
+     * Konstruktor für Dependency Injection.
+     */
+    @Autowired
+    public ReminderLiveFeed( ReminderZaehler reminderZaehler,
+                             JsonMapper      jsonMapper,
+                             MeterRegistry   meterRegistry
+                           ) {
+        
+        _reminderZaehler = reminderZaehler;
+        _jsonMapper      = jsonMapper;
+        
+        Gauge.builder( "reminder.live.verbindungen", _verbindungen, List::size )
+             .description( "Anzahl offener Verbindungen für den Live-Feed" )
+             .register( meterRegistry );
+    }
+    
+    
+    /**
+     * Startet den Thread, der die Deltas verteilt.
+     */
+    @PostConstruct
+    public void starten() {
+        
+        _aktiv = true;
+        
+        _verteilThread = Thread.ofPlatform()
+                               .name( "live-verteiler" )
+                               .daemon()
+                               .start( this::verteilSchleife );
+    }
+    
+    
+    /**
+     * Schließt beim Herunterfahren alle Verbindungen, und zwar schon bevor der Web-Server
+     * beim "Graceful Shutdown" auf das Ende der laufenden Requests wartet.
+     */
+    @EventListener( ContextClosedEvent.class )
+    public void verbindungenSchliessen() {
+        
+        for ( Verbindung verbindung : _verbindungen ) {
+            
+            entfernen( verbindung );
+            verbindung.emitter.complete();
+        }
+    }
+    
+    
+    /**
+     * Beendet den Verteil-Thread.
+     */
+    @PreDestroy
+    public void beenden() throws InterruptedException {
+        
+        _aktiv = false;
+        _verteilThread.interrupt();
+        _verteilThread.join( 1000 );
+    }
+    
+    
+    /**
+     * Öffnet eine neue Verbindung; als erstes Event werden die aktuellen Zähler geschickt.
+     * 
+     * @return Verbindung, oder {@code null} wenn schon die maximale Anzahl von Verbindungen
+     *         offen ist
+     */
+    public SseEmitter verbinden() {
+        
+        if ( _verbindungen.size() >= _maxVerbindungen ) {
+            
+            LOG.warn( "Maximale Anzahl von {} Verbindung(en) fuer Live-Feed erreicht.", _maxVerbindungen );
+            return null;
+        }
+        
+        final SseEmitter emitter    = new SseEmitter( _timeoutMs );
+        final Verbindung verbindung = new Verbindung( emitter );
+        emitter.onCompletion( () -> entfernen( verbindung ) );
+        emitter.onTimeout(    () -> entfernen( verbindung ) );
+        emitter.onError(     ex -> entfernen( verbindung ) );
+        
+        try {
+            
+            emitter.send( event( "zaehler", zaehler() ) );
+        }
+        catch ( IOException ex ) {
+            
+            emitter.completeWithError( ex );
+            return emitter;
+        }
+        
+        verbindung.schreibThread = Thread.ofVirtual()
+                                         .name( "live-verbindung" )
+                                         .start( verbindung::schreiben );
+        _verbindungen.add( verbindung );
+        
+        return emitter;
+    }
+    
+    
+    /**
+     * Entfernt eine Verbindung und beendet ihren Schreib-Thread, der die Verbindung dann
+     * schließt (falls sie nicht schon geschlossen ist); die Methode wartet nicht.
+     */
+    private void entfernen( Verbindung verbindung ) {
+        
+        _verbindungen.remove( verbindung );
+        if ( verbindung.schreibThread != null ) {
+            
+            verbindung.schreibThread.interrupt();
+        }
+    }
+    
+    
+    @EventListener
+    public void onReminderAngelegt( ReminderAngelegtEvent event ) {
+        
+        einreihen( "angelegt", faellig( event.reminderId(), event.zeitpunktFaellig(),
+                                        event.reminderText(), event.wiederholung() ) );
+    }
+    
+    
+    @EventListener
+    public void onReminderVersendet( ReminderVersendetEvent event ) {
+        
+        einreihen( "versendet", new Versendet( event.reminderIds(),
+                                               event.anzahlEmails(),
+                                               _reminderZaehler.getAnzahlNichtVersendet(),
+                                               _reminderZaehler.getAnzahlVersendet() ) );
+    }
+    
+    
+    @EventListener
+    public void onReminderWiederholt( ReminderWiederholtEvent event ) {
+        
+        einreihen( "verschoben", faellig( event.reminderId(), event.zeitpunktFaellig(),
+                                          event.reminderText(), event.wiederholung() ) );
+    }
+    
+    
+    @EventListener
+    public void onReminderFehlgeschlagen( ReminderFehlgeschlagenEvent event ) {
+        
+        einreihen( "fehlgeschlagen", new Fehlgeschlagen( event.reminderIds(),
+                                                         _reminderZaehler.getAnzahlNichtVersendet(),
+                                                         _reminderZaehler.getAnzahlVersendet() ) );
+    }
+    
+    
+    @EventListener
+    public void onReminderImportiert( ReminderImportiertEvent event ) {
+        
+        einreihen( "zaehler", zaehler() );
+    }
+    
+    
+    @EventListener
+    public void onReminderArchiviert( ReminderArchiviertEvent event ) {
+        
+        einreihen( "zaehler", zaehler() );
+    }
+    
+    
+    /**
+     * Schickt regelmäßig einen Kommentar an alle Verbindungen, damit Proxies inaktive
+     * Verbindungen nicht schließen und geschlossene Verbindungen erkannt werden.
+     */
+    @Scheduled( initialDelayString = "${de.eldecker.reminder.live_heartbeat_ms:20000}",
+                fixedDelayString   = "${de.eldecker.reminder.live_heartbeat_ms:20000}" )
+    public void heartbeat() {
+        
+        if ( !_verbindungen.isEmpty() ) {
+            
+            einreihen( "heartbeat", null );
+        }
+    }
+    
+    
+    /**
+     * Anzahl der offenen Verbindungen.
+     * 
+     * @return Anzahl Verbindungen
+     */
+    public int getAnzahlVerbindungen() {
+        
+        return _verbindungen.size();
+    }
+    
+    
+    /**
+     * Anzahl der Deltas, die wegen voller Warteschlange verworfen wurden.
+     * 
+     * @return Anzahl Deltas seit Start der Anwendung
+     */
+    public long getAnzahlVerworfen() {
+        
+        return _anzahlVerworfen.get();
+    }
+    
+    
+    /**
+     * Baut das Delta für einen offenen Reminder auf, mit demselben Anzeige-Text wie in der
+     * Reminder-Liste.
+     */
+    private Faellig faellig( long          id,
+                             LocalDateTime zeitpunktFaellig,
+                             String        reminderText,
+                             Wiederholung  wiederholung ) {
+        
+        final String anzeigeText = new ReminderAnzeige( id, reminderText, null, zeitpunktFaellig,
+                                                        null, false, null, wiederholung, null ).anzeigeText();
+        
+        return new Faellig( id, zeitpunktFaellig, anzeigeText,
+                            _reminderZaehler.getAnzahlNichtVersendet(),
+                            _reminderZaehler.getAnzahlVersendet() );
+    }
+    
+    
+    private Zaehler zaehler() {
+        
+        return new Zaehler( _reminderZaehler.getAnzahlNichtVersendet(), _reminderZaehler.getAnzahlVersendet() );
+    }
+    
+    
+    /**
+     * Delta in die Warteschlange stellen; ohne offene Verbindungen wird nichts gemacht.
+     */
+    private void einreihen( String name, Object inhalt ) {
+        
+        if ( _verbindungen.isEmpty() ) {
+            
+            return;
+        }
+        
+        final Delta delta = new Delta( name, inhalt );
+        while ( !_warteschlange.offer( delta ) ) {
+            
+            if ( _warteschlange.poll() != null ) {
+                
+                _anzahlVerworfen.incrementAndGet();
+            }
+        }
+    }
+    
+    
+    /**
+     * Schleife des Verteil-Threads.
+     */
+    private void verteilSchleife() {
+        
+        while ( _aktiv ) {
+            
+            try {
+                
+                verteilen( _warteschlange.take() );
+            }
+            catch ( InterruptedException ex ) {
+                
+                if ( _aktiv ) {
+                    
+                    LOG.warn( "Verteil-Thread fuer Live-Feed wurde unterbrochen." );
+                }
+            }
+            catch ( RuntimeException ex ) {
+                
+                LOG.error( "Fehler beim Verteilen eines Deltas fuer Live-Feed.", ex );
+            }
+        }
+    }
+    
+    
+    /**
+     * Serialisiert das Delta einmal und stellt es in die Warteschlangen aller offenen
+     * Verbindungen, ohne zu warten; Verbindungen, deren Warteschlange voll ist, werden
+     * geschlossen.
+     */
+    private void verteilen( Delta delta ) {
+        
+        final Set<DataWithMediaType> event = delta.inhalt() == null
+                                             ? SseEmitter.event().comment( delta.name() ).build()
+                                             : event( delta.name(), delta.inhalt() );
+        
+        for ( Verbindung verbindung : _verbindungen ) {
+            
+            if ( !verbindung.ausstehend.offer( event ) ) {
+                
+                LOG.debug( "Client fuer Live-Feed zu langsam ({} Events ausstehend), Verbindung wird geschlossen.",
+                           KAPAZITAET_VERBINDUNG );
+                entfernen( verbindung );
+            }
+        }
+    }
+    
+    
+    /**
+     * Baut ein Event mit dem nach JSON serialisierten Inhalt auf.
+     */
+    private Set<DataWithMediaType> event( String name, Object inhalt ) {
+        
+        return SseEmitter.event()
+                         .name( name )
+                         .data( _jsonMapper.writeValueAsString( inhalt ), MediaType.TEXT_PLAIN )
+                         .build();
+    }
+
+}
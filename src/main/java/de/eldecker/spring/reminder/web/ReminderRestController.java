@@ -0,0 +1,310 @@
+package de.eldecker.spring.reminder.web;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
+
+import java.net.URI;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Objects;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import de.eldecker.spring.reminder.db_jpa.ReminderAnzeige;
+import de.eldecker.spring.reminder.db_jpa.ReminderEntity;
+import de.eldecker.spring.reminder.logik.ReminderService;
+import de.eldecker.spring.reminder.logik.ReminderSuche;
+import de.eldecker.spring.reminder.logik.ReminderVersion;
+import de.eldecker.spring.reminder.model.ReminderException;
+import de.eldecker.spring.reminder.model.ReminderImportZeile;
+import de.eldecker.spring.reminder.model.ReminderSeite;
+import de.eldecker.spring.reminder.model.SuchErgebnis;
+
+
+/**
+ * REST-Controller mit JSON-API für Reminder, z.B. für Dashboards und Skripte.
+ * <br><br>
+ * 
+ * Die GET-Antworten enthalten einen starken ETag, der aus {@link ReminderVersion} und den
+ * Request-Parametern berechnet wird. Schickt der Client diesen ETag im Header 
+ * {@code If-None-Match} mit und hat sich die Tabelle seitdem nicht geändert, dann wird 
+ * ohne Datenbankzugriff mit "304 Not Modified" geantwortet.
+ */
+@RestController
+@RequestMapping( "api/v1/reminder" )
+public class ReminderRestController {
+    
+    private static Logger LOG = LoggerFactory.getLogger( ReminderRestController.class );
+    
+    
+    /** Bean mit Geschäftslogik. */
+    private ReminderService _reminderService;
+    
+    /** Bean mit Versionszähler für die Reminder-Tabelle. */
+    private ReminderVersion _reminderVersion;
+    
+    /** Bean für Volltextsuche über die Reminder-Texte. */
+    private ReminderSuche _reminderSuche;
+    
+    /** Anzahl Reminder pro Seite, wenn nichts anderes angefordert wird. */
+    @Value( "${de.eldecker.reminder.liste_seitengroesse:50}" )
+    private int _seitenGroesseDefault;
+    
+    /** Maximale Anzahl Reminder pro Seite. */
+    @Value( "${de.eldecker.reminder.liste_seitengroesse_max:500}" )
+    private int _seitenGroesseMax;
+    
+    
+    /**
+     * Konstruktor für Dependency Injection.
+     */
+    @Autowired
+    public ReminderRestController( ReminderService reminderService,
+                                   ReminderVersion reminderVersion,
+                                   ReminderSuche   reminderSuche ) {
+        
+        _reminderService = reminderService;
+        _reminderVersion = reminderVersion;
+        _reminderSuche   = reminderSuche;
+    }
+    
+    
+    /**
+     * Neuen Reminder anlegen, Beispiel für Request-Body:
+     * <pre>
+     * {"tag":24,"monat":12,"jahr":2026,"stunde":8,"minute":0,"text":"Frohe Weihnachten!"}
+     * </pre>
+     * Für einen wiederkehrenden Reminder zusätzlich z.B. {@code "wiederholung":"WOECHENTLICH"}
+     * oder {@code "wiederholung":"CRON","cron":"0 0 8 * * MON-FRI"}.
+     * 
+     * @param neuerReminder Daten für neuen Reminder
+     * 
+     * @return Status 201 mit neuem Reminder und dessen URL im Header {@code Location}
+     * 
+     * @throws ReminderException Ungültige Daten, führt zu Status 400
+     */
+    @PostMapping
+    public ResponseEntity<ReminderJson> reminderAnlegen( @RequestBody ReminderImportZeile neuerReminder ) 
+                throws ReminderException {
+        
+        final long id = _reminderService.reminderAnlegen( neuerReminder.tag(), 
+                                                          neuerReminder.monat(), 
+                                                          neuerReminder.jahr(),
+                                                          neuerReminder.stunde(), 
+                                                          neuerReminder.minute(), 
+                                                          neuerReminder.text(),
+                                                          neuerReminder.wiederholung(),
+                                                          neuerReminder.cron() );
+        
+        final URI location = ServletUriComponentsBuilder.fromCurrentRequest()
+                                                        .path( "/{id}" )
+                                                        .buildAndExpand( id )
+                                                        .toUri();
+        
+        final ReminderEntity reminder = _reminderService.getReminder( id ).orElseThrow();
+        
+        return ResponseEntity.created( location ).body( ReminderJson.von( reminder ) );
+    }
+    
+    
+    /**
+     * Einzelnen Reminder abfragen.
+     * 
+     * @param webRequest Für Auswertung von {@code If-None-Match}
+     * 
+     * @param id ID des Reminders
+     * 
+     * @return Reminder, Status 404 wenn es keinen Reminder mit dieser ID gibt, oder
+     *         {@code null} für Status 304
+     */
+    @GetMapping( "/{id}" )
+    public ResponseEntity<ReminderJson> reminder( WebRequest webRequest, @PathVariable long id ) {
+        
+        if ( webRequest.checkNotModified( erzeugeETag( "id", id ) ) ) {
+            
+            return null;
+        }
+        
+        return _reminderService.getReminder( id )
+                               .map( ReminderJson::von )
+                               .map( ResponseEntity::ok )
+                               .orElseGet( () -> ResponseEntity.notFound().build() );
+    }
+    
+    
+    /**
+     * Eine Seite der Reminder-Liste abfragen (Keyset-Pagination).
+     * 
+     * @param webRequest Für Auswertung von {@code If-None-Match}
+     * 
+     * @param status {@code offen} (Default) oder {@code versendet}
+     * 
+     * @param groesse Anzahl Reminder pro Seite
+     * 
+     * @param cursor Wert von {@code naechsterCursor} aus der Antwort für die vorherige 
+     *               Seite; ohne Cursor wird die erste Seite geliefert
+     * 
+     * @return Seite mit Remindern oder {@code null} für Status 304
+     * 
+     * @throws ReminderException Ungültiger Status oder Cursor, führt zu Status 400
+     */
+    @GetMapping
+    public ReminderListeJson reminderListe( WebRequest webRequest,
+                                            @RequestParam( value = "status" , defaultValue = "offen" ) String  status,
+                                            @RequestParam( value = "groesse", required = false       ) Integer groesse,
+                                            @RequestParam( value = "cursor" , required = false       ) String  cursor
+                                          ) throws ReminderException {
+        
+        if ( !"offen".equals( status ) && !"versendet".equals( status ) ) {
+            
+            throw new ReminderException( "Ungültiger Status, erlaubt sind \"offen\" und \"versendet\": " + status );
+        }
+        final int seitenGroesse = groesse == null 
+                                  ? _seitenGroesseDefault 
+                                  : Math.max( 1, Math.min( groesse, _seitenGroesseMax ) );
+        
+        if ( webRequest.checkNotModified( erzeugeETag( status, seitenGroesse, cursor ) ) ) {
+            
+            return null;
+        }
+        
+        LocalDateTime nachZeitpunkt = null;
+        Long          nachId        = null;
+        if ( cursor != null && !cursor.isBlank() ) {
+            
+            try {
+                
+                final String[] teile = new String( Base64.getUrlDecoder().decode( cursor ), UTF_8 ).split( "," );
+                nachZeitpunkt = LocalDateTime.parse( teile[ 0 ] );
+                nachId        = Long.parseLong( teile[ 1 ] );
+            }
+            catch ( IllegalArgumentException | DateTimeParseException | ArrayIndexOutOfBoundsException ex ) {
+                
+                throw new ReminderException( "Ungültiger Cursor: " + cursor );
+            }
+        }
+        
+        final ReminderSeite seite = _reminderService.getReminderSeite( "versendet".equals( status ), 
+                                                                       nachZeitpunkt, nachId, 
+                                                                       seitenGroesse );
+        
+        String naechsterCursor = null;
+        if ( seite.hatWeitere() ) {
+            
+            final ReminderAnzeige letzter = seite.reminder().getLast();
+            final String          wert    = letzter.zeitpunktFaellig() + "," + letzter.id();
+            naechsterCursor = Base64.getUrlEncoder().withoutPadding().encodeToString( wert.getBytes( UTF_8 ) );
+        }
+        
+        return new ReminderListeJson( seite.reminder().stream().map( ReminderJson::von ).toList(), 
+                                      naechsterCursor );
+    }
+    
+    
+    /**
+     * Volltextsuche über die Reminder-Texte, Treffer sortiert nach Relevanz 
+     * (siehe {@link ReminderSuche}).
+     * 
+     * @param webRequest Für Auswertung von {@code If-None-Match}
+     * 
+     * @param suchText Suchbegriffe
+     * 
+     * @param seite Nummer der Seite, beginnend mit 0
+     * 
+     * @param groesse Anzahl Treffer pro Seite
+     * 
+     * @return Seite mit Treffern oder {@code null} für Status 304
+     */
+    @GetMapping( "/suche" )
+    public ReminderSuchergebnisJson suche( WebRequest webRequest,
+                                           @RequestParam( value = "q"      , required = true     ) String  suchText,
+                                           @RequestParam( value = "seite"  , defaultValue = "0"  ) int     seite,
+                                           @RequestParam( value = "groesse", required = false    ) Integer groesse
+                                         ) {
+        
+        final int seitenGroesse = groesse == null 
+                                  ? _seitenGroesseDefault 
+                                  : Math.max( 1, Math.min( groesse, _seitenGroesseMax ) );
+        final int seitenNr      = Math.max( 0, seite );
+        
+        if ( webRequest.checkNotModified( erzeugeETag( "suche", suchText, seitenNr, seitenGroesse ) ) ) {
+            
+            return null;
+        }
+        
+        final SuchErgebnis ergebnis = _reminderSuche.suche( suchText, seitenNr, seitenGroesse );
+        
+        return new ReminderSuchergebnisJson( ergebnis.reminder().stream().map( ReminderJson::von ).toList(),
+                                             ergebnis.anzahlTreffer(),
+                                             seitenNr,
+                                             ergebnis.hatWeitere() );
+    }
+    
+    
+    /**
+     * Fehlerhafte Anfragen mit Status 400 und Fehlerbeschreibung im Format
+     * "Problem Details" (RFC 9457) beantworten.
+     * 
+     * @param ex Exception mit Fehlerbeschreibung
+     * 
+     * @return Objekt mit Fehlerbeschreibung
+     */
+    @ExceptionHandler( ReminderException.class )
+    public ProblemDetail fehlerbehandlung( ReminderException ex ) {
+        
+        LOG.warn( "Fehlerhafte Anfrage an REST-API: {}", ex.getMessage() );
+        
+        return ProblemDetail.forStatusAndDetail( BAD_REQUEST, ex.getMessage() );
+    }
+    
+    
+    /**
+     * Request-Body, der kein gültiges JSON für einen Reminder ist (z.B. fehlendes Feld), 
+     * mit Status 400 beantworten.
+     * 
+     * @param ex Exception vom JSON-Parser
+     * 
+     * @return Objekt mit Fehlerbeschreibung
+     */
+    @ExceptionHandler( HttpMessageNotReadableException.class )
+    public ProblemDetail fehlerbehandlung( HttpMessageNotReadableException ex ) {
+        
+        LOG.warn( "Ungueltiger Request-Body fuer REST-API: {}", ex.getMessage() );
+        
+        return ProblemDetail.forStatusAndDetail( BAD_REQUEST, 
+                                                 "Ungültiger Request-Body, erwartet werden die Felder " +
+                                                 "tag, monat, jahr, stunde, minute und text." );
+    }
+    
+    
+    /**
+     * Erzeugt ETag aus der aktuellen Version der Reminder-Tabelle und den Parametern 
+     * der Anfrage.
+     * 
+     * @param parameter Parameter der Anfrage, die das Ergebnis beeinflussen
+     * 
+     * @return ETag (ohne Anführungszeichen)
+     */
+    private String erzeugeETag( Object... parameter ) {
+        
+        return _reminderVersion.getVersion() + "-" + Integer.toHexString( Objects.hash( parameter ) );
+    }
+    
+}
@@ -0,0 +1,22 @@
+package de.eldecker.spring.reminder.web;
+
+import java.util.List;
+
+
+/**
+ * Eine Seite mit Treffern der Volltextsuche für die REST-API.
+ * 
+ * @param reminder Reminder auf der Seite, absteigend sortiert nach Relevanz
+ * 
+ * @param anzahlTreffer Gesamtzahl der Treffer (über alle Seiten)
+ * 
+ * @param seite Nummer dieser Seite, beginnend mit 0
+ * 
+ * @param hatWeitere {@code true} gdw. es nach dieser Seite noch weitere Treffer gibt
+ */
+public record ReminderSuchergebnisJson( List<ReminderJson> reminder,
+                                        int                anzahlTreffer,
+                                        int                seite,
+                                        boolean            hatWeitere
+                                      ) {
+}
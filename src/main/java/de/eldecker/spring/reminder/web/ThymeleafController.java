@@ -1,10 +1,15 @@
 package de.eldecker.spring.reminder.web;
 
+import static org.springframework.format.annotation.DateTimeFormat.ISO.DATE_TIME;
+
+import java.time.LocalDateTime;
 import java.util.List;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -13,9 +18,19 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 
 import de.eldecker.spring.reminder.db_influx.InfluxDB;
-import de.eldecker.spring.reminder.db_jpa.ReminderEntity;
+import de.eldecker.spring.reminder.db_influx.InfluxSchreibPuffer;
+import de.eldecker.spring.reminder.db_jpa.ReminderAnzeige;
+import de.eldecker.spring.reminder.db_jpa.ReminderArchivEntity;
+import de.eldecker.spring.reminder.db_jpa.ReminderCache;
+import de.eldecker.spring.reminder.logik.ReminderAufbewahrung;
 import de.eldecker.spring.reminder.logik.ReminderService;
+import de.eldecker.spring.reminder.logik.ReminderSuche;
+import de.eldecker.spring.reminder.logik.ReminderZaehler;
+import de.eldecker.spring.reminder.model.ArchivSeite;
 import de.eldecker.spring.reminder.model.ReminderException;
+import de.eldecker.spring.reminder.model.ReminderSeite;
+import de.eldecker.spring.reminder.model.SuchErgebnis;
+import de.eldecker.spring.reminder.model.Wiederholung;
 
 
 /**
@@ -32,18 +47,51 @@ public class ThymeleafController {
      
     /** Bean für Zugriff auf Zeitreihendatenbank. */
     private InfluxDB _influxDb;
+    
+    /** Bean mit Zählern für das asynchrone Schreiben in die Zeitreihendatenbank. */
+    private InfluxSchreibPuffer _influxSchreibPuffer;
+    
+    /** Bean mit Anzahl versendeter und offener Reminder. */
+    private ReminderZaehler _reminderZaehler;
+    
+    /** Bean für Zugriff auf das Archiv mit versendeten Remindern. */
+    private ReminderAufbewahrung _reminderAufbewahrung;
+    
+    /** Bean für Volltextsuche über die Reminder-Texte. */
+    private ReminderSuche _reminderSuche;
+    
+    /** Bean mit Statistiken für Second-Level- und Query-Cache. */
+    private ReminderCache _reminderCache;
+    
+    /** Anzahl Reminder pro Seite der Reminder-Liste, wenn nichts anderes angefordert wird. */
+    @Value( "${de.eldecker.reminder.liste_seitengroesse:50}" )
+    private int _seitenGroesseDefault;
+    
+    /** Maximale Anzahl Reminder pro Seite der Reminder-Liste. */
+    @Value( "${de.eldecker.reminder.liste_seitengroesse_max:500}" )
+    private int _seitenGroesseMax;
         
     
     /**
      * Konstruktor für Dependency Injection.
      */
     @Autowired
-    public ThymeleafController( ReminderService reminderService,
-    		                    InfluxDB        influxDB
+    public ThymeleafController( ReminderService      reminderService,
+    		                    InfluxDB             influxDB,
+    		                    InfluxSchreibPuffer  influxSchreibPuffer,
+    		                    ReminderZaehler      reminderZaehler,
+    		                    ReminderAufbewahrung reminderAufbewahrung,
+    		                    ReminderSuche        reminderSuche,
+    		                    ReminderCache        reminderCache
     		                  ) {
     
-        _reminderService = reminderService;
-        _influxDb        = influxDB;
+        _reminderService      = reminderService;
+        _influxDb             = influxDB;
+        _influxSchreibPuffer  = influxSchreibPuffer;
+        _reminderZaehler      = reminderZaehler;
+        _reminderAufbewahrung = reminderAufbewahrung;
+        _reminderSuche        = reminderSuche;
+        _reminderCache        = reminderCache;
     }
     
     
@@ -64,6 +112,10 @@ public class ThymeleafController {
      * @param stunde Stunde von Fälligkeitszeitpunkt (0..23)
      * 
      * @param minute Minute von Fälligkeitszeitpunkt (0..59)
+     * 
+     * @param wiederholung Regel für wiederkehrenden Reminder (optional, fehlt für einmaligen Reminder)
+     * 
+     * @param cron Cron-Ausdruck, nur für Wiederholung {@code CRON}
      *
      * @return Immer "ergebnis" für "ergebnis.html" (zeigt ggf. Fehlernachricht an)
      */
@@ -74,17 +126,20 @@ public class ThymeleafController {
                                    @RequestParam( value = "monat" , required = true ) int    monat ,
                                    @RequestParam( value = "jahr"  , required = true ) int    jahr  ,
                                    @RequestParam( value = "stunde", required = true ) int    stunde,
-                                   @RequestParam( value = "minute", required = true ) int    minute 
+                                   @RequestParam( value = "minute", required = true ) int    minute,
+                                   @RequestParam( value = "wiederholung", required = false ) Wiederholung wiederholung,
+                                   @RequestParam( value = "cron"        , required = false ) String       cron
                                  ) throws ReminderException { 
                 
-        LOG.info( "Request erhalten fuer neuen Reminder: {}.{}.{}, {}:{} Uhr, Text: {}", 
-                  tag, monat, jahr, stunde, minute, text );                                     
+        LOG.info( "Request erhalten fuer neuen Reminder: {}.{}.{}, {}:{} Uhr, Text: {}, Wiederholung: {}", 
+                  tag, monat, jahr, stunde, minute, text, wiederholung );                                     
                 
         try {
         
             long reminderId = _reminderService.reminderAnlegen( tag, monat, jahr, 
                                                                 stunde, minute, 
-                                                                text );
+                                                                text,
+                                                                wiederholung, cron );
             
             final String erfolgText = String.format( "ERFOLG: Reminder unter ID %d angelegt.", reminderId );
             LOG.info( erfolgText );
@@ -102,24 +157,153 @@ public class ThymeleafController {
     
     
     /**
-     * Methode bringt Seite mit allen Remindern zur Anzeige.
+     * Methode bringt eine Seite der Reminder-Liste zur Anzeige; offene und versendete
+     * Reminder werden auf getrennten Tabs angezeigt. Es wird Keyset-Pagination verwendet,
+     * d.h. die nächste Seite beginnt nach Fälligkeitszeitpunkt und ID des letzten
+     * Reminders auf der aktuellen Seite. Die Anzahl der Reminder kommt aus den Zählern
+     * in {@link ReminderZaehler} und nicht aus der angezeigten Liste.
      * 
      * @param model Objekt mit Platzhalterwerten für Template-Datei 
      * 
+     * @param tab "offen" (Default) oder "versendet"
+     * 
+     * @param groesse Anzahl Reminder pro Seite (optional)
+     * 
+     * @param nachZeitpunkt Fälligkeitszeitpunkt des letzten Reminders der vorherigen Seite
+     *                      (fehlt für erste Seite)
+     * 
+     * @param nachId ID des letzten Reminders der vorherigen Seite (fehlt für erste Seite)
+     * 
      * @return Template-Datei "liste" (also "liste.html")
      */
     @GetMapping( "/liste" )
-    public String reminderListe( Model model ) {
+    public String reminderListe( Model model,
+                                 @RequestParam( value = "tab"          , defaultValue = "offen" ) String tab,
+                                 @RequestParam( value = "groesse"      , required = false ) Integer groesse,
+                                 @RequestParam( value = "nachZeitpunkt", required = false ) 
+                                 @DateTimeFormat( iso = DATE_TIME )                         LocalDateTime nachZeitpunkt,
+                                 @RequestParam( value = "nachId"       , required = false ) Long nachId
+                               ) {
+        
+        final boolean schonVersendet = "versendet".equals( tab );
+        final int     seitenGroesse  = groesse == null 
+                                       ? _seitenGroesseDefault 
+                                       : Math.max( 1, Math.min( groesse, _seitenGroesseMax ) );
                 
-        final List<ReminderEntity> liste = _reminderService.getAlleReminderSortiert();
-        model.addAttribute( "reminderListe", liste );
+        final ReminderSeite seite = _reminderService.getReminderSeite( schonVersendet, 
+                                                                       nachZeitpunkt, nachId, 
+                                                                       seitenGroesse );
+        
+        model.addAttribute( "reminderListe"       , seite.reminder()                         );
+        model.addAttribute( "tab"                 , schonVersendet ? "versendet" : "offen"   );
+        model.addAttribute( "groesse"             , seitenGroesse                            );
+        model.addAttribute( "ersteSeite"          , nachId == null                           );
+        model.addAttribute( "anzahlOffen"         , _reminderZaehler.getAnzahlNichtVersendet() );
+        model.addAttribute( "anzahlVersendet"     , _reminderZaehler.getAnzahlVersendet()      );
+        
+        if ( seite.hatWeitere() ) {
+            
+            final ReminderAnzeige letzter = seite.reminder().getLast();
+            model.addAttribute( "naechsterZeitpunkt", letzter.zeitpunktFaellig() );
+            model.addAttribute( "naechsteId"        , letzter.id()               );
+        }
         
         return "liste";
     }
     
     
     /**
-     * Methode für Seite mit Statistiken
+     * Methode bringt eine Seite des Archivs mit den versendeten Remindern zur Anzeige,
+     * deren Aufbewahrungsfrist in Tabelle {@code REMINDER} abgelaufen ist. Die neuesten 
+     * Reminder werden zuerst angezeigt; wie bei {@link #reminderListe} wird 
+     * Keyset-Pagination verwendet.
+     * 
+     * @param model Objekt mit Platzhalterwerten für Template-Datei 
+     * 
+     * @param groesse Anzahl Reminder pro Seite (optional)
+     * 
+     * @param vorZeitpunkt Versandzeitpunkt des letzten Reminders der vorherigen Seite
+     *                     (fehlt für erste Seite)
+     * 
+     * @param vorId ID des letzten Reminders der vorherigen Seite (fehlt für erste Seite)
+     * 
+     * @return Template-Datei "archiv" (also "archiv.html")
+     */
+    @GetMapping( "/archiv" )
+    public String archiv( Model model,
+                          @RequestParam( value = "groesse"     , required = false ) Integer groesse,
+                          @RequestParam( value = "vorZeitpunkt", required = false ) 
+                          @DateTimeFormat( iso = DATE_TIME )                        LocalDateTime vorZeitpunkt,
+                          @RequestParam( value = "vorId"       , required = false ) Long vorId
+                        ) {
+        
+        final int seitenGroesse = groesse == null 
+                                  ? _seitenGroesseDefault 
+                                  : Math.max( 1, Math.min( groesse, _seitenGroesseMax ) );
+        
+        final ArchivSeite seite = _reminderAufbewahrung.getArchivSeite( vorZeitpunkt, vorId, seitenGroesse );
+        
+        model.addAttribute( "reminderListe", seite.reminder() );
+        model.addAttribute( "groesse"      , seitenGroesse    );
+        model.addAttribute( "ersteSeite"   , vorId == null    );
+        
+        if ( seite.hatWeitere() ) {
+            
+            final ReminderArchivEntity letzter = seite.reminder().getLast();
+            model.addAttribute( "naechsterZeitpunkt", letzter.getZeitpunktVersendet() );
+            model.addAttribute( "naechsteId"        , letzter.getId()                 );
+        }
+        
+        return "archiv";
+    }
+    
+    
+    /**
+     * Methode bringt eine Seite mit den Treffern einer Volltextsuche über die Reminder-Texte
+     * zur Anzeige, sortiert nach Relevanz (siehe {@link ReminderSuche}). Da die Reihenfolge
+     * von der Relevanz abhängt, wird hier mit Seitennummern statt mit Keyset-Pagination
+     * geblättert.
+     * 
+     * @param model Objekt mit Platzhalterwerten für Template-Datei 
+     * 
+     * @param suchText Suchbegriffe (optional, ohne Suchbegriffe wird nur das Suchfeld angezeigt)
+     * 
+     * @param seite Nummer der Seite, beginnend mit 0
+     * 
+     * @param groesse Anzahl Treffer pro Seite (optional)
+     * 
+     * @return Template-Datei "suche" (also "suche.html")
+     */
+    @GetMapping( "/suche" )
+    public String suche( Model model,
+                         @RequestParam( value = "q"      , defaultValue = ""  ) String  suchText,
+                         @RequestParam( value = "seite"  , defaultValue = "0" ) int     seite,
+                         @RequestParam( value = "groesse", required = false   ) Integer groesse
+                       ) {
+        
+        final int seitenGroesse = groesse == null 
+                                  ? _seitenGroesseDefault 
+                                  : Math.max( 1, Math.min( groesse, _seitenGroesseMax ) );
+        final int seitenNr      = Math.max( 0, seite );
+        
+        final long         startNanos = System.nanoTime();
+        final SuchErgebnis ergebnis   = _reminderSuche.suche( suchText, seitenNr, seitenGroesse );
+        
+        model.addAttribute( "q"            , suchText                                    );
+        model.addAttribute( "reminderListe", ergebnis.reminder()                         );
+        model.addAttribute( "anzahlTreffer", ergebnis.anzahlTreffer()                    );
+        model.addAttribute( "seite"        , seitenNr                                    );
+        model.addAttribute( "groesse"      , seitenGroesse                               );
+        model.addAttribute( "hatWeitere"   , ergebnis.hatWeitere()                       );
+        model.addAttribute( "dauerMillis"  , ( System.nanoTime() - startNanos ) / 1_000_000 );
+        
+        return "suche";
+    }
+    
+    
+    /**
+     * Methode für Seite mit Statistiken; die Zähler werden danach über den Live-Feed
+     * (siehe {@link ReminderLiveFeed}) aktualisiert.
      *  
      * @param model Objekt mit Platzhalterwerten für Template-Datei
      * 
@@ -128,10 +312,21 @@ public class ThymeleafController {
     @GetMapping( "stats" )
     public String statistiken( Model model ) {
     	
-    	final int gesamtEmailsAnzahl = _influxDb.getGesamtzahlEmails();
+    	final long gesamtEmailsAnzahl = _influxDb.getGesamtzahlEmails();
     	
     	model.addAttribute( "anzahlVersendeterEmails", gesamtEmailsAnzahl );
     	
+    	model.addAttribute( "anzahlOffen"    , _reminderZaehler.getAnzahlNichtVersendet() );
+    	model.addAttribute( "anzahlVersendet", _reminderZaehler.getAnzahlVersendet()      );
+    	
+    	model.addAttribute( "influxGeschrieben"    , _influxSchreibPuffer.getAnzahlGeschrieben()    );
+    	model.addAttribute( "influxVerworfen"      , _influxSchreibPuffer.getAnzahlVerworfen()      );
+    	model.addAttribute( "influxFehlgeschlagen" , _influxSchreibPuffer.getAnzahlFehlgeschlagen() );
+    	model.addAttribute( "influxImPuffer"       , _influxSchreibPuffer.getAnzahlImPuffer()       );
+    	
+    	model.addAttribute( "cacheZugriffe", List.of( _reminderCache.getZugriffe( ReminderCache.REGION_REMINDER ),
+    	                                              _reminderCache.getZugriffe( ReminderCache.REGION_ABFRAGEN ) ) );
+    	
     	return "stats";
     }
 
@@ -0,0 +1,339 @@
+package de.eldecker.spring.reminder.db_journal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import de.eldecker.spring.reminder.db_jpa.ReminderAnzeige;
+import de.eldecker.spring.reminder.db_jpa.ReminderArchivEntity;
+import de.eldecker.spring.reminder.db_jpa.ReminderArchivRepo;
+import de.eldecker.spring.reminder.db_jpa.ReminderEntity;
+import de.eldecker.spring.reminder.db_jpa.ReminderFaelligkeit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+
+/**
+ * Unit-Tests für {@link ReminderJournalRepo} mit einer Journal-Datei in einem temporären
+ * Verzeichnis, ohne Spring-Kontext (Archiv mit Mock): Wiederherstellung nach Neustart,
+ * unvollständiger letzter Datensatz, Komprimieren, Archivieren und Rollback.
+ */
+class ReminderJournalRepoTests {
+
+	private static final LocalDateTime FAELLIG = LocalDateTime.of( 2026, 3, 1, 12, 0 );
+
+	@TempDir
+	private Path _verzeichnis;
+
+	private Path _pfad;
+
+	private ReminderJournalRepo _repo;
+
+	private ReminderArchivRepo _archivRepo;
+
+	/** Registry des zuletzt geöffneten Repos, für die Größe der Journal-Datei. */
+	private SimpleMeterRegistry _meterRegistry;
+
+
+	@BeforeEach
+	void oeffnen() throws IOException {
+
+		_pfad       = _verzeichnis.resolve( "reminder.journal" );
+		_archivRepo = mock( ReminderArchivRepo.class );
+		_repo       = neuStarten( null );
+	}
+
+
+	@AfterEach
+	void schliessen() {
+
+		_repo.schliessen();
+	}
+
+
+	/**
+	 * Nach dem Schließen und erneuten Öffnen enthält das Journal die angelegten Reminder
+	 * mit dem zuletzt geschriebenen Zustand (Postausgang, Versand, Fehlschlag, Löschung).
+	 */
+	@Test
+	void wiederherstellenNachNeustart() throws IOException {
+
+		final List<ReminderEntity> reminder = _repo.saveAll( List.of( new ReminderEntity( "Eins", FAELLIG               ),
+		                                                              new ReminderEntity( "Zwei", FAELLIG.plusHours( 1 ) ),
+		                                                              new ReminderEntity( "Drei", FAELLIG.plusHours( 2 ) ) ) );
+		final long idEins = reminder.get( 0 ).getId();
+		final long idZwei = reminder.get( 1 ).getId();
+		final long idDrei = reminder.get( 2 ).getId();
+
+		_repo.inPostausgangUebernommen( List.of( idEins ), 42L );
+		_repo.markiereAlsVersendet( List.of( 42L ), FAELLIG.plusMinutes( 1 ) );
+		_repo.inPostausgangUebernommen( List.of( idZwei ), 43L );
+		_repo.markiereAlsFehlgeschlagen( List.of( 43L ), FAELLIG.plusMinutes( 2 ) );
+		_repo.deleteAllByIdInBatch( List.of( idDrei ) );
+
+		final List<ReminderAnzeige> offenVorher     = _repo.findSeite( false, Limit.unlimited() );
+		final List<ReminderAnzeige> versendetVorher = _repo.findSeite( true , Limit.unlimited() );
+
+		_repo = neuStarten( _repo );
+
+		assertEquals( offenVorher    , _repo.findSeite( false, Limit.unlimited() ) );
+		assertEquals( versendetVorher, _repo.findSeite( true , Limit.unlimited() ) );
+
+		assertEquals( 1, _repo.countBy_schonVersendet( true  ) );
+		assertEquals( 1, _repo.countBy_schonVersendet( false ) );
+		assertEquals( FAELLIG.plusMinutes( 1 ), _repo.findById( idEins ).orElseThrow().getZeitpunktVersendet() );
+		assertEquals( FAELLIG.plusMinutes( 2 ), _repo.findById( idZwei ).orElseThrow().getZeitpunktFehlgeschlagen() );
+		assertEquals( List.of( new ReminderFaelligkeit( idZwei, FAELLIG.plusHours( 1 ) ) ),
+		              _repo.findFaelligkeitenByPostausgang( List.of( 43L ) ) );
+		assertFalse( _repo.findById( idDrei ).isPresent() );
+
+		final ReminderEntity neu = _repo.save( new ReminderEntity( "Vier", FAELLIG ) );
+		assertTrue( neu.getId() > idDrei, "ID eines gelöschten Reminders wurde wiederverwendet" );
+	}
+
+
+	/**
+	 * Ein unvollständig geschriebener letzter Datensatz (falsche Prüfsumme) wird beim
+	 * Öffnen verworfen, die Datensätze davor bleiben erhalten, und danach angehängte
+	 * Datensätze werden beim nächsten Öffnen wieder gelesen.
+	 */
+	@Test
+	void unvollstaendigerLetzterDatensatzWirdVerworfen() throws IOException {
+
+		final long idEins = _repo.save( new ReminderEntity( "Eins", FAELLIG ) ).getId();
+		final long idZwei = _repo.save( new ReminderEntity( "Zwei", FAELLIG ) ).getId();
+		_repo.schliessen();
+
+		try ( RandomAccessFile datei = new RandomAccessFile( _pfad.toFile(), "rw" ) ) {
+
+			final long position = positionLetzterDatensatz( datei );
+			datei.seek( position );
+			final int laenge = datei.readInt();
+
+			// zweite Hälfte des Inhalts fehlt, so als ob der Schreibvorgang abgebrochen wäre
+			datei.seek( position + 8 + laenge / 2 );
+			datei.write( new byte[ laenge - laenge / 2 ] );
+		}
+
+		_repo = neuStarten( null );
+
+		assertTrue(  _repo.findById( idEins ).isPresent() );
+		assertFalse( _repo.findById( idZwei ).isPresent() );
+
+		final long idDrei = _repo.save( new ReminderEntity( "Drei", FAELLIG ) ).getId();
+
+		_repo = neuStarten( _repo );
+
+		assertEquals( List.of( "Eins", "Drei" ),
+		              _repo.findSeite( false, Limit.unlimited() ).stream().map( ReminderAnzeige::reminderText ).toList() );
+		assertEquals( "Drei", _repo.findById( idDrei ).orElseThrow().getReminderText() );
+	}
+
+
+	/**
+	 * Beim Komprimieren bleibt für jeden Reminder ein Datensatz übrig; die Reminder und
+	 * die nächste freie ID bleiben (auch nach einem Neustart) erhalten, so dass die IDs
+	 * gelöschter Reminder nicht wiederverwendet werden.
+	 */
+	@Test
+	void komprimierenBehaeltReminderUndNaechsteId() throws IOException {
+
+		final List<ReminderEntity> neu = new ArrayList<>();
+		for ( int i = 0; i < 6_000; i++ ) {
+
+			neu.add( new ReminderEntity( "Reminder " + i, FAELLIG.plusMinutes( i ) ) );
+		}
+		final List<ReminderEntity> reminder = _repo.saveAll( neu );
+		final long groessteId = reminder.getLast().getId();
+
+		_repo.deleteAllByIdInBatch( LongStream.rangeClosed( reminder.get( 10 ).getId(), groessteId ).boxed().toList() );
+
+		final List<ReminderAnzeige> vorher = _repo.findSeite( false, Limit.unlimited() );
+		assertEquals( 10, vorher.size() );
+
+		final double groesseVorher = groesse();
+		assertTrue( _repo.komprimieren() );
+		assertTrue( groesse() < groesseVorher / 10 );
+		assertFalse( _repo.komprimieren() );
+
+		assertEquals( vorher, _repo.findSeite( false, Limit.unlimited() ) );
+
+		_repo = neuStarten( _repo );
+
+		assertEquals( vorher, _repo.findSeite( false, Limit.unlimited() ) );
+		assertEquals( groessteId + 1, _repo.save( new ReminderEntity( "Neu", FAELLIG ) ).getId() );
+	}
+
+
+	/**
+	 * Beim Archivieren werden die Reminder mit ihrer ID ins Archiv in der Datenbank kopiert;
+	 * IDs, zu denen es keinen Reminder gibt, werden ignoriert.
+	 */
+	@SuppressWarnings( "unchecked" )
+	@Test
+	void archivierenKopiertReminderInsArchiv() {
+
+		final List<ReminderEntity> reminder = List.of( new ReminderEntity( "Eins", FAELLIG ),
+		                                               new ReminderEntity( "Zwei", FAELLIG ) );
+		assertEquals( 2, _repo.fuegeEin( reminder ) );
+
+		final long idEins = reminder.get( 0 ).getId();
+		_repo.inPostausgangUebernommen( List.of( idEins ), 42L );
+		_repo.markiereAlsVersendet( List.of( 42L ), FAELLIG.plusMinutes( 1 ) );
+
+		when( _archivRepo.saveAll( anyList() ) ).thenAnswer( aufruf -> aufruf.getArgument( 0 ) );
+
+		assertEquals( 1, _repo.archiviere( List.of( idEins, 999L ), FAELLIG.plusDays( 30 ) ) );
+
+		final ArgumentCaptor<List<ReminderArchivEntity>> archiv = ArgumentCaptor.forClass( List.class );
+		verify( _archivRepo ).saveAll( archiv.capture() );
+
+		final ReminderArchivEntity eins = archiv.getValue().getFirst();
+		assertEquals( idEins                  , eins.getId()                  );
+		assertEquals( "Eins"                  , eins.getReminderText()        );
+		assertEquals( FAELLIG.plusMinutes( 1 ), eins.getZeitpunktVersendet()  );
+		assertEquals( FAELLIG.plusDays( 30 )  , eins.getZeitpunktArchiviert() );
+	}
+
+
+	/**
+	 * Beim Rollback einer Transaktion werden Änderungen an gelieferten Entities,
+	 * UPDATE-Methoden und in der Transaktion angelegte Reminder verworfen, auch im Journal.
+	 */
+	@Test
+	void rollbackSetztAenderungenZurueck() throws IOException {
+
+		final long id = _repo.save( new ReminderEntity( "Original", FAELLIG ) ).getId();
+
+		final TransactionTemplate transactionTemplate = new TransactionTemplate( new TestTransactionManager() );
+		final List<Long> neueIds = new ArrayList<>();
+		transactionTemplate.executeWithoutResult( status -> {
+
+			final ReminderEntity entity = _repo.findById( id ).orElseThrow();
+			entity.setReminderText( "Geändert" );
+			entity.setZeitpunktFaelligkeit( FAELLIG.plusDays( 1 ) );
+
+			_repo.inPostausgangUebernommen( List.of( id ), 42L );
+			neueIds.add( _repo.save( new ReminderEntity( "Neu", FAELLIG ) ).getId() );
+
+			// Änderung an der Entity wird vor der Abfrage übernommen (wie "auto flush")
+			assertTrue( _repo.findSeite( false, Limit.unlimited() ).stream()
+			                 .anyMatch( anzeige -> anzeige.reminderText().equals( "Geändert" ) ) );
+
+			status.setRollbackOnly();
+		});
+
+		pruefeZurueckgesetzt( id, neueIds.getFirst() );
+
+		_repo = neuStarten( _repo );
+
+		pruefeZurueckgesetzt( id, neueIds.getFirst() );
+	}
+
+
+	private void pruefeZurueckgesetzt( long id, long idNeu ) {
+
+		final ReminderEntity entity = _repo.findById( id ).orElseThrow();
+		assertEquals( "Original", entity.getReminderText()       );
+		assertEquals( FAELLIG   , entity.getZeitpunktFaelligkeit() );
+		assertEquals( null      , entity.getPostausgangId()      );
+
+		assertFalse( _repo.findById( idNeu ).isPresent() );
+		assertEquals( 1, _repo.countBy_schonVersendet( false ) );
+	}
+
+
+	/**
+	 * Schließt das Repo (falls übergeben) und öffnet die Journal-Datei erneut.
+	 */
+	private ReminderJournalRepo neuStarten( ReminderJournalRepo repo ) throws IOException {
+
+		if ( repo != null ) {
+
+			repo.schliessen();
+		}
+
+		_meterRegistry = new SimpleMeterRegistry();
+
+		return new ReminderJournalRepo( _pfad.toString(), _archivRepo, _meterRegistry );
+	}
+
+
+	/**
+	 * Belegte Größe der Journal-Datei in Bytes.
+	 */
+	private double groesse() {
+
+		return _meterRegistry.get( "reminder.journal.groesse" ).gauge().value();
+	}
+
+
+	/**
+	 * Sucht über die Längenfelder den Anfang des letzten Datensatzes in der Journal-Datei.
+	 */
+	private static long positionLetzterDatensatz( RandomAccessFile datei ) throws IOException {
+
+		long position = 0;
+		long letzter  = -1;
+		while ( position + 8 <= datei.length() ) {
+
+			datei.seek( position );
+			final int laenge = datei.readInt();
+			if ( laenge == 0 ) {
+
+				break;
+			}
+			letzter   = position;
+			position += 8 + laenge;
+		}
+
+		return letzter;
+	}
+
+
+	/**
+	 * Transaktionsmanager ohne Ressource, damit die Transaktions-Synchronisation des
+	 * Journals ohne Datenbank getestet werden kann.
+	 */
+	private static final class TestTransactionManager extends AbstractPlatformTransactionManager {
+
+		@Override
+		protected Object doGetTransaction() {
+
+			return new Object();
+		}
+
+		@Override
+		protected void doBegin( Object transaction, TransactionDefinition definition ) {}
+
+		@Override
+		protected void doCommit( DefaultTransactionStatus status ) {}
+
+		@Override
+		protected void doRollback( DefaultTransactionStatus status ) {}
+	}
+
+}
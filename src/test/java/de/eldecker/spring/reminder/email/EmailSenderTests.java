@@ -0,0 +1,91 @@
+package de.eldecker.spring.reminder.email;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.MailSender;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+
+/**
+ * Unit-Tests für die Zuordnung der Fehler zu den Aufträgen in
+ * {@link EmailSender#sendeEmails(List)}, mit Mock für {@link MailSender}.
+ */
+class EmailSenderTests {
+
+	private MailSender _mailSender;
+
+	private EmailSender _emailSender;
+
+
+	@BeforeEach
+	void erzeugen() {
+
+		_mailSender  = mock( MailSender.class );
+		_emailSender = new EmailSender( _mailSender, new SimpleMeterRegistry() );
+
+		ReflectionTestUtils.setField( _emailSender, "_absenderAdresse"  , "absender@example.org"   );
+		ReflectionTestUtils.setField( _emailSender, "_empfaengerAdresse", "empfaenger@example.org" );
+		ReflectionTestUtils.setField( _emailSender, "_anzahlWorker"     , 1                        );
+	}
+
+
+	/**
+	 * Die fehlgeschlagenen Nachrichten werden wie bei {@code JavaMailSenderImpl} in einer
+	 * Map mit {@code equals()} gemeldet: Von zwei gleichen Nachrichten werden beide als
+	 * fehlgeschlagen gemeldet, die andere Nachricht als zugestellt.
+	 */
+	@Test
+	void gleicheNachrichtenWerdenAlleAlsFehlgeschlagenGemeldet() {
+
+		doAnswer( aufruf -> {
+
+			final SimpleMailMessage[] nachrichten = (SimpleMailMessage[]) aufruf.getRawArguments()[ 0 ];
+
+			final Map<Object, Exception> fehlerMap = new LinkedHashMap<>();
+			fehlerMap.put( nachrichten[ 2 ], new IllegalStateException( "abgelehnt" ) );
+			throw new MailSendException( fehlerMap );
+
+		}).when( _mailSender ).send( any( SimpleMailMessage[].class ) );
+
+		final VersandErgebnis ergebnis = _emailSender.sendeEmails( List.of( new EmailAuftrag( 1, "Betreff", "Text"   ),
+		                                                                    new EmailAuftrag( 2, "Betreff", "Anders" ),
+		                                                                    new EmailAuftrag( 3, "Betreff", "Text"   ) ) );
+
+		assertEquals( List.of( 2L ), ergebnis.zugestellt() );
+		assertEquals( Set.of( 1L, 3L ), ergebnis.fehlgeschlagen().keySet() );
+		assertEquals( "abgelehnt", ergebnis.fehlgeschlagen().get( 1L ) );
+	}
+
+
+	/**
+	 * Bricht ein Worker mit einem unerwarteten Fehler ab, dann wird sein ganzer Anteil
+	 * als fehlgeschlagen gemeldet.
+	 */
+	@Test
+	void unerwarteterFehlerMeldetAnteilAlsFehlgeschlagen() {
+
+		doThrow( new IllegalStateException( "kaputt" ) ).when( _mailSender ).send( any( SimpleMailMessage[].class ) );
+
+		final VersandErgebnis ergebnis = _emailSender.sendeEmails( List.of( new EmailAuftrag( 1, "Betreff 1", "Text" ),
+		                                                                    new EmailAuftrag( 2, "Betreff 2", "Text" ) ) );
+
+		assertEquals( List.of(), ergebnis.zugestellt() );
+		assertEquals( Set.of( 1L, 2L ), ergebnis.fehlgeschlagen().keySet() );
+	}
+
+}
@@ -0,0 +1,82 @@
+package de.eldecker.spring.reminder.email;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+import de.eldecker.spring.reminder.email.VersandDrossel.Bucket;
+
+
+/**
+ * Unit-Tests für den Token-Bucket von {@link VersandDrossel}; die Zeitpunkte werden
+ * übergeben, es wird also nicht gewartet.
+ */
+class VersandDrosselTests {
+
+	/** Eine Sekunde in Nanosekunden. */
+	private static final long SEKUNDE = 1_000_000_000L;
+
+	/** Beliebiger Startzeitpunkt, wie bei {@link System#nanoTime()} auch negativ. */
+	private static final long START = -123 * SEKUNDE;
+
+
+	/**
+	 * Bei 60 Tokens pro Minute wird pro Sekunde ein Token nachgefüllt, auch über mehrere
+	 * Aufrufe mit Bruchteilen hinweg.
+	 */
+	@Test
+	void nachfuellenProportionalZurZeit() {
+
+		final Bucket bucket = new Bucket( 20, 60, Duration.ofMinutes( 1 ), START );
+
+		assertEquals( 20, bucket.verfuegbar( START ) );
+		bucket.entnehmen( 20 );
+		assertEquals( 0, bucket.verfuegbar( START ) );
+		assertEquals( SEKUNDE, bucket.nanosBisToken( START ) );
+
+		assertEquals( 0, bucket.verfuegbar( START + SEKUNDE / 2 ) );
+		assertEquals( 1, bucket.verfuegbar( START + SEKUNDE     ) );
+		assertEquals( 5, bucket.verfuegbar( START + 5 * SEKUNDE ) );
+		assertEquals( 0, bucket.nanosBisToken( START + 5 * SEKUNDE ) );
+	}
+
+
+	/**
+	 * Auch nach langer Pause enthält der Bucket höchstens seine Kapazität (Burst), nicht
+	 * die Tokens für die gesamte Pause.
+	 */
+	@Test
+	void kapazitaetBegrenztBurst() {
+
+		final Bucket bucket = new Bucket( 20, 60, Duration.ofMinutes( 1 ), START );
+
+		bucket.entnehmen( 20 );
+		assertEquals( 20, bucket.verfuegbar( START + 3600 * SEKUNDE ) );
+
+		bucket.entnehmen( 20 );
+		assertEquals( 0, bucket.verfuegbar( START + 3600 * SEKUNDE ) );
+	}
+
+
+	/**
+	 * Zurückgegebene Tokens (negative Entnahme, siehe {@link VersandDrossel#zurueckgeben(int)})
+	 * sind sofort wieder verfügbar, aber höchstens bis zur Kapazität.
+	 */
+	@Test
+	void zurueckgebenBisKapazitaet() {
+
+		final Bucket bucket = new Bucket( 20, 60, Duration.ofMinutes( 1 ), START );
+
+		bucket.entnehmen( 15 );
+		assertEquals( 5, bucket.verfuegbar( START ) );
+
+		bucket.entnehmen( -10 );
+		assertEquals( 15, bucket.verfuegbar( START ) );
+
+		bucket.entnehmen( -10 );
+		assertEquals( 20, bucket.verfuegbar( START ) );
+	}
+
+}
@@ -0,0 +1,158 @@
+package de.eldecker.spring.reminder.logik;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import de.eldecker.spring.reminder.db_jpa.PostausgangEntity;
+import de.eldecker.spring.reminder.db_jpa.PostausgangStatus;
+import de.eldecker.spring.reminder.db_jpa.ReminderEntity;
+import de.eldecker.spring.reminder.db_jpa.ReminderFaelligkeit;
+import de.eldecker.spring.reminder.db_jpa.ReminderSpeicher;
+import de.eldecker.spring.reminder.model.ReminderWiederholtEvent;
+import de.eldecker.spring.reminder.model.Wiederholung;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+
+/**
+ * Unit-Tests für Backoff und endgültigen Fehlschlag in {@link PostausgangVersand},
+ * ohne Spring-Kontext.
+ */
+class PostausgangVersandTests {
+
+	private static final LocalDateTime JETZT = LocalDateTime.of( 2026, 3, 1, 12, 0 );
+
+	private ReminderSpeicher _reminderSpeicher;
+
+	private PostausgangVersand _postausgangVersand;
+
+
+	@BeforeEach
+	void erzeugen() {
+
+		_reminderSpeicher = mock( ReminderSpeicher.class );
+
+		_postausgangVersand = new PostausgangVersand( null, _reminderSpeicher, null, null, null, null, null,
+		                                              new SimpleMeterRegistry() );
+
+		ReflectionTestUtils.setField( _postausgangVersand, "_maxVersuche"         , 3    );
+		ReflectionTestUtils.setField( _postausgangVersand, "_backoffBasisSekunden", 30L  );
+		ReflectionTestUtils.setField( _postausgangVersand, "_backoffMaxSekunden"  , 600L );
+	}
+
+
+	/**
+	 * Die Wartezeit verdoppelt sich ab der Basis mit jedem Versuch und wird bei der
+	 * Obergrenze abgeschnitten, auch bei sehr vielen Versuchen (kein Überlauf).
+	 */
+	@Test
+	void backoffVerdoppeltBisObergrenze() {
+
+		assertEquals(  30, _postausgangVersand.berechneBackoffSekunden(  1 ) );
+		assertEquals(  60, _postausgangVersand.berechneBackoffSekunden(  2 ) );
+		assertEquals( 120, _postausgangVersand.berechneBackoffSekunden(  3 ) );
+		assertEquals( 480, _postausgangVersand.berechneBackoffSekunden(  5 ) );
+		assertEquals( 600, _postausgangVersand.berechneBackoffSekunden(  6 ) );
+		assertEquals( 600, _postausgangVersand.berechneBackoffSekunden( 64 ) );
+	}
+
+
+	/**
+	 * Vor dem letzten Versuch wird der nächste Versuch mit Backoff eingeplant; nach dem 
+	 * letzten Versuch ist die Email {@code FEHLGESCHLAGEN}, ihre einmaligen Reminder werden
+	 * als fehlgeschlagen (nicht als versendet) markiert und wiederkehrende Reminder bekommen
+	 * ihre nächste Fälligkeit.
+	 */
+	@Test
+	void nachMaxVersuchenEndgueltigFehlgeschlagen() {
+
+		final PostausgangEntity email = neueEmail( 7L );
+
+		final List<ReminderWiederholtEvent> wiederholungen = new ArrayList<>();
+
+		assertEquals( List.of(), _postausgangVersand.verbucheFehlschlag( email, "Fehler 1", JETZT, wiederholungen ) );
+		assertEquals( PostausgangStatus.OFFEN, email.getStatus() );
+		assertEquals( JETZT.plusSeconds( 30 ), email.getNaechsterVersuch() );
+
+		assertEquals( List.of(), _postausgangVersand.verbucheFehlschlag( email, "Fehler 2", JETZT, wiederholungen ) );
+		assertEquals( PostausgangStatus.OFFEN, email.getStatus() );
+		assertEquals( JETZT.plusSeconds( 60 ), email.getNaechsterVersuch() );
+
+		verify( _reminderSpeicher, never() ).markiereAlsFehlgeschlagen( any(), any() );
+
+		final ReminderEntity taeglich = neuerReminder( 12L, 7L, Wiederholung.TAEGLICH, null );
+		when( _reminderSpeicher.findFaelligkeitenByPostausgang( List.of( 7L ) ) )
+		    .thenReturn( List.of( new ReminderFaelligkeit( 11L, JETZT ), new ReminderFaelligkeit( 12L, JETZT ) ) );
+		when( _reminderSpeicher.findWiederkehrendeByPostausgang( List.of( 7L ) ) ).thenReturn( List.of( taeglich ) );
+
+		assertEquals( List.of( 11L ), _postausgangVersand.verbucheFehlschlag( email, "Fehler 3", JETZT, wiederholungen ) );
+		assertEquals( PostausgangStatus.FEHLGESCHLAGEN, email.getStatus() );
+		assertEquals( 3, email.getAnzahlVersuche() );
+
+		verify( _reminderSpeicher ).markiereAlsFehlgeschlagen( List.of( 7L ), JETZT );
+		verify( _reminderSpeicher, never() ).markiereAlsVersendet( any(), any() );
+
+		assertEquals( 1, wiederholungen.size() );
+		assertEquals( 12L, wiederholungen.getFirst().reminderId() );
+		assertEquals( JETZT.plusDays( 1 ), taeglich.getZeitpunktFaelligkeit() );
+		assertNull( taeglich.getPostausgangId() );
+		assertNull( taeglich.getZeitpunktFehlgeschlagen() );
+	}
+
+
+	/**
+	 * Hat ein wiederkehrender Reminder nach dem endgültigen Fehlschlag keine weitere
+	 * Fälligkeit, dann wird er wie ein einmaliger Reminder als fehlgeschlagen markiert und
+	 * bleibt offen.
+	 */
+	@Test
+	void wiederkehrendOhneWeitereFaelligkeitBleibtFehlgeschlagen() {
+
+		ReflectionTestUtils.setField( _postausgangVersand, "_maxVersuche", 1 );
+
+		final ReminderEntity cron = neuerReminder( 13L, 8L, Wiederholung.CRON, "0 0 8 31 2 *" );
+		when( _reminderSpeicher.findFaelligkeitenByPostausgang( List.of( 8L ) ) )
+		    .thenReturn( List.of( new ReminderFaelligkeit( 13L, JETZT ) ) );
+		when( _reminderSpeicher.findWiederkehrendeByPostausgang( List.of( 8L ) ) ).thenReturn( List.of( cron ) );
+
+		final List<ReminderWiederholtEvent> wiederholungen = new ArrayList<>();
+		assertEquals( List.of( 13L ), _postausgangVersand.verbucheFehlschlag( neueEmail( 8L ), "Fehler", JETZT, wiederholungen ) );
+
+		assertEquals( 0, wiederholungen.size() );
+		assertFalse( cron.isSchonVersendet() );
+		assertEquals( JETZT, cron.getZeitpunktFehlgeschlagen() );
+		assertEquals( 8L, cron.getPostausgangId() );
+	}
+
+
+	private static PostausgangEntity neueEmail( long id ) {
+
+		final PostausgangEntity email = new PostausgangEntity( "Betreff", "Text", JETZT );
+		ReflectionTestUtils.setField( email, "_id", id );
+		return email;
+	}
+
+
+	private static ReminderEntity neuerReminder( long id, long postausgangId, Wiederholung wiederholung, String cron ) {
+
+		final ReminderEntity reminder = new ReminderEntity( "Reminder", JETZT, wiederholung, cron );
+		reminder.setId( id );
+		reminder.inPostausgangUebernommen( postausgangId );
+		return reminder;
+	}
+
+}
@@ -0,0 +1,172 @@
+package de.eldecker.spring.reminder.logik;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import de.eldecker.spring.reminder.db_journal.ReminderJournalRepo;
+import de.eldecker.spring.reminder.db_jpa.ReminderArchivRepo;
+import de.eldecker.spring.reminder.db_jpa.ReminderEntity;
+import de.eldecker.spring.reminder.model.ReminderAngelegtEvent;
+import de.eldecker.spring.reminder.model.SuchErgebnis;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+
+/**
+ * Unit-Tests für {@link ReminderSuche}, ohne Spring-Kontext; als Speicher wird das
+ * Journal in einem temporären Verzeichnis verwendet.
+ */
+class ReminderSucheTests {
+
+	private static final LocalDateTime FAELLIG = LocalDateTime.of( 2026, 3, 1, 12, 0 );
+
+	@TempDir
+	private Path _verzeichnis;
+
+	private ReminderJournalRepo _reminderSpeicher;
+
+	private ReminderSuche _reminderSuche;
+
+
+	@BeforeEach
+	void erzeugen() throws IOException {
+
+		_reminderSpeicher = new ReminderJournalRepo( _verzeichnis.resolve( "reminder.journal" ).toString(),
+		                                             mock( ReminderArchivRepo.class ),
+		                                             new SimpleMeterRegistry() );
+
+		_reminderSuche = new ReminderSuche( _reminderSpeicher, new SimpleMeterRegistry() );
+		ReflectionTestUtils.setField( _reminderSuche, "_batchGroesse", 2 );
+	}
+
+
+	@AfterEach
+	void schliessen() {
+
+		_reminderSpeicher.schliessen();
+	}
+
+
+	/**
+	 * Ein Treffer für das ganze Wort ist relevanter als Treffer über ein Präfix; bei
+	 * gleicher Relevanz kommt der neuere Reminder zuerst. Bei mehreren Suchbegriffen
+	 * müssen alle enthalten sein.
+	 */
+	@Test
+	void reihenfolgeNachRelevanz() {
+
+		final long idZahn     = anlegen( "Zahn ziehen lassen" );
+		final long idZahnarzt = anlegen( "Zahnarzt anrufen"   );
+		final long idBuerste  = anlegen( "Zahnbürste kaufen"  );
+		final long idMilch    = anlegen( "Milch kaufen"       );
+		_reminderSuche.neuAufbauen();
+
+		final SuchErgebnis ergebnis = _reminderSuche.suche( "ZAHN", 0, 10 );
+		assertEquals( 3, ergebnis.anzahlTreffer() );
+		assertEquals( List.of( idZahn, idBuerste, idZahnarzt ), ids( ergebnis ) );
+
+		assertEquals( List.of( idMilch ), ids( _reminderSuche.suche( "kaufen, Milch", 0, 10 ) ) );
+		assertEquals( List.of(), ids( _reminderSuche.suche( "Milch Zahn", 0, 10 ) ) );
+
+		final SuchErgebnis ersteSeite = _reminderSuche.suche( "zahn", 0, 2 );
+		assertEquals( List.of( idZahn, idBuerste ), ids( ersteSeite ) );
+		assertTrue( ersteSeite.hatWeitere() );
+		assertEquals( List.of( idZahnarzt ), ids( _reminderSuche.suche( "zahn", 1, 2 ) ) );
+	}
+
+
+	/**
+	 * Seiten hinter dem letzten Treffer sind leer, auch bei Seitennummern, bei denen das
+	 * Produkt mit der Seitengröße nicht mehr in einen {@code int} passt.
+	 */
+	@Test
+	void seiteHinterLetztemTrefferIstLeer() {
+
+		anlegen( "Zahn ziehen lassen" );
+		anlegen( "Zahnarzt anrufen"   );
+		_reminderSuche.neuAufbauen();
+
+		for ( int seite : new int[] { 1, 100_000_000, Integer.MAX_VALUE } ) {
+
+			final SuchErgebnis ergebnis = _reminderSuche.suche( "zahn", seite, 50 );
+			assertEquals( List.of(), ids( ergebnis ) );
+			assertEquals( 2, ergebnis.anzahlTreffer() );
+			assertFalse( ergebnis.hatWeitere() );
+		}
+	}
+
+
+	/**
+	 * Ein nach dem Aufbau des Index angelegter Reminder wird über das Event sofort
+	 * gefunden, ohne Neuaufbau; ein direkt im Speicher angelegter Reminder nach dem
+	 * Nachziehen.
+	 */
+	@Test
+	void inkrementellHinzufuegen() {
+
+		anlegen( "Milch kaufen" );
+		_reminderSuche.neuAufbauen();
+		assertEquals( 0, _reminderSuche.suche( "Steuererklärung", 0, 10 ).anzahlTreffer() );
+
+		final long idSteuer = anlegen( "Steuererklärung abgeben" );
+		_reminderSuche.onReminderAngelegt( new ReminderAngelegtEvent( idSteuer, FAELLIG, "Steuererklärung abgeben", null ) );
+		assertEquals( List.of( idSteuer ), ids( _reminderSuche.suche( "steuer", 0, 10 ) ) );
+
+		final long idBerater = anlegen( "Steuerberater anrufen" );
+		assertEquals( 1, _reminderSuche.suche( "steuer", 0, 10 ).anzahlTreffer() );
+		_reminderSuche.nachziehen();
+		assertEquals( List.of( idBerater, idSteuer ), ids( _reminderSuche.suche( "steuer", 0, 10 ) ) );
+	}
+
+
+	/**
+	 * Ein archivierter (also aus dem Speicher gelöschter) Reminder wird nicht mehr
+	 * angezeigt; ab der nächsten Suche zählt er auch nicht mehr als Treffer.
+	 */
+	@Test
+	void entfernenNachArchivierung() {
+
+		final long idAlt = anlegen( "Reifen wechseln" );
+		final long idNeu = anlegen( "Reifen kaufen"   );
+		_reminderSuche.neuAufbauen();
+
+		_reminderSpeicher.deleteAllByIdInBatch( List.of( idAlt ) );
+
+		assertEquals( List.of( idNeu ), ids( _reminderSuche.suche( "reifen", 0, 10 ) ) );
+
+		final SuchErgebnis ergebnis = _reminderSuche.suche( "reifen", 0, 10 );
+		assertEquals( List.of( idNeu ), ids( ergebnis ) );
+		assertEquals( 1, ergebnis.anzahlTreffer() );
+		assertFalse( ergebnis.hatWeitere() );
+		assertEquals( 0, _reminderSuche.suche( "wechseln", 0, 10 ).anzahlTreffer() );
+
+		_reminderSuche.neuAufbauen();
+		assertEquals( 1, _reminderSuche.suche( "reifen", 0, 10 ).anzahlTreffer() );
+	}
+
+
+	private long anlegen( String text ) {
+
+		return _reminderSpeicher.save( new ReminderEntity( text, FAELLIG ) ).getId();
+	}
+
+
+	private static List<Long> ids( SuchErgebnis ergebnis ) {
+
+		return ergebnis.reminder().stream().map( ReminderEntity::getId ).toList();
+	}
+
+}
@@ -0,0 +1,75 @@
+package de.eldecker.spring.reminder.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Unit-Tests für {@link Wiederholung#naechsterZeitpunkt(LocalDateTime, String, LocalDateTime)}.
+ */
+class WiederholungTests {
+
+	/**
+	 * Ein monatlicher Reminder am 31. ist im Februar am letzten Tag des Monats fällig
+	 * (auch im Schaltjahr) und danach wieder am 31., weil vom Anker aus gerechnet wird.
+	 */
+	@Test
+	void monatlichAmMonatsende() {
+
+		final LocalDateTime anker = LocalDateTime.of( 2026, 1, 31, 9, 0 );
+
+		final LocalDateTime februar = Wiederholung.MONATLICH.naechsterZeitpunkt( anker, null, anker );
+		assertEquals( LocalDateTime.of( 2026, 2, 28, 9, 0 ), februar );
+
+		final LocalDateTime maerz = Wiederholung.MONATLICH.naechsterZeitpunkt( anker, null, februar );
+		assertEquals( LocalDateTime.of( 2026, 3, 31, 9, 0 ), maerz );
+
+		final LocalDateTime ankerSchaltjahr = LocalDateTime.of( 2028, 1, 31, 9, 0 );
+		assertEquals( LocalDateTime.of( 2028, 2, 29, 9, 0 ),
+		              Wiederholung.MONATLICH.naechsterZeitpunkt( ankerSchaltjahr, null, ankerSchaltjahr ) );
+	}
+
+
+	/**
+	 * Nach einem Neustart nach längerer Downtime werden die verpassten Fälligkeiten
+	 * übersprungen: Ergebnis ist die erste Fälligkeit nach "jetzt", zur Uhrzeit des Ankers.
+	 */
+	@Test
+	void verpassteFaelligkeitenNachDowntimeUeberspringen() {
+
+		final LocalDateTime anker = LocalDateTime.of( 2026, 3, 1, 8, 0 );
+		final LocalDateTime jetzt = LocalDateTime.of( 2026, 3, 10, 12, 0 );
+
+		assertEquals( LocalDateTime.of( 2026, 3, 11, 8, 0 ),
+		              Wiederholung.TAEGLICH.naechsterZeitpunkt( anker, null, jetzt ) );
+		assertEquals( LocalDateTime.of( 2026, 3, 15, 8, 0 ),
+		              Wiederholung.WOECHENTLICH.naechsterZeitpunkt( anker, null, jetzt ) );
+		assertEquals( LocalDateTime.of( 2027, 3, 1, 8, 0 ),
+		              Wiederholung.JAEHRLICH.naechsterZeitpunkt( anker, null, jetzt ) );
+
+		// genau zum Fälligkeitszeitpunkt zählt dieser schon als versendet
+		assertEquals( LocalDateTime.of( 2026, 3, 11, 8, 0 ),
+		              Wiederholung.TAEGLICH.naechsterZeitpunkt( anker, null, LocalDateTime.of( 2026, 3, 10, 8, 0 ) ) );
+	}
+
+
+	/**
+	 * Für Cron-Ausdrücke wird der Anker ignoriert; hat der Ausdruck keine weitere
+	 * Fälligkeit, dann ist das Ergebnis {@code null}.
+	 */
+	@Test
+	void cronAusdruck() {
+
+		final LocalDateTime freitag = LocalDateTime.of( 2026, 3, 6, 9, 0 );
+
+		assertEquals( LocalDateTime.of( 2026, 3, 9, 8, 0 ),
+		              Wiederholung.CRON.naechsterZeitpunkt( null, "0 0 8 * * MON-FRI", freitag ) );
+
+		assertNull( Wiederholung.CRON.naechsterZeitpunkt( null, "0 0 8 31 2 *", freitag ) );
+	}
+
+}
@@ -0,0 +1,149 @@
+package de.eldecker.spring.reminder.reminder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import de.eldecker.spring.reminder.db_jpa.ReminderRepo;
+
+
+/**
+ * Skalierungstest für die Suche nach fälligen Remindern mit mehr als einer Million
+ * Zeilen in einer dateibasierten H2-Datenbank (unter {@code target/}).
+ * <br><br>
+ *
+ * Wegen der Laufzeit wird der Test nur ausgeführt, wenn er explizit eingeschaltet wird:
+ * <pre>
+ * ./mvnw test -Dskalierungstest=true -Dtest=ReminderSkalierungTests
+ * </pre>
+ */
+@SpringBootTest( properties = "spring.datasource.url=jdbc:h2:file:./target/skalierungstest/reminder" )
+@EnabledIfSystemProperty( named = "skalierungstest", matches = "true" )
+class ReminderSkalierungTests {
+
+	private static Logger LOG = LoggerFactory.getLogger( ReminderSkalierungTests.class );
+
+	private static final int ANZAHL_OFFEN = 1_000;
+
+	private static final int ANZAHL_VERSENDET = 1_200_000;
+
+	private static final int BATCH_GROESSE = 10_000;
+
+	/** Erste ID für die Testdaten, damit es keine Kollision mit den Demo-Daten gibt. */
+	private static final long ID_START = 100_000_000L;
+
+	/** Obergrenze für den Median der Abfragezeit (Millisekunden), unabhängig von der Anzahl versendeter Reminder. */
+	private static final long MAX_MILLIS_ABFRAGE = 250;
+
+	/** Alle offenen Reminder sind vor diesem Zeitpunkt fällig. */
+	private static final LocalDateTime ABFRAGE_ZEITPUNKT = LocalDateTime.of( 2101, 1, 1, 0, 0 );
+
+	private static final String SQL_INSERT =
+			"""
+			INSERT INTO REMINDER ( ID, REMINDER_TEXT, ZEITPUNKT_ANGELEGT, ZEITPUNKT_FAELLIG,
+			                       ZEITPUNKT_VERSENDET, SCHON_VERSENDET )
+			     VALUES ( ?, ?, ?, ?, ?, ? )
+			""";
+
+	@Autowired
+	private JdbcTemplate _jdbcTemplate;
+
+	@Autowired
+	private ReminderRepo _reminderRepo;
+
+
+	@Test
+	void faelligeReminderOhneScanUeberVersendeteReminder() {
+
+		_jdbcTemplate.execute( "TRUNCATE TABLE REMINDER" );
+
+		einfuegen( ID_START, ANZAHL_OFFEN, false );
+		final long millisVorher = messeAbfrage();
+
+		einfuegen( ID_START + ANZAHL_OFFEN, ANZAHL_VERSENDET, true );
+		final long millisNachher = messeAbfrage();
+
+		LOG.info( "Suche faellige Reminder: {} ms bei 0 versendeten, {} ms bei {} versendeten Remindern",
+				  millisVorher, millisNachher, ANZAHL_VERSENDET );
+
+		final String plan = _jdbcTemplate.queryForObject(
+				"EXPLAIN SELECT ID FROM REMINDER " +
+				"WHERE SCHON_VERSENDET = FALSE AND ZEITPUNKT_FAELLIG < ? " +
+				"AND ( BEANSPRUCHT_BIS IS NULL OR BEANSPRUCHT_BIS < ? ) AND POSTAUSGANG_ID IS NULL " +
+				"ORDER BY ZEITPUNKT_FAELLIG, ID",
+				String.class, Timestamp.valueOf( ABFRAGE_ZEITPUNKT ), Timestamp.valueOf( ABFRAGE_ZEITPUNKT ) );
+
+		assertTrue( plan.contains( "IDX_REMINDER_FAELLIG" ), "Index wird nicht verwendet:\n" + plan );
+		assertTrue( millisNachher <= 3 * millisVorher + 20,
+				    "Abfragezeit waechst mit Anzahl versendeter Reminder: " + millisVorher + " ms -> " + millisNachher + " ms" );
+		assertTrue( millisNachher <= MAX_MILLIS_ABFRAGE,
+				    "Abfragezeit " + millisNachher + " ms ueber Obergrenze von " + MAX_MILLIS_ABFRAGE + " ms" );
+	}
+
+
+	/**
+	 * Median der Laufzeit von mehreren Abfragen nach fälligen Remindern.
+	 */
+	private long messeAbfrage() {
+
+		final long[] laufzeiten = new long[ 11 ];
+		for ( int i = 0; i < laufzeiten.length; i++ ) {
+
+			final long start = System.nanoTime();
+			final int anzahl = _reminderRepo.findFreieFaelligeReminderIds( ABFRAGE_ZEITPUNKT, Limit.of( ANZAHL_OFFEN ) ).size();
+			laufzeiten[ i ] = ( System.nanoTime() - start ) / 1_000_000;
+
+			assertEquals( ANZAHL_OFFEN, anzahl );
+		}
+		Arrays.sort( laufzeiten );
+
+		return laufzeiten[ laufzeiten.length / 2 ];
+	}
+
+
+	private void einfuegen( long ersteId, int anzahl, boolean schonVersendet ) {
+
+		final LocalDateTime angelegt = LocalDateTime.of( 2025, 1, 1, 0, 0 );
+
+		final List<Object[]> batch = new ArrayList<>( BATCH_GROESSE );
+		for ( int i = 0; i < anzahl; i++ ) {
+
+			final LocalDateTime faellig = schonVersendet
+					                      ? angelegt.plusMinutes( i )
+					                      : ABFRAGE_ZEITPUNKT.minusMinutes( i + 1 );
+			batch.add( new Object[] {
+					ersteId + i,
+					"Skalierungstest " + i,
+					Timestamp.valueOf( angelegt ),
+					Timestamp.valueOf( faellig ),
+					schonVersendet ? Timestamp.valueOf( faellig ) : null,
+					schonVersendet
+			} );
+
+			if ( batch.size() == BATCH_GROESSE ) {
+
+				_jdbcTemplate.batchUpdate( SQL_INSERT, batch );
+				batch.clear();
+			}
+		}
+		if ( !batch.isEmpty() ) {
+
+			_jdbcTemplate.batchUpdate( SQL_INSERT, batch );
+		}
+	}
+
+}
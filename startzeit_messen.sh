@@ -0,0 +1,53 @@
+#!/bin/bash
+#
+# Misst die Zeit vom Start der JVM bis zur ersten erfolgreich beantworteten HTTP-Anfrage
+# ("time to first request"), jeweils mehrmals hintereinander, und gibt Minimum, Median und
+# Maximum in Millisekunden aus.
+#
+# Vorher bauen (erzeugt auch AOT-Code und CDS-Archiv im Ordner target/cds):
+#   ./mvnw -P startzeit -DskipTests package
+#
+# Aufruf:
+#   ./startzeit_messen.sh [standard|cds] [anzahl_laeufe] [port]
+#
+#   standard : java -jar target/reminder-0.0.1-SNAPSHOT.jar
+#   cds      : entpacktes Jar aus target/cds mit Spring-AOT-Code und CDS-Archiv
+#
+
+MODUS=${1:-standard}
+ANZAHL=${2:-5}
+PORT=${3:-8080}
+
+JAR_NAME=reminder-0.0.1-SNAPSHOT.jar
+URL=http://localhost:$PORT/index.html
+
+case $MODUS in
+    standard) JAVA_ARGS="-jar target/$JAR_NAME" ;;
+    cds)      JAVA_ARGS="-XX:SharedArchiveFile=target/cds/reminder.jsa -Dspring.aot.enabled=true -jar target/cds/$JAR_NAME" ;;
+    *)        echo "Unbekannter Modus: $MODUS (erlaubt: standard, cds)"; exit 1 ;;
+esac
+
+ERGEBNISSE=()
+for (( i = 1; i <= ANZAHL; i++ )); do
+
+    START=$(date +%s%N)
+    java $JAVA_ARGS --server.port=$PORT > target/startzeit-$MODUS.log 2>&1 &
+    PID=$!
+
+    until curl -s -o /dev/null -f $URL; do
+        if ! kill -0 $PID 2> /dev/null; then
+            echo "Anwendung wurde beendet, siehe target/startzeit-$MODUS.log"; exit 1
+        fi
+        sleep 0.02
+    done
+    MILLIS=$(( ( $(date +%s%N) - START ) / 1000000 ))
+    ERGEBNISSE+=($MILLIS)
+
+    SPRING=$(grep -o "Started .* in [0-9.]* seconds" target/startzeit-$MODUS.log | grep -o "in [0-9.]* seconds")
+    echo "Lauf $i: erste Anfrage nach $MILLIS ms (Spring Boot: $SPRING)"
+
+    kill $PID; wait $PID 2> /dev/null
+done
+
+SORTIERT=($(printf "%s\n" "${ERGEBNISSE[@]}" | sort -n))
+echo "Modus $MODUS, $ANZAHL Laeufe: min=${SORTIERT[0]} ms, median=${SORTIERT[$(( ANZAHL / 2 ))]} ms, max=${SORTIERT[$(( ANZAHL - 1 ))]} ms"